@@ -1,11 +1,13 @@
 package com.itu.cloud.config;
 
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.cloud.firestore.Firestore;
-import com.google.firebase.cloud.FirestoreClient;
+import com.google.cloud.firestore.FirestoreOptions;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
@@ -13,6 +15,11 @@ import org.springframework.core.io.ClassPathResource;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Configuration
 public class FirebaseConfig {
@@ -20,7 +27,20 @@ public class FirebaseConfig {
     @Value("${firebase.config.path:firebase-service-account.json}")
     private String firebaseConfigPath;
 
-    private volatile Firestore cachedFirestore;
+    /** Délai avant fermeture d'un client remplacé, le temps que ses appels en cours se terminent. */
+    @Value("${sync.firestore.close-grace-ms:30000}")
+    private long closeGraceMs;
+
+    private volatile GoogleCredentials credentials;
+    private volatile String projectId;
+
+    private final AtomicReference<Firestore> current = new AtomicReference<>();
+    private final AtomicBoolean replacing = new AtomicBoolean();
+    private final ScheduledExecutorService closer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "firestore-closer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     @PostConstruct
     public void initialize() {
@@ -28,11 +48,11 @@ public class FirebaseConfig {
     }
 
     /**
-     * Initialise FirebaseApp si nécessaire.
+     * Charge les identifiants et initialise FirebaseApp si nécessaire.
      */
     private synchronized void initializeFirebase() {
         try {
-            if (FirebaseApp.getApps().isEmpty()) {
+            if (credentials == null) {
                 InputStream serviceAccount;
 
                 // Essayer de charger depuis les ressources classpath
@@ -42,9 +62,16 @@ public class FirebaseConfig {
                     // Sinon, essayer depuis le système de fichiers
                     serviceAccount = new FileInputStream(firebaseConfigPath);
                 }
-
+                try (InputStream in = serviceAccount) {
+                    credentials = GoogleCredentials.fromStream(in);
+                }
+                if (credentials instanceof ServiceAccountCredentials) {
+                    projectId = ((ServiceAccountCredentials) credentials).getProjectId();
+                }
+            }
+            if (FirebaseApp.getApps().isEmpty()) {
                 FirebaseOptions options = FirebaseOptions.builder()
-                        .setCredentials(GoogleCredentials.fromStream(serviceAccount))
+                        .setCredentials(credentials)
                         .build();
 
                 FirebaseApp.initializeApp(options);
@@ -57,48 +84,85 @@ public class FirebaseConfig {
     }
 
     /**
-     * Supprime l'ancien FirebaseApp et réinitialise tout.
-     * Appelé quand le client Firestore est fermé/invalide.
+     * Crée un client Firestore indépendant de FirebaseApp : le remplacer ne
+     * touche ni à l'application ni aux autres clients.
      */
-    public synchronized void reinitialize() {
-        System.out.println("🔄 Réinitialisation de Firebase...");
-        try {
-            // Fermer l'ancien Firestore proprement
-            if (cachedFirestore != null) {
-                try { cachedFirestore.close(); } catch (Exception ignored) { }
-                cachedFirestore = null;
-            }
-            // Supprimer l'ancienne app Firebase
-            if (!FirebaseApp.getApps().isEmpty()) {
-                FirebaseApp.getInstance().delete();
-            }
-            // Réinitialiser
-            initializeFirebase();
-            cachedFirestore = null; // sera recréé au prochain appel
-            System.out.println("✅ Firebase réinitialisé avec succès");
-        } catch (Exception e) {
-            System.err.println("⚠️ Firebase reinitialization failed: " + e.getMessage());
+    private Firestore createFirestore() {
+        if (credentials == null) initializeFirebase();
+        if (credentials == null) {
+            throw new IllegalStateException("Firestore non disponible. Vérifiez firebase-service-account.json.");
         }
+        FirestoreOptions.Builder options = FirestoreOptions.newBuilder().setCredentials(credentials);
+        if (projectId != null) options.setProjectId(projectId);
+        return options.build().getService();
     }
 
     /**
-     * Retourne une instance Firestore valide.
-     * Si le client est fermé, réinitialise Firebase et en crée un nouveau.
+     * Retourne le client Firestore courant, créé au premier appel.
+     * Sans verrou une fois le client créé.
      */
     public Firestore getFirestore() {
-        if (FirebaseApp.getApps().isEmpty()) {
-            reinitialize();
+        Firestore firestore = current.get();
+        if (firestore != null) return firestore;
+        synchronized (this) {
+            if (current.get() == null) current.set(createFirestore());
+            return current.get();
         }
-        if (cachedFirestore == null) {
-            cachedFirestore = FirestoreClient.getFirestore();
+    }
+
+    /**
+     * Remplace le client {@code broken} (fermé, canal inutilisable) par un nouveau.
+     *
+     * Un seul thread reconstruit le client ; les autres ne l'attendent pas : ils
+     * continuent avec le client courant et leurs appels en échec sont réessayés.
+     * Sans effet si {@code broken} a déjà été remplacé. L'ancien client est fermé
+     * après un délai de grâce.
+     */
+    public void replaceFirestore(Firestore broken) {
+        if (current.get() != broken || !replacing.compareAndSet(false, true)) return;
+        try {
+            System.out.println("🔄 Remplacement du client Firestore...");
+            Firestore fresh = createFirestore();
+            if (current.compareAndSet(broken, fresh)) {
+                if (broken != null) closeLater(broken);
+                System.out.println("✅ Client Firestore remplacé");
+            } else {
+                closeLater(fresh);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Firestore client replacement failed: " + e.getMessage());
+        } finally {
+            replacing.set(false);
         }
-        return cachedFirestore;
     }
 
     /**
-     * Réinitialise le cache Firestore (appelé après une erreur "client closed").
+     * Remplace le client courant (erreur "client closed" ou reconnexion demandée).
      */
-    public void invalidateFirestore() {
-        cachedFirestore = null;
+    public void reinitialize() {
+        replaceFirestore(current.get());
+    }
+
+    private void closeLater(Firestore firestore) {
+        closer.schedule(() -> {
+            try {
+                firestore.close();
+            } catch (Exception ignored) {
+                // Client déjà fermé
+            }
+        }, closeGraceMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closer.shutdownNow();
+        Firestore firestore = current.getAndSet(null);
+        if (firestore != null) {
+            try {
+                firestore.close();
+            } catch (Exception ignored) {
+                // Arrêt de l'application
+            }
+        }
     }
 }
@@ -0,0 +1,25 @@
+package com.itu.cloud.config;
+
+import com.itu.cloud.service.SyncMetrics;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Compte chaque requête SQL préparée par Hibernate (métrique sync.sql.statements,
+     * imputée à la phase de synchro en cours) sans la modifier.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounter(SyncMetrics syncMetrics) {
+        StatementInspector inspector = sql -> {
+            syncMetrics.recordStatement();
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+}
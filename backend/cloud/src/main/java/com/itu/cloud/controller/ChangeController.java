@@ -0,0 +1,53 @@
+package com.itu.cloud.controller;
+
+import com.itu.cloud.entity.ChangeLogEntry;
+import com.itu.cloud.mapper.EntityToDtoMapper;
+import com.itu.cloud.service.ChangeLogService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final ChangeLogService changeLogService;
+
+    public ChangeController(ChangeLogService changeLogService) {
+        this.changeLogService = changeLogService;
+    }
+
+    /**
+     * Flux delta pour les clients : changements (user, report, photo) après
+     * {@code after}, par seq croissant. Le client rappelle avec "next" ;
+     * "reset" indique que des changements ont été purgés depuis sa position
+     * et qu'il doit recharger ses données.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> list(@RequestParam(defaultValue = "0") long after,
+                                                    @RequestParam(required = false) List<String> entity,
+                                                    @RequestParam(defaultValue = "200") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<ChangeLogEntry> changes = entity == null || entity.isEmpty()
+                ? changeLogService.read(after, pageSize)
+                : changeLogService.read(after, entity, pageSize);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("changes", changes.stream().map(EntityToDtoMapper::toChangeDTO).collect(Collectors.toList()));
+        result.put("next", changes.isEmpty() ? after : changes.get(changes.size() - 1).getSeq());
+        result.put("hasMore", changes.size() == pageSize);
+        long oldest = changeLogService.oldestSeq();
+        result.put("reset", after > 0 && oldest > after + 1);
+        return ResponseEntity.ok(result);
+    }
+}
@@ -5,11 +5,16 @@ import com.itu.cloud.entity.Entreprise;
 import com.itu.cloud.entity.HistoReport;
 import com.itu.cloud.entity.Report;
 import com.itu.cloud.mapper.EntityToDtoMapper;
+import com.itu.cloud.repository.ProcessingStats;
+import com.itu.cloud.repository.ReportFilter;
+import com.itu.cloud.service.ReportPage;
+import com.itu.cloud.service.ReportSpatialIndex;
 import com.itu.cloud.service.ReportService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
@@ -30,6 +35,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.itu.cloud.service.ConfigEntryService;
 import com.itu.cloud.service.EntrepriseService; 
 import com.itu.cloud.service.HistoReportService;
+import com.itu.cloud.service.ProcessingStatsService;
 
 @CrossOrigin
 @RestController
@@ -44,54 +50,152 @@ public class ReportController {
 
     private final ConfigEntryService configEntryService;
 
-    public ReportController(ReportService reportService , EntrepriseService entrepriseService, HistoReportService histoReportService, ConfigEntryService configEntryService) {
+    private final ProcessingStatsService processingStatsService;
+
+    private final ReportSpatialIndex reportSpatialIndex;
+
+    public ReportController(ReportService reportService , EntrepriseService entrepriseService, HistoReportService histoReportService, ConfigEntryService configEntryService, ProcessingStatsService processingStatsService, ReportSpatialIndex reportSpatialIndex) {
         this.reportService = reportService;
         this.entrepriseService = entrepriseService;
         this.histoReportService = histoReportService;
         this.configEntryService = configEntryService;
+        this.processingStatsService = processingStatsService;
+        this.reportSpatialIndex = reportSpatialIndex;
     }
 
+    /**
+     * Délai entre le premier passage "en_cours" et le dernier "termine" :
+     * moyenne, médiane, p90 et p99. Sans filtre, la réponse vient des
+     * statistiques tenues à jour en mémoire ; avec des filtres (fin de
+     * traitement entre from et to, une date seule couvrant toute la journée ;
+     * entreprise ; niveau), d'une requête SQL sur l'historique.
+     */
     @GetMapping("/stats")
-    public java.util.Map<String, Object> stats() {
-        // Compute average processing time between first en_cours and termine for reports that have both
-        java.util.List<Report> all = reportService.findAll();
-        long totalSeconds = 0L;
-        int count = 0;
-        for (Report r : all) {
-            java.util.List<HistoReport> history = histoReportService.findByReportId(r.getId());
-            java.time.LocalDateTime enCoursAt = null;
-            java.time.LocalDateTime termineAt = null;
-            for (HistoReport h : history) {
-                String s = h.getStatus();
-                if (s == null) continue;
-                if (s.equalsIgnoreCase("en_cours") || s.equalsIgnoreCase("en-cours")) {
-                    if (enCoursAt == null || h.getDateChangement().isBefore(enCoursAt)) enCoursAt = h.getDateChangement();
-                }
-                if (s.equalsIgnoreCase("termine") || s.equalsIgnoreCase("terminer")) {
-                    if (termineAt == null || h.getDateChangement().isAfter(termineAt)) termineAt = h.getDateChangement();
-                    termineAt = h.getDateChangement();
-                }
-            }
-            if (enCoursAt != null && termineAt != null && termineAt.isAfter(enCoursAt)) {
-                totalSeconds += java.time.Duration.between(enCoursAt, termineAt).getSeconds();
-                count++;
-            }
+    public java.util.Map<String, Object> stats(@RequestParam(required = false) String from,
+                                               @RequestParam(required = false) String to,
+                                               @RequestParam(required = false) Long entrepriseId,
+                                               @RequestParam(required = false) Integer niveau) {
+        boolean filtered = (from != null && !from.isBlank()) || (to != null && !to.isBlank())
+                || entrepriseId != null || niveau != null;
+        if (!filtered) {
+            java.util.Map<String, Object> incremental = processingStatsService.getStats();
+            if (incremental != null) return incremental;
         }
-        double avgSeconds = count > 0 ? (double) totalSeconds / count : 0.0;
+        ProcessingStats stats = histoReportService.computeProcessingStats(
+                parseDateString(from), parseEndDateString(to), entrepriseId, niveau);
+        long count = stats != null && stats.getCount() != null ? stats.getCount() : 0L;
         java.util.Map<String, Object> result = new java.util.LinkedHashMap<>();
-        result.put("average_processing_seconds", avgSeconds);
+        result.put("average_processing_seconds", count > 0 ? stats.getAverageSeconds() : 0.0);
+        result.put("p50_processing_seconds", count > 0 ? stats.getP50Seconds() : null);
+        result.put("p90_processing_seconds", count > 0 ? stats.getP90Seconds() : null);
+        result.put("p99_processing_seconds", count > 0 ? stats.getP99Seconds() : null);
+        result.put("min_processing_seconds", count > 0 ? stats.getMinSeconds() : null);
+        result.put("max_processing_seconds", count > 0 ? stats.getMaxSeconds() : null);
         result.put("count_processed", count);
+        result.put("source", "sql");
         return result;
     }
 
+    /**
+     * Nombre de reports par statut et total, agrégés en base : la page de
+     * statistiques n'a pas à charger les reports. userId restreint à un auteur.
+     */
+    @GetMapping("/status-counts")
+    public java.util.Map<String, Object> statusCounts(@RequestParam(required = false) Long userId) {
+        java.util.Map<String, Long> byStatus = reportService.countByStatus(userId);
+        java.util.Map<String, Object> result = new java.util.LinkedHashMap<>();
+        result.put("total", byStatus.values().stream().mapToLong(Long::longValue).sum());
+        result.put("by_status", byStatus);
+        return result;
+    }
+
+    /**
+     * Liste paginée des reports, du plus récent au plus ancien. Les filtres
+     * se combinent ; createdFrom/createdTo bornent la date de création (une
+     * date seule en fin de plage couvre toute la journée). La page suivante
+     * s'obtient en repassant nextCursor, absent sur la dernière page.
+     */
     @GetMapping
-    public List<ReportSummaryDTO> list(@RequestParam(required = false) String status,
-                                       @RequestParam(required = false) Long userId) {
-        List<Report> reports;
-        if (status != null) reports = reportService.findByStatus(status);
-        else if (userId != null) reports = reportService.findByUserId(userId);
-        else reports = reportService.findAll();
-        return reports.stream().map(EntityToDtoMapper::toReportSummary).collect(Collectors.toList());
+    public ResponseEntity<?> list(@RequestParam(required = false) String status,
+                                  @RequestParam(required = false) Long userId,
+                                  @RequestParam(required = false) Long entrepriseId,
+                                  @RequestParam(required = false) Integer niveau,
+                                  @RequestParam(required = false) String createdFrom,
+                                  @RequestParam(required = false) String createdTo,
+                                  @RequestParam(required = false) BigDecimal minBudget,
+                                  @RequestParam(required = false) BigDecimal maxBudget,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(required = false) Integer limit) {
+        try {
+            ReportFilter filter = new ReportFilter();
+            filter.setStatus(status != null && !status.isBlank() ? status : null);
+            filter.setUserId(userId);
+            filter.setEntrepriseId(entrepriseId);
+            filter.setNiveau(niveau);
+            filter.setCreatedFrom(parseDateString(createdFrom));
+            filter.setCreatedTo(parseEndDateString(createdTo));
+            filter.setMinBudget(minBudget);
+            filter.setMaxBudget(maxBudget);
+            ReportPage page = reportService.findPage(filter, cursor, limit);
+            return ResponseEntity.ok(EntityToDtoMapper.toReportPage(page));
+        } catch (IllegalArgumentException e) {
+            java.util.Map<String, Object> error = new java.util.HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    /**
+     * Marqueurs des reports situés dans la zone affichée par la carte (bornes
+     * incluses), au plus reports.bbox.max-results ; truncated signale qu'il
+     * y en a d'autres.
+     */
+    @GetMapping("/bbox")
+    public ResponseEntity<java.util.Map<String, Object>> bbox(@RequestParam double minLat,
+                                                              @RequestParam double minLng,
+                                                              @RequestParam double maxLat,
+                                                              @RequestParam double maxLng) {
+        ReportSpatialIndex.Box box;
+        try {
+            box = reportSpatialIndex.findInBox(minLat, minLng, maxLat, maxLng);
+        } catch (IllegalArgumentException e) {
+            java.util.Map<String, Object> error = new java.util.HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+        java.util.Map<String, Object> result = new java.util.LinkedHashMap<>();
+        result.put("reports", box.getPoints().stream().map(EntityToDtoMapper::toReportPoint).collect(Collectors.toList()));
+        result.put("truncated", box.isTruncated());
+        result.put("source", box.getSource());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Reports de la zone regroupés par cellule de grille au zoom de la carte
+     * (nombre, barycentre, statuts, budget cumulé) ; aux zooms les plus
+     * proches, un groupe par report. 400 si la zone est invalide, si le
+     * zoom sort de [0, 22] ou si la zone recouvre trop de cellules à ce zoom.
+     */
+    @GetMapping("/clusters")
+    public ResponseEntity<java.util.Map<String, Object>> clusters(@RequestParam double minLat,
+                                                                  @RequestParam double minLng,
+                                                                  @RequestParam double maxLat,
+                                                                  @RequestParam double maxLng,
+                                                                  @RequestParam int zoom) {
+        ReportSpatialIndex.Clusters clusters;
+        try {
+            clusters = reportSpatialIndex.findClusters(minLat, minLng, maxLat, maxLng, zoom);
+        } catch (IllegalArgumentException e) {
+            java.util.Map<String, Object> error = new java.util.HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+        java.util.Map<String, Object> result = new java.util.LinkedHashMap<>();
+        result.put("zoom", zoom);
+        result.put("clusters", clusters.getClusters().stream().map(EntityToDtoMapper::toReportCluster).collect(Collectors.toList()));
+        result.put("truncated", clusters.isTruncated());
+        result.put("source", clusters.getSource());
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping("/{id}")
@@ -168,6 +272,7 @@ public class ReportController {
                 .orElseThrow(() -> new IllegalArgumentException("Rapport avec l'identifiant " + id_report + " non trouvée."));
 
         report.setStatus("en_cours");
+        report.setNiveau(niveau);
 
         // Calcul automatique du budget: prix_par_m2 * niveau * surface_m2
         Optional<String> prixM2Opt = configEntryService.findByKey("reports.prix.m2").map(e -> e.getValue());
@@ -211,6 +316,18 @@ public class ReportController {
         return EntityToDtoMapper.toReportSummary(saved);
     }
 
+    /**
+     * Borne de fin incluse : une date seule désigne la fin de cette journée.
+     */
+    private LocalDateTime parseEndDateString(String dateString) {
+        if (dateString == null || dateString.isBlank()) return null;
+        try {
+            return LocalDate.parse(dateString.trim()).atTime(LocalTime.MAX);
+        } catch (DateTimeParseException e) {
+            return parseDateString(dateString);
+        }
+    }
+
     private LocalDateTime parseDateString(String dateString) {
         if (dateString == null || dateString.isBlank()) return null;
         // Try ISO parse first
@@ -1,93 +1,89 @@
 package com.itu.cloud.controller;
 
+import com.itu.cloud.entity.SyncLease;
 import com.itu.cloud.entity.SyncLog;
 import com.itu.cloud.dto.SyncLogDTO;
 import com.itu.cloud.mapper.EntityToDtoMapper;
 import com.itu.cloud.entity.User;
+import com.itu.cloud.service.ChangeLogService;
+import com.itu.cloud.service.DocumentStore;
 import com.itu.cloud.service.FirebaseSyncService;
+import com.itu.cloud.service.FirestoreListenerService;
+import com.itu.cloud.service.OutboxRelayService;
+import com.itu.cloud.service.SyncLeaseService;
+import com.itu.cloud.service.SyncJob;
+import com.itu.cloud.service.SyncJobService;
 import com.itu.cloud.service.SyncLogService;
+import com.itu.cloud.service.SyncSchedulerService;
 import com.itu.cloud.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @CrossOrigin
 @RestController
 @RequestMapping("/api/sync")
 public class SyncController {
 
-    private final FirebaseSyncService firebaseSyncService;
     private final SyncLogService syncLogService;
     private final UserService userService;
+    private final FirestoreListenerService firestoreListenerService;
+    private final SyncJobService syncJobService;
+    private final OutboxRelayService outboxRelayService;
+    private final SyncLeaseService syncLeaseService;
+    private final SyncSchedulerService syncSchedulerService;
+    private final DocumentStore documentStore;
+    private final ChangeLogService changeLogService;
 
-    public SyncController(FirebaseSyncService firebaseSyncService, 
-                         SyncLogService syncLogService,
-                         UserService userService) {
-        this.firebaseSyncService = firebaseSyncService;
+    public SyncController(SyncLogService syncLogService,
+                         UserService userService,
+                         FirestoreListenerService firestoreListenerService,
+                         SyncJobService syncJobService,
+                         OutboxRelayService outboxRelayService,
+                         SyncLeaseService syncLeaseService,
+                         SyncSchedulerService syncSchedulerService,
+                         DocumentStore documentStore,
+                         ChangeLogService changeLogService) {
         this.syncLogService = syncLogService;
         this.userService = userService;
+        this.firestoreListenerService = firestoreListenerService;
+        this.syncJobService = syncJobService;
+        this.outboxRelayService = outboxRelayService;
+        this.syncLeaseService = syncLeaseService;
+        this.syncSchedulerService = syncSchedulerService;
+        this.documentStore = documentStore;
+        this.changeLogService = changeLogService;
     }
 
     /**
      * Synchronisation complète bidirectionnelle Firebase ↔ PostgreSQL
+     * mode=full (défaut) relit toutes les collections, mode=incremental
+     * ne lit que les documents modifiés depuis la dernière synchronisation,
+     * mode=parallel relit tout en répartissant les reports sur plusieurs workers.
+     * La synchro tourne en arrière-plan : la réponse contient l'id du job
+     * à suivre via GET /api/sync/jobs/{id}.
      */
     @PostMapping("/full")
-    public ResponseEntity<Map<String, Object>> syncAll(@RequestParam(required = false) Long userId) {
-        try {
-            User syncedBy = null;
-            if (userId != null) {
-                syncedBy = userService.findById(userId).orElse(null);
-            }
-            
-            SyncLog result = firebaseSyncService.syncAll(syncedBy);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", result.getStatus());
-            response.put("recordsPulled", result.getRecordsPulled());
-            response.put("recordsPushed", result.getRecordsPushed());
-            response.put("conflicts", result.getConflicts());
-            response.put("syncedAt", result.getSyncedAt());
-            response.put("message", "Synchronisation terminée");
-            
-            if ("failed".equals(result.getStatus())) {
-                response.put("error", result.getErrorMessage());
-                return ResponseEntity.status(500).body(response);
-            }
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("status", "failed");
-            error.put("error", e.getMessage());
-            return ResponseEntity.status(500).body(error);
+    public ResponseEntity<Map<String, Object>> syncAll(@RequestParam(required = false) Long userId,
+                                                       @RequestParam(required = false) String mode) {
+        User syncedBy = null;
+        if (userId != null) {
+            syncedBy = userService.findById(userId).orElse(null);
         }
+        return submitJob(FirebaseSyncService.TYPE_FULL, mode, syncedBy);
     }
 
     /**
      * Pull: Firebase → PostgreSQL (importer les données de Firebase)
      */
     @PostMapping("/pull")
-    public ResponseEntity<Map<String, Object>> pullFromFirebase() {
-        try {
-            int usersPulled = firebaseSyncService.pullUsersFromFirebase();
-            int reportsPulled = firebaseSyncService.pullReportsFromFirebase();
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("usersPulled", usersPulled);
-            response.put("reportsPulled", reportsPulled);
-            response.put("message", "Données importées depuis Firebase");
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("status", "failed");
-            error.put("error", e.getMessage());
-            return ResponseEntity.status(500).body(error);
-        }
+    public ResponseEntity<Map<String, Object>> pullFromFirebase(@RequestParam(required = false) String mode) {
+        return submitJob(FirebaseSyncService.TYPE_PULL, mode, null);
     }
 
     /**
@@ -95,25 +91,70 @@ public class SyncController {
      */
     @PostMapping("/push")
     public ResponseEntity<Map<String, Object>> pushToFirebase() {
+        return submitJob(FirebaseSyncService.TYPE_PUSH, null, null);
+    }
+
+    /**
+     * Progression d'un job : phase, documents traités, débit et temps restant estimé
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String id) {
+        return syncJobService.findById(id)
+                .map(job -> ResponseEntity.ok(job.toMap()))
+                .orElseGet(() -> {
+                    Map<String, Object> error = new HashMap<>();
+                    error.put("error", "Job introuvable: " + id);
+                    return ResponseEntity.status(404).body(error);
+                });
+    }
+
+    /**
+     * Jobs récents, du plus récent au plus ancien
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<List<Map<String, Object>>> getJobs() {
+        return ResponseEntity.ok(syncJobService.findAll().stream()
+                .map(SyncJob::toMap)
+                .collect(java.util.stream.Collectors.toList()));
+    }
+
+    private ResponseEntity<Map<String, Object>> submitJob(String syncType, String mode, User syncedBy) {
         try {
-            int usersPushed = firebaseSyncService.pushUsersToFirebase();
-            int reportsPushed = firebaseSyncService.pushReportsToFirebase();
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("usersPushed", usersPushed);
-            response.put("reportsPushed", reportsPushed);
-            response.put("message", "Données exportées vers Firebase");
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
+            SyncJob job = syncJobService.submit(syncType, mode, syncedBy);
+            Map<String, Object> response = job.toMap();
+            response.put("statusUrl", "/api/sync/jobs/" + job.getId());
+            response.put("message", "Synchronisation planifiée");
+            return ResponseEntity.accepted().body(response);
+        } catch (IllegalArgumentException e) {
+            return badMode(e);
+        } catch (SyncJobService.SyncJobConflictException e) {
+            Map<String, Object> error;
+            if (e.getActiveJob() != null) {
+                error = e.getActiveJob().toMap();
+            } else {
+                // Job d'un autre nœud : son suivi n'est disponible que sur ce nœud
+                error = new HashMap<>();
+                error.put("jobId", e.getActiveJobId());
+                error.put("leader", e.getLeader());
+            }
+            error.put("statusUrl", "/api/sync/jobs/" + e.getActiveJobId());
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(409).body(error);
+        } catch (RejectedExecutionException e) {
             Map<String, Object> error = new HashMap<>();
             error.put("status", "failed");
-            error.put("error", e.getMessage());
-            return ResponseEntity.status(500).body(error);
+            error.put("error", "Trop de synchronisations en attente, réessayez plus tard");
+            return ResponseEntity.status(503).body(error);
         }
     }
 
+    private ResponseEntity<Map<String, Object>> badMode(IllegalArgumentException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", "failed");
+        error.put("error", e.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
+
     /**
      * Historique des synchronisations
      */
@@ -133,10 +174,68 @@ public class SyncController {
     public ResponseEntity<Map<String, Object>> getStatus() {
         Map<String, Object> status = new HashMap<>();
         status.put("firebaseConfigured", true);
-        status.put("lastSync", syncLogService.findAll().stream()
-                .findFirst()
-                .map(SyncLog::getSyncedAt)
-                .orElse(null));
+        SyncLog latest = syncLogService.findLatest().orElse(null);
+        status.put("lastSync", latest != null ? latest.getSyncedAt() : null);
+        status.put("lastLog", latest != null ? EntityToDtoMapper.toSyncLogDTO(latest) : null);
+        status.put("scheduler", syncSchedulerService.getStatus());
+        status.put("listener", firestoreListenerService.getStatus());
+        status.put("outbox", outboxRelayService.getStatus());
+        status.put("changes", changeLogService.getStatus());
+        status.put("firestore", documentStore.getHealth());
+        status.put("node", syncLeaseService.getNodeId());
+        List<Map<String, Object>> leases = new ArrayList<>();
+        for (SyncLease lease : syncLeaseService.findActive()) {
+            Map<String, Object> l = new HashMap<>();
+            l.put("name", lease.getName());
+            l.put("holder", lease.getHolder());
+            l.put("jobId", lease.getJobId());
+            l.put("expiresAt", lease.getExpiresAt());
+            leases.add(l);
+        }
+        status.put("leases", leases);
         return ResponseEntity.ok(status);
     }
+
+    /**
+     * Relance la synchro automatique au plus petit intervalle (lève une pause)
+     */
+    @PostMapping("/scheduler/resume")
+    public ResponseEntity<Map<String, Object>> resumeScheduler() {
+        syncSchedulerService.resume();
+        return ResponseEntity.ok(syncSchedulerService.getStatus());
+    }
+
+    /**
+     * Désactive la synchro automatique jusqu'au prochain resume
+     */
+    @PostMapping("/scheduler/stop")
+    public ResponseEntity<Map<String, Object>> stopScheduler() {
+        syncSchedulerService.disable();
+        return ResponseEntity.ok(syncSchedulerService.getStatus());
+    }
+
+    /**
+     * Démarre l'ingestion temps réel (snapshot listeners Firestore)
+     */
+    @PostMapping("/listener/start")
+    public ResponseEntity<Map<String, Object>> startListener() {
+        try {
+            firestoreListenerService.start();
+            return ResponseEntity.ok(firestoreListenerService.getStatus());
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "failed");
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Arrête l'ingestion temps réel
+     */
+    @PostMapping("/listener/stop")
+    public ResponseEntity<Map<String, Object>> stopListener() {
+        firestoreListenerService.stop();
+        return ResponseEntity.ok(firestoreListenerService.getStatus());
+    }
 }
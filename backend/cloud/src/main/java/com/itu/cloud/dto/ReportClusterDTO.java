@@ -0,0 +1,36 @@
+package com.itu.cloud.dto;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Groupe de reports d'une cellule de la carte ; id n'est renseigné que pour un report seul.
+ */
+public class ReportClusterDTO {
+    private Long id;
+    private double latitude;
+    private double longitude;
+    private int count;
+    private Map<String, Integer> statuses;
+    private BigDecimal budget;
+
+    public ReportClusterDTO() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public double getLatitude() { return latitude; }
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+
+    public double getLongitude() { return longitude; }
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+
+    public Map<String, Integer> getStatuses() { return statuses; }
+    public void setStatuses(Map<String, Integer> statuses) { this.statuses = statuses; }
+
+    public BigDecimal getBudget() { return budget; }
+    public void setBudget(BigDecimal budget) { this.budget = budget; }
+}
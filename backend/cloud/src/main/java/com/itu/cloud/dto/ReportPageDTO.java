@@ -0,0 +1,20 @@
+package com.itu.cloud.dto;
+
+import java.util.List;
+
+public class ReportPageDTO {
+    private List<ReportSummaryDTO> items;
+    private String nextCursor;
+    private int limit;
+
+    public ReportPageDTO() {}
+
+    public List<ReportSummaryDTO> getItems() { return items; }
+    public void setItems(List<ReportSummaryDTO> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
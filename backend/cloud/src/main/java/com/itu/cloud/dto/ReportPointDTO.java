@@ -0,0 +1,25 @@
+package com.itu.cloud.dto;
+
+/**
+ * Marqueur de la carte : le détail du report est chargé à l'ouverture de sa bulle.
+ */
+public class ReportPointDTO {
+    private Long id;
+    private double latitude;
+    private double longitude;
+    private String status;
+
+    public ReportPointDTO() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public double getLatitude() { return latitude; }
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+
+    public double getLongitude() { return longitude; }
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
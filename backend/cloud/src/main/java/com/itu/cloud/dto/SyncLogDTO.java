@@ -1,17 +1,23 @@
 package com.itu.cloud.dto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class SyncLogDTO {
     private Long id;
     private String syncType;
+    private String mode;
     private LocalDateTime syncedAt;
     private Integer recordsPulled;
     private Integer recordsPushed;
     private Integer conflicts;
+    private Integer recordsFailed;
+    private Integer recordsSkipped;
     private String status;
     private String errorMessage;
     private Long syncedByUserId;
+    private Long durationMs;
+    private List<SyncPhaseDTO> phases;
 
     public SyncLogDTO() {
     }
@@ -32,6 +38,14 @@ public class SyncLogDTO {
         this.syncType = syncType;
     }
 
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
     public LocalDateTime getSyncedAt() {
         return syncedAt;
     }
@@ -64,6 +78,22 @@ public class SyncLogDTO {
         this.conflicts = conflicts;
     }
 
+    public Integer getRecordsFailed() {
+        return recordsFailed;
+    }
+
+    public void setRecordsFailed(Integer recordsFailed) {
+        this.recordsFailed = recordsFailed;
+    }
+
+    public Integer getRecordsSkipped() {
+        return recordsSkipped;
+    }
+
+    public void setRecordsSkipped(Integer recordsSkipped) {
+        this.recordsSkipped = recordsSkipped;
+    }
+
     public String getStatus() {
         return status;
     }
@@ -87,4 +117,20 @@ public class SyncLogDTO {
     public void setSyncedByUserId(Long syncedByUserId) {
         this.syncedByUserId = syncedByUserId;
     }
+
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(Long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public List<SyncPhaseDTO> getPhases() {
+        return phases;
+    }
+
+    public void setPhases(List<SyncPhaseDTO> phases) {
+        this.phases = phases;
+    }
 }
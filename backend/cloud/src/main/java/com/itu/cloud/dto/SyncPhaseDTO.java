@@ -0,0 +1,108 @@
+package com.itu.cloud.dto;
+
+import java.time.LocalDateTime;
+
+public class SyncPhaseDTO {
+    private String phase;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long durationMs;
+    private Long documents;
+    private Long firestoreReads;
+    private Long firestoreWrites;
+    private Long sqlStatements;
+    private Long firestoreRetries;
+    private Long errors;
+    private Double documentsPerSecond;
+
+    public SyncPhaseDTO() {
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(Long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public Long getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(Long documents) {
+        this.documents = documents;
+    }
+
+    public Long getFirestoreReads() {
+        return firestoreReads;
+    }
+
+    public void setFirestoreReads(Long firestoreReads) {
+        this.firestoreReads = firestoreReads;
+    }
+
+    public Long getFirestoreWrites() {
+        return firestoreWrites;
+    }
+
+    public void setFirestoreWrites(Long firestoreWrites) {
+        this.firestoreWrites = firestoreWrites;
+    }
+
+    public Long getSqlStatements() {
+        return sqlStatements;
+    }
+
+    public void setSqlStatements(Long sqlStatements) {
+        this.sqlStatements = sqlStatements;
+    }
+
+    public Long getFirestoreRetries() {
+        return firestoreRetries;
+    }
+
+    public void setFirestoreRetries(Long firestoreRetries) {
+        this.firestoreRetries = firestoreRetries;
+    }
+
+    public Long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Long errors) {
+        this.errors = errors;
+    }
+
+    public Double getDocumentsPerSecond() {
+        return documentsPerSecond;
+    }
+
+    public void setDocumentsPerSecond(Double documentsPerSecond) {
+        this.documentsPerSecond = documentsPerSecond;
+    }
+}
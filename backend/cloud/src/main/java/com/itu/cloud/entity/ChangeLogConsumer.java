@@ -0,0 +1,37 @@
+package com.itu.cloud.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Position d'un consommateur du journal des modifications : dernier seq traité.
+ */
+@Entity
+@Table(name = "change_log_consumer")
+public class ChangeLogConsumer {
+
+    @Id
+    @Column(length = 50)
+    private String consumer;
+
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq = 0L;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public String getConsumer() {
+        return consumer;
+    }
+
+    public Long getLastSeq() {
+        return lastSeq;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,78 @@
+package com.itu.cloud.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Ligne du journal des modifications, écrite par les triggers PostgreSQL
+ * (jamais par l'application). {@code seq} reste null tant que des
+ * transactions plus anciennes sont en cours ; il est ensuite attribué dans
+ * l'ordre de validation, ce qui en fait une position sûre pour les consommateurs.
+ */
+@Entity
+@Immutable
+@Table(name = "change_log")
+public class ChangeLogEntry {
+
+    public static final String USER = "user";
+    public static final String REPORT = "report";
+    public static final String PHOTO = "photo";
+
+    public static final String OP_INSERT = "insert";
+    public static final String OP_UPDATE = "update";
+    public static final String OP_DELETE = "delete";
+
+    @Id
+    private Long id;
+
+    @Column(unique = true)
+    private Long seq;
+
+    @Column(length = 20, nullable = false)
+    private String entity;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(length = 10, nullable = false)
+    private String op;
+
+    // Transaction d'écriture : ordonne l'attribution des seq
+    @Column(columnDefinition = "xid8 not null default pg_current_xact_id()", insertable = false, updatable = false)
+    private String txid;
+
+    @Column(name = "changed_at")
+    private LocalDateTime changedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public boolean isDelete() {
+        return OP_DELETE.equals(op);
+    }
+}
@@ -0,0 +1,53 @@
+package com.itu.cloud.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Document Firestore "reports" tiré alors que son auteur n'était pas encore
+ * connu ici. Le watermark a pu le dépasser : il est relu par id à chaque pull
+ * des reports jusqu'à ce que son auteur soit résolu ou qu'il disparaisse.
+ */
+@Entity
+@Table(name = "sync_deferred_report")
+public class DeferredReport {
+
+    @Id
+    @Column(name = "document_id")
+    private String documentId;
+
+    @Column(columnDefinition = "TEXT")
+    private String reason;
+
+    @Column
+    private Integer attempts;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
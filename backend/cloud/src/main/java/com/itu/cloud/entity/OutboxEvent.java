@@ -0,0 +1,144 @@
+package com.itu.cloud.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Propagation vers Firestore en échec, à réessayer. Le relais lit le journal
+ * des modifications et n'écrit ici que ce qu'il n'a pas pu pousser. Seul
+ * l'agrégat est référencé : le relais pousse son état courant, ce qui rend
+ * le traitement idempotent. La ligne est supprimée une fois propagée, ou
+ * passe à "dead" après trop d'échecs.
+ */
+@Entity
+@Table(name = "sync_outbox")
+public class OutboxEvent {
+
+    public static final String REPORT = "report";
+    public static final String PHOTO = "photo";
+
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_DEAD = "dead";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "aggregate_type", length = 20, nullable = false)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(length = 20, nullable = false)
+    private String status = STATUS_PENDING;
+
+    @Column
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String aggregateType, Long aggregateId) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+    }
+
+    /**
+     * Échec d'une première tentative, à reprendre à {@code nextAttemptAt}.
+     */
+    public static OutboxEvent failed(String aggregateType, Long aggregateId, String error, LocalDateTime nextAttemptAt) {
+        OutboxEvent event = new OutboxEvent(aggregateType, aggregateId);
+        event.attempts = 1;
+        event.lastError = error;
+        event.nextAttemptAt = nextAttemptAt;
+        return event;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public void setAggregateType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public void setAggregateId(Long aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) nextAttemptAt = createdAt;
+        if (attempts == null) attempts = 0;
+        if (status == null) status = STATUS_PENDING;
+    }
+}
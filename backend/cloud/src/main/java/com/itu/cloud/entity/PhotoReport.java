@@ -9,15 +9,22 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import org.hibernate.annotations.SQLRestriction;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "photo_reports")
+@SQLRestriction("deleted_at IS NULL")
+@Table(name = "photo_reports",
+        uniqueConstraints = @UniqueConstraint(name = "uk_photo_reports_url", columnNames = "photo_url"))
 public class PhotoReport {
 
+    // Séquence plutôt qu'IDENTITY : Hibernate peut alors regrouper les INSERT (saveAll du pull)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "photo_reports_seq")
+    @SequenceGenerator(name = "photo_reports_seq", sequenceName = "photo_reports_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -33,6 +40,10 @@ public class PhotoReport {
     @Column(name = "uploaded_at")
     private LocalDateTime uploadedAt;
 
+    /** Suppression logique : l'URL est retirée du tableau "photos" du report Firestore. */
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     public PhotoReport() {
     }
 
@@ -76,6 +87,14 @@ public class PhotoReport {
         this.uploadedAt = uploadedAt;
     }
 
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
     @PrePersist
     public void prePersist() {
         if (uploadedAt == null) {
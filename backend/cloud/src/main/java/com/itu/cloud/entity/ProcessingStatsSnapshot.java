@@ -0,0 +1,80 @@
+package com.itu.cloud.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Dernier état enregistré des statistiques de délai de traitement : de quoi
+ * répondre au démarrage, le temps de les reconstruire depuis l'historique.
+ */
+@Entity
+@Table(name = "processing_stats_snapshot")
+public class ProcessingStatsSnapshot {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(name = "processed_count")
+    private Long processedCount;
+
+    @Column(name = "sum_seconds")
+    private Double sumSeconds;
+
+    /** Histogramme des délais (secondes), au format compressé HdrHistogram. */
+    @Column(columnDefinition = "BYTEA")
+    private byte[] histogram;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public ProcessingStatsSnapshot() {
+    }
+
+    public ProcessingStatsSnapshot(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getProcessedCount() {
+        return processedCount;
+    }
+
+    public void setProcessedCount(Long processedCount) {
+        this.processedCount = processedCount;
+    }
+
+    public Double getSumSeconds() {
+        return sumSeconds;
+    }
+
+    public void setSumSeconds(Double sumSeconds) {
+        this.sumSeconds = sumSeconds;
+    }
+
+    public byte[] getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(byte[] histogram) {
+        this.histogram = histogram;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -11,10 +11,12 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.SQLRestriction;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@SQLRestriction("deleted_at IS NULL")
 @Table(name = "reports")
 public class Report {
 
@@ -60,6 +62,13 @@ public class Report {
     @Column(name = "synced_at")
     private LocalDateTime syncedAt;
 
+    @Column(name = "sync_hash", length = 64)
+    private String syncHash;
+
+    /** Date de suppression logique ; null pour un report actif. */
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @Column(name = "niveau")
     private Integer niveau;
 
@@ -171,6 +180,14 @@ public class Report {
     public void setSyncedAt(LocalDateTime syncedAt) {
         this.syncedAt = syncedAt;
     }
+
+    public String getSyncHash() {
+        return syncHash;
+    }
+
+    public void setSyncHash(String syncHash) {
+        this.syncHash = syncHash;
+    }
     public Integer getNiveau() {
         return niveau;
     }
@@ -179,6 +196,14 @@ public class Report {
         this.niveau = niveau;
     }
 
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
     @PrePersist
     public void prePersist() {
         LocalDateTime now = LocalDateTime.now();
@@ -0,0 +1,138 @@
+package com.itu.cloud.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Last committed chunk of an unfinished sync, one row per sync type and
+ * phase (phases may run concurrently). The cursor is the last Firestore
+ * document id for a pull phase and the last entity id for a push phase.
+ * The rows are deleted when the sync ends successfully; a failed or
+ * interrupted sync resumes from them.
+ */
+@Entity
+@Table(name = "sync_checkpoint")
+@IdClass(SyncCheckpoint.Key.class)
+public class SyncCheckpoint {
+
+    @Id
+    @Column(name = "sync_type", length = 20)
+    private String syncType;
+
+    @Id
+    @Column(name = "phase", length = 30)
+    private String phase;
+
+    @Column(name = "sync_mode", length = 20, nullable = false)
+    private String mode;
+
+    @Column(name = "last_cursor")
+    private String cursor;
+
+    @Column(name = "phase_completed")
+    private Boolean phaseCompleted = false;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public SyncCheckpoint() {
+    }
+
+    public SyncCheckpoint(String syncType, String phase) {
+        this.syncType = syncType;
+        this.phase = phase;
+    }
+
+    public String getSyncType() {
+        return syncType;
+    }
+
+    public void setSyncType(String syncType) {
+        this.syncType = syncType;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public Boolean getPhaseCompleted() {
+        return phaseCompleted;
+    }
+
+    public void setPhaseCompleted(Boolean phaseCompleted) {
+        this.phaseCompleted = phaseCompleted;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        if (phaseCompleted == null) phaseCompleted = false;
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public static class Key implements Serializable {
+        private String syncType;
+        private String phase;
+
+        public Key() {
+        }
+
+        public Key(String syncType, String phase) {
+            this.syncType = syncType;
+            this.phase = phase;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(syncType, key.syncType) && Objects.equals(phase, key.phase);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(syncType, phase);
+        }
+    }
+}
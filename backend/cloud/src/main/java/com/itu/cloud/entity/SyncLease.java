@@ -0,0 +1,60 @@
+package com.itu.cloud.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Bail exclusif d'une tâche de synchronisation entre les nœuds du backend.
+ * Le nœud titulaire le prolonge par heartbeat ; un bail expiré (nœud mort)
+ * peut être repris par un autre nœud. Les dates sont celles de PostgreSQL.
+ */
+@Entity
+@Table(name = "sync_lease")
+public class SyncLease {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(length = 100, nullable = false)
+    private String holder;
+
+    @Column(name = "job_id", length = 36)
+    private String jobId;
+
+    @Column(name = "acquired_at")
+    private LocalDateTime acquiredAt;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHolder() {
+        return holder;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public LocalDateTime getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -1,5 +1,6 @@
 package com.itu.cloud.entity;
 
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -8,9 +9,13 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "sync_log")
@@ -23,6 +28,9 @@ public class SyncLog {
     @Column(name = "sync_type", length = 20)
     private String syncType;
 
+    @Column(name = "sync_mode", length = 20)
+    private String mode;
+
     @Column(name = "records_pulled")
     private Integer recordsPulled = 0;
 
@@ -32,6 +40,12 @@ public class SyncLog {
     @Column
     private Integer conflicts = 0;
 
+    @Column(name = "records_failed")
+    private Integer recordsFailed = 0;
+
+    @Column(name = "records_skipped")
+    private Integer recordsSkipped = 0;
+
     @Column(length = 20)
     private String status;
 
@@ -45,6 +59,14 @@ public class SyncLog {
     @Column(name = "synced_at")
     private LocalDateTime syncedAt;
 
+    /** Durée totale de la synchro ; les phases qui se recouvrent la rendent inférieure à leur somme. */
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @OneToMany(mappedBy = "syncLog", cascade = {CascadeType.PERSIST, CascadeType.REMOVE})
+    @OrderBy("startedAt")
+    private List<SyncPhaseLog> phases = new ArrayList<>();
+
     public SyncLog() {
     }
 
@@ -64,6 +86,14 @@ public class SyncLog {
         this.syncType = syncType;
     }
 
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
     public Integer getRecordsPulled() {
         return recordsPulled;
     }
@@ -88,6 +118,22 @@ public class SyncLog {
         this.conflicts = conflicts;
     }
 
+    public Integer getRecordsFailed() {
+        return recordsFailed;
+    }
+
+    public void setRecordsFailed(Integer recordsFailed) {
+        this.recordsFailed = recordsFailed;
+    }
+
+    public Integer getRecordsSkipped() {
+        return recordsSkipped;
+    }
+
+    public void setRecordsSkipped(Integer recordsSkipped) {
+        this.recordsSkipped = recordsSkipped;
+    }
+
     public String getStatus() {
         return status;
     }
@@ -120,6 +166,27 @@ public class SyncLog {
         this.syncedAt = syncedAt;
     }
 
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(Long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public List<SyncPhaseLog> getPhases() {
+        return phases;
+    }
+
+    public void setPhases(List<SyncPhaseLog> phases) {
+        this.phases = phases;
+    }
+
+    public void addPhase(SyncPhaseLog phase) {
+        phase.setSyncLog(this);
+        phases.add(phase);
+    }
+
     @PrePersist
     public void prePersist() {
         if (recordsPulled == null) {
@@ -131,6 +198,12 @@ public class SyncLog {
         if (conflicts == null) {
             conflicts = 0;
         }
+        if (recordsFailed == null) {
+            recordsFailed = 0;
+        }
+        if (recordsSkipped == null) {
+            recordsSkipped = 0;
+        }
         if (syncedAt == null) {
             syncedAt = LocalDateTime.now();
         }
@@ -0,0 +1,161 @@
+package com.itu.cloud.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Durée d'une phase (pull-users, push-reports...) d'une synchronisation.
+ * Les phases pouvant se recouvrir, la somme des durées dépasse alors la
+ * durée totale du SyncLog.
+ */
+@Entity
+@Table(name = "sync_phase_log")
+public class SyncPhaseLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "sync_log_id")
+    private SyncLog syncLog;
+
+    @Column(length = 30, nullable = false)
+    private String phase;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column
+    private Long documents;
+
+    /** Documents lus, écritures envoyées et requêtes SQL imputés à la phase. */
+    @Column(name = "firestore_reads")
+    private Long firestoreReads;
+
+    @Column(name = "firestore_writes")
+    private Long firestoreWrites;
+
+    @Column(name = "sql_statements")
+    private Long sqlStatements;
+
+    @Column(name = "firestore_retries")
+    private Long firestoreRetries;
+
+    /** Documents en échec pendant la phase. */
+    @Column
+    private Long errors;
+
+    public SyncPhaseLog() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public SyncLog getSyncLog() {
+        return syncLog;
+    }
+
+    public void setSyncLog(SyncLog syncLog) {
+        this.syncLog = syncLog;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(Long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public Long getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(Long documents) {
+        this.documents = documents;
+    }
+
+    public Long getFirestoreReads() {
+        return firestoreReads;
+    }
+
+    public void setFirestoreReads(Long firestoreReads) {
+        this.firestoreReads = firestoreReads;
+    }
+
+    public Long getFirestoreWrites() {
+        return firestoreWrites;
+    }
+
+    public void setFirestoreWrites(Long firestoreWrites) {
+        this.firestoreWrites = firestoreWrites;
+    }
+
+    public Long getSqlStatements() {
+        return sqlStatements;
+    }
+
+    public void setSqlStatements(Long sqlStatements) {
+        this.sqlStatements = sqlStatements;
+    }
+
+    public Long getFirestoreRetries() {
+        return firestoreRetries;
+    }
+
+    public void setFirestoreRetries(Long firestoreRetries) {
+        this.firestoreRetries = firestoreRetries;
+    }
+
+    public Long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Long errors) {
+        this.errors = errors;
+    }
+}
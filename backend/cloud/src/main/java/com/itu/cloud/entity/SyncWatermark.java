@@ -0,0 +1,82 @@
+package com.itu.cloud.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * High-water mark of the last successful pull for a Firestore collection.
+ * The pair (lastUpdatedAt, lastDocumentId) matches the ordering used by
+ * the incremental query: orderBy(updatedAt).orderBy(documentId).
+ */
+@Entity
+@Table(name = "sync_watermark")
+public class SyncWatermark {
+
+    @Id
+    @Column(name = "collection_name", length = 50)
+    private String collectionName;
+
+    @Column(name = "last_updated_at")
+    private Instant lastUpdatedAt;
+
+    @Column(name = "last_document_id")
+    private String lastDocumentId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public SyncWatermark() {
+    }
+
+    public SyncWatermark(String collectionName) {
+        this.collectionName = collectionName;
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    public void setCollectionName(String collectionName) {
+        this.collectionName = collectionName;
+    }
+
+    public Instant getLastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+
+    public void setLastUpdatedAt(Instant lastUpdatedAt) {
+        this.lastUpdatedAt = lastUpdatedAt;
+    }
+
+    public String getLastDocumentId() {
+        return lastDocumentId;
+    }
+
+    public void setLastDocumentId(String lastDocumentId) {
+        this.lastDocumentId = lastDocumentId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
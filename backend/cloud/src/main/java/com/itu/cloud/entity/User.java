@@ -14,6 +14,7 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.SQLRestriction;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -21,6 +22,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@SQLRestriction("deleted_at IS NULL")
 @Table(name = "users")
 public class User {
 
@@ -61,6 +63,16 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Column(name = "synced_at")
+    private LocalDateTime syncedAt;
+
+    @Column(name = "sync_hash", length = 64)
+    private String syncHash;
+
+    /** Suppression logique (tombstone), propagée à Firestore puis purgée par compactage. */
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @OneToMany(mappedBy = "user", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private List<Report> reports = new ArrayList<>();
 
@@ -175,6 +187,22 @@ public class User {
         this.updatedAt = updatedAt;
     }
 
+    public LocalDateTime getSyncedAt() {
+        return syncedAt;
+    }
+
+    public void setSyncedAt(LocalDateTime syncedAt) {
+        this.syncedAt = syncedAt;
+    }
+
+    public String getSyncHash() {
+        return syncHash;
+    }
+
+    public void setSyncHash(String syncHash) {
+        this.syncHash = syncHash;
+    }
+
     public List<Report> getReports() {
         return reports;
     }
@@ -207,6 +235,14 @@ public class User {
         this.entreprises = entreprises;
     }
 
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
     @PrePersist
     public void prePersist() {
         LocalDateTime now = LocalDateTime.now();
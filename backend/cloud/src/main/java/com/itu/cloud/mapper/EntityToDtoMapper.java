@@ -1,17 +1,26 @@
 package com.itu.cloud.mapper;
 
+import com.itu.cloud.dto.ChangeDTO;
 import com.itu.cloud.dto.ConfigEntryDTO;
 import com.itu.cloud.dto.EntrepriseSummaryDTO;
+import com.itu.cloud.dto.ReportClusterDTO;
+import com.itu.cloud.dto.ReportPageDTO;
+import com.itu.cloud.dto.ReportPointDTO;
 import com.itu.cloud.dto.ReportSummaryDTO;
 import com.itu.cloud.dto.SessionDTO;
 import com.itu.cloud.dto.SyncLogDTO;
+import com.itu.cloud.dto.SyncPhaseDTO;
 import com.itu.cloud.dto.UserDTO;
+import com.itu.cloud.entity.ChangeLogEntry;
 import com.itu.cloud.entity.ConfigEntry;
 import com.itu.cloud.entity.Entreprise;
 import com.itu.cloud.entity.Report;
 import com.itu.cloud.entity.Session;
 import com.itu.cloud.entity.SyncLog;
+import com.itu.cloud.entity.SyncPhaseLog;
 import com.itu.cloud.entity.User;
+import com.itu.cloud.service.ReportPage;
+import com.itu.cloud.service.ReportSpatialIndex;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -37,6 +46,41 @@ public class EntityToDtoMapper {
         return dto;
     }
 
+    public static ReportPageDTO toReportPage(ReportPage page) {
+        if (page == null) return null;
+        ReportPageDTO dto = new ReportPageDTO();
+        List<ReportSummaryDTO> items = new ArrayList<>(page.getItems().size());
+        for (Report r : page.getItems()) {
+            items.add(toReportSummary(r));
+        }
+        dto.setItems(items);
+        dto.setNextCursor(page.getNextCursor());
+        dto.setLimit(page.getLimit());
+        return dto;
+    }
+
+    public static ReportPointDTO toReportPoint(ReportSpatialIndex.Point p) {
+        if (p == null) return null;
+        ReportPointDTO dto = new ReportPointDTO();
+        dto.setId(p.getId());
+        dto.setLatitude(p.getLatitude());
+        dto.setLongitude(p.getLongitude());
+        dto.setStatus(p.getStatus());
+        return dto;
+    }
+
+    public static ReportClusterDTO toReportCluster(ReportSpatialIndex.Cluster c) {
+        if (c == null) return null;
+        ReportClusterDTO dto = new ReportClusterDTO();
+        dto.setId(c.getReportId());
+        dto.setLatitude(c.getLatitude());
+        dto.setLongitude(c.getLongitude());
+        dto.setCount(c.getCount());
+        dto.setStatuses(c.getStatuses());
+        dto.setBudget(c.getBudget());
+        return dto;
+    }
+
     public static UserDTO toUserDTO(User u, boolean includeEntreprises, boolean includeReports) {
         if (u == null) return null;
         UserDTO dto = new UserDTO();
@@ -84,13 +128,50 @@ public class EntityToDtoMapper {
         SyncLogDTO dto = new SyncLogDTO();
         dto.setId(s.getId());
         dto.setSyncType(s.getSyncType());
+        dto.setMode(s.getMode());
         dto.setSyncedAt(s.getSyncedAt());
         dto.setRecordsPulled(s.getRecordsPulled());
         dto.setRecordsPushed(s.getRecordsPushed());
         dto.setConflicts(s.getConflicts());
+        dto.setRecordsFailed(s.getRecordsFailed());
+        dto.setRecordsSkipped(s.getRecordsSkipped());
         dto.setStatus(s.getStatus());
         dto.setErrorMessage(s.getErrorMessage());
         dto.setSyncedByUserId(s.getSyncedBy() != null ? s.getSyncedBy().getId() : null);
+        dto.setDurationMs(s.getDurationMs());
+        List<SyncPhaseDTO> phases = new ArrayList<>();
+        for (SyncPhaseLog p : s.getPhases()) phases.add(toSyncPhaseDTO(p));
+        dto.setPhases(phases);
+        return dto;
+    }
+
+    public static SyncPhaseDTO toSyncPhaseDTO(SyncPhaseLog p) {
+        if (p == null) return null;
+        SyncPhaseDTO dto = new SyncPhaseDTO();
+        dto.setPhase(p.getPhase());
+        dto.setStartedAt(p.getStartedAt());
+        dto.setFinishedAt(p.getFinishedAt());
+        dto.setDurationMs(p.getDurationMs());
+        dto.setDocuments(p.getDocuments());
+        dto.setFirestoreReads(p.getFirestoreReads());
+        dto.setFirestoreWrites(p.getFirestoreWrites());
+        dto.setSqlStatements(p.getSqlStatements());
+        dto.setFirestoreRetries(p.getFirestoreRetries());
+        dto.setErrors(p.getErrors());
+        if (p.getDocuments() != null && p.getDurationMs() != null && p.getDurationMs() > 0) {
+            dto.setDocumentsPerSecond(Math.round(p.getDocuments() * 10000.0 / p.getDurationMs()) / 10.0);
+        }
+        return dto;
+    }
+
+    public static ChangeDTO toChangeDTO(ChangeLogEntry c) {
+        if (c == null) return null;
+        ChangeDTO dto = new ChangeDTO();
+        dto.setSeq(c.getSeq());
+        dto.setEntity(c.getEntity());
+        dto.setEntityId(c.getEntityId());
+        dto.setOp(c.getOp());
+        dto.setChangedAt(c.getChangedAt());
         return dto;
     }
 
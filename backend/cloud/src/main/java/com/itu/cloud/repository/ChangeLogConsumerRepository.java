@@ -0,0 +1,17 @@
+package com.itu.cloud.repository;
+
+import com.itu.cloud.entity.ChangeLogConsumer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ChangeLogConsumerRepository extends JpaRepository<ChangeLogConsumer, String> {
+
+    // Une position ne recule jamais (acquittements en désordre ou rejoués)
+    @Modifying
+    @Query(value = "insert into change_log_consumer (consumer, last_seq, updated_at) values (:consumer, :seq, now()) "
+            + "on conflict (consumer) do update set last_seq = greatest(change_log_consumer.last_seq, excluded.last_seq), "
+            + "updated_at = now()", nativeQuery = true)
+    int advance(@Param("consumer") String consumer, @Param("seq") long seq);
+}
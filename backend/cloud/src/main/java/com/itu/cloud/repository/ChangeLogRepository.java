@@ -0,0 +1,66 @@
+package com.itu.cloud.repository;
+
+import com.itu.cloud.entity.ChangeLogEntry;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    @Query("select c from ChangeLogEntry c where c.seq > :afterSeq order by c.seq")
+    List<ChangeLogEntry> findAfter(@Param("afterSeq") long afterSeq, Pageable pageable);
+
+    @Query("select c from ChangeLogEntry c where c.seq > :afterSeq and c.entity in :entities order by c.seq")
+    List<ChangeLogEntry> findAfter(@Param("afterSeq") long afterSeq,
+                                   @Param("entities") Collection<String> entities, Pageable pageable);
+
+    @Query("select coalesce(min(c.seq), 0) from ChangeLogEntry c")
+    long findMinSeq();
+
+    @Query("select coalesce(max(c.seq), 0) from ChangeLogEntry c")
+    long findMaxSeq();
+
+    // Sérialise l'attribution des seq entre instances (verrou libéré en fin de transaction)
+    @Query(value = "select 1 from (select pg_advisory_xact_lock(hashtext('change_log'))) l", nativeQuery = true)
+    Integer lockSequencer();
+
+    /**
+     * Numérote, dans l'ordre (transaction, insertion), les lignes des
+     * transactions terminées avant la plus ancienne encore en cours : aucune
+     * ligne validée plus tard ne pourra recevoir un seq inférieur.
+     */
+    @Modifying
+    @Query(value = "update change_log c set seq = n.seq from ("
+            + "select id, (select coalesce(max(seq), 0) from change_log) + row_number() over (order by txid, id) as seq "
+            + "from change_log where seq is null and txid < pg_snapshot_xmin(pg_current_snapshot()) "
+            + "order by txid, id limit :limit) n where c.id = n.id", nativeQuery = true)
+    int assignSequence(@Param("limit") int limit);
+
+    /**
+     * Lignes en attente de seq : une transaction longue retient la
+     * numérotation de toutes celles écrites après elle.
+     */
+    @Query(value = "select count(*) as \"count\", min(changed_at) as \"oldestChangedAt\" "
+            + "from change_log where seq is null", nativeQuery = true)
+    UnsequencedBacklog findUnsequencedBacklog();
+
+    // Lignes lues par tous les consommateurs et plus anciennes que la rétention ;
+    // la dernière est gardée, elle porte le seq à partir duquel numéroter
+    @Modifying
+    @Query(value = "delete from change_log where seq is not null and changed_at < :before "
+            + "and seq <= coalesce((select min(last_seq) from change_log_consumer), seq) "
+            + "and seq < (select max(seq) from change_log)", nativeQuery = true)
+    int deleteConsumedBefore(@Param("before") LocalDateTime before);
+
+    interface UnsequencedBacklog {
+
+        long getCount();
+
+        LocalDateTime getOldestChangedAt();
+    }
+}
@@ -0,0 +1,28 @@
+package com.itu.cloud.repository;
+
+import com.itu.cloud.entity.DeferredReport;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface DeferredReportRepository extends JpaRepository<DeferredReport, String> {
+
+    // Une nouvelle mise en attente du même document compte une tentative de plus
+    @Modifying
+    @Query(value = "insert into sync_deferred_report (document_id, reason, attempts, created_at, updated_at) "
+            + "values (:documentId, :reason, 1, now(), now()) "
+            + "on conflict (document_id) do update set reason = excluded.reason, "
+            + "attempts = sync_deferred_report.attempts + 1, updated_at = now()", nativeQuery = true)
+    int defer(@Param("documentId") String documentId, @Param("reason") String reason);
+
+    @Query(value = "select document_id from sync_deferred_report where document_id > :afterId "
+            + "order by document_id limit :limit", nativeQuery = true)
+    List<String> findIdsAfter(@Param("afterId") String afterId, @Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from DeferredReport d where d.documentId in :documentIds")
+    int deleteByDocumentIdIn(@Param("documentIds") Collection<String> documentIds);
+}
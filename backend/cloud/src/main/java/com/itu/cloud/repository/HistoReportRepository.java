@@ -1,12 +1,59 @@
 package com.itu.cloud.repository;
 
 import com.itu.cloud.entity.HistoReport;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface HistoReportRepository extends JpaRepository<HistoReport, Long> {
 
     List<HistoReport> findByReportId(Long reportId);
 
     List<HistoReport> findByStatus(String status);
+
+    /**
+     * Délai de traitement en une passe sur l'historique : premier "en_cours" et
+     * dernier "termine" par report (agrégats filtrés), puis moyenne sur les
+     * reports terminés après leur prise en charge, avec médiane et p90/p99.
+     * Filtres facultatifs (null) : date de fin de traitement dans [from, to],
+     * entreprise, niveau.
+     * L'index idx_histo_reports_status couvre la lecture de l'historique.
+     */
+    @Query(value = "select count(*) as \"count\", "
+            + "cast(avg(extract(epoch from t.termine_at - t.en_cours_at)) as double precision) as \"averageSeconds\", "
+            + "cast(min(extract(epoch from t.termine_at - t.en_cours_at)) as double precision) as \"minSeconds\", "
+            + "cast(max(extract(epoch from t.termine_at - t.en_cours_at)) as double precision) as \"maxSeconds\", "
+            + "percentile_cont(0.5) within group (order by extract(epoch from t.termine_at - t.en_cours_at)) as \"p50Seconds\", "
+            + "percentile_cont(0.9) within group (order by extract(epoch from t.termine_at - t.en_cours_at)) as \"p90Seconds\", "
+            + "percentile_cont(0.99) within group (order by extract(epoch from t.termine_at - t.en_cours_at)) as \"p99Seconds\" "
+            + "from (select min(h.date_changement) filter (where h.status = 'en_cours') as en_cours_at, "
+            + "max(h.date_changement) filter (where h.status = 'termine') as termine_at "
+            + "from histo_reports h join reports r on r.id = h.report_id "
+            + "where h.status in ('en_cours', 'termine') and r.deleted_at is null "
+            + "and (cast(:entrepriseId as bigint) is null or r.entreprise_id = :entrepriseId) "
+            + "and (cast(:niveau as integer) is null or r.niveau = :niveau) "
+            + "group by h.report_id) t "
+            + "where t.termine_at > t.en_cours_at "
+            + "and (cast(:from as timestamp) is null or t.termine_at >= :from) "
+            + "and (cast(:to as timestamp) is null or t.termine_at <= :to)",
+            nativeQuery = true)
+    ProcessingStats computeProcessingStats(@Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to,
+                                           @Param("entrepriseId") Long entrepriseId,
+                                           @Param("niveau") Integer niveau);
+
+    /**
+     * Premier "en_cours" et dernier "termine" de chaque report non supprimé qui
+     * a l'un des deux : reconstruction des statistiques maintenues en mémoire.
+     */
+    @Query(value = "select h.report_id as \"reportId\", "
+            + "min(h.date_changement) filter (where h.status = 'en_cours') as \"enCoursAt\", "
+            + "max(h.date_changement) filter (where h.status = 'termine') as \"termineAt\" "
+            + "from histo_reports h join reports r on r.id = h.report_id "
+            + "where h.status in ('en_cours', 'termine') and r.deleted_at is null "
+            + "group by h.report_id",
+            nativeQuery = true)
+    List<ProcessingTimes> findProcessingTimes();
 }
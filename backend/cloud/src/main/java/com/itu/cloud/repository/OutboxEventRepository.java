@@ -0,0 +1,25 @@
+package com.itu.cloud.repository;
+
+import com.itu.cloud.entity.OutboxEvent;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Événements dus, verrouillés pour la transaction en cours ; les lignes déjà
+     * verrouillées par un autre relais sont sautées (SKIP LOCKED).
+     */
+    @Query(value = "select * from sync_outbox where status = 'pending' and next_attempt_at <= :now "
+            + "order by id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxEvent> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(String status);
+
+    List<OutboxEvent> findByAggregateTypeAndStatusAndAggregateIdIn(String aggregateType, String status,
+                                                                  Collection<Long> aggregateIds);
+}
@@ -2,9 +2,14 @@ package com.itu.cloud.repository;
 
 import com.itu.cloud.entity.PhotoReport;
 import com.itu.cloud.entity.Report;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface PhotoReportRepository extends JpaRepository<PhotoReport, Long> {
 
@@ -13,4 +18,63 @@ public interface PhotoReportRepository extends JpaRepository<PhotoReport, Long>
     List<PhotoReport> findByReport(Report report);
 
     Optional<PhotoReport> findByPhotoUrl(String photoUrl);
+
+    @Query("select p from PhotoReport p join fetch p.report where p.id in :ids")
+    List<PhotoReport> findWithReportByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * URL déjà enregistrées parmi {@code urls} (index unique sur photo_url),
+     * y compris celles des photos supprimées : une photo supprimée ici ne
+     * revient pas par le pull.
+     */
+    @Query(value = "select photo_url from photo_reports where photo_url in :urls", nativeQuery = true)
+    List<String> findExistingUrls(@Param("urls") Collection<String> urls);
+
+    // ---- Suppressions logiques (requêtes natives : @SQLRestriction masque les tombstones en JPQL) ----
+
+    @Modifying
+    @Query(value = "update photo_reports set deleted_at = :now where id in :ids and deleted_at is null", nativeQuery = true)
+    int softDelete(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "update photo_reports set deleted_at = :now where report_id in :reportIds and deleted_at is null",
+            nativeQuery = true)
+    int softDeleteByReportIds(@Param("reportIds") Collection<Long> reportIds, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "update photo_reports set deleted_at = :now where deleted_at is null "
+            + "and report_id in (select id from reports where user_id in :userIds)", nativeQuery = true)
+    int softDeleteByUserIds(@Param("userIds") Collection<Long> userIds, @Param("now") LocalDateTime now);
+
+    /**
+     * Photos supprimées dont le report est encore actif et lié à Firestore ;
+     * celles d'un report supprimé disparaissent avec son document.
+     */
+    @Query(value = "select p.id as \"id\", p.photo_url as \"photoUrl\", r.firebase_id as \"reportFirebaseId\" "
+            + "from photo_reports p join reports r on r.id = p.report_id "
+            + "where p.id in :ids and p.deleted_at is not null and r.deleted_at is null and r.firebase_id is not null",
+            nativeQuery = true)
+    List<PhotoTombstone> findTombstonesOfLiveReports(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Compactage des photos supprimées dont la suppression a été relayée vers
+     * Firestore : plus d'événement en outbox (en attente ou abandonné) ni de
+     * changement du journal au-delà de la position du relais {@code consumer}.
+     */
+    @Modifying
+    @Query(value = "delete from photo_reports p where p.deleted_at < :before "
+            + "and not exists (select 1 from sync_outbox o where o.aggregate_type = 'photo' and o.aggregate_id = p.id) "
+            + "and not exists (select 1 from change_log c where c.entity = 'photo' and c.entity_id = p.id "
+            + "and (c.seq is null or c.seq > coalesce((select k.last_seq from change_log_consumer k "
+            + "where k.consumer = :consumer), 0)))", nativeQuery = true)
+    int purgeDeletedBefore(@Param("before") LocalDateTime before, @Param("consumer") String consumer);
+
+    interface PhotoTombstone {
+
+        Long getId();
+
+        String getPhotoUrl();
+
+        String getReportFirebaseId();
+    }
 }
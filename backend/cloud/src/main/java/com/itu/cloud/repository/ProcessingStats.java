@@ -0,0 +1,22 @@
+package com.itu.cloud.repository;
+
+/**
+ * Délai de traitement (premier passage "en_cours" → dernier "termine") agrégé
+ * sur les reports retenus.
+ */
+public interface ProcessingStats {
+
+    Long getCount();
+
+    Double getAverageSeconds();
+
+    Double getMinSeconds();
+
+    Double getMaxSeconds();
+
+    Double getP50Seconds();
+
+    Double getP90Seconds();
+
+    Double getP99Seconds();
+}
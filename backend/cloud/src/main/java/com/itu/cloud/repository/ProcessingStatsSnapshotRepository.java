@@ -0,0 +1,7 @@
+package com.itu.cloud.repository;
+
+import com.itu.cloud.entity.ProcessingStatsSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProcessingStatsSnapshotRepository extends JpaRepository<ProcessingStatsSnapshot, String> {
+}
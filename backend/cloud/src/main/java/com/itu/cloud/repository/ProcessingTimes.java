@@ -0,0 +1,15 @@
+package com.itu.cloud.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Premier passage "en_cours" et dernier "termine" d'un report (null si absent).
+ */
+public interface ProcessingTimes {
+
+    Long getReportId();
+
+    LocalDateTime getEnCoursAt();
+
+    LocalDateTime getTermineAt();
+}
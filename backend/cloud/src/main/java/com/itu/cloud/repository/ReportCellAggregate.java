@@ -0,0 +1,26 @@
+package com.itu.cloud.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Reports d'une cellule de grille ayant un même statut : nombre, sommes des
+ * coordonnées (pour le barycentre) et des budgets, plus petit id.
+ */
+public interface ReportCellAggregate {
+
+    Long getCellRow();
+
+    Long getCellCol();
+
+    String getStatus();
+
+    Long getCount();
+
+    Double getSumLatitude();
+
+    Double getSumLongitude();
+
+    BigDecimal getBudget();
+
+    Long getMinId();
+}
@@ -0,0 +1,45 @@
+package com.itu.cloud.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Critères de la liste des reports ; un critère null n'est pas appliqué.
+ * Les bornes de date et de budget sont incluses.
+ */
+public class ReportFilter {
+    private String status;
+    private Long userId;
+    private Long entrepriseId;
+    private Integer niveau;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+    private BigDecimal minBudget;
+    private BigDecimal maxBudget;
+
+    public ReportFilter() {}
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getEntrepriseId() { return entrepriseId; }
+    public void setEntrepriseId(Long entrepriseId) { this.entrepriseId = entrepriseId; }
+
+    public Integer getNiveau() { return niveau; }
+    public void setNiveau(Integer niveau) { this.niveau = niveau; }
+
+    public LocalDateTime getCreatedFrom() { return createdFrom; }
+    public void setCreatedFrom(LocalDateTime createdFrom) { this.createdFrom = createdFrom; }
+
+    public LocalDateTime getCreatedTo() { return createdTo; }
+    public void setCreatedTo(LocalDateTime createdTo) { this.createdTo = createdTo; }
+
+    public BigDecimal getMinBudget() { return minBudget; }
+    public void setMinBudget(BigDecimal minBudget) { this.minBudget = minBudget; }
+
+    public BigDecimal getMaxBudget() { return maxBudget; }
+    public void setMaxBudget(BigDecimal maxBudget) { this.maxBudget = maxBudget; }
+}
@@ -0,0 +1,19 @@
+package com.itu.cloud.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Position d'un report et ce que la carte en affiche sans le détail.
+ */
+public interface ReportLocation {
+
+    Long getId();
+
+    BigDecimal getLatitude();
+
+    BigDecimal getLongitude();
+
+    String getStatus();
+
+    BigDecimal getBudget();
+}
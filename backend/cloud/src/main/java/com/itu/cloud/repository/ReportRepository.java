@@ -3,11 +3,19 @@ package com.itu.cloud.repository;
 import com.itu.cloud.entity.Report;
 import com.itu.cloud.entity.User;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface ReportRepository extends JpaRepository<Report, Long> {
+public interface ReportRepository extends JpaRepository<Report, Long>, JpaSpecificationExecutor<Report> {
 
     List<Report> findByStatus(String status);
 
@@ -18,4 +26,98 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
     // Pour éviter les doublons lors de la synchronisation
     Optional<Report> findByUserAndLatitudeAndLongitudeAndDescription(
             User user, BigDecimal latitude, BigDecimal longitude, String description);
+
+    // Résolution groupée lors du pull Firebase
+    List<Report> findByFirebaseIdIn(Collection<String> firebaseIds);
+
+    // Candidats au rapprochement (même user, même position, même description) pour une page de documents
+    @Query("select r from Report r where r.user.id in :userIds and r.firebaseId is null")
+    List<Report> findUnlinkedByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    // Reports modifiés depuis leur dernière synchro, par pages d'id croissants
+    @Query("select r from Report r join fetch r.user "
+            + "where (r.syncedAt is null or r.updatedAt > r.syncedAt) and r.id > :afterId order by r.id")
+    List<Report> findDirtyAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Reports à pousser avec leur auteur (relais de l'outbox)
+    @Query("select r from Report r join fetch r.user where r.id in :ids order by r.id")
+    List<Report> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Index spatial de la carte : chargement complet, puis repli SQL tant qu'il n'est pas prêt
+    @Query("select r.id as id, r.latitude as latitude, r.longitude as longitude, r.status as status, "
+            + "r.budget as budget from Report r")
+    List<ReportLocation> findAllLocations();
+
+    @Query("select r.id as id, r.latitude as latitude, r.longitude as longitude, r.status as status, "
+            + "r.budget as budget from Report r where r.latitude between :minLat and :maxLat "
+            + "and r.longitude between :minLng and :maxLng order by r.id")
+    List<ReportLocation> findLocationsInBox(@Param("minLat") BigDecimal minLat, @Param("minLng") BigDecimal minLng,
+                                            @Param("maxLat") BigDecimal maxLat, @Param("maxLng") BigDecimal maxLng,
+                                            Pageable pageable);
+
+    @Query(value = "select cast(floor(latitude / :cell) as bigint) as \"cellRow\", "
+            + "cast(floor(longitude / :cell) as bigint) as \"cellCol\", status as \"status\", count(*) as \"count\", "
+            + "cast(sum(latitude) as double precision) as \"sumLatitude\", "
+            + "cast(sum(longitude) as double precision) as \"sumLongitude\", sum(budget) as \"budget\", min(id) as \"minId\" "
+            + "from reports where deleted_at is null and latitude between :minLat and :maxLat "
+            + "and longitude between :minLng and :maxLng group by 1, 2, 3", nativeQuery = true)
+    List<ReportCellAggregate> aggregateCellsInBox(@Param("cell") double cell,
+                                                  @Param("minLat") BigDecimal minLat, @Param("minLng") BigDecimal minLng,
+                                                  @Param("maxLat") BigDecimal maxLat, @Param("maxLng") BigDecimal maxLng);
+
+    @Query("select count(r) from Report r where r.syncedAt is null or r.updatedAt > r.syncedAt")
+    long countDirty();
+
+    // Compteurs par statut (page de statistiques), éventuellement pour un seul auteur
+    @Query("select r.status as status, count(r) as count from Report r "
+            + "where :userId is null or r.user.id = :userId group by r.status")
+    List<ReportStatusCount> countByStatus(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("update Report r set r.syncedAt = :syncedAt where r.id in :ids")
+    int markSynced(@Param("ids") Collection<Long> ids, @Param("syncedAt") LocalDateTime syncedAt);
+
+    // ---- Suppressions logiques (requêtes natives : @SQLRestriction masque les tombstones en JPQL) ----
+
+    @Modifying
+    @Query(value = "update reports set deleted_at = :now, updated_at = :now where id in :ids and deleted_at is null",
+            nativeQuery = true)
+    int softDelete(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query("select r.id from Report r where r.user.id in :userIds")
+    List<Long> findIdsByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query(value = "update reports set deleted_at = :now, updated_at = :now where user_id in :userIds and deleted_at is null",
+            nativeQuery = true)
+    int softDeleteByUserIds(@Param("userIds") Collection<Long> userIds, @Param("now") LocalDateTime now);
+
+    @Query(value = "select firebase_id from reports where firebase_id in :firebaseIds and deleted_at is not null",
+            nativeQuery = true)
+    List<String> findDeletedFirebaseIds(@Param("firebaseIds") Collection<String> firebaseIds);
+
+    @Query(value = "select id as \"id\", firebase_id as \"documentId\" from reports "
+            + "where id in :ids and deleted_at is not null and (synced_at is null or synced_at < deleted_at)", nativeQuery = true)
+    List<Tombstone> findUnsyncedTombstones(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select id as \"id\", firebase_id as \"documentId\" from reports "
+            + "where id > :afterId and deleted_at is not null and (synced_at is null or synced_at < deleted_at) "
+            + "order by id limit :limit", nativeQuery = true)
+    List<Tombstone> findUnsyncedTombstonesAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "update reports set synced_at = :syncedAt where id in :ids", nativeQuery = true)
+    int markTombstonesSynced(@Param("ids") Collection<Long> ids, @Param("syncedAt") LocalDateTime syncedAt);
+
+    // Compactage : l'historique local d'un report purgé part avec lui
+    @Modifying
+    @Query(value = "delete from histo_reports h using reports r where h.report_id = r.id "
+            + "and r.deleted_at < :before and r.synced_at >= r.deleted_at", nativeQuery = true)
+    int purgeHistoryOfDeletedBefore(@Param("before") LocalDateTime before);
+
+    // Les photos restantes (tombstones) partent par ON DELETE CASCADE
+    @Modifying
+    @Query(value = "delete from reports where deleted_at < :before and synced_at >= deleted_at", nativeQuery = true)
+    int purgeDeletedBefore(@Param("before") LocalDateTime before);
 }
@@ -0,0 +1,67 @@
+package com.itu.cloud.repository;
+
+import com.itu.cloud.entity.Report;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Requêtes dynamiques sur les reports : seuls les critères renseignés
+ * entrent dans le WHERE, ce qui laisse PostgreSQL choisir l'index composite
+ * du filtre le plus sélectif.
+ */
+public final class ReportSpecifications {
+
+    private ReportSpecifications() {}
+
+    public static Specification<Report> matching(ReportFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getStatus() != null) predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+            if (filter.getUserId() != null) predicates.add(cb.equal(root.get("user").get("id"), filter.getUserId()));
+            if (filter.getEntrepriseId() != null) {
+                predicates.add(cb.equal(root.get("entreprise").get("id"), filter.getEntrepriseId()));
+            }
+            if (filter.getNiveau() != null) predicates.add(cb.equal(root.get("niveau"), filter.getNiveau()));
+            if (filter.getCreatedFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.getCreatedFrom()));
+            }
+            if (filter.getCreatedTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), filter.getCreatedTo()));
+            }
+            if (filter.getMinBudget() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("budget"), filter.getMinBudget()));
+            }
+            if (filter.getMaxBudget() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("budget"), filter.getMaxBudget()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Reports situés strictement après (createdAt, id) dans l'ordre
+     * décroissant de la liste. La borne createdAt <= c seule est indexable ;
+     * la disjonction affine l'égalité.
+     */
+    public static Specification<Report> before(LocalDateTime createdAt, long id) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("createdAt"), createdAt),
+                cb.or(cb.lessThan(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id)));
+    }
+
+    /**
+     * Charge l'entreprise avec le report (affichée dans la liste).
+     */
+    public static Specification<Report> fetchEntreprise() {
+        return (root, query, cb) -> {
+            if (query != null && !Long.class.equals(query.getResultType())) {
+                root.fetch("entreprise", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+}
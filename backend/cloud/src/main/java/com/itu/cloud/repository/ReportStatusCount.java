@@ -0,0 +1,11 @@
+package com.itu.cloud.repository;
+
+/**
+ * Nombre de reports (non supprimés) d'un statut.
+ */
+public interface ReportStatusCount {
+
+    String getStatus();
+
+    Long getCount();
+}
@@ -2,13 +2,22 @@ package com.itu.cloud.repository;
 
 import com.itu.cloud.entity.Session;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface SessionRepository extends JpaRepository<Session, Long> {
 
     Optional<Session> findByToken(String token);
 
     List<Session> findByExpiresAtBefore(LocalDateTime cutoff);
+
+    // Sessions des utilisateurs supprimés (suppression logique)
+    @Modifying
+    @Query("delete from Session s where s.user.id in :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
 }
@@ -0,0 +1,19 @@
+package com.itu.cloud.repository;
+
+import com.itu.cloud.entity.SyncCheckpoint;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface SyncCheckpointRepository extends JpaRepository<SyncCheckpoint, SyncCheckpoint.Key> {
+
+    List<SyncCheckpoint> findBySyncType(String syncType);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SyncCheckpoint c where c.syncType = :syncType")
+    int deleteBySyncType(@Param("syncType") String syncType);
+}
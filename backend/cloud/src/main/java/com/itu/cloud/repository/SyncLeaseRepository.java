@@ -0,0 +1,44 @@
+package com.itu.cloud.repository;
+
+import com.itu.cloud.entity.SyncLease;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface SyncLeaseRepository extends JpaRepository<SyncLease, String> {
+
+    // Sérialise les prises de bail de tous les nœuds (verrou libéré en fin de transaction)
+    @Query(value = "select 1 from (select pg_advisory_xact_lock(hashtext('sync_lease'))) l", nativeQuery = true)
+    Integer lockLeases();
+
+    @Query(value = "select * from sync_lease where name in (:names) and holder <> :holder and expires_at > now()",
+            nativeQuery = true)
+    List<SyncLease> findActiveHeldByOthers(@Param("names") Collection<String> names, @Param("holder") String holder);
+
+    @Query(value = "select * from sync_lease where expires_at > now() order by name", nativeQuery = true)
+    List<SyncLease> findActive();
+
+    @Modifying
+    @Query(value = "insert into sync_lease (name, holder, job_id, acquired_at, heartbeat_at, expires_at) "
+            + "values (:name, :holder, :jobId, now(), now(), now() + :ttlMs * interval '1 millisecond') "
+            + "on conflict (name) do update set holder = excluded.holder, job_id = excluded.job_id, "
+            + "acquired_at = case when sync_lease.holder = excluded.holder then sync_lease.acquired_at else now() end, "
+            + "heartbeat_at = now(), expires_at = excluded.expires_at", nativeQuery = true)
+    int upsert(@Param("name") String name, @Param("holder") String holder,
+               @Param("jobId") String jobId, @Param("ttlMs") long ttlMs);
+
+    @Modifying
+    @Query(value = "update sync_lease set heartbeat_at = now(), expires_at = now() + :ttlMs * interval '1 millisecond' "
+            + "where holder = :holder", nativeQuery = true)
+    int renewAll(@Param("holder") String holder, @Param("ttlMs") long ttlMs);
+
+    @Query(value = "select name from sync_lease where holder = :holder", nativeQuery = true)
+    List<String> findNamesHeldBy(@Param("holder") String holder);
+
+    @Modifying
+    @Query(value = "delete from sync_lease where name = :name and holder = :holder", nativeQuery = true)
+    int release(@Param("name") String name, @Param("holder") String holder);
+}
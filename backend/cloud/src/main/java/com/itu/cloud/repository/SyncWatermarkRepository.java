@@ -0,0 +1,7 @@
+package com.itu.cloud.repository;
+
+import com.itu.cloud.entity.SyncWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SyncWatermarkRepository extends JpaRepository<SyncWatermark, String> {
+}
@@ -0,0 +1,12 @@
+package com.itu.cloud.repository;
+
+/**
+ * Ligne supprimée logiquement et document Firestore correspondant
+ * (null si la ligne n'a jamais été poussée).
+ */
+public interface Tombstone {
+
+    Long getId();
+
+    String getDocumentId();
+}
@@ -1,11 +1,16 @@
 package com.itu.cloud.repository;
 
 import com.itu.cloud.entity.User;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
@@ -15,9 +20,72 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     List<User> findByEntreprisesId(Long entrepriseId);
 
+    // Résolution groupée lors du pull Firebase
+    List<User> findByFirebaseUidIn(Collection<String> firebaseUids);
+
+    List<User> findByEmailIn(Collection<String> emails);
+
     @Query("select distinct u from User u left join fetch u.entreprises left join fetch u.reports")
     List<User> findAllWithRelations();
 
     @Query("select u from User u left join fetch u.entreprises left join fetch u.reports where u.id = :id")
     Optional<User> findByIdWithRelations(@Param("id") Long id);
+
+    // Utilisateurs modifiés depuis leur dernière synchro, par pages d'id croissants
+    @Query("select u from User u where (u.syncedAt is null or u.updatedAt > u.syncedAt) and u.id > :afterId order by u.id")
+    List<User> findDirtyAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select count(u) from User u where u.syncedAt is null or u.updatedAt > u.syncedAt")
+    long countDirty();
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.syncedAt = :syncedAt where u.id in :ids")
+    int markSynced(@Param("ids") Collection<Long> ids, @Param("syncedAt") LocalDateTime syncedAt);
+
+    // ---- Suppressions logiques (requêtes natives : @SQLRestriction masque les tombstones en JPQL) ----
+
+    /**
+     * Supprime logiquement les utilisateurs ; l'email est libéré (préfixé) pour
+     * qu'un nouveau compte puisse le reprendre avant le compactage.
+     */
+    @Modifying
+    @Query(value = "update users set deleted_at = :now, updated_at = :now, email = 'deleted:' || id || ':' || email "
+            + "where id in :ids and deleted_at is null", nativeQuery = true)
+    int softDelete(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query(value = "select firebase_uid from users where firebase_uid in :uids and deleted_at is not null", nativeQuery = true)
+    List<String> findDeletedFirebaseUids(@Param("uids") Collection<String> uids);
+
+    // Tombstones pas encore propagés (synced_at antérieur à la suppression)
+    @Query(value = "select id as \"id\", firebase_uid as \"documentId\" from users "
+            + "where id in :ids and deleted_at is not null and (synced_at is null or synced_at < deleted_at)", nativeQuery = true)
+    List<Tombstone> findUnsyncedTombstones(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select id as \"id\", firebase_uid as \"documentId\" from users "
+            + "where id > :afterId and deleted_at is not null and (synced_at is null or synced_at < deleted_at) "
+            + "order by id limit :limit", nativeQuery = true)
+    List<Tombstone> findUnsyncedTombstonesAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "update users set synced_at = :syncedAt where id in :ids", nativeQuery = true)
+    int markTombstonesSynced(@Param("ids") Collection<Long> ids, @Param("syncedAt") LocalDateTime syncedAt);
+
+    @Modifying
+    @Query(value = "delete from user_entreprise where user_id in :ids", nativeQuery = true)
+    int deleteMemberships(@Param("ids") Collection<Long> ids);
+
+    // Compactage : appartenances encore attachées à des tombstones purgeables
+    @Modifying
+    @Query(value = "delete from user_entreprise ue using users u where ue.user_id = u.id "
+            + "and u.deleted_at < :before and u.synced_at >= u.deleted_at", nativeQuery = true)
+    int deleteMembershipsOfDeletedBefore(@Param("before") LocalDateTime before);
+
+    // Compactage : tombstones propagés, sans report restant (même supprimé) ; l'historique de synchro est gardé
+    @Modifying
+    @Query(value = "with purged as (select u.id from users u where u.deleted_at < :before and u.synced_at >= u.deleted_at "
+            + "and not exists (select 1 from reports r where r.user_id = u.id)), "
+            + "detached as (update sync_log set synced_by = null where synced_by in (select id from purged)) "
+            + "delete from users where id in (select id from purged)", nativeQuery = true)
+    int purgeDeletedBefore(@Param("before") LocalDateTime before);
 }
@@ -0,0 +1,143 @@
+package com.itu.cloud.service;
+
+import com.itu.cloud.entity.ChangeLogEntry;
+import com.itu.cloud.repository.ChangeLogConsumerRepository;
+import com.itu.cloud.repository.ChangeLogRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Lecture du journal des modifications (table change_log, alimentée par
+ * triggers) et positions de ses consommateurs. Source ordonnée unique des
+ * traitements incrémentaux : relais Firestore, push incrémental, flux client.
+ *
+ * Un consommateur lit après sa position ({@link #poll}) puis l'acquitte
+ * ({@link #ack}), idéalement dans la transaction qui applique les changements.
+ *
+ * Une ligne ne reçoit son seq qu'une fois terminées toutes les transactions
+ * plus anciennes : une transaction longue bloque donc les lecteurs. Le nombre
+ * de lignes en attente et l'âge de la plus ancienne sont exposés dans
+ * /api/sync/status et en métriques (sync.changes.unsequenced*).
+ */
+@Service
+@Transactional
+public class ChangeLogService {
+
+    @Value("${sync.changes.sequence-batch:5000}")
+    private int sequenceBatch;
+
+    @Value("${sync.changes.retention-hours:168}")
+    private long retentionHours;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ChangeLogConsumerRepository changeLogConsumerRepository;
+
+    public ChangeLogService(ChangeLogRepository changeLogRepository,
+                            ChangeLogConsumerRepository changeLogConsumerRepository,
+                            SyncMetrics metrics) {
+        this.changeLogRepository = changeLogRepository;
+        this.changeLogConsumerRepository = changeLogConsumerRepository;
+        metrics.gauge("sync.changes.unsequenced", "Lignes du journal en attente de seq",
+                this, s -> s.unsequencedBacklog().getCount());
+        metrics.gauge("sync.changes.unsequenced.age", "Âge (s) de la plus ancienne ligne du journal sans seq",
+                this, s -> ageMs(s.unsequencedBacklog()) / 1000.0);
+    }
+
+    /**
+     * Changements de seq strictement supérieur à {@code afterSeq}, par seq croissant.
+     */
+    public List<ChangeLogEntry> read(long afterSeq, int limit) {
+        assignSequence();
+        return changeLogRepository.findAfter(afterSeq, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Comme {@link #read(long, int)}, limité aux entités données.
+     */
+    public List<ChangeLogEntry> read(long afterSeq, Collection<String> entities, int limit) {
+        assignSequence();
+        return changeLogRepository.findAfter(afterSeq, entities, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Changements des entités données non encore acquittés par {@code consumer}.
+     */
+    public List<ChangeLogEntry> poll(String consumer, Collection<String> entities, int limit) {
+        return read(position(consumer), entities, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public long position(String consumer) {
+        return changeLogConsumerRepository.findById(consumer).map(c -> c.getLastSeq()).orElse(0L);
+    }
+
+    /**
+     * Avance la position de {@code consumer} jusqu'à {@code seq} inclus ; sans effet
+     * si elle est déjà plus loin.
+     */
+    public void ack(String consumer, long seq) {
+        changeLogConsumerRepository.advance(consumer, seq);
+    }
+
+    /**
+     * Plus petit seq encore conservé (0 si le journal est vide) : un lecteur
+     * positionné avant a manqué des changements purgés.
+     */
+    @Transactional(readOnly = true)
+    public long oldestSeq() {
+        return changeLogRepository.findMinSeq();
+    }
+
+    public long latestSeq() {
+        assignSequence();
+        return changeLogRepository.findMaxSeq();
+    }
+
+    @Transactional(readOnly = true)
+    public ChangeLogRepository.UnsequencedBacklog unsequencedBacklog() {
+        return changeLogRepository.findUnsequencedBacklog();
+    }
+
+    /**
+     * Numérotation du journal : lignes en attente de seq et âge de la plus ancienne.
+     */
+    public Map<String, Object> getStatus() {
+        ChangeLogRepository.UnsequencedBacklog backlog = unsequencedBacklog();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("unsequenced", backlog.getCount());
+        status.put("oldestUnsequencedAt", backlog.getOldestChangedAt());
+        status.put("oldestUnsequencedAgeMs", ageMs(backlog));
+        return status;
+    }
+
+    private static long ageMs(ChangeLogRepository.UnsequencedBacklog backlog) {
+        LocalDateTime oldest = backlog.getOldestChangedAt();
+        return oldest != null ? Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()) : 0;
+    }
+
+    private void assignSequence() {
+        changeLogRepository.lockSequencer();
+        changeLogRepository.assignSequence(sequenceBatch);
+    }
+
+    /**
+     * Purge les changements lus par tous les consommateurs et plus anciens que la rétention.
+     */
+    @Scheduled(fixedDelayString = "${sync.changes.prune-interval-ms:3600000}",
+            initialDelayString = "${sync.changes.prune-interval-ms:3600000}")
+    public void prune() {
+        int deleted = changeLogRepository.deleteConsumedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            System.out.println("🧹 Journal des modifications: " + deleted + " entrée(s) purgée(s)");
+        }
+    }
+}
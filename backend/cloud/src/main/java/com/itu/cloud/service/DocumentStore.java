@@ -0,0 +1,244 @@
+package com.itu.cloud.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Magasin de documents distant avec lequel PostgreSQL est synchronisé.
+ *
+ * {@link FirestoreDocumentStore} est l'implémentation de production ;
+ * {@link InMemoryDocumentStore} la remplace hors ligne (sync.target=memory),
+ * avec latence et échecs injectables, pour les tests et les benchmarks.
+ *
+ * Les champs "updatedAt" (et "createdAt" à la création) sont horodatés par
+ * le magasin lui-même, en {@link com.google.cloud.Timestamp}.
+ *
+ * Un document supprimé reste présent avec le marqueur "deleted" (et
+ * "deletedAt") jusqu'au compactage, pour que la suppression soit vue par les
+ * lectures incrémentales.
+ */
+public interface DocumentStore {
+
+    /**
+     * Documents de la collection par id croissant, strictement après
+     * {@code afterId} (null pour partir du début), au plus {@code limit}.
+     */
+    default List<SyncDocument> list(String collection, String afterId, int limit)
+            throws ExecutionException, InterruptedException {
+        return list(collection, IdRange.ALL, afterId, limit);
+    }
+
+    /**
+     * Comme {@link #list(String, String, int)}, limité à la plage {@code range}.
+     */
+    List<SyncDocument> list(String collection, IdRange range, String afterId, int limit)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Découpe la collection en au plus {@code partitions} plages d'ids
+     * contiguës, de volumes comparables, couvrant toute la collection.
+     */
+    List<IdRange> partition(String collection, int partitions)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Documents dont (updatedAt, id) est strictement postérieur à
+     * ({@code updatedAt}, {@code afterId}), triés dans cet ordre, au plus
+     * {@code limit}. Sans {@code updatedAt}, depuis le premier document ayant un updatedAt.
+     * Seuls les documents dont updatedAt est un Timestamp sont rendus.
+     */
+    List<SyncDocument> listChangedSince(String collection, Instant updatedAt, String afterId, int limit)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Documents dont updatedAt est une chaîne (date ISO écrite par d'anciennes
+     * versions de l'app mobile), triés par (updatedAt, id), strictement après
+     * ({@code updatedAt}, {@code afterId}) ; null pour partir du début.
+     */
+    List<SyncDocument> listUnstampedSince(String collection, String updatedAt, String afterId, int limit)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Nombre de documents de la collection (agrégation côté serveur).
+     */
+    long count(String collection) throws ExecutionException, InterruptedException;
+
+    /**
+     * Pour chaque valeur trouvée, id du premier document dont {@code field} vaut cette valeur.
+     */
+    Map<String, String> findIdsByField(String collection, String field, Collection<String> values)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Id d'un document dont tous les champs donnés sont égaux aux valeurs données.
+     */
+    Optional<String> findFirstId(String collection, Map<String, Object> equalities)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Documents existants parmi {@code ids}, indexés par id ; les absents n'y figurent pas.
+     */
+    Map<String, SyncDocument> getAll(String collection, Collection<String> ids)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Ids des documents marqués "deleted" avant {@code before}, au plus {@code limit}.
+     */
+    List<String> listDeletedBefore(String collection, Instant before, int limit)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Id d'un nouveau document, généré localement sans aller-retour.
+     */
+    String newDocumentId(String collection);
+
+    /**
+     * Ouvre un écrivain groupé ; à fermer après usage.
+     */
+    Writer openWriter();
+
+    /**
+     * Écoute les changements postérieurs à ({@code updatedAt}, {@code afterId}).
+     */
+    Registration listen(String collection, Instant updatedAt, String afterId, ChangeListener listener);
+
+    /**
+     * Recrée la connexion après une erreur de client fermé.
+     */
+    void reconnect();
+
+    /**
+     * État du client distant (circuit, dernières erreurs), pour /api/sync/status.
+     */
+    default Map<String, Object> getHealth() {
+        return Map.of();
+    }
+
+    /**
+     * Écritures groupées, envoyées en parallèle. Un échec n'affecte que le
+     * document concerné, via sa future.
+     */
+    interface Writer extends AutoCloseable {
+
+        /**
+         * Crée ou fusionne (merge) le document ; {@code created} ajoute createdAt.
+         */
+        CompletableFuture<Void> upsert(String collection, String documentId, Map<String, Object> data, boolean created);
+
+        /**
+         * Ajoute des valeurs absentes au tableau {@code field} (arrayUnion) ;
+         * rejouer l'opération ne crée pas de doublon.
+         */
+        CompletableFuture<Void> addToArray(String collection, String documentId, String field, List<?> values);
+
+        /**
+         * Retire les valeurs données du tableau {@code field} (arrayRemove).
+         */
+        CompletableFuture<Void> removeFromArray(String collection, String documentId, String field, List<?> values);
+
+        /**
+         * Pose le marqueur de suppression (deleted, deletedAt) sans effacer le document.
+         */
+        CompletableFuture<Void> markDeleted(String collection, String documentId);
+
+        /**
+         * Supprime définitivement le document (compactage des marqueurs).
+         */
+        CompletableFuture<Void> delete(String collection, String documentId);
+
+        /**
+         * Attend la fin de toutes les écritures en cours.
+         */
+        void flush() throws InterruptedException;
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Plage d'ids [startAt, endBefore) ; une borne null n'est pas limitée.
+     */
+    final class IdRange {
+        public static final IdRange ALL = new IdRange(null, null);
+
+        private final String startAt;
+        private final String endBefore;
+
+        public IdRange(String startAt, String endBefore) {
+            this.startAt = startAt;
+            this.endBefore = endBefore;
+        }
+
+        /**
+         * Plages contiguës délimitées par des ids de coupure (triés, dédoublonnés ici).
+         */
+        public static List<IdRange> between(Collection<String> boundaries) {
+            List<String> sorted = new ArrayList<>(new TreeSet<>(boundaries));
+            List<IdRange> ranges = new ArrayList<>(sorted.size() + 1);
+            String start = null;
+            for (String boundary : sorted) {
+                ranges.add(new IdRange(start, boundary));
+                start = boundary;
+            }
+            ranges.add(new IdRange(start, null));
+            return ranges;
+        }
+
+        public String getStartAt() {
+            return startAt;
+        }
+
+        public String getEndBefore() {
+            return endBefore;
+        }
+
+        public boolean contains(String id) {
+            return (startAt == null || id.compareTo(startAt) >= 0)
+                    && (endBefore == null || id.compareTo(endBefore) < 0);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + (startAt != null ? startAt : "") + ", " + (endBefore != null ? endBefore : "") + ")";
+        }
+    }
+
+    enum ChangeType { ADDED, MODIFIED, REMOVED }
+
+    interface ChangeListener {
+
+        void onChanges(List<Change> changes);
+
+        void onError(Throwable error);
+    }
+
+    final class Change {
+        private final ChangeType type;
+        private final SyncDocument document;
+
+        public Change(ChangeType type, SyncDocument document) {
+            this.type = type;
+            this.document = document;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public SyncDocument getDocument() {
+            return document;
+        }
+    }
+
+    interface Registration {
+
+        void remove();
+    }
+}
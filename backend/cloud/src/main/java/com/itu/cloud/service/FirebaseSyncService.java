@@ -1,158 +1,510 @@
 package com.itu.cloud.service;
 
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.*;
-import com.itu.cloud.config.FirebaseConfig;
+import com.google.cloud.Timestamp;
+import com.itu.cloud.entity.ChangeLogEntry;
+import com.itu.cloud.entity.OutboxEvent;
 import com.itu.cloud.entity.Report;
 import com.itu.cloud.entity.User;
 import com.itu.cloud.entity.SyncLog;
+import com.itu.cloud.entity.SyncCheckpoint;
+import com.itu.cloud.entity.SyncPhaseLog;
+import com.itu.cloud.entity.SyncWatermark;
+import com.itu.cloud.repository.DeferredReportRepository;
+import com.itu.cloud.repository.OutboxEventRepository;
 import com.itu.cloud.repository.ReportRepository;
 import com.itu.cloud.repository.UserRepository;
 import com.itu.cloud.repository.SyncLogRepository;
+import com.itu.cloud.repository.SyncCheckpointRepository;
+import com.itu.cloud.repository.SyncWatermarkRepository;
 import com.itu.cloud.entity.PhotoReport;
 import com.itu.cloud.repository.PhotoReportRepository;
+import com.itu.cloud.repository.Tombstone;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.LongFunction;
+import java.util.function.ToIntBiFunction;
 
 @Service
 public class FirebaseSyncService {
 
-    private final FirebaseConfig firebaseConfig;
+    public static final String TYPE_FULL = "full";
+    public static final String TYPE_PULL = "pull";
+    public static final String TYPE_PUSH = "push";
+
+    static final String PHASE_PULL_USERS = "pull-users";
+    static final String PHASE_PUSH_USERS = "push-users";
+    static final String PHASE_PULL_REPORTS = "pull-reports";
+    static final String PHASE_PUSH_REPORTS = "push-reports";
+
+    /** Lit toute la collection Firestore. */
+    public static final String MODE_FULL = "full";
+    /** Lit uniquement les documents modifiés depuis le dernier watermark. */
+    public static final String MODE_INCREMENTAL = "incremental";
+    /** Comme "full", les reports étant lus par plages d'ids en parallèle. */
+    public static final String MODE_PARALLEL = "parallel";
+
+    /** Écritures en vol avant d'attendre un flush de l'écrivain groupé. */
+    @Value("${sync.push.max-in-flight:500}")
+    private int maxInFlight;
+
+    /** Motif enregistré dans l'outbox pour un report en attente de son auteur. */
+    static final String DEFERRED_REASON = "Auteur sans firebaseUid valide";
+
+    /** Motif d'un report tiré avant son auteur, relu par {@link #retryDeferredReports}. */
+    static final String AUTHOR_UNKNOWN_REASON = "Auteur introuvable (ni firebaseUid ni email connus)";
+
+    /** Documents Firestore résolus et écrits ensemble lors du pull. */
+    @Value("${sync.pull.page-size:500}")
+    private int pullPageSize;
+
+    /** Plages d'ids lues en parallèle en mode "parallel" (0 : une par worker). */
+    @Value("${sync.pull.partitions:0}")
+    private int pullPartitions;
+
+    /** Nombre de lignes modifiées lues par page lors du push. */
+    @Value("${sync.push.page-size:500}")
+    private int pageSize;
+
+    private final DocumentStore documentStore;
     private final UserRepository userRepository;
     private final ReportRepository reportRepository;
     private final SyncLogRepository syncLogRepository;
     private final PhotoReportRepository photoReportRepository;
+    private final SyncWatermarkRepository syncWatermarkRepository;
+    private final SyncCheckpointRepository syncCheckpointRepository;
+    private final ChangeLogService changeLogService;
+    private final OutboxEventRepository outboxEventRepository;
+    private final DeferredReportRepository deferredReportRepository;
+    private final TombstoneService tombstoneService;
+    private final SyncMetrics syncMetrics;
+    private final ReportSpatialIndex reportSpatialIndex;
+    private final TransactionTemplate transactionTemplate;
+    /** Lit la page suivante pendant que la page courante est écrite. */
+    private final ExecutorService prefetchExecutor;
+    /**
+     * Workers du pull parallèle, partagés par toutes les synchros : leur nombre
+     * plafonne les transactions (et connexions) de pull simultanées.
+     */
+    private final ExecutorService pullWorkers;
+    private final int pullConcurrency;
+    /** Phases d'une synchro exécutées en parallèle selon leurs dépendances. */
+    private final ExecutorService phaseExecutor;
 
-    public FirebaseSyncService(FirebaseConfig firebaseConfig, 
+    public FirebaseSyncService(DocumentStore documentStore, 
                                UserRepository userRepository,
                                ReportRepository reportRepository,
                                SyncLogRepository syncLogRepository,
-                               PhotoReportRepository photoReportRepository) {
-        this.firebaseConfig = firebaseConfig;
+                               PhotoReportRepository photoReportRepository,
+                               SyncWatermarkRepository syncWatermarkRepository,
+                               SyncCheckpointRepository syncCheckpointRepository,
+                               ChangeLogService changeLogService,
+                               OutboxEventRepository outboxEventRepository,
+                               DeferredReportRepository deferredReportRepository,
+                               TombstoneService tombstoneService,
+                               SyncMetrics syncMetrics,
+                               ReportSpatialIndex reportSpatialIndex,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${sync.pull.prefetch-threads:2}") int prefetchThreads,
+                               @Value("${sync.pull.max-concurrency:4}") int pullConcurrency) {
+        this.documentStore = documentStore;
         this.userRepository = userRepository;
         this.reportRepository = reportRepository;
         this.syncLogRepository = syncLogRepository;
         this.photoReportRepository = photoReportRepository;
+        this.syncWatermarkRepository = syncWatermarkRepository;
+        this.syncCheckpointRepository = syncCheckpointRepository;
+        this.changeLogService = changeLogService;
+        this.outboxEventRepository = outboxEventRepository;
+        this.deferredReportRepository = deferredReportRepository;
+        this.tombstoneService = tombstoneService;
+        this.syncMetrics = syncMetrics;
+        this.reportSpatialIndex = reportSpatialIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.prefetchExecutor = Executors.newFixedThreadPool(Math.max(1, prefetchThreads), runnable -> {
+            Thread thread = new Thread(runnable, "sync-prefetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pullConcurrency = Math.max(1, pullConcurrency);
+        AtomicInteger workerCount = new AtomicInteger();
+        this.pullWorkers = Executors.newFixedThreadPool(this.pullConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "sync-pull-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Au plus deux phases simultanées par synchro, le nombre de synchros étant borné par SyncJobService
+        AtomicInteger phaseCount = new AtomicInteger();
+        this.phaseExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "sync-phase-" + phaseCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prefetchExecutor.shutdownNow();
+        pullWorkers.shutdownNow();
+        phaseExecutor.shutdownNow();
     }
 
     /**
-     * Obtient une instance Firestore valide.
-     * Si le client a été fermé, réinitialise Firebase et retourne une nouvelle instance.
+     * Vérifie le mode demandé ("full" par défaut) et le normalise.
      */
-    private Firestore getFirestore() {
-        try {
-            Firestore fs = firebaseConfig.getFirestore();
-            if (fs == null) {
-                throw new IllegalStateException("Firestore non disponible. Vérifiez la configuration Firebase.");
-            }
-            return fs;
-        } catch (Exception e) {
-            System.out.println("⚠️ Firestore indisponible, tentative de réinitialisation...");
-            firebaseConfig.reinitialize();
-            Firestore fs = firebaseConfig.getFirestore();
-            if (fs == null) {
-                throw new IllegalStateException("Firestore non disponible après réinitialisation. Vérifiez firebase-service-account.json.");
-            }
-            return fs;
+    public static String normalizeMode(String mode) {
+        if (mode == null || mode.isBlank()) return MODE_FULL;
+        String m = mode.trim().toLowerCase();
+        if (!MODE_FULL.equals(m) && !MODE_INCREMENTAL.equals(m) && !MODE_PARALLEL.equals(m)) {
+            throw new IllegalArgumentException("Mode de synchronisation inconnu: " + mode + " (attendu: full, incremental ou parallel)");
         }
+        return m;
     }
 
     // ==========================================
     // SYNCHRONISATION BIDIRECTIONNELLE COMPLÈTE
     // ==========================================
 
-    @Transactional
     public SyncLog syncAll(User syncedBy) {
+        return syncAll(syncedBy, MODE_FULL);
+    }
+
+    public SyncLog syncAll(User syncedBy, String mode) {
+        return sync(TYPE_FULL, mode, syncedBy, new SyncStats());
+    }
+
+    /**
+     * Exécute une synchronisation "full" (les deux sens), "pull" ou "push".
+     * La progression (phase, documents traités) est publiée dans {@code stats}
+     * au fil de l'eau, ce qui permet de la suivre depuis un autre thread.
+     *
+     * Il n'y a pas de transaction englobante : chaque lot (sync.pull.page-size /
+     * sync.push.page-size documents) est validé dans sa propre transaction avec
+     * un checkpoint (phase, curseur). Une synchro en échec ou interrompue reprend
+     * au lot suivant le dernier checkpoint au lieu de tout recommencer.
+     */
+    public SyncLog sync(String syncType, String mode, User syncedBy, SyncStats stats) {
+        mode = normalizeMode(mode);
         SyncLog log = new SyncLog();
-        log.setSyncType("full");
+        log.setSyncType(syncType);
+        log.setMode(mode);
         log.setSyncedBy(syncedBy);
         log.setSyncedAt(LocalDateTime.now());
-        
-        int pulled = 0;
-        int pushed = 0;
         int conflicts = 0;
+        long startedAt = System.nanoTime();
 
+        // Les erreurs transitoires et les clients fermés sont réessayés appel par
+        // appel (FirestoreResilience) ; une synchro en échec reprend au checkpoint
         try {
-            // 1. Sync Users: Firebase -> PostgreSQL
-            pulled += pullUsersFromFirebase();
-            
-            // 2. Sync Users: PostgreSQL -> Firebase
-            pushed += pushUsersToFirebase();
-            
-            // 3. Sync Reports: Firebase -> PostgreSQL
-            pulled += pullReportsFromFirebase();
-            
-            // 4. Sync Reports: PostgreSQL -> Firebase
-            pushed += pushReportsToFirebase();
-
-            log.setRecordsPulled(pulled);
-            log.setRecordsPushed(pushed);
+            runPhases(startRun(syncType, mode, stats));
             log.setConflicts(conflicts);
-            log.setStatus("success");
-            
+            applyFailures(log, stats);
         } catch (Exception e) {
-            // Si le client Firestore a été fermé, tenter une réinitialisation et réessayer
-            if (e.getMessage() != null && e.getMessage().contains("already been closed")) {
-                System.out.println("🔄 Client Firestore fermé détecté, réinitialisation en cours...");
-                firebaseConfig.reinitialize();
-                try {
-                    pulled += pullUsersFromFirebase();
-                    pushed += pushUsersToFirebase();
-                    pulled += pullReportsFromFirebase();
-                    pushed += pushReportsToFirebase();
-                    log.setRecordsPulled(pulled);
-                    log.setRecordsPushed(pushed);
-                    log.setConflicts(conflicts);
-                    log.setStatus("success");
-                } catch (Exception retryEx) {
-                    log.setStatus("failed");
-                    log.setErrorMessage("Échec après réinitialisation: " + retryEx.getMessage());
-                }
-            } else {
-                log.setStatus("failed");
-                log.setErrorMessage(e.getMessage());
-            }
+            // Arrêt demandé : son motif prime sur l'erreur d'une phase interrompue en chemin
+            applyError(log, stats, stats.getAbortReason() != null ? stats.getAbortReason() : e.getMessage());
         }
 
+        log.setRecordsPulled(stats.getPulled());
+        log.setRecordsPushed(stats.getPushed());
+        log.setRecordsFailed(stats.getFailed());
+        log.setRecordsSkipped(stats.getSkipped());
+        log.setDurationMs((System.nanoTime() - startedAt) / 1_000_000);
+        for (SyncStats.PhaseTiming timing : stats.getPhaseTimings()) {
+            SyncPhaseLog phase = new SyncPhaseLog();
+            phase.setPhase(timing.getPhase());
+            phase.setStartedAt(timing.getStartedAt());
+            phase.setFinishedAt(timing.getFinishedAt());
+            phase.setDurationMs(timing.getDurationMs());
+            phase.setDocuments(timing.getDocuments());
+            phase.setFirestoreReads(timing.getCounters().getFirestoreReads());
+            phase.setFirestoreWrites(timing.getCounters().getFirestoreWrites());
+            phase.setSqlStatements(timing.getCounters().getSqlStatements());
+            phase.setFirestoreRetries(timing.getCounters().getRetries());
+            phase.setErrors(timing.getCounters().getErrors());
+            log.addPhase(phase);
+            syncMetrics.recordPhase(syncType, timing);
+        }
+        syncMetrics.recordRun(syncType, mode, log.getStatus(), log.getDurationMs());
+        stats.finish();
         return syncLogRepository.save(log);
     }
 
+    /**
+     * Prépare une exécution, en reprenant les checkpoints laissés par une synchro
+     * du même type et du même mode qui ne s'est pas terminée. Ceux d'un autre
+     * mode sont abandonnés.
+     */
+    private SyncRun startRun(String syncType, String mode, SyncStats stats) {
+        List<SyncCheckpoint> checkpoints = syncCheckpointRepository.findBySyncType(syncType);
+        Map<String, SyncCheckpoint> byPhase = new HashMap<>();
+        for (SyncCheckpoint checkpoint : checkpoints) {
+            if (mode.equals(checkpoint.getMode())) byPhase.put(checkpoint.getPhase(), checkpoint);
+        }
+        if (byPhase.size() < checkpoints.size()) {
+            syncCheckpointRepository.deleteBySyncType(syncType);
+            byPhase.clear();
+        }
+        for (SyncCheckpoint checkpoint : byPhase.values()) {
+            System.out.println("⏯️ Reprise de la synchronisation " + syncType + ", phase " + checkpoint.getPhase()
+                    + (Boolean.TRUE.equals(checkpoint.getPhaseCompleted()) ? " terminée"
+                    : checkpoint.getCursor() != null ? " après " + checkpoint.getCursor() : ""));
+        }
+        return new SyncRun(syncType, mode, stats, byPhase);
+    }
+
+    /**
+     * Exécute les phases selon leurs dépendances plutôt qu'en séquence :
+     * - pull-reports démarre avec pull-users, chaque lot de reports n'attendant
+     *   que les auteurs qu'il référence ({@link UserGate}) ;
+     * - push-users suit pull-users (même table) et recouvre pull-reports ;
+     * - push-reports attend push-users (firebaseUid des auteurs) et pull-reports.
+     */
+    private void runPhases(SyncRun run) throws ExecutionException, InterruptedException {
+        boolean pull = !TYPE_PUSH.equals(run.syncType);
+        boolean push = !TYPE_PULL.equals(run.syncType);
+        CompletableFuture<Void> none = CompletableFuture.completedFuture(null);
+        run.userGate = pull ? new UserGate() : UserGate.closedGate();
+
+        // 1. Sync Users: Firebase -> PostgreSQL
+        CompletableFuture<Void> pulledUsers = pull ? runPhase(run, PHASE_PULL_USERS, () -> pullUsers(run)) : none;
+        pulledUsers.whenComplete((v, error) -> run.userGate.close(error));
+
+        // 2. Sync Reports: Firebase -> PostgreSQL, au fil des auteurs résolus
+        CompletableFuture<Void> pulledReports = pull ? runPhase(run, PHASE_PULL_REPORTS, () -> pullReports(run)) : none;
+
+        // 3. Sync Users: PostgreSQL -> Firebase
+        CompletableFuture<Void> pushedUsers = push
+                ? pulledUsers.thenCompose(v -> runPhase(run, PHASE_PUSH_USERS, () -> pushUsers(run)))
+                : none;
+
+        // 4. Sync Reports: PostgreSQL -> Firebase
+        CompletableFuture<Void> pushedReports = push
+                ? CompletableFuture.allOf(pushedUsers, pulledReports)
+                        .thenCompose(v -> runPhase(run, PHASE_PUSH_REPORTS, () -> pushReports(run)))
+                : none;
+
+        awaitPhases(pulledUsers, pulledReports, pushedUsers, pushedReports);
+
+        // Synchro terminée : plus rien à reprendre
+        transactionTemplate.executeWithoutResult(status -> syncCheckpointRepository.deleteBySyncType(run.syncType));
+    }
+
+    @FunctionalInterface
+    private interface PhaseTask {
+        int run() throws ExecutionException, InterruptedException;
+    }
+
+    private CompletableFuture<Void> runPhase(SyncRun run, String phase, PhaseTask task) {
+        return CompletableFuture.runAsync(() -> {
+            try (SyncMetrics.Binding ignored = syncMetrics.bind(syncMetrics.scope(run.stats, phase))) {
+                run.stats.checkAborted();
+                task.run();
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause() != null ? e.getCause() : e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            } finally {
+                run.stats.endPhase(phase);
+            }
+        }, phaseExecutor);
+    }
+
+    /**
+     * Attend toutes les phases, y compris celles qui tournent encore après
+     * l'échec d'une autre, puis relance la première erreur.
+     */
+    @SafeVarargs
+    private static void awaitPhases(CompletableFuture<Void>... phases) throws ExecutionException, InterruptedException {
+        Throwable failure = null;
+        for (CompletableFuture<Void> phase : phases) {
+            try {
+                phase.get();
+            } catch (ExecutionException e) {
+                if (failure == null) failure = e.getCause();
+            }
+        }
+        while (failure instanceof CompletionException && failure.getCause() != null) failure = failure.getCause();
+        if (failure == null) return;
+        if (failure instanceof InterruptedException) throw (InterruptedException) failure;
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        if (failure instanceof Error) throw (Error) failure;
+        throw new ExecutionException(failure.getMessage(), failure);
+    }
+
+    /**
+     * Lot de reports : attend que les auteurs référencés soient en base, soit
+     * déjà présents, soit validés entre-temps par la phase pull-users.
+     * Appelé hors transaction pour ne pas garder de connexion pendant l'attente.
+     */
+    private void awaitAuthors(SyncRun run, List<SyncDocument> page) throws ExecutionException, InterruptedException {
+        UserGate gate = run.userGate;
+        if (gate.isClosed()) {
+            gate.closedFuture().get();
+            return;
+        }
+        List<UserGate.Author> pending = new ArrayList<>();
+        for (SyncDocument doc : page) {
+            String uid = doc.getString("userId");
+            String email = doc.getString("userEmail");
+            UserGate.Author author = new UserGate.Author(uid, email);
+            // Sans auteur, le report est ignoré de toute façon
+            if ((uid != null || email != null) && !gate.resolved(author)) pending.add(author);
+        }
+        if (pending.isEmpty()) return;
+
+        Set<String> uids = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (UserGate.Author author : pending) {
+            if (author.uid != null) uids.add(author.uid);
+            if (author.email != null) emails.add(author.email);
+        }
+        Set<String> knownUids = new HashSet<>();
+        Set<String> knownEmails = new HashSet<>();
+        if (!uids.isEmpty()) {
+            for (User u : userRepository.findByFirebaseUidIn(uids)) knownUids.add(u.getFirebaseUid());
+        }
+        if (!emails.isEmpty()) {
+            for (User u : userRepository.findByEmailIn(emails)) knownEmails.add(u.getEmail());
+        }
+        pending.removeIf(a -> (a.uid != null && knownUids.contains(a.uid))
+                || (a.email != null && knownEmails.contains(a.email)));
+        if (!pending.isEmpty()) gate.whenResolved(pending).get();
+    }
+
+    /**
+     * Erreur en cours de synchro : "partial" si des lots ont déjà été validés
+     * (ils restent en base et le checkpoint permet de reprendre), "failed" sinon.
+     */
+    private void applyError(SyncLog log, SyncStats stats, String message) {
+        log.setStatus(stats.getChunksCommitted() > 0 ? "partial" : "failed");
+        log.setErrorMessage(message);
+    }
+
+    /**
+     * Succès complet, ou "partial" si des documents n'ont pas pu être écrits.
+     */
+    private void applyFailures(SyncLog log, SyncStats stats) {
+        if (stats.getFailed() > 0) {
+            log.setStatus("partial");
+            log.setErrorMessage(stats.describeFailures());
+        } else {
+            log.setStatus("success");
+        }
+    }
+
     // ==========================================
     // PULL: Firebase → PostgreSQL
     // ==========================================
 
     public int pullUsersFromFirebase() throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = getFirestore().collection("users").get();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-        int count = 0;
+        return pullUsersFromFirebase(MODE_FULL);
+    }
+
+    public int pullUsersFromFirebase(String mode) throws ExecutionException, InterruptedException {
+        return pullUsersFromFirebase(mode, new SyncStats());
+    }
+
+    public int pullUsersFromFirebase(String mode, SyncStats stats) throws ExecutionException, InterruptedException {
+        return pullUsers(new SyncRun(null, normalizeMode(mode), stats, null));
+    }
+
+    private int pullUsers(SyncRun run) throws ExecutionException, InterruptedException {
+        return pullPhase(run, "users", PHASE_PULL_USERS, this::applyUserPage);
+    }
+
+    public int applyUserDocuments(List<SyncDocument> documents) {
+        return applyUserDocuments(documents, new SyncStats());
+    }
+
+    /**
+     * Applique des documents "users" déjà lus (listener temps réel), un lot
+     * par transaction, puis avance le watermark de la collection.
+     */
+    public int applyUserDocuments(List<SyncDocument> documents, SyncStats stats) {
+        return applyDocuments("users", documents, stats, this::applyUserPage);
+    }
+
+    /**
+     * Applique une page de documents "users" : les uid et emails de la page sont
+     * résolus en deux requêtes IN, puis les créations/mises à jour partent en un saveAll.
+     * Un document marqué "deleted" supprime l'utilisateur lié ; un document
+     * dont l'utilisateur a été supprimé ici est ignoré (le marqueur part au push).
+     */
+    private int applyUserPage(List<SyncDocument> page, SyncStats stats) {
+        Set<String> uids = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (SyncDocument doc : page) {
+            uids.add(doc.getId());
+            String email = doc.getString("email");
+            if (email != null && !doc.isDeleted()) emails.add(email);
+        }
+
+        Map<String, User> byUid = new HashMap<>();
+        for (User u : userRepository.findByFirebaseUidIn(uids)) byUid.put(u.getFirebaseUid(), u);
+        Map<String, User> byEmail = new HashMap<>();
+        if (!emails.isEmpty()) {
+            for (User u : userRepository.findByEmailIn(emails)) byEmail.put(u.getEmail(), u);
+        }
+        Set<String> unknownUids = new HashSet<>(uids);
+        unknownUids.removeAll(byUid.keySet());
+        Set<String> deletedHere = unknownUids.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(userRepository.findDeletedFirebaseUids(unknownUids));
 
-        for (QueryDocumentSnapshot doc : documents) {
+        Set<User> toSave = new LinkedHashSet<>();
+        List<Long> toDelete = new ArrayList<>();
+        int count = 0;
+        for (SyncDocument doc : page) {
+            if (doc.isDeleted()) {
+                User deleted = byUid.remove(doc.getId());
+                if (deleted != null) toDelete.add(deleted.getId());
+                continue;
+            }
+            if (deletedHere.contains(doc.getId())) {
+                stats.addSkipped(1);
+                continue;
+            }
             String firebaseUid = doc.getId();
             String email = doc.getString("email");
-            
-            // 1. Vérifier par firebaseUid
             if (firebaseUid == null || firebaseUid.isEmpty()) continue;
-            Optional<User> existingByUid = userRepository.findByFirebaseUid(firebaseUid);
-            
-            // 2. Vérifier aussi par email pour éviter les doublons
-            Optional<User> existingByEmail = (email != null) ? userRepository.findByEmail(email) : Optional.empty();
-            
-            if (existingByUid.isPresent()) {
+
+            User existingByUid = byUid.get(firebaseUid);
+            User existingByEmail = email != null ? byEmail.get(email) : null;
+
+            if (existingByUid != null) {
+                // Document identique à la dernière synchro : rien à écrire
+                if (pulledUserHash(existingByUid, doc).equals(existingByUid.getSyncHash())) {
+                    stats.addSkipped(1);
+                    continue;
+                }
                 // L'utilisateur existe déjà avec ce firebaseUid - mettre à jour
-                User user = existingByUid.get();
-                updateUserFromFirebase(user, doc);
-                userRepository.save(user);
-            } else if (existingByEmail.isPresent()) {
+                updateUserFromFirebase(existingByUid, doc);
+                toSave.add(existingByUid);
+            } else if (existingByEmail != null) {
                 // L'utilisateur existe avec cet email mais sans firebaseUid - lier et mettre à jour
-                User user = existingByEmail.get();
-                user.setFirebaseUid(firebaseUid);
-                updateUserFromFirebase(user, doc);
-                userRepository.save(user);
+                existingByEmail.setFirebaseUid(firebaseUid);
+                updateUserFromFirebase(existingByEmail, doc);
+                byUid.put(firebaseUid, existingByEmail);
+                toSave.add(existingByEmail);
                 count++; // Compté comme sync car on a lié les comptes
             } else {
                 // Nouvel utilisateur - créer
@@ -164,193 +516,1066 @@ public class FirebaseSyncService {
                 user.setRole(doc.getString("role") != null ? doc.getString("role") : "utilisateur");
                 user.setPasswordHash("firebase_auth");
                 user.setVerified(true);
-                
-                userRepository.save(user);
+                user.setSyncHash(hashOf(user));
+
+                byUid.put(firebaseUid, user);
+                if (email != null) byEmail.put(email, user);
+                toSave.add(user);
                 count++;
             }
         }
-        
+
+        if (!toSave.isEmpty()) {
+            List<Long> pulledIds = new ArrayList<>();
+            for (User saved : userRepository.saveAll(toSave)) pulledIds.add(saved.getId());
+            // Les lignes écrites par le pull ne doivent pas repartir au prochain push
+            userRepository.markSynced(pulledIds, LocalDateTime.now());
+        }
+        if (!toDelete.isEmpty()) {
+            stats.addDeleted(tombstoneService.deleteUsers(toDelete, LocalDateTime.now()));
+        }
         return count;
     }
 
     public int pullReportsFromFirebase() throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = getFirestore().collection("reports").get();
-        List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+        return pullReportsFromFirebase(MODE_FULL);
+    }
+
+    public int pullReportsFromFirebase(String mode) throws ExecutionException, InterruptedException {
+        return pullReportsFromFirebase(mode, new SyncStats());
+    }
+
+    public int pullReportsFromFirebase(String mode, SyncStats stats) throws ExecutionException, InterruptedException {
+        return pullReports(new SyncRun(null, normalizeMode(mode), stats, null));
+    }
+
+    private int pullReports(SyncRun run) throws ExecutionException, InterruptedException {
+        int count = retryDeferredReports(run);
+        count += MODE_PARALLEL.equals(run.mode)
+                ? pullPhaseParallel(run, "reports", PHASE_PULL_REPORTS, this::applyReportPage)
+                : pullPhase(run, "reports", PHASE_PULL_REPORTS, this::applyReportPage);
+        System.out.println("[PhotoSync] " + run.stats.getPhotosInserted() + " photo(s) ajoutée(s), "
+                + run.stats.getPhotosDuplicate() + " déjà présente(s), "
+                + run.stats.getPhotosIgnored() + " ignorée(s) (URL absente)");
+        return count;
+    }
+
+    /**
+     * Reports mis en attente faute d'auteur (voir {@link #applyReportPage}) : le
+     * watermark les a dépassés, ils sont donc relus par id au début de chaque
+     * pull des reports, quel que soit le mode (un report mis en attente par ce
+     * pull attend le suivant). Un document disparu est oublié ; un auteur
+     * toujours inconnu remet le report en attente.
+     */
+    private int retryDeferredReports(SyncRun run) throws ExecutionException, InterruptedException {
         int count = 0;
+        String afterId = "";
+        List<String> ids;
+        do {
+            ids = deferredReportRepository.findIdsAfter(afterId, pullPageSize);
+            if (ids.isEmpty()) break;
+            List<String> page = ids;
+            List<SyncDocument> documents = new ArrayList<>(documentStore.getAll("reports", page).values());
+            awaitAuthors(run, documents);
+            int applied = transactionTemplate.execute(status -> {
+                deferredReportRepository.deleteByDocumentIdIn(page);
+                return documents.isEmpty() ? 0 : applyReportPage(documents, run.stats);
+            });
+            count += applied;
+            run.stats.addPulled(applied);
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == pullPageSize);
+        return count;
+    }
 
-        for (QueryDocumentSnapshot doc : documents) {
-            String firebaseId = doc.getId();
-            
-            // 1. Vérifier si le report existe déjà par firebaseId
-            Optional<Report> existingReport = reportRepository.findByFirebaseId(firebaseId);
-            
-            if (existingReport.isPresent()) {
-                // Mettre à jour le report existant
-                Report report = existingReport.get();
-                updateReportFromFirebase(report, doc);
-                reportRepository.save(report);
-                // Synchroniser les photos si présentes
-                try {
-                    syncPhotosFromFirebase(report, doc);
-                } catch (Exception e) {
-                    System.err.println("[PhotoSync] Erreur lors de la synchronisation des photos pour report id=" + report.getId() + ": " + e.getMessage());
+    public int applyReportDocuments(List<SyncDocument> documents) {
+        return applyReportDocuments(documents, new SyncStats());
+    }
+
+    /**
+     * Applique des documents "reports" déjà lus (listener temps réel), un lot
+     * par transaction, puis avance le watermark de la collection.
+     */
+    public int applyReportDocuments(List<SyncDocument> documents, SyncStats stats) {
+        return applyDocuments("reports", documents, stats, this::applyReportPage);
+    }
+
+    /**
+     * Phase de pull en flux, page par page : la page suivante est lue (curseur
+     * keyset) pendant que la page courante est appliquée et validée dans sa
+     * propre transaction avec son checkpoint. Une page n'est plus référencée
+     * une fois validée, la mémoire reste donc bornée par deux pages quelle que
+     * soit la taille de la collection.
+     *
+     * En mode incrémental les documents arrivent triés par (updatedAt, id), le
+     * watermark avance donc aussi à chaque lot ; en mode full ils sont triés
+     * par id, seul le plus grand (updatedAt, id) vu est conservé et le
+     * watermark n'avance qu'en fin de phase.
+     *
+     * En mode incrémental, les documents dont updatedAt est une chaîne (hors
+     * de l'ordre des Timestamp) sont repris ensuite par {@link #pullUnstamped}.
+     */
+    private int pullPhase(SyncRun run, String collection, String phase,
+                          ToIntBiFunction<List<SyncDocument>, SyncStats> applier)
+            throws ExecutionException, InterruptedException {
+        if (run.isCompleted(phase)) return 0;
+        boolean incremental = MODE_INCREMENTAL.equals(run.mode);
+        PageCursor cursor = incremental
+                ? watermarkCursor(collection)
+                : new PageCursor(null, run.cursorFor(phase));
+        // Le total n'est connu qu'en mode full (agrégation count côté serveur)
+        run.stats.beginPhase(phase, incremental ? -1 : documentStore.count(collection));
+        WatermarkCandidate seen = new WatermarkCandidate();
+        int count = 0;
+
+        CompletableFuture<List<SyncDocument>> next = prefetch(collection, incremental, cursor);
+        while (next != null) {
+            List<SyncDocument> page = awaitPage(next);
+            if (page.isEmpty()) break;
+            PageCursor pageEnd = PageCursor.after(page, incremental);
+            next = page.size() == pullPageSize && pageEnd != null ? prefetch(collection, incremental, pageEnd) : null;
+
+            try {
+                if (PHASE_PULL_REPORTS.equals(phase)) awaitAuthors(run, page);
+                int applied = transactionTemplate.execute(status -> {
+                    int n = applier.applyAsInt(page, run.stats);
+                    if (incremental) advanceWatermark(collection, page);
+                    saveCheckpoint(run, phase, page.get(page.size() - 1).getId(), false);
+                    return n;
+                });
+                count += applied;
+                run.stats.addPulled(applied);
+            } catch (RuntimeException | ExecutionException | InterruptedException e) {
+                if (next != null) next.cancel(true);
+                throw e;
+            }
+            if (PHASE_PULL_USERS.equals(phase)) run.userGate.published(page);
+            if (!incremental) seen.offer(page);
+            run.stats.advance(phase, page.size());
+            run.stats.chunkCommitted();
+        }
+        if (incremental) count += pullUnstamped(run, collection, phase, applier);
+
+        // Lors d'une reprise, seules les pages relues comptent : le watermark peut
+        // rester en deçà du vrai maximum (documents relus plus tard), jamais au-delà.
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!incremental) seen.saveTo(collection);
+            saveCheckpoint(run, phase, null, true);
+        });
+        return count;
+    }
+
+    /**
+     * Second passage du pull incrémental : documents dont updatedAt est une
+     * chaîne ISO (anciennes versions de l'app mobile). Ils sont appliqués puis
+     * réhorodatés côté serveur, ce qui les fait rentrer dans l'ordre
+     * (updatedAt, id) du watermark : ce passage ne relit donc que les
+     * nouveaux venus. Un réhorodatage en échec laisse le document à ce
+     * passage, relu au prochain cycle.
+     */
+    private int pullUnstamped(SyncRun run, String collection, String phase,
+                              ToIntBiFunction<List<SyncDocument>, SyncStats> applier)
+            throws ExecutionException, InterruptedException {
+        int count = 0;
+        String afterUpdatedAt = null;
+        String afterId = null;
+        try (DocumentStore.Writer writer = documentStore.openWriter()) {
+            List<SyncDocument> page;
+            do {
+                page = documentStore.listUnstampedSince(collection, afterUpdatedAt, afterId, pullPageSize);
+                if (page.isEmpty()) break;
+                List<SyncDocument> documents = page;
+                if (PHASE_PULL_REPORTS.equals(phase)) awaitAuthors(run, documents);
+                int applied = transactionTemplate.execute(status -> applier.applyAsInt(documents, run.stats));
+                count += applied;
+                run.stats.addPulled(applied);
+                if (PHASE_PULL_USERS.equals(phase)) run.userGate.published(documents);
+
+                for (SyncDocument document : documents) {
+                    writer.upsert(collection, document.getId(), new HashMap<>(), false);
                 }
+                writer.flush();
+                run.stats.advance(phase, documents.size());
+                run.stats.chunkCommitted();
+
+                SyncDocument last = documents.get(documents.size() - 1);
+                afterUpdatedAt = (String) last.get("updatedAt");
+                afterId = last.getId();
+            } while (page.size() == pullPageSize);
+        }
+        if (count > 0) {
+            System.out.println("🕰️ " + collection + ": " + count + " document(s) daté(s) par une chaîne repris et réhorodaté(s)");
+        }
+        return count;
+    }
+
+    /**
+     * Variante parallèle du pull full : la collection est découpée en plages
+     * d'ids (partition queries), chaque plage est lue et appliquée par un
+     * worker, page par page, dans ses propres transactions. Le nombre de
+     * workers actifs est plafonné globalement par sync.pull.max-concurrency.
+     *
+     * Le checkpoint garde un seul curseur : le plus grand id en deçà duquel
+     * tout est validé. Une reprise relit donc au pire les pages en cours des
+     * autres plages, ce que les hashes de contenu rendent peu coûteux.
+     */
+    private int pullPhaseParallel(SyncRun run, String collection, String phase,
+                                  ToIntBiFunction<List<SyncDocument>, SyncStats> applier)
+            throws ExecutionException, InterruptedException {
+        if (run.isCompleted(phase)) return 0;
+        String resumeAfter = run.cursorFor(phase);
+        int partitions = pullPartitions > 0 ? pullPartitions : pullConcurrency;
+        List<DocumentStore.IdRange> ranges = new ArrayList<>();
+        for (DocumentStore.IdRange range : documentStore.partition(collection, partitions)) {
+            // Plages entièrement traitées avant l'interruption
+            if (resumeAfter == null || range.getEndBefore() == null || range.getEndBefore().compareTo(resumeAfter) > 0) {
+                ranges.add(range);
+            }
+        }
+        run.stats.beginPhase(phase, documentStore.count(collection));
+        System.out.println("⚡ Pull parallèle de " + collection + " : " + ranges.size() + " plage(s), "
+                + pullConcurrency + " worker(s) max");
+
+        // Le checkpoint existe avant que les workers ne le mettent à jour en concurrence
+        transactionTemplate.executeWithoutResult(status -> saveCheckpoint(run, phase, resumeAfter, false));
+        PartitionProgress progress = new PartitionProgress(ranges.size(), resumeAfter);
+        WatermarkCandidate seen = new WatermarkCandidate();
+        AtomicInteger count = new AtomicInteger();
+
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            int index = i;
+            DocumentStore.IdRange range = ranges.get(i);
+            String afterId = resumeAfter != null && range.contains(resumeAfter) ? resumeAfter : null;
+            Runnable worker = () -> count.addAndGet(
+                    pullRange(run, collection, phase, applier, range, afterId, index, progress, seen));
+            workers.add(CompletableFuture.runAsync(syncMetrics.wrap(worker), pullWorkers));
+        }
+        try {
+            CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).get();
+        } catch (ExecutionException e) {
+            workers.forEach(w -> w.cancel(true));
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof InterruptedException) throw (InterruptedException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new ExecutionException(cause);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            seen.saveTo(collection);
+            saveCheckpoint(run, phase, null, true);
+        });
+        return count.get();
+    }
+
+    /**
+     * Travail d'un worker : lit sa plage par pages et valide chacune dans sa
+     * transaction, avec le curseur global recalculé. L'avancement n'est publié
+     * aux autres workers qu'une fois le lot validé.
+     */
+    private int pullRange(SyncRun run, String collection, String phase,
+                          ToIntBiFunction<List<SyncDocument>, SyncStats> applier,
+                          DocumentStore.IdRange range, String afterId, int index,
+                          PartitionProgress progress, WatermarkCandidate seen) {
+        int count = 0;
+        String cursor = afterId;
+        try {
+            List<SyncDocument> page;
+            do {
+                page = documentStore.list(collection, range, cursor, pullPageSize);
+                if (page.isEmpty()) break;
+                List<SyncDocument> current = page;
+                String lastId = page.get(page.size() - 1).getId();
+                boolean last = page.size() < pullPageSize;
+                if (PHASE_PULL_REPORTS.equals(phase)) awaitAuthors(run, page);
+                int applied = applyRangePage(() -> transactionTemplate.execute(status -> {
+                    int n = applier.applyAsInt(current, run.stats);
+                    saveCheckpoint(run, phase, progress.cursorWith(index, lastId, last), false);
+                    return n;
+                }));
+                progress.record(index, lastId, last);
+                count += applied;
+                run.stats.addPulled(applied);
+                run.stats.advance(phase, page.size());
+                run.stats.chunkCommitted();
+                if (PHASE_PULL_USERS.equals(phase)) run.userGate.published(page);
+                seen.offer(page);
+                cursor = lastId;
+            } while (page.size() == pullPageSize && !progress.aborted);
+            progress.record(index, cursor, true);
+        } catch (ExecutionException e) {
+            progress.aborted = true;
+            throw new CompletionException(e.getCause() != null ? e.getCause() : e);
+        } catch (InterruptedException e) {
+            progress.aborted = true;
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (RuntimeException e) {
+            // Les autres workers s'arrêtent à la fin de leur lot en cours
+            progress.aborted = true;
+            throw e;
+        }
+        return count;
+    }
+
+    /**
+     * Deux workers peuvent insérer la même URL de photo en même temps : la page
+     * perdante est rejouée une fois, elle voit alors la ligne validée.
+     */
+    private static int applyRangePage(IntSupplier page) {
+        try {
+            return page.getAsInt();
+        } catch (DataIntegrityViolationException e) {
+            System.out.println("🔁 Conflit d'insertion concurrent, lot rejoué: " + e.getMostSpecificCause().getMessage());
+            return page.getAsInt();
+        }
+    }
+
+    /**
+     * Lance la lecture d'une page sur le pool de préchargement.
+     */
+    private CompletableFuture<List<SyncDocument>> prefetch(String collection, boolean incremental, PageCursor cursor) {
+        return CompletableFuture.supplyAsync(syncMetrics.wrap(() -> {
+            try {
+                return incremental
+                        ? documentStore.listChangedSince(collection, cursor.updatedAt, cursor.documentId, pullPageSize)
+                        : documentStore.list(collection, cursor.documentId, pullPageSize);
+            } catch (ExecutionException e) {
+                throw new CompletionException(e.getCause() != null ? e.getCause() : e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }), prefetchExecutor);
+    }
+
+    private static List<SyncDocument> awaitPage(CompletableFuture<List<SyncDocument>> page)
+            throws ExecutionException, InterruptedException {
+        try {
+            return page.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InterruptedException) throw (InterruptedException) e.getCause();
+            throw e;
+        }
+    }
+
+    private int applyDocuments(String collection, List<SyncDocument> documents, SyncStats stats,
+                               ToIntBiFunction<List<SyncDocument>, SyncStats> applier) {
+        String phase = "listen-" + collection;
+        int count = 0;
+        try (SyncMetrics.Binding ignored = syncMetrics.bind(syncMetrics.scope(stats, phase))) {
+            for (int from = 0; from < documents.size(); from += pullPageSize) {
+                List<SyncDocument> page = documents.subList(from, Math.min(from + pullPageSize, documents.size()));
+                count += transactionTemplate.execute(status -> applier.applyAsInt(page, stats));
+                stats.advance(phase, page.size());
+            }
+            transactionTemplate.executeWithoutResult(status -> advanceWatermark(collection, documents));
+        }
+        return count;
+    }
+
+    /**
+     * Applique une page de documents "reports". Toutes les recherches faites
+     * auparavant document par document (firebaseId, uid, email, report similaire)
+     * sont résolues en au plus quatre requêtes IN pour la page entière.
+     */
+    private int applyReportPage(List<SyncDocument> page, SyncStats stats) {
+        // 1. Reports déjà liés par firebaseId ; suppressions dans un sens ou dans l'autre
+        Set<String> firebaseIds = new HashSet<>();
+        for (SyncDocument doc : page) firebaseIds.add(doc.getId());
+        Map<String, Report> byFirebaseId = new HashMap<>();
+        for (Report r : reportRepository.findByFirebaseIdIn(firebaseIds)) byFirebaseId.put(r.getFirebaseId(), r);
+        Set<String> unknownIds = new HashSet<>(firebaseIds);
+        unknownIds.removeAll(byFirebaseId.keySet());
+        Set<String> deletedHere = unknownIds.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(reportRepository.findDeletedFirebaseIds(unknownIds));
+        List<Long> toDelete = new ArrayList<>();
+        List<SyncDocument> live = new ArrayList<>(page.size());
+        for (SyncDocument doc : page) {
+            if (doc.isDeleted()) {
+                Report deleted = byFirebaseId.remove(doc.getId());
+                if (deleted != null) toDelete.add(deleted.getId());
+            } else if (deletedHere.contains(doc.getId())) {
+                // Supprimé ici : le marqueur part au push, le document n'est pas recréé
+                stats.addSkipped(1);
             } else {
-                // 2. Vérifier si un report similaire existe (même user, même position, même description)
-                String userFirebaseUid = doc.getString("userId");
-                Optional<User> user = (userFirebaseUid != null) 
-                        ? userRepository.findByFirebaseUid(userFirebaseUid) 
-                        : Optional.empty();
-                
-                // Si l'utilisateur n'est pas trouvé par firebaseUid, chercher par email
-                if (user.isEmpty()) {
-                    String userEmail = doc.getString("userEmail");
-                    if (userEmail != null) {
-                        user = userRepository.findByEmail(userEmail);
-                    }
-                }
-                
-                if (user.isPresent()) {
-                    BigDecimal lat = getBigDecimal(doc, "latitude");
-                    BigDecimal lng = getBigDecimal(doc, "longitude");
-                    String description = doc.getString("description");
-                    
-                    // Chercher un report existant avec les mêmes coordonnées et description
-                    Optional<Report> similar = reportRepository.findByUserAndLatitudeAndLongitudeAndDescription(
-                            user.get(), lat, lng, description);
-                    
-                    if (similar.isPresent()) {
-                        // Lier le report existant au firebaseId
-                        Report report = similar.get();
-                        report.setFirebaseId(firebaseId);
-                        updateReportFromFirebase(report, doc);
-                        reportRepository.save(report);
-                        // Synchroniser photos
-                        try {
-                            syncPhotosFromFirebase(report, doc);
-                        } catch (Exception e) {
-                            System.err.println("[PhotoSync] Erreur lors de la synchronisation des photos pour report id=" + report.getId() + ": " + e.getMessage());
-                        }
-                    } else {
-                        // Créer un nouveau report
-                        Report report = new Report();
-                        report.setFirebaseId(firebaseId);
-                        report.setUser(user.get());
-                        report.setLatitude(lat);
-                        report.setLongitude(lng);
-                        report.setDescription(description);
-                        report.setStatus(doc.getString("status") != null ? doc.getString("status") : "nouveau");
-                        report.setSurface(getBigDecimal(doc, "surface"));
-                        report.setBudget(getBigDecimal(doc, "budget"));
-                        report.setSyncedAt(LocalDateTime.now());
-                        
-                        reportRepository.save(report);
-                        count++;
-                        // Synchroniser photos pour le nouveau report
-                        try {
-                            syncPhotosFromFirebase(report, doc);
-                        } catch (Exception e) {
-                            System.err.println("[PhotoSync] Erreur lors de la synchronisation des photos pour report id=" + report.getId() + ": " + e.getMessage());
-                        }
-                    }
+                live.add(doc);
+            }
+        }
+        if (!toDelete.isEmpty()) {
+            stats.addDeleted(tombstoneService.deleteReports(toDelete, LocalDateTime.now()));
+        }
+
+        // 2. Auteurs des documents non liés, par firebaseUid puis par email
+        Set<String> uids = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (SyncDocument doc : live) {
+            if (byFirebaseId.containsKey(doc.getId())) continue;
+            String uid = doc.getString("userId");
+            if (uid != null) uids.add(uid);
+            String email = doc.getString("userEmail");
+            if (email != null) emails.add(email);
+        }
+        Map<String, User> usersByUid = new HashMap<>();
+        if (!uids.isEmpty()) {
+            for (User u : userRepository.findByFirebaseUidIn(uids)) usersByUid.put(u.getFirebaseUid(), u);
+        }
+        Map<String, User> usersByEmail = new HashMap<>();
+        if (!emails.isEmpty()) {
+            for (User u : userRepository.findByEmailIn(emails)) usersByEmail.put(u.getEmail(), u);
+        }
+
+        // 3. Reports non liés de ces auteurs, indexés par (user, lat, lng, description)
+        Set<Long> authorIds = new HashSet<>();
+        for (User u : usersByUid.values()) authorIds.add(u.getId());
+        for (User u : usersByEmail.values()) authorIds.add(u.getId());
+        Map<String, Report> similarByKey = new HashMap<>();
+        if (!authorIds.isEmpty()) {
+            for (Report r : reportRepository.findUnlinkedByUserIds(authorIds)) {
+                similarByKey.putIfAbsent(similarityKey(r.getUser().getId(), r.getLatitude(), r.getLongitude(), r.getDescription()), r);
+            }
+        }
+
+        // 4. Application en mémoire, puis un seul saveAll
+        Map<Report, SyncDocument> toSave = new LinkedHashMap<>();
+        // Les photos ne font pas partie de l'empreinte : elles sont vérifiées même pour un report inchangé
+        Map<Report, SyncDocument> photoSources = new LinkedHashMap<>();
+        int count = 0;
+        for (SyncDocument doc : live) {
+            String firebaseId = doc.getId();
+            Report existingReport = byFirebaseId.get(firebaseId);
+
+            if (existingReport != null) {
+                // Document identique à la dernière synchro : rien à écrire
+                if (pulledReportHash(existingReport, doc).equals(existingReport.getSyncHash())) {
+                    stats.addSkipped(1);
+                    photoSources.put(existingReport, doc);
+                    continue;
                 }
+                // Mettre à jour le report existant
+                updateReportFromFirebase(existingReport, doc);
+                toSave.put(existingReport, doc);
+                continue;
+            }
+
+            // Vérifier si un report similaire existe (même user, même position, même description)
+            String userFirebaseUid = doc.getString("userId");
+            User user = userFirebaseUid != null ? usersByUid.get(userFirebaseUid) : null;
+            // Si l'utilisateur n'est pas trouvé par firebaseUid, chercher par email
+            if (user == null) {
+                String userEmail = doc.getString("userEmail");
+                if (userEmail != null) user = usersByEmail.get(userEmail);
+            }
+            if (user == null && userFirebaseUid == null && doc.getString("userEmail") == null) {
+                // Aucun auteur référencé : rien ne permettra de le rattacher
+                stats.addSkipped(1);
+                continue;
+            }
+            if (user == null) {
+                // Le watermark avance quand même : le document est relu par id au prochain pull
+                deferredReportRepository.defer(firebaseId, AUTHOR_UNKNOWN_REASON);
+                stats.recordFailure("reports", firebaseId, new IllegalStateException(AUTHOR_UNKNOWN_REASON));
+                continue;
+            }
+
+            BigDecimal lat = getBigDecimal(doc, "latitude");
+            BigDecimal lng = getBigDecimal(doc, "longitude");
+            String description = doc.getString("description");
+            Report similar = similarByKey.remove(similarityKey(user.getId(), lat, lng, description));
+
+            if (similar != null) {
+                // Lier le report existant au firebaseId
+                similar.setFirebaseId(firebaseId);
+                updateReportFromFirebase(similar, doc);
+                toSave.put(similar, doc);
+            } else {
+                // Créer un nouveau report
+                Report report = new Report();
+                report.setFirebaseId(firebaseId);
+                report.setUser(user);
+                report.setLatitude(lat);
+                report.setLongitude(lng);
+                report.setDescription(description);
+                report.setStatus(doc.getString("status") != null ? doc.getString("status") : "nouveau");
+                report.setSurface(getBigDecimal(doc, "surface"));
+                report.setBudget(getBigDecimal(doc, "budget"));
+                report.setSyncedAt(LocalDateTime.now());
+                report.setSyncHash(hashOf(report));
+                toSave.put(report, doc);
+                count++;
             }
         }
-        
+
+        if (toSave.isEmpty()) {
+            ingestPhotos(photoSources, stats);
+            return count;
+        }
+
+        reportRepository.saveAll(toSave.keySet());
+        reportSpatialIndex.indexReports(toSave.keySet());
+        List<Long> pulledIds = new ArrayList<>();
+        for (Report report : toSave.keySet()) pulledIds.add(report.getId());
+        photoSources.putAll(toSave);
+        ingestPhotos(photoSources, stats);
+        // Les lignes écrites par le pull ne doivent pas repartir au prochain push
+        reportRepository.markSynced(pulledIds, LocalDateTime.now());
         return count;
     }
 
+    /**
+     * Clé de rapprochement d'un report non lié. Les coordonnées sont normalisées
+     * (stripTrailingZeros) pour que 10.50000000 en base égale 10.5 venant de Firestore.
+     */
+    private String similarityKey(Long userId, BigDecimal lat, BigDecimal lng, String description) {
+        return userId + "|" + (lat != null ? lat.stripTrailingZeros().toPlainString() : "")
+                + "|" + (lng != null ? lng.stripTrailingZeros().toPlainString() : "")
+                + "|" + description;
+    }
+
+    /**
+     * Point de départ du mode incrémental : les documents dont (updatedAt, id)
+     * est strictement supérieur au watermark enregistré. Le watermark avance à
+     * chaque lot, il sert donc lui-même de point de reprise.
+     */
+    private PageCursor watermarkCursor(String collection) {
+        Optional<SyncWatermark> watermark = syncWatermarkRepository.findById(collection);
+        return new PageCursor(
+                watermark.map(SyncWatermark::getLastUpdatedAt).orElse(null),
+                watermark.map(SyncWatermark::getLastDocumentId).orElse(null));
+    }
+
+    /**
+     * Écoute les documents dont (updatedAt, id) est postérieur au watermark de
+     * la collection. Sert au listener temps réel.
+     */
+    public DocumentStore.Registration listenChangesSinceWatermark(String collection, DocumentStore.ChangeListener listener) {
+        Optional<SyncWatermark> watermark = syncWatermarkRepository.findById(collection);
+        return documentStore.listen(collection,
+                watermark.map(SyncWatermark::getLastUpdatedAt).orElse(null),
+                watermark.map(SyncWatermark::getLastDocumentId).orElse(null),
+                listener);
+    }
+
+    /**
+     * Un REMOVED du listener signale seulement que le document a quitté la
+     * requête "modifié depuis le watermark" : il a pu être supprimé, mais aussi
+     * réécrit avec un updatedAt hors de l'ordre des Timestamp (chaîne ISO).
+     * Les documents sont donc relus par id : seuls les absents de Firestore
+     * deviennent des marqueurs de suppression, les autres sont appliqués tels
+     * qu'ils sont (leur champ deleted compris).
+     */
+    public List<SyncDocument> resolveRemovals(String collection, List<SyncDocument> removed)
+            throws ExecutionException, InterruptedException {
+        if (removed.isEmpty()) return removed;
+        Map<String, SyncDocument> current = documentStore.getAll(collection,
+                removed.stream().map(SyncDocument::getId).toList());
+        List<SyncDocument> resolved = new ArrayList<>(removed.size());
+        for (SyncDocument document : removed) {
+            SyncDocument live = current.get(document.getId());
+            resolved.add(live != null ? live : document.markedDeleted());
+        }
+        return resolved;
+    }
+
+    /**
+     * Enregistre le plus grand (updatedAt, id) vu parmi les documents traités.
+     * Appelé dans la transaction qui valide les documents concernés, pour ne
+     * jamais sauter de document.
+     * Les documents sans updatedAt de type Timestamp (ex: chaîne ISO écrite par
+     * d'anciennes versions de l'app mobile) sont ignorés ici : le pull
+     * incrémental les reprend à part (voir {@link #pullUnstamped}).
+     */
+    private void advanceWatermark(String collection, List<SyncDocument> documents) {
+        WatermarkCandidate candidate = new WatermarkCandidate();
+        candidate.offer(documents);
+        candidate.saveTo(collection);
+    }
+
+    private void saveWatermark(String collection, Timestamp maxTs, String maxId) {
+        SyncWatermark watermark = syncWatermarkRepository.findById(collection)
+                .orElseGet(() -> new SyncWatermark(collection));
+        Instant candidate = Instant.ofEpochSecond(maxTs.getSeconds(), maxTs.getNanos());
+        Instant current = watermark.getLastUpdatedAt();
+        if (current != null && (candidate.isBefore(current)
+                || (candidate.equals(current) && maxId.compareTo(watermark.getLastDocumentId()) <= 0))) {
+            return;
+        }
+        watermark.setLastUpdatedAt(candidate);
+        watermark.setLastDocumentId(maxId);
+        syncWatermarkRepository.save(watermark);
+    }
+
     // ==========================================
     // PUSH: PostgreSQL → Firebase
     // ==========================================
 
     public int pushUsersToFirebase() throws ExecutionException, InterruptedException {
-        List<User> users = userRepository.findAll();
+        return pushUsersToFirebase(new SyncStats());
+    }
+
+    /**
+     * Pousse les utilisateurs modifiés (updated_at > synced_at ou jamais synchronisés)
+     * par pages, via un écrivain groupé : les écritures partent en parallèle (set + merge,
+     * sans lecture préalable) et les échecs par document sont collectés dans
+     * {@code stats} au lieu d'interrompre la synchronisation.
+     */
+    public int pushUsersToFirebase(SyncStats stats) throws ExecutionException, InterruptedException {
+        return pushUsers(new SyncRun(null, MODE_FULL, stats, null));
+    }
+
+    private int pushUsers(SyncRun run) throws ExecutionException, InterruptedException {
+        if (run.isCompleted(PHASE_PUSH_USERS)) return 0;
+        if (MODE_INCREMENTAL.equals(run.mode)) {
+            return pushChanged(run, PHASE_PUSH_USERS, ChangeLogEntry.USER,
+                    (ids, writer, inTransaction) -> pushUserPage(userRepository.findAllById(ids), writer, run.stats, inTransaction));
+        }
+        SyncStats stats = run.stats;
+        DocumentStore.Writer writer = documentStore.openWriter();
         int count = 0;
+        stats.beginPhase(PHASE_PUSH_USERS, userRepository.countDirty());
+
+        try {
+            String cursor = run.cursorFor(PHASE_PUSH_USERS);
+            long afterId = cursor != null ? Long.parseLong(cursor) : 0L;
+            List<User> users;
+            while (!(users = userRepository.findDirtyAfter(afterId, PageRequest.of(0, pageSize))).isEmpty()) {
+                afterId = users.get(users.size() - 1).getId();
+                stats.advance(PHASE_PUSH_USERS, users.size());
+                String pageCursor = String.valueOf(afterId);
+                int pageCount = pushUserPage(users, writer, stats,
+                        page -> saveCheckpoint(run, PHASE_PUSH_USERS, pageCursor, false)).pushed;
+                count += pageCount;
+                stats.addPushed(pageCount);
+                stats.chunkCommitted();
+            }
+            pushAllTombstones("users", after -> userRepository.findUnsyncedTombstonesAfter(after, pageSize), writer, stats);
+            saveCheckpoint(run, PHASE_PUSH_USERS, null, true);
+        } finally {
+            writer.close();
+        }
+
+        return count;
+    }
+
+    /**
+     * Pousse une page d'utilisateurs puis enregistre, dans une seule transaction,
+     * hashes, uid liés et synced_at des documents écrits, avec {@code inTransaction}.
+     */
+    private PagePush pushUserPage(List<User> users, DocumentStore.Writer writer, SyncStats stats,
+                                  Consumer<PagePush> inTransaction) throws ExecutionException, InterruptedException {
+        int pageCount = 0;
+
+        // Les utilisateurs sans firebaseUid valide sont rapprochés par email,
+        // en quelques requêtes whereIn au lieu d'une requête par utilisateur
+        List<String> emailsToLink = new ArrayList<>();
+        for (User user : users) {
+            if (!hasValidFirebaseUid(user) && user.getEmail() != null && !user.getEmail().isEmpty()) {
+                emailsToLink.add(user.getEmail());
+            }
+        }
+        Map<String, String> docIdByEmail = emailsToLink.isEmpty()
+                ? Collections.emptyMap()
+                : documentStore.findIdsByField("users", "email", emailsToLink);
+
+        List<PendingWrite> pending = new ArrayList<>();
+        Map<Long, String> writtenHashes = new HashMap<>();
+        Map<Long, String> linkedUids = new HashMap<>();
+        List<Long> syncedIds = new ArrayList<>();
+        List<Long> attempted = new ArrayList<>();
 
         for (User user : users) {
+            String hash = hashOf(user);
+            if (hasValidFirebaseUid(user) && hash.equals(user.getSyncHash())) {
+                // Contenu identique à la dernière synchro : aucune écriture Firestore
+                syncedIds.add(user.getId());
+                stats.addSkipped(1);
+                continue;
+            }
+
             Map<String, Object> userData = new HashMap<>();
             userData.put("email", user.getEmail());
             userData.put("firstName", user.getFirstName());
             userData.put("lastName", user.getLastName());
             userData.put("role", user.getRole());
-            userData.put("updatedAt", FieldValue.serverTimestamp());
+            userData.put("syncHash", hash);
 
-            // Vérifier si l'utilisateur a un firebaseUid valide
-            boolean hasValidFirebaseUid = user.getFirebaseUid() != null 
-                && !user.getFirebaseUid().isEmpty()
-                && !user.getFirebaseUid().startsWith("fb_uid_") 
-                && !user.getFirebaseUid().startsWith("uid_");
-
-            if (!hasValidFirebaseUid) {
-                // Chercher d'abord si un document avec le même email existe dans Firebase
+            String docId;
+            boolean relink = false;
+            boolean created = false;
+            if (hasValidFirebaseUid(user)) {
+                docId = user.getFirebaseUid();
+            } else {
                 String userEmail = user.getEmail();
                 if (userEmail == null || userEmail.isEmpty()) continue;
-                QuerySnapshot emailQuery = getFirestore().collection("users")
-                        .whereEqualTo("email", userEmail)
-                        .get().get();
-                
-                if (!emailQuery.isEmpty()) {
-                    // Document trouvé par email - lier et mettre à jour
-                    DocumentSnapshot existingDoc = emailQuery.getDocuments().get(0);
-                    user.setFirebaseUid(existingDoc.getId());
-                    userRepository.save(user);
-                    
-                    // Mettre à jour le document Firebase
-                    String existingDocId = existingDoc.getId();
-                    if (existingDocId != null) {
-                        getFirestore().collection("users").document(existingDocId)
-                                .update(userData).get();
-                    }
+                String existingDocId = docIdByEmail.get(userEmail);
+                if (existingDocId != null) {
+                    // Document trouvé par email - lier et mettre à jour (et lever un éventuel marqueur de suppression)
+                    docId = existingDocId;
+                    userData.put("deleted", false);
+                    userData.put("deletedAt", null);
                 } else {
-                    // Créer un nouveau document dans Firebase
-                    userData.put("createdAt", FieldValue.serverTimestamp());
-                    DocumentReference docRef = getFirestore().collection("users").document();
-                    docRef.set(userData).get();
-                    
-                    user.setFirebaseUid(docRef.getId());
-                    userRepository.save(user);
-                    count++;
+                    // Nouveau document : l'id est généré localement, sans aller-retour
+                    docId = documentStore.newDocumentId("users");
+                    created = true;
                 }
-            } else {
-                // L'utilisateur a un firebaseUid valide
-                String uid = user.getFirebaseUid();
-                if (uid == null || uid.isEmpty()) continue;
-                DocumentReference docRef = getFirestore().collection("users").document(uid);
-                DocumentSnapshot snapshot = docRef.get().get();
-                
-                if (snapshot.exists()) {
-                    // Mettre à jour dans Firebase
-                    docRef.update(userData).get();
-                } else {
-                    // Le document n'existe pas, le créer avec l'ID existant
-                    userData.put("createdAt", FieldValue.serverTimestamp());
-                    docRef.set(userData).get();
-                    count++;
+                relink = true;
+            }
+
+            attempted.add(user.getId());
+            CompletableFuture<Void> future = writer.upsert("users", docId, userData, created);
+            final boolean needsLink = relink;
+            pending.add(new PendingWrite("users", docId, future, () -> {
+                if (needsLink) linkedUids.put(user.getId(), docId);
+                writtenHashes.put(user.getId(), hash);
+                syncedIds.add(user.getId());
+            }));
+
+            if (pending.size() >= maxInFlight) {
+                pageCount += flushPending(writer, pending, stats);
+            }
+        }
+        pageCount += flushPending(writer, pending, stats);
+
+        PagePush result = new PagePush();
+        result.pushed = pageCount;
+        for (Long id : attempted) {
+            if (!writtenHashes.containsKey(id)) result.failedIds.add(id);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // Empreinte (et uid des comptes liés) sur les lignes chargées en une requête,
+            // mises à jour par lot JDBC à la validation
+            if (!writtenHashes.isEmpty()) {
+                for (User managed : userRepository.findAllById(writtenHashes.keySet())) {
+                    managed.setSyncHash(writtenHashes.get(managed.getId()));
+                    String uid = linkedUids.get(managed.getId());
+                    if (uid != null) managed.setFirebaseUid(uid);
                 }
+                userRepository.flush();
             }
+            // Horodaté après le flush pour que synced_at >= updated_at
+            if (!syncedIds.isEmpty()) {
+                userRepository.markSynced(syncedIds, LocalDateTime.now());
+            }
+            inTransaction.accept(result);
+        });
+        return result;
+    }
+
+    public int pushReportsToFirebase() throws ExecutionException, InterruptedException {
+        return pushReportsToFirebase(new SyncStats());
+    }
+
+    /**
+     * Pousse les reports modifiés par pages via un écrivain groupé (set + merge),
+     * même principe que {@link #pushUsersToFirebase(SyncStats)} : une transaction
+     * et un checkpoint par page.
+     *
+     * Les modifications locales passent d'abord par l'outbox
+     * ({@link OutboxRelayService}) ; ce parcours sert de rattrapage pour les
+     * lignes restées non synchronisées.
+     */
+    public int pushReportsToFirebase(SyncStats stats) throws ExecutionException, InterruptedException {
+        return pushReports(new SyncRun(null, MODE_FULL, stats, null));
+    }
+
+    private int pushReports(SyncRun run) throws ExecutionException, InterruptedException {
+        if (run.isCompleted(PHASE_PUSH_REPORTS)) return 0;
+        if (MODE_INCREMENTAL.equals(run.mode)) {
+            return pushChanged(run, PHASE_PUSH_REPORTS, ChangeLogEntry.REPORT,
+                    (ids, writer, inTransaction) -> pushReportPage(reportRepository.findWithUserByIdIn(ids), writer, run.stats, inTransaction));
         }
-        
+        SyncStats stats = run.stats;
+        DocumentStore.Writer writer = documentStore.openWriter();
+        int count = 0;
+        stats.beginPhase(PHASE_PUSH_REPORTS, reportRepository.countDirty());
+
+        try {
+            String cursor = run.cursorFor(PHASE_PUSH_REPORTS);
+            long afterId = cursor != null ? Long.parseLong(cursor) : 0L;
+            List<Report> reports;
+            while (!(reports = reportRepository.findDirtyAfter(afterId, PageRequest.of(0, pageSize))).isEmpty()) {
+                afterId = reports.get(reports.size() - 1).getId();
+                stats.advance(PHASE_PUSH_REPORTS, reports.size());
+                String pageCursor = String.valueOf(afterId);
+                int pageCount = pushReportPage(reports, writer, stats,
+                        page -> saveCheckpoint(run, PHASE_PUSH_REPORTS, pageCursor, false)).pushed;
+                count += pageCount;
+                stats.addPushed(pageCount);
+                stats.chunkCommitted();
+            }
+            pushAllTombstones("reports", after -> reportRepository.findUnsyncedTombstonesAfter(after, pageSize), writer, stats);
+            saveCheckpoint(run, PHASE_PUSH_REPORTS, null, true);
+        } finally {
+            writer.close();
+        }
+
         return count;
     }
 
-    public int pushReportsToFirebase() throws ExecutionException, InterruptedException {
-        List<Report> reports = reportRepository.findAll();
+    /**
+     * Push incrémental : les lignes à pousser sont lues dans le journal des
+     * modifications, y compris celles écrites en SQL direct, au lieu de
+     * parcourir la table. La position du consommateur ("push-user", "push-report") avance
+     * dans la transaction de chaque page ; une page avec des échecs arrête la
+     * phase sans l'acquitter, elle sera relue à la prochaine synchro. Les
+     * suppressions posent le marqueur "deleted" sur les documents. Les reports
+     * différés (auteur sans firebaseUid) passent dans l'outbox avant
+     * l'acquittement : ils ne bloquent pas le journal et ne sont pas perdus.
+     */
+    private int pushChanged(SyncRun run, String phase, String entity, ChangedPagePusher pusher)
+            throws ExecutionException, InterruptedException {
+        SyncStats stats = run.stats;
+        String consumer = "push-" + entity;
+        List<String> entities = List.of(entity);
+        DocumentStore.Writer writer = documentStore.openWriter();
         int count = 0;
+        stats.beginPhase(phase, -1);
+
+        try {
+            List<ChangeLogEntry> changes;
+            while (!(changes = changeLogService.poll(consumer, entities, pageSize)).isEmpty()) {
+                Set<Long> ids = new LinkedHashSet<>();
+                Set<Long> deletedIds = new LinkedHashSet<>();
+                for (ChangeLogEntry change : changes) {
+                    (change.isDelete() ? deletedIds : ids).add(change.getEntityId());
+                }
+                stats.advance(phase, changes.size());
+                long lastSeq = changes.get(changes.size() - 1).getSeq();
+                Set<Long> failedTombstones = ChangeLogEntry.USER.equals(entity)
+                        ? pushUserTombstones(deletedIds, writer, stats)
+                        : pushReportTombstones(deletedIds, writer, stats);
+                PagePush page = pusher.push(ids, writer, p -> {
+                    if (p.failedIds.isEmpty() && failedTombstones.isEmpty()) {
+                        deferToOutbox(p.deferredIds);
+                        changeLogService.ack(consumer, lastSeq);
+                    }
+                });
+                count += page.pushed;
+                stats.addPushed(page.pushed);
+                stats.chunkCommitted();
+                if (!page.failedIds.isEmpty() || !failedTombstones.isEmpty()) return count;
+            }
+            saveCheckpoint(run, phase, null, true);
+        } finally {
+            writer.close();
+        }
+
+        return count;
+    }
+
+    /**
+     * Met en outbox les reports différés qui n'y sont pas déjà ; le relais les
+     * réessaie avec son délai exponentiel jusqu'à ce que l'auteur soit lié.
+     */
+    private void deferToOutbox(Set<Long> reportIds) {
+        if (reportIds.isEmpty()) return;
+        Set<Long> missing = new LinkedHashSet<>(reportIds);
+        for (OutboxEvent event : outboxEventRepository.findByAggregateTypeAndStatusAndAggregateIdIn(
+                OutboxEvent.REPORT, OutboxEvent.STATUS_PENDING, reportIds)) {
+            missing.remove(event.getAggregateId());
+        }
+        List<OutboxEvent> events = new ArrayList<>();
+        for (Long id : missing) {
+            events.add(OutboxEvent.failed(OutboxEvent.REPORT, id, DEFERRED_REASON, LocalDateTime.now()));
+        }
+        outboxEventRepository.saveAll(events);
+        if (!events.isEmpty()) {
+            System.out.println("⏳ " + events.size() + " report(s) mis en outbox : auteur sans firebaseUid");
+        }
+    }
+
+    /** Push d'une page de lignes désignées par leurs ids. */
+    private interface ChangedPagePusher {
+        PagePush push(Collection<Long> ids, DocumentStore.Writer writer, Consumer<PagePush> inTransaction)
+                throws ExecutionException, InterruptedException;
+    }
+
+    // ==========================================
+    // PUSH CIBLÉ (relais de l'outbox)
+    // ==========================================
+
+    /**
+     * Pousse les reports donnés, modifiés ou non depuis leur dernière synchro :
+     * l'empreinte évite toujours les écritures inutiles. Un report supprimé
+     * reçoit le marqueur "deleted".
+     *
+     * @return ids des reports dont l'écriture a échoué, ou différés faute de
+     *         firebaseUid pour leur auteur, à réessayer
+     */
+    public Set<Long> pushReportsById(Collection<Long> reportIds, SyncStats stats)
+            throws ExecutionException, InterruptedException {
+        Set<Long> failed = new HashSet<>();
+        if (reportIds.isEmpty()) return failed;
+        List<Long> ids = new ArrayList<>(reportIds);
+        try (DocumentStore.Writer writer = documentStore.openWriter()) {
+            for (int from = 0; from < ids.size(); from += pageSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + pageSize, ids.size()));
+                PagePush page = pushReportPage(reportRepository.findWithUserByIdIn(chunk), writer, stats, p -> { });
+                stats.addPushed(page.pushed);
+                failed.addAll(page.failedIds);
+                failed.addAll(page.deferredIds);
+                failed.addAll(pushReportTombstones(chunk, writer, stats));
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Ajoute les URL des photos données au tableau "photos" de leur report
+     * Firestore (arrayUnion : rejouer l'écriture ne crée pas de doublon).
+     * Une photo dont le report n'est pas encore lié à Firestore est renvoyée
+     * comme en échec, pour être réessayée après le push du report. Une photo
+     * supprimée est retirée du tableau (arrayRemove), sauf si son report est
+     * lui-même supprimé.
+     *
+     * @return ids des photos à réessayer
+     */
+    public Set<Long> pushPhotosById(Collection<Long> photoIds, SyncStats stats) throws InterruptedException {
+        Set<Long> failed = new HashSet<>();
+        if (photoIds.isEmpty()) return failed;
+        Map<String, List<PhotoReport>> byDocument = new LinkedHashMap<>();
+        for (PhotoReport photo : photoReportRepository.findWithReportByIdIn(photoIds)) {
+            String firebaseId = photo.getReport().getFirebaseId();
+            if (firebaseId == null || firebaseId.isEmpty()) {
+                failed.add(photo.getId());
+            } else if (photo.getPhotoUrl() != null && !photo.getPhotoUrl().isBlank()) {
+                byDocument.computeIfAbsent(firebaseId, k -> new ArrayList<>()).add(photo);
+            }
+        }
+
+        try (DocumentStore.Writer writer = documentStore.openWriter()) {
+            List<PendingWrite> pending = new ArrayList<>();
+            Set<Long> written = new HashSet<>();
+            for (Map.Entry<String, List<PhotoReport>> e : byDocument.entrySet()) {
+                List<String> urls = new ArrayList<>();
+                for (PhotoReport photo : e.getValue()) urls.add(photo.getPhotoUrl());
+                CompletableFuture<Void> future = writer.addToArray("reports", e.getKey(), "photos", urls);
+                pending.add(new PendingWrite("reports", e.getKey(), future,
+                        () -> e.getValue().forEach(photo -> written.add(photo.getId()))));
+            }
+            stats.addPushed(flushPending(writer, pending, stats));
+            for (List<PhotoReport> photos : byDocument.values()) {
+                for (PhotoReport photo : photos) {
+                    if (!written.contains(photo.getId())) failed.add(photo.getId());
+                }
+            }
+
+            Map<String, List<PhotoReportRepository.PhotoTombstone>> removedByDocument = new LinkedHashMap<>();
+            for (PhotoReportRepository.PhotoTombstone photo : photoReportRepository.findTombstonesOfLiveReports(photoIds)) {
+                removedByDocument.computeIfAbsent(photo.getReportFirebaseId(), k -> new ArrayList<>()).add(photo);
+            }
+            Set<Long> removed = new HashSet<>();
+            for (Map.Entry<String, List<PhotoReportRepository.PhotoTombstone>> e : removedByDocument.entrySet()) {
+                List<String> urls = new ArrayList<>();
+                for (PhotoReportRepository.PhotoTombstone photo : e.getValue()) urls.add(photo.getPhotoUrl());
+                CompletableFuture<Void> future = writer.removeFromArray("reports", e.getKey(), "photos", urls);
+                pending.add(new PendingWrite("reports", e.getKey(), future,
+                        () -> e.getValue().forEach(photo -> removed.add(photo.getId()))));
+            }
+            stats.addDeleted(flushPending(writer, pending, stats));
+            for (List<PhotoReportRepository.PhotoTombstone> photos : removedByDocument.values()) {
+                for (PhotoReportRepository.PhotoTombstone photo : photos) {
+                    if (!removed.contains(photo.getId())) failed.add(photo.getId());
+                }
+            }
+        }
+        return failed;
+    }
+
+    private Set<Long> pushUserTombstones(Collection<Long> ids, DocumentStore.Writer writer, SyncStats stats)
+            throws InterruptedException {
+        return ids.isEmpty() ? new HashSet<>() : pushTombstones("users", userRepository.findUnsyncedTombstones(ids), writer, stats);
+    }
+
+    private Set<Long> pushReportTombstones(Collection<Long> ids, DocumentStore.Writer writer, SyncStats stats)
+            throws InterruptedException {
+        return ids.isEmpty() ? new HashSet<>() : pushTombstones("reports", reportRepository.findUnsyncedTombstones(ids), writer, stats);
+    }
+
+    /**
+     * Parcourt tous les tombstones non propagés d'une table, par pages d'id
+     * croissants (push complet). Les échecs restent à propager.
+     */
+    private void pushAllTombstones(String collection, LongFunction<List<Tombstone>> pageAfter,
+                                   DocumentStore.Writer writer, SyncStats stats) throws InterruptedException {
+        long afterId = 0;
+        List<Tombstone> tombstones;
+        while (!(tombstones = pageAfter.apply(afterId)).isEmpty()) {
+            afterId = tombstones.get(tombstones.size() - 1).getId();
+            pushTombstones(collection, tombstones, writer, stats);
+        }
+    }
+
+    /**
+     * Pose le marqueur "deleted" sur les documents des lignes supprimées, puis
+     * les marque synchronisées en une transaction. Une ligne jamais poussée
+     * (sans document) est seulement marquée.
+     *
+     * @return ids des lignes dont le marqueur n'a pas pu être posé
+     */
+    private Set<Long> pushTombstones(String collection, List<Tombstone> tombstones, DocumentStore.Writer writer,
+                                     SyncStats stats) throws InterruptedException {
+        Set<Long> failed = new HashSet<>();
+        if (tombstones.isEmpty()) return failed;
+        List<PendingWrite> pending = new ArrayList<>();
+        List<Long> synced = new ArrayList<>();
+        for (Tombstone tombstone : tombstones) {
+            String docId = tombstone.getDocumentId();
+            boolean pushed = "users".equals(collection) ? isValidFirebaseUid(docId) : docId != null && !docId.isEmpty();
+            if (!pushed) {
+                synced.add(tombstone.getId());
+                continue;
+            }
+            CompletableFuture<Void> future = writer.markDeleted(collection, docId);
+            pending.add(new PendingWrite(collection, docId, future, () -> synced.add(tombstone.getId())));
+        }
+        stats.addDeleted(flushPending(writer, pending, stats));
+        for (Tombstone tombstone : tombstones) failed.add(tombstone.getId());
+        failed.removeAll(synced);
+        if (!synced.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status -> {
+                if ("users".equals(collection)) userRepository.markTombstonesSynced(synced, now);
+                else reportRepository.markTombstonesSynced(synced, now);
+            });
+        }
+        return failed;
+    }
+
+    /**
+     * Pousse une page de reports (auteur chargé) puis enregistre, dans une seule
+     * transaction, hashes, firebaseId et synced_at des documents écrits, avec
+     * {@code inTransaction} (checkpoint ou position dans le journal). Les reports dont l'auteur n'a pas de
+     * firebaseUid valide ne sont pas écrits : restés non synchronisés, ils sont
+     * rendus dans {@link PagePush#deferredIds} pour que l'appelant ne les perde pas.
+     */
+    private PagePush pushReportPage(List<Report> reports, DocumentStore.Writer writer, SyncStats stats,
+                                    Consumer<PagePush> inTransaction) throws ExecutionException, InterruptedException {
+        int pageCount = 0;
+        List<PendingWrite> pending = new ArrayList<>();
+        Map<Long, String> writtenHashes = new HashMap<>();
+        Map<Long, String> linkedIds = new HashMap<>();
+        List<Long> syncedIds = new ArrayList<>();
+        List<Long> attempted = new ArrayList<>();
+        List<Long> deferred = new ArrayList<>();
 
         for (Report report : reports) {
             User user = report.getUser();
-            
-            // S'assurer que l'utilisateur a un firebaseUid valide avant de push le report
-            if (user == null) continue;
 
-            boolean hasValidFirebaseUid = user.getFirebaseUid() != null
-                    && !user.getFirebaseUid().isEmpty()
-                    && !user.getFirebaseUid().startsWith("fb_uid_")
-                    && !user.getFirebaseUid().startsWith("uid_");
+            // S'assurer que l'utilisateur a un firebaseUid valide avant de push le report
+            if (user == null || !hasValidFirebaseUid(user)) {
+                deferred.add(report.getId());
+                continue;
+            }
 
-            if (!hasValidFirebaseUid) {
-                // Essayer de synchroniser l'utilisateur d'abord
+            String hash = hashOf(report);
+            if (report.getFirebaseId() != null && !report.getFirebaseId().isEmpty()
+                    && hash.equals(report.getSyncHash())) {
+                // Contenu identique à la dernière synchro : aucune écriture Firestore
+                syncedIds.add(report.getId());
+                stats.addSkipped(1);
                 continue;
             }
 
@@ -364,184 +1589,369 @@ public class FirebaseSyncService {
             reportData.put("status", report.getStatus());
             reportData.put("surface", report.getSurface() != null ? report.getSurface().doubleValue() : null);
             reportData.put("budget", report.getBudget() != null ? report.getBudget().doubleValue() : null);
-            reportData.put("updatedAt", FieldValue.serverTimestamp());
+            reportData.put("syncHash", hash);
 
+            String docId;
+            boolean relink = false;
+            boolean created = false;
             if (report.getFirebaseId() == null || report.getFirebaseId().isEmpty()) {
                 // Chercher si un report similaire existe déjà dans Firebase
-                String userUid = user.getFirebaseUid();
-                if (userUid == null || userUid.isEmpty()) continue;
-                QuerySnapshot similarQuery = getFirestore().collection("reports")
-                        .whereEqualTo("userId", userUid)
-                        .whereEqualTo("latitude", report.getLatitude() != null ? report.getLatitude().doubleValue() : 0)
-                        .whereEqualTo("longitude", report.getLongitude() != null ? report.getLongitude().doubleValue() : 0)
-                        .get().get();
-
-                if (!similarQuery.isEmpty()) {
-                    // Report similaire trouvé - lier et mettre à jour
-                    DocumentSnapshot existingDoc = similarQuery.getDocuments().get(0);
-                    String existDocId = existingDoc.getId();
-                    report.setFirebaseId(existDocId);
-                    if (existDocId != null) {
-                        getFirestore().collection("reports").document(existDocId)
-                                .update(reportData).get();
-                    }
+                Map<String, Object> similar = new LinkedHashMap<>();
+                similar.put("userId", user.getFirebaseUid());
+                similar.put("latitude", reportData.get("latitude"));
+                similar.put("longitude", reportData.get("longitude"));
+                Optional<String> similarId = documentStore.findFirstId("reports", similar);
 
-                    report.setSyncedAt(LocalDateTime.now());
-                    reportRepository.save(report);
+                if (similarId.isPresent()) {
+                    // Report similaire trouvé - lier et mettre à jour (et lever un éventuel marqueur de suppression)
+                    docId = similarId.get();
+                    reportData.put("deleted", false);
+                    reportData.put("deletedAt", null);
                 } else {
-                    // Créer un nouveau report dans Firebase
-                    reportData.put("createdAt", FieldValue.serverTimestamp());
-                    DocumentReference docRef = getFirestore().collection("reports").document();
-                    docRef.set(reportData).get();
-
-                    report.setFirebaseId(docRef.getId());
-                    report.setSyncedAt(LocalDateTime.now());
-                    reportRepository.save(report);
-                    count++;
+                    docId = documentStore.newDocumentId("reports");
+                    created = true;
                 }
+                relink = true;
             } else {
-                // Vérifier si le document existe avant de mettre à jour
-                String fbId = report.getFirebaseId();
-                if (fbId == null || fbId.isEmpty()) continue;
-                DocumentReference docRef = getFirestore().collection("reports").document(fbId);
-                DocumentSnapshot snapshot = docRef.get().get();
-
-                if (snapshot.exists()) {
-                    docRef.update(reportData).get();
-                } else {
-                    // Le document n'existe pas, le créer
-                    reportData.put("createdAt", FieldValue.serverTimestamp());
-                    docRef.set(reportData).get();
-                    count++;
+                docId = report.getFirebaseId();
+            }
+
+            attempted.add(report.getId());
+            CompletableFuture<Void> future = writer.upsert("reports", docId, reportData, created);
+            final boolean needsLink = relink;
+            pending.add(new PendingWrite("reports", docId, future, () -> {
+                if (needsLink) linkedIds.put(report.getId(), docId);
+                writtenHashes.put(report.getId(), hash);
+                syncedIds.add(report.getId());
+            }));
+
+            if (pending.size() >= maxInFlight) {
+                pageCount += flushPending(writer, pending, stats);
+            }
+        }
+        pageCount += flushPending(writer, pending, stats);
+
+        PagePush result = new PagePush();
+        result.pushed = pageCount;
+        for (Long id : attempted) {
+            if (!writtenHashes.containsKey(id)) result.failedIds.add(id);
+        }
+        result.deferredIds.addAll(deferred);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!writtenHashes.isEmpty()) {
+                for (Report managed : reportRepository.findAllById(writtenHashes.keySet())) {
+                    managed.setSyncHash(writtenHashes.get(managed.getId()));
+                    String firebaseId = linkedIds.get(managed.getId());
+                    if (firebaseId != null) managed.setFirebaseId(firebaseId);
                 }
+                reportRepository.flush();
+            }
+            // Un seul UPDATE par page, horodaté après le flush pour que synced_at >= updated_at
+            if (!syncedIds.isEmpty()) {
+                reportRepository.markSynced(syncedIds, LocalDateTime.now());
+            }
+            inTransaction.accept(result);
+        });
+        return result;
+    }
 
-                report.setSyncedAt(LocalDateTime.now());
-                reportRepository.save(report);
+    private boolean hasValidFirebaseUid(User user) {
+        return isValidFirebaseUid(user.getFirebaseUid());
+    }
+
+    private static boolean isValidFirebaseUid(String firebaseUid) {
+        return firebaseUid != null
+                && !firebaseUid.isEmpty()
+                && !firebaseUid.startsWith("fb_uid_")
+                && !firebaseUid.startsWith("uid_");
+    }
+
+    /**
+     * Attend la fin des écritures en cours et applique les callbacks des succès.
+     * Un document en échec est noté dans les stats sans arrêter la synchronisation
+     * (l'écrivain a déjà réessayé les erreurs transitoires).
+     */
+    private int flushPending(DocumentStore.Writer writer, List<PendingWrite> pending, SyncStats stats)
+            throws InterruptedException {
+        if (pending.isEmpty()) return 0;
+        writer.flush();
+        int succeeded = 0;
+        for (PendingWrite write : pending) {
+            try {
+                write.future.get();
+                write.onSuccess.run();
+                succeeded++;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                stats.recordFailure(write.collection, write.documentId, cause);
+                syncMetrics.recordError(write.collection);
             }
         }
-        
-        return count;
+        pending.clear();
+        return succeeded;
+    }
+
+    /**
+     * Enregistre le point de reprise après un lot validé. Sans type de synchro
+     * (pull ou push appelé directement), rien n'est enregistré.
+     */
+    private void saveCheckpoint(SyncRun run, String phase, String cursor, boolean phaseCompleted) {
+        if (run.syncType == null) return;
+        SyncCheckpoint checkpoint = syncCheckpointRepository.findById(new SyncCheckpoint.Key(run.syncType, phase))
+                .orElseGet(() -> new SyncCheckpoint(run.syncType, phase));
+        checkpoint.setMode(run.mode);
+        checkpoint.setCursor(cursor);
+        checkpoint.setPhaseCompleted(phaseCompleted);
+        syncCheckpointRepository.save(checkpoint);
+    }
+
+    /**
+     * Exécution en cours : type, mode, stats et checkpoint de reprise éventuel.
+     */
+    private static class SyncRun {
+        final String syncType;
+        final String mode;
+        final SyncStats stats;
+        /** Checkpoints de l'exécution reprise, par phase. */
+        final Map<String, SyncCheckpoint> resumeFrom;
+        /** Auteurs déjà validés par pull-users, attendus par pull-reports. */
+        UserGate userGate = UserGate.closedGate();
+
+        SyncRun(String syncType, String mode, SyncStats stats, Map<String, SyncCheckpoint> resumeFrom) {
+            this.syncType = syncType;
+            this.mode = mode;
+            this.stats = stats;
+            this.resumeFrom = resumeFrom != null ? resumeFrom : Map.of();
+        }
+
+        /** Phase déjà terminée lors de l'exécution reprise. */
+        boolean isCompleted(String phase) {
+            SyncCheckpoint checkpoint = resumeFrom.get(phase);
+            return checkpoint != null && Boolean.TRUE.equals(checkpoint.getPhaseCompleted());
+        }
+
+        /** Curseur à partir duquel reprendre la phase, null pour la commencer au début. */
+        String cursorFor(String phase) {
+            SyncCheckpoint checkpoint = resumeFrom.get(phase);
+            return checkpoint != null ? checkpoint.getCursor() : null;
+        }
+    }
+
+    /**
+     * Position de lecture : après ({@code updatedAt}, {@code documentId}) en
+     * mode incrémental, après {@code documentId} en mode full.
+     */
+    private static class PageCursor {
+        final Instant updatedAt;
+        final String documentId;
+
+        PageCursor(Instant updatedAt, String documentId) {
+            this.updatedAt = updatedAt;
+            this.documentId = documentId;
+        }
+
+        /**
+         * Curseur suivant le dernier document de la page, null si on ne peut pas
+         * continuer (updatedAt non horodaté en mode incrémental ; ne devrait plus
+         * arriver, listChangedSince ne rendant que des Timestamp).
+         */
+        static PageCursor after(List<SyncDocument> page, boolean incremental) {
+            SyncDocument last = page.get(page.size() - 1);
+            if (!incremental) return new PageCursor(null, last.getId());
+            Object value = last.get("updatedAt");
+            if (!(value instanceof Timestamp)) return null;
+            Timestamp ts = (Timestamp) value;
+            return new PageCursor(Instant.ofEpochSecond(ts.getSeconds(), ts.getNanos()), last.getId());
+        }
+    }
+
+    /**
+     * Avancement des plages du pull parallèle. Le curseur global est le plus
+     * grand id tel que tous les ids inférieurs ou égaux sont validés : les
+     * plages sont ordonnées, on s'arrête à la première non terminée.
+     */
+    static class PartitionProgress {
+        private final String[] lastIds;
+        private final boolean[] done;
+        private final String resumedFrom;
+        /** Un worker a échoué : les autres s'arrêtent. */
+        volatile boolean aborted;
+
+        PartitionProgress(int ranges, String resumedFrom) {
+            this.lastIds = new String[ranges];
+            this.done = new boolean[ranges];
+            this.resumedFrom = resumedFrom;
+        }
+
+        /** Enregistre un lot validé de la plage {@code index}. */
+        synchronized void record(int index, String lastId, boolean rangeDone) {
+            if (lastId != null) lastIds[index] = lastId;
+            done[index] |= rangeDone;
+        }
+
+        /** Curseur global si le lot de la plage {@code index} était validé. */
+        synchronized String cursorWith(int index, String lastId, boolean rangeDone) {
+            String cursor = resumedFrom;
+            for (int i = 0; i < lastIds.length; i++) {
+                String id = i == index ? lastId : lastIds[i];
+                if (id != null && (cursor == null || id.compareTo(cursor) > 0)) cursor = id;
+                if (!(done[i] || (i == index && rangeDone))) break;
+            }
+            return cursor;
+        }
+    }
+
+    /**
+     * Plus grand (updatedAt, id) vu parmi des documents, sans les retenir.
+     * Partagé par les workers du pull parallèle.
+     */
+    private class WatermarkCandidate {
+        Timestamp maxTs;
+        String maxId;
+
+        synchronized void offer(List<SyncDocument> documents) {
+            for (SyncDocument doc : documents) {
+                Object value = doc.get("updatedAt");
+                if (!(value instanceof Timestamp)) continue;
+                Timestamp ts = (Timestamp) value;
+                int cmp = maxTs == null ? 1 : ts.compareTo(maxTs);
+                if (cmp > 0 || (cmp == 0 && doc.getId().compareTo(maxId) > 0)) {
+                    maxTs = ts;
+                    maxId = doc.getId();
+                }
+            }
+        }
+
+        synchronized void saveTo(String collection) {
+            if (maxTs != null) saveWatermark(collection, maxTs, maxId);
+        }
+    }
+
+    /** Résultat d'une page de push : documents écrits et reports en échec. */
+    private static class PagePush {
+        int pushed;
+        final Set<Long> failedIds = new HashSet<>();
+        /** Non écrits faute de firebaseUid pour l'auteur, à reprendre plus tard. */
+        final Set<Long> deferredIds = new LinkedHashSet<>();
+    }
+
+    private static class PendingWrite {
+        final String collection;
+        final String documentId;
+        final CompletableFuture<Void> future;
+        final Runnable onSuccess;
+
+        PendingWrite(String collection, String documentId, CompletableFuture<Void> future, Runnable onSuccess) {
+            this.collection = collection;
+            this.documentId = documentId;
+            this.future = future;
+            this.onSuccess = onSuccess;
+        }
     }
+
     // ==========================================
 
     // SYNCHRONISATION DES PHOTOS
     // ==========================================
 
+    /** Champs Firestore pouvant contenir les photos d'un report, par ordre de priorité. */
+    private static final String[] PHOTO_FIELDS = {"photos", "photoUrls", "photoUrl", "imageUrls", "imageUrl", "images"};
+    /** Clés possibles de l'URL dans un objet photo. */
+    private static final String[] PHOTO_URL_KEYS = {"url", "photoUrl", "photoURL", "imageUrl", "imageURL", "src", "uri"};
+    /** Nombre maximal d'URL par requête IN. */
+    private static final int PHOTO_LOOKUP_CHUNK = 1000;
+
+    /**
+     * Ingestion groupée des photos d'une page de reports : les URL candidates de
+     * toute la page sont vérifiées en une requête IN (index unique sur photo_url),
+     * puis les nouvelles photos sont insérées en un saveAll (batch JDBC).
+     * Seuls des compteurs agrégés sont tenus, dans {@code stats}.
+     */
+    private void ingestPhotos(Map<Report, SyncDocument> reports, SyncStats stats) {
+        Map<String, PhotoReport> candidates = new LinkedHashMap<>();
+        for (Map.Entry<Report, SyncDocument> entry : reports.entrySet()) {
+            for (PhotoReport photo : extractPhotos(entry.getKey(), entry.getValue(), stats)) {
+                if (candidates.putIfAbsent(photo.getPhotoUrl(), photo) != null) {
+                    stats.addPhotosDuplicate(1);
+                }
+            }
+        }
+        if (candidates.isEmpty()) return;
+
+        List<String> urls = new ArrayList<>(candidates.keySet());
+        for (int i = 0; i < urls.size(); i += PHOTO_LOOKUP_CHUNK) {
+            for (String existing : photoReportRepository.findExistingUrls(urls.subList(i, Math.min(i + PHOTO_LOOKUP_CHUNK, urls.size())))) {
+                if (candidates.remove(existing) != null) {
+                    stats.addPhotosDuplicate(1);
+                }
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            photoReportRepository.saveAll(candidates.values());
+            stats.addPhotosInserted(candidates.size());
+        }
+    }
+
+    /**
+     * Photos décrites par un document "reports". Le champ peut être une liste
+     * (d'URL ou d'objets {url, description}), une URL seule ou un objet seul.
+     */
     @SuppressWarnings("unchecked")
-    private void syncPhotosFromFirebase(Report report, QueryDocumentSnapshot doc) {
-        System.out.println("[PhotoSync] Début synchronisation photos pour report firebaseId=" + doc.getId());
-        
-        // Essayer plusieurs noms de champs possibles pour les photos
-        String[] possibleFieldNames = {"photos", "photoUrls", "photoUrl", "imageUrls", "imageUrl", "images"};
+    private List<PhotoReport> extractPhotos(Report report, SyncDocument doc, SyncStats stats) {
+        Map<String, Object> data = doc.getData();
         Object photosObj = null;
-        
-        for (String fieldName : possibleFieldNames) {
-            Object obj = doc.getData().get(fieldName);
-            if (obj != null) {
-                photosObj = obj;
-                System.out.println("[PhotoSync] Champ trouvé: " + fieldName + " = " + obj);
-                break;
-            }
-        }
-        
-        if (photosObj == null) {
-            System.out.println("[PhotoSync] Aucun champ photos trouvé dans le document Firebase. Champs disponibles: " + doc.getData().keySet());
-            return;
+        for (String fieldName : PHOTO_FIELDS) {
+            photosObj = data.get(fieldName);
+            if (photosObj != null) break;
         }
 
-        List<?> photosList = null;
-        
-        // Gérer le cas où c'est une liste
+        List<?> photosList;
         if (photosObj instanceof List) {
             photosList = (List<?>) photosObj;
-        }
-        // Gérer le cas où c'est une seule URL string
-        else if (photosObj instanceof String) {
-            String singleUrl = (String) photosObj;
-            if (!singleUrl.isEmpty()) {
-                photosList = Collections.singletonList(singleUrl);
-            }
-        }
-        // Gérer le cas où c'est un objet Map (une seule photo)
-        else if (photosObj instanceof Map) {
+        } else if (photosObj instanceof String && !((String) photosObj).isEmpty()) {
             photosList = Collections.singletonList(photosObj);
-        }
-        
-        if (photosList == null || photosList.isEmpty()) {
-            System.out.println("[PhotoSync] Liste de photos vide ou format non reconnu: " + photosObj.getClass().getName());
-            return;
+        } else if (photosObj instanceof Map) {
+            photosList = Collections.singletonList(photosObj);
+        } else {
+            return Collections.emptyList();
         }
 
-        System.out.println("[PhotoSync] Nombre de photos à synchroniser: " + photosList.size());
-        int syncedCount = 0;
-
+        List<PhotoReport> photos = new ArrayList<>(photosList.size());
         for (Object item : photosList) {
             String photoUrl = null;
             String description = null;
 
-            // Cas 1: L'item est une String (URL directe)
             if (item instanceof String) {
                 photoUrl = (String) item;
-            }
-            // Cas 2: L'item est un Map (objet avec url/photoUrl et description)
-            else if (item instanceof Map) {
+            } else if (item instanceof Map) {
                 Map<String, Object> photoData = (Map<String, Object>) item;
-                // Essayer plusieurs clés possibles pour l'URL
-                String[] urlKeys = {"url", "photoUrl", "photoURL", "imageUrl", "imageURL", "src", "uri"};
-                for (String key : urlKeys) {
+                for (String key : PHOTO_URL_KEYS) {
                     Object urlObj = photoData.get(key);
                     if (urlObj instanceof String && !((String) urlObj).isEmpty()) {
                         photoUrl = (String) urlObj;
                         break;
                     }
                 }
-                // Récupérer la description
                 Object descObj = photoData.get("description");
                 if (descObj instanceof String) {
                     description = (String) descObj;
                 }
-                
-                if (photoUrl == null) {
-                    System.out.println("[PhotoSync] Clés disponibles dans l'objet photo: " + photoData.keySet());
-                }
-            } else {
-                System.out.println("[PhotoSync] Format de photo non reconnu: " + (item != null ? item.getClass().getName() : "null"));
             }
 
             if (photoUrl == null || photoUrl.isEmpty()) {
-                System.out.println("[PhotoSync] URL de photo vide ou null, ignorée");
+                stats.addPhotosIgnored(1);
                 continue;
             }
 
-            System.out.println("[PhotoSync] Traitement de la photo URL: " + photoUrl);
-
-            // Vérifier si cette photo existe déjà
-            boolean exists = photoReportRepository.findByPhotoUrl(photoUrl).isPresent();
-            if (exists) {
-                System.out.println("[PhotoSync] Photo déjà existante, ignorée: " + photoUrl);
-                continue; // Photo déjà synchronisée
-            }
-
-            // Créer nouvelle photo
-            try {
-                PhotoReport photo = new PhotoReport();
-                photo.setReport(report);
-                photo.setPhotoUrl(photoUrl);
-                
-                if (description != null) {
-                    photo.setDescription(description);
-                }
-
-                photo.setUploadedAt(LocalDateTime.now());
-                photoReportRepository.save(photo);
-                syncedCount++;
-                System.out.println("[PhotoSync] Photo sauvegardée avec succès: " + photoUrl);
-            } catch (Exception e) {
-                System.err.println("[PhotoSync] Erreur lors de la sauvegarde de la photo: " + photoUrl + " - " + e.getMessage());
-            }
+            PhotoReport photo = new PhotoReport();
+            photo.setReport(report);
+            photo.setPhotoUrl(photoUrl);
+            photo.setDescription(description);
+            photo.setUploadedAt(LocalDateTime.now());
+            photos.add(photo);
         }
-        
-        System.out.println("[PhotoSync] Synchronisation terminée. Photos synchronisées: " + syncedCount + "/" + photosList.size());
+        return photos;
     }
 
     // ==========================================
@@ -549,14 +1959,15 @@ public class FirebaseSyncService {
     // MÉTHODES UTILITAIRES
     // ==========================================
 
-    private void updateUserFromFirebase(User user, QueryDocumentSnapshot doc) {
+    private void updateUserFromFirebase(User user, SyncDocument doc) {
         if (doc.getString("email") != null) user.setEmail(doc.getString("email"));
         if (doc.getString("firstName") != null) user.setFirstName(doc.getString("firstName"));
         if (doc.getString("lastName") != null) user.setLastName(doc.getString("lastName"));
         if (doc.getString("role") != null) user.setRole(doc.getString("role"));
+        user.setSyncHash(hashOf(user));
     }
 
-    private void updateReportFromFirebase(Report report, QueryDocumentSnapshot doc) {
+    private void updateReportFromFirebase(Report report, SyncDocument doc) {
         if (doc.getString("description") != null) report.setDescription(doc.getString("description"));
         if (doc.getString("status") != null) report.setStatus(doc.getString("status"));
         if (doc.contains("latitude")) report.setLatitude(getBigDecimal(doc, "latitude"));
@@ -564,9 +1975,44 @@ public class FirebaseSyncService {
         if (doc.contains("surface")) report.setSurface(getBigDecimal(doc, "surface"));
         if (doc.contains("budget")) report.setBudget(getBigDecimal(doc, "budget"));
         report.setSyncedAt(LocalDateTime.now());
+        report.setSyncHash(hashOf(report));
+    }
+
+    private static String hashOf(User user) {
+        return SyncHash.user(user.getEmail(), user.getFirstName(), user.getLastName(), user.getRole());
+    }
+
+    private static String hashOf(Report report) {
+        return SyncHash.report(report.getDescription(), report.getStatus(), report.getLatitude(),
+                report.getLongitude(), report.getSurface(), report.getBudget());
+    }
+
+    /**
+     * Empreinte qu'aurait l'utilisateur après {@link #updateUserFromFirebase},
+     * calculée sans modifier l'entité (qui serait sinon écrite au flush).
+     */
+    private String pulledUserHash(User user, SyncDocument doc) {
+        return SyncHash.user(
+                doc.getString("email") != null ? doc.getString("email") : user.getEmail(),
+                doc.getString("firstName") != null ? doc.getString("firstName") : user.getFirstName(),
+                doc.getString("lastName") != null ? doc.getString("lastName") : user.getLastName(),
+                doc.getString("role") != null ? doc.getString("role") : user.getRole());
+    }
+
+    /**
+     * Empreinte qu'aurait le report après {@link #updateReportFromFirebase}.
+     */
+    private String pulledReportHash(Report report, SyncDocument doc) {
+        return SyncHash.report(
+                doc.getString("description") != null ? doc.getString("description") : report.getDescription(),
+                doc.getString("status") != null ? doc.getString("status") : report.getStatus(),
+                doc.contains("latitude") ? getBigDecimal(doc, "latitude") : report.getLatitude(),
+                doc.contains("longitude") ? getBigDecimal(doc, "longitude") : report.getLongitude(),
+                doc.contains("surface") ? getBigDecimal(doc, "surface") : report.getSurface(),
+                doc.contains("budget") ? getBigDecimal(doc, "budget") : report.getBudget());
     }
 
-    private BigDecimal getBigDecimal(QueryDocumentSnapshot doc, String field) {
+    private BigDecimal getBigDecimal(SyncDocument doc, String field) {
         Object value = doc.getData().get(field);
         if (value == null) return null;
         if (value instanceof Double) return BigDecimal.valueOf((Double) value);
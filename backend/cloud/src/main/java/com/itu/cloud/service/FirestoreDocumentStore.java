@@ -0,0 +1,374 @@
+package com.itu.cloud.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriterOptions;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QueryPartition;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.itu.cloud.config.FirebaseConfig;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link DocumentStore} adossé à Cloud Firestore (implémentation par défaut).
+ */
+@Service
+@ConditionalOnProperty(name = "sync.target", havingValue = "firestore", matchIfMissing = true)
+public class FirestoreDocumentStore implements DocumentStore {
+
+    /** Nombre maximal de valeurs dans un filtre whereIn Firestore. */
+    private static final int WHERE_IN_LIMIT = 10;
+
+    @Value("${sync.push.initial-ops-per-second:500}")
+    private int initialOpsPerSecond;
+
+    @Value("${sync.push.max-ops-per-second:10000}")
+    private int maxOpsPerSecond;
+
+    private final FirebaseConfig firebaseConfig;
+    private final FirestoreResilience resilience;
+    private final SyncMetrics metrics;
+
+    public FirestoreDocumentStore(FirebaseConfig firebaseConfig, FirestoreResilience resilience, SyncMetrics metrics) {
+        this.firebaseConfig = firebaseConfig;
+        this.resilience = resilience;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Client courant, pour les opérations non rejouables (écritures groupées,
+     * écoute) : échoue immédiatement si le circuit est ouvert.
+     */
+    private Firestore getFirestore() {
+        resilience.checkAvailable();
+        return firebaseConfig.getFirestore();
+    }
+
+    @Override
+    public List<SyncDocument> list(String collection, IdRange range, String afterId, int limit)
+            throws ExecutionException, InterruptedException {
+        return toDocuments(collection, resilience.call("list " + collection, firestore -> {
+            Query query = firestore.collection(collection).orderBy(FieldPath.documentId());
+            if (afterId != null) query = query.startAfter(afterId);
+            else if (range.getStartAt() != null) query = query.startAt(range.getStartAt());
+            if (range.getEndBefore() != null) query = query.endBefore(range.getEndBefore());
+            return query.limit(limit).get();
+        }).getDocuments());
+    }
+
+    /**
+     * S'appuie sur les partition queries de Firestore. Elles portent sur le
+     * groupe de collections : les points de coupure situés dans une
+     * sous-collection homonyme sont écartés, le découpage reste contigu.
+     */
+    @Override
+    public List<IdRange> partition(String collection, int partitions)
+            throws ExecutionException, InterruptedException {
+        if (partitions <= 1) return List.of(IdRange.ALL);
+        List<QueryPartition> found = resilience.call("partition " + collection,
+                firestore -> firestore.collectionGroup(collection).getPartitions(partitions));
+        metrics.recordReads(collection, found.size());
+        String path = firebaseConfig.getFirestore().collection(collection).getPath();
+        List<String> boundaries = new ArrayList<>();
+        for (QueryPartition partition : found) {
+            Object[] startAt = partition.getStartAt();
+            if (startAt == null || startAt.length == 0 || !(startAt[0] instanceof DocumentReference)) continue;
+            DocumentReference boundary = (DocumentReference) startAt[0];
+            if (boundary.getParent().getPath().equals(path)) boundaries.add(boundary.getId());
+        }
+        return IdRange.between(boundaries);
+    }
+
+    @Override
+    public List<SyncDocument> listChangedSince(String collection, Instant updatedAt, String afterId, int limit)
+            throws ExecutionException, InterruptedException {
+        return toDocuments(collection, resilience.call("listChangedSince " + collection,
+                firestore -> changedSince(firestore.collection(collection), updatedAt, afterId).limit(limit).get())
+                .getDocuments());
+    }
+
+    @Override
+    public List<SyncDocument> listUnstampedSince(String collection, String updatedAt, String afterId, int limit)
+            throws ExecutionException, InterruptedException {
+        return toDocuments(collection, resilience.call("listUnstampedSince " + collection, firestore -> {
+            // Une inégalité ne retient que les valeurs de son type : ici les chaînes
+            Query query = firestore.collection(collection).whereGreaterThanOrEqualTo("updatedAt", "")
+                    .orderBy("updatedAt").orderBy(FieldPath.documentId());
+            if (updatedAt != null) query = query.startAfter(updatedAt, afterId);
+            return query.limit(limit).get();
+        }).getDocuments());
+    }
+
+    @Override
+    public long count(String collection) throws ExecutionException, InterruptedException {
+        long count = resilience.call("count " + collection,
+                firestore -> firestore.collection(collection).count().get()).getCount();
+        // Une agrégation est facturée une lecture par tranche de 1000 entrées d'index
+        metrics.recordReads(collection, (count + 999) / 1000);
+        return count;
+    }
+
+    /**
+     * Firestore classe les chaînes après tous les Timestamp : sans le filtre de
+     * type, les documents datés par une chaîne reviendraient en fin de chaque
+     * lecture, hors de portée du curseur (voir {@link #listUnstampedSince}).
+     */
+    private Query changedSince(CollectionReference ref, Instant updatedAt, String afterId) {
+        Query query = ref.whereGreaterThanOrEqualTo("updatedAt", Timestamp.MIN_VALUE)
+                .orderBy("updatedAt").orderBy(FieldPath.documentId());
+        if (updatedAt != null) {
+            query = query.startAfter(
+                    Timestamp.ofTimeSecondsAndNanos(updatedAt.getEpochSecond(), updatedAt.getNano()),
+                    afterId);
+        }
+        return query;
+    }
+
+    /**
+     * Les valeurs sont groupées par paquets de {@value #WHERE_IN_LIMIT} (limite de whereIn).
+     */
+    @Override
+    public Map<String, String> findIdsByField(String collection, String field, Collection<String> values)
+            throws ExecutionException, InterruptedException {
+        Map<String, String> result = new HashMap<>();
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        for (int i = 0; i < distinct.size(); i += WHERE_IN_LIMIT) {
+            List<String> chunk = distinct.subList(i, Math.min(i + WHERE_IN_LIMIT, distinct.size()));
+            List<Object> chunkValues = new ArrayList<>(chunk);
+            List<QueryDocumentSnapshot> docs = resilience.call("findIdsByField " + collection,
+                    firestore -> firestore.collection(collection).whereIn(field, chunkValues).get()).getDocuments();
+            metrics.recordReads(collection, docs.size());
+            for (QueryDocumentSnapshot doc : docs) {
+                String value = doc.getString(field);
+                if (value != null) result.putIfAbsent(value, doc.getId());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<String> findFirstId(String collection, Map<String, Object> equalities)
+            throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> docs = resilience.call("findFirstId " + collection, firestore -> {
+            Query query = firestore.collection(collection);
+            for (Map.Entry<String, Object> e : equalities.entrySet()) {
+                query = query.whereEqualTo(e.getKey(), e.getValue());
+            }
+            return query.limit(1).get();
+        }).getDocuments();
+        metrics.recordReads(collection, docs.size());
+        return docs.isEmpty() ? Optional.empty() : Optional.of(docs.get(0).getId());
+    }
+
+    /**
+     * Une seule lecture groupée (getAll) ; chaque id demandé est facturé, même absent.
+     */
+    @Override
+    public Map<String, SyncDocument> getAll(String collection, Collection<String> ids)
+            throws ExecutionException, InterruptedException {
+        if (ids.isEmpty()) return Map.of();
+        List<DocumentSnapshot> snapshots = resilience.call("getAll " + collection, firestore -> {
+            CollectionReference ref = firestore.collection(collection);
+            return firestore.getAll(ids.stream().map(ref::document).toArray(DocumentReference[]::new));
+        });
+        metrics.recordReads(collection, snapshots.size());
+        Map<String, SyncDocument> found = new HashMap<>();
+        for (DocumentSnapshot snapshot : snapshots) {
+            if (snapshot.exists()) found.put(snapshot.getId(), new SyncDocument(snapshot.getId(), snapshot.getData()));
+        }
+        return found;
+    }
+
+    @Override
+    public List<String> listDeletedBefore(String collection, Instant before, int limit)
+            throws ExecutionException, InterruptedException {
+        // Seuls les documents marqués ont un deletedAt : index mono-champ, pas d'index composite
+        List<QueryDocumentSnapshot> docs = resilience.call("listDeletedBefore " + collection,
+                firestore -> firestore.collection(collection)
+                        .whereLessThan("deletedAt", Timestamp.ofTimeSecondsAndNanos(before.getEpochSecond(), before.getNano()))
+                        .orderBy("deletedAt")
+                        .limit(limit)
+                        .get()).getDocuments();
+        metrics.recordReads(collection, docs.size());
+        List<String> ids = new ArrayList<>(docs.size());
+        for (QueryDocumentSnapshot doc : docs) ids.add(doc.getId());
+        return ids;
+    }
+
+    @Override
+    public String newDocumentId(String collection) {
+        return firebaseConfig.getFirestore().collection(collection).document().getId();
+    }
+
+    @Override
+    public Writer openWriter() {
+        Firestore firestore = getFirestore();
+        BulkWriter bulkWriter = firestore.bulkWriter(BulkWriterOptions.builder()
+                .setInitialOpsPerSecond(initialOpsPerSecond)
+                .setMaxOpsPerSecond(maxOpsPerSecond)
+                .build());
+        return new Writer() {
+            @Override
+            public CompletableFuture<Void> upsert(String collection, String documentId, Map<String, Object> data, boolean created) {
+                metrics.recordWrite(collection, "upsert");
+                Map<String, Object> fields = new HashMap<>(data);
+                fields.put("updatedAt", FieldValue.serverTimestamp());
+                if (created) fields.put("createdAt", FieldValue.serverTimestamp());
+                return toCompletable(bulkWriter.set(
+                        firestore.collection(collection).document(documentId), fields, SetOptions.merge()));
+            }
+
+            @Override
+            public CompletableFuture<Void> addToArray(String collection, String documentId, String field, List<?> values) {
+                metrics.recordWrite(collection, "addToArray");
+                Map<String, Object> fields = new HashMap<>();
+                fields.put(field, FieldValue.arrayUnion(values.toArray()));
+                fields.put("updatedAt", FieldValue.serverTimestamp());
+                return toCompletable(bulkWriter.set(
+                        firestore.collection(collection).document(documentId), fields, SetOptions.merge()));
+            }
+
+            @Override
+            public CompletableFuture<Void> removeFromArray(String collection, String documentId, String field, List<?> values) {
+                metrics.recordWrite(collection, "removeFromArray");
+                Map<String, Object> fields = new HashMap<>();
+                fields.put(field, FieldValue.arrayRemove(values.toArray()));
+                fields.put("updatedAt", FieldValue.serverTimestamp());
+                return toCompletable(bulkWriter.set(
+                        firestore.collection(collection).document(documentId), fields, SetOptions.merge()));
+            }
+
+            @Override
+            public CompletableFuture<Void> markDeleted(String collection, String documentId) {
+                metrics.recordWrite(collection, "markDeleted");
+                Map<String, Object> fields = new HashMap<>();
+                fields.put("deleted", true);
+                fields.put("deletedAt", FieldValue.serverTimestamp());
+                fields.put("updatedAt", FieldValue.serverTimestamp());
+                return toCompletable(bulkWriter.set(
+                        firestore.collection(collection).document(documentId), fields, SetOptions.merge()));
+            }
+
+            @Override
+            public CompletableFuture<Void> delete(String collection, String documentId) {
+                metrics.recordWrite(collection, "delete");
+                return toCompletable(bulkWriter.delete(firestore.collection(collection).document(documentId)));
+            }
+
+            private CompletableFuture<Void> toCompletable(ApiFuture<WriteResult> future) {
+                CompletableFuture<Void> result = new CompletableFuture<>();
+                ApiFutures.addCallback(future, new ApiFutureCallback<WriteResult>() {
+                    @Override
+                    public void onFailure(Throwable t) {
+                        resilience.record(t);
+                        result.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onSuccess(WriteResult writeResult) {
+                        resilience.record(null);
+                        result.complete(null);
+                    }
+                }, MoreExecutors.directExecutor());
+                return result;
+            }
+
+            @Override
+            public void flush() throws InterruptedException {
+                try {
+                    bulkWriter.flush().get();
+                } catch (ExecutionException e) {
+                    // Les erreurs individuelles sont portées par chaque future
+                }
+            }
+
+            @Override
+            public void close() {
+                try {
+                    bulkWriter.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // Les erreurs individuelles sont portées par chaque future
+                }
+            }
+        };
+    }
+
+    @Override
+    public Registration listen(String collection, Instant updatedAt, String afterId, ChangeListener listener) {
+        ListenerRegistration registration = changedSince(getFirestore().collection(collection), updatedAt, afterId)
+                .addSnapshotListener((snapshot, error) -> {
+                    if (error != null) {
+                        resilience.record(error);
+                        listener.onError(error);
+                        return;
+                    }
+                    if (snapshot == null) return;
+                    if (!snapshot.getDocumentChanges().isEmpty()) {
+                        metrics.recordReads(collection, snapshot.getDocumentChanges().size());
+                    }
+                    List<Change> changes = new ArrayList<>(snapshot.getDocumentChanges().size());
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        changes.add(new Change(toChangeType(change.getType()), toDocument(change.getDocument())));
+                    }
+                    listener.onChanges(changes);
+                });
+        return registration::remove;
+    }
+
+    @Override
+    public void reconnect() {
+        firebaseConfig.reinitialize();
+    }
+
+    @Override
+    public Map<String, Object> getHealth() {
+        return resilience.getStatus();
+    }
+
+    private static ChangeType toChangeType(DocumentChange.Type type) {
+        switch (type) {
+            case ADDED: return ChangeType.ADDED;
+            case REMOVED: return ChangeType.REMOVED;
+            default: return ChangeType.MODIFIED;
+        }
+    }
+
+    private List<SyncDocument> toDocuments(String collection, List<QueryDocumentSnapshot> snapshots) {
+        metrics.recordReads(collection, snapshots.size());
+        List<SyncDocument> documents = new ArrayList<>(snapshots.size());
+        for (QueryDocumentSnapshot snapshot : snapshots) documents.add(toDocument(snapshot));
+        return documents;
+    }
+
+    private static SyncDocument toDocument(QueryDocumentSnapshot snapshot) {
+        return new SyncDocument(snapshot.getId(), snapshot.getData());
+    }
+}
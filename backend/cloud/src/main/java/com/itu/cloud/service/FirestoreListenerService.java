@@ -0,0 +1,342 @@
+package com.itu.cloud.service;
+
+import com.itu.cloud.entity.SyncLease;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Ingestion temps réel Firestore → PostgreSQL.
+ *
+ * Un snapshot listener est posé sur "users" et "reports" à partir du watermark
+ * de chaque collection, sur un seul nœud du backend : celui qui détient le bail
+ * "listener" ({@link SyncLeaseService}). Les autres nœuds démarrés restent en
+ * attente et reprennent le bail à l'expiration si le titulaire meurt. Les DocumentChange reçus passent par une file bornée :
+ * quand elle est pleine, le callback du listener bloque, ce qui ralentit le flux
+ * côté Firestore (backpressure). Un worker unique vide la file par micro-lots,
+ * ne garde que le dernier changement par document, puis applique le lot avec la
+ * logique de pull existante ; le watermark avance après chaque lot, ce qui permet
+ * de reprendre au même point après un redémarrage. Un REMOVED n'est traité
+ * comme une suppression que si le document a disparu de Firestore (voir
+ * {@link FirebaseSyncService#resolveRemovals}).
+ *
+ * Un lot abandonné après sync.listener.max-attempts tentatives ne doit pas être
+ * dépassé par le lot suivant, qui ferait avancer le watermark au-delà de ses
+ * documents : la file est vidée et les listeners reposés depuis le dernier
+ * watermark validé, ce qui relivre le lot abandonné.
+ */
+@Service
+public class FirestoreListenerService {
+
+    private static final String[] COLLECTIONS = {"users", "reports"};
+
+    private static final String LEASE = "listener";
+
+    private final FirebaseSyncService firebaseSyncService;
+    private final SyncLeaseService syncLeaseService;
+
+    @Value("${sync.listener.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sync.listener.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${sync.listener.batch-size:500}")
+    private int batchSize;
+
+    @Value("${sync.listener.max-wait-ms:1000}")
+    private long maxWaitMs;
+
+    @Value("${sync.listener.max-attempts:3}")
+    private int maxAttempts;
+
+    private BlockingQueue<ChangeEvent> queue;
+    private final Map<String, DocumentStore.Registration> registrations = new ConcurrentHashMap<>();
+    private volatile Thread worker;
+    private volatile boolean running;
+    /** Démarré sur ce nœud : actif s'il détient le bail, en attente sinon. */
+    private volatile boolean wanted;
+    private volatile String leader;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong restarts = new AtomicLong();
+    private volatile LocalDateTime lastAppliedAt;
+    private volatile String lastError;
+
+    public FirestoreListenerService(FirebaseSyncService firebaseSyncService, SyncLeaseService syncLeaseService) {
+        this.firebaseSyncService = firebaseSyncService;
+        this.syncLeaseService = syncLeaseService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            start();
+        }
+    }
+
+    /**
+     * Démarre les listeners si aucun autre nœud ne les fait tourner ; sinon ce
+     * nœud reste en attente et prendra le relais à l'expiration du bail.
+     */
+    public synchronized void start() {
+        wanted = true;
+        contend();
+    }
+
+    /**
+     * Tentative de reprise du bail par un nœud en attente.
+     */
+    @Scheduled(fixedDelayString = "${sync.lease.heartbeat-ms:10000}")
+    public void failover() {
+        if (!wanted || running) return;
+        try {
+            contend();
+        } catch (Exception e) {
+            lastError = e.getMessage();
+        }
+    }
+
+    private synchronized void contend() {
+        if (!wanted || running) return;
+        Optional<SyncLease> blocking = syncLeaseService.tryAcquire(LEASE, List.of(LEASE), null, this::onLeaseLost);
+        if (blocking.isPresent()) {
+            if (!blocking.get().getHolder().equals(leader)) {
+                System.out.println("⏸️ Listeners Firestore actifs sur " + blocking.get().getHolder() + ", ce nœud reste en attente");
+            }
+            leader = blocking.get().getHolder();
+            return;
+        }
+        leader = syncLeaseService.getNodeId();
+        startListening();
+    }
+
+    /**
+     * Bail perdu (base injoignable, nœud repris) : un autre nœud peut déjà écouter.
+     */
+    private synchronized void onLeaseLost() {
+        leader = null;
+        stopListening();
+    }
+
+    private void startListening() {
+        if (running) return;
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::drainLoop, "firestore-listener-worker");
+        worker.setDaemon(true);
+        worker.start();
+        for (String collection : COLLECTIONS) {
+            attach(collection);
+        }
+        System.out.println("✅ Listeners Firestore démarrés sur " + String.join(", ", COLLECTIONS));
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        wanted = false;
+        stopListening();
+        syncLeaseService.release(LEASE);
+        leader = null;
+    }
+
+    private void stopListening() {
+        if (!running) return;
+        running = false;
+        registrations.values().forEach(DocumentStore.Registration::remove);
+        registrations.clear();
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Pose le listener sur la requête "modifié depuis le watermark".
+     * En cas d'erreur du flux, le listener est reposé depuis le dernier watermark.
+     */
+    private void attach(String collection) {
+        if (!running) return;
+        DocumentStore.Registration registration = firebaseSyncService.listenChangesSinceWatermark(collection,
+                new DocumentStore.ChangeListener() {
+                    @Override
+                    public void onChanges(List<DocumentStore.Change> changes) {
+                        for (DocumentStore.Change change : changes) {
+                            received.incrementAndGet();
+                            try {
+                                // Bloque si la file est pleine : c'est la backpressure
+                                queue.put(new ChangeEvent(collection, change.getType(), change.getDocument()));
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return;
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        lastError = collection + ": " + error.getMessage();
+                        System.err.println("⚠️ Listener Firestore " + collection + " en erreur: " + error.getMessage());
+                        reattachLater(collection);
+                    }
+                });
+        DocumentStore.Registration previous = registrations.put(collection, registration);
+        if (previous != null) previous.remove();
+    }
+
+    private void reattachLater(String collection) {
+        Thread t = new Thread(() -> {
+            try {
+                Thread.sleep(5000);
+                attach(collection);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                lastError = collection + ": " + e.getMessage();
+                reattachLater(collection);
+            }
+        }, "firestore-listener-reattach-" + collection);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void drainLoop() {
+        List<ChangeEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ChangeEvent first = queue.poll(maxWaitMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                applyBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Regroupe les changements par document (le dernier gagne), puis applique
+     * les utilisateurs avant les reports pour que ceux-ci retrouvent leur auteur.
+     */
+    private void applyBatch(List<ChangeEvent> batch) throws InterruptedException {
+        Map<String, ChangeEvent> latest = new LinkedHashMap<>();
+        for (ChangeEvent event : batch) {
+            if (latest.put(event.collection + "/" + event.document.getId(), event) != null) {
+                coalesced.incrementAndGet();
+            }
+        }
+
+        List<SyncDocument> changedUsers = new ArrayList<>();
+        List<SyncDocument> changedReports = new ArrayList<>();
+        List<SyncDocument> removedUsers = new ArrayList<>();
+        List<SyncDocument> removedReports = new ArrayList<>();
+        for (ChangeEvent event : latest.values()) {
+            boolean removed = event.type == DocumentStore.ChangeType.REMOVED;
+            if ("users".equals(event.collection)) (removed ? removedUsers : changedUsers).add(event.document);
+            else (removed ? removedReports : changedReports).add(event.document);
+        }
+        int size = latest.size();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // Sorti de la requête ne veut pas dire supprimé : vérifié dans Firestore
+                List<SyncDocument> users = new ArrayList<>(changedUsers);
+                users.addAll(firebaseSyncService.resolveRemovals("users", removedUsers));
+                List<SyncDocument> reports = new ArrayList<>(changedReports);
+                reports.addAll(firebaseSyncService.resolveRemovals("reports", removedReports));
+                if (!users.isEmpty()) firebaseSyncService.applyUserDocuments(users);
+                if (!reports.isEmpty()) firebaseSyncService.applyReportDocuments(reports);
+                applied.addAndGet(size);
+                lastAppliedAt = LocalDateTime.now();
+                return;
+            } catch (RuntimeException | ExecutionException e) {
+                lastError = e.getMessage();
+                if (attempt >= maxAttempts) {
+                    dropped.addAndGet(size);
+                    System.err.println("⚠️ Lot du listener Firestore abandonné après " + attempt
+                            + " tentatives, reprise depuis le watermark: " + e.getMessage());
+                    restartFromWatermark();
+                    return;
+                }
+                Thread.sleep(500L * attempt);
+            }
+        }
+    }
+
+    /**
+     * Écarte les changements en file (reçus après le lot abandonné) et repose
+     * les listeners depuis le watermark : le lot abandonné est relivré par le
+     * premier snapshot, avant tout changement qui le suivait.
+     */
+    private synchronized void restartFromWatermark() {
+        if (!running) return;
+        registrations.values().forEach(DocumentStore.Registration::remove);
+        registrations.clear();
+        queue.clear();
+        restarts.incrementAndGet();
+        for (String collection : COLLECTIONS) {
+            try {
+                attach(collection);
+            } catch (RuntimeException e) {
+                lastError = collection + ": " + e.getMessage();
+                reattachLater(collection);
+            }
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("running", running);
+        status.put("standby", wanted && !running);
+        status.put("leader", leader);
+        status.put("node", syncLeaseService.getNodeId());
+        status.put("queued", queue != null ? queue.size() : 0);
+        status.put("received", received.get());
+        status.put("applied", applied.get());
+        status.put("coalesced", coalesced.get());
+        status.put("dropped", dropped.get());
+        status.put("restarts", restarts.get());
+        status.put("lastAppliedAt", lastAppliedAt);
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    private static class ChangeEvent {
+        final String collection;
+        final DocumentStore.ChangeType type;
+        final SyncDocument document;
+
+        ChangeEvent(String collection, DocumentStore.ChangeType type, SyncDocument document) {
+            this.collection = collection;
+            this.type = type;
+            this.document = document;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.itu.cloud.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.rpc.ApiException;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreException;
+import com.itu.cloud.config.FirebaseConfig;
+import io.grpc.StatusRuntimeException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Appels Firestore avec délai par appel, réessais et coupe-circuit.
+ *
+ * Un appel en échec sur un code gRPC transitoire (ou au-delà de
+ * sync.firestore.deadline-ms) est réessayé avec un délai exponentiel à gigue
+ * complète. Un client fermé est remplacé puis l'appel rejoué. Après
+ * sync.firestore.breaker.failure-threshold échecs transitoires consécutifs, le
+ * circuit s'ouvre : les appels échouent immédiatement pendant
+ * sync.firestore.breaker.open-ms, puis un seul appel sonde le service.
+ */
+@Service
+public class FirestoreResilience {
+
+    /** Codes gRPC pour lesquels rejouer l'appel a un sens. */
+    private static final Set<String> RETRYABLE_CODES =
+            Set.of("UNAVAILABLE", "DEADLINE_EXCEEDED", "RESOURCE_EXHAUSTED", "ABORTED", "INTERNAL");
+
+    public static final String CIRCUIT_CLOSED = "closed";
+    public static final String CIRCUIT_OPEN = "open";
+    public static final String CIRCUIT_HALF_OPEN = "half-open";
+
+    @Value("${sync.firestore.deadline-ms:30000}")
+    private long deadlineMs;
+
+    @Value("${sync.firestore.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${sync.firestore.retry-base-ms:200}")
+    private long retryBaseMs;
+
+    @Value("${sync.firestore.retry-max-ms:10000}")
+    private long retryMaxMs;
+
+    @Value("${sync.firestore.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${sync.firestore.breaker.open-ms:30000}")
+    private long openMs;
+
+    private final FirebaseConfig firebaseConfig;
+    private final SyncMetrics metrics;
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+
+    private String circuit = CIRCUIT_CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private long openUntil;
+    private long closedOpenMs;
+    private boolean probing;
+    private String lastError;
+    private LocalDateTime lastFailureAt;
+
+    public FirestoreResilience(FirebaseConfig firebaseConfig, SyncMetrics metrics) {
+        this.firebaseConfig = firebaseConfig;
+        this.metrics = metrics;
+        metrics.gauge("sync.firestore.circuit.open", "1 si le circuit Firestore est ouvert ou demi-ouvert",
+                this, r -> CIRCUIT_CLOSED.equals(r.getCircuit()) ? 0 : 1);
+    }
+
+    /**
+     * Appel asynchrone Firestore, rejouable : reçoit le client courant à chaque tentative.
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        ApiFuture<T> call(Firestore firestore);
+    }
+
+    /**
+     * Levée sans appel réseau tant que le circuit est ouvert.
+     */
+    public static class CircuitOpenException extends IllegalStateException {
+        public CircuitOpenException(long retryInMs) {
+            super("Firestore indisponible (circuit ouvert), nouvel essai dans " + Math.max(0, retryInMs / 1000) + "s");
+        }
+    }
+
+    /**
+     * Exécute {@code call} et attend son résultat au plus sync.firestore.deadline-ms
+     * par tentative.
+     *
+     * @throws CircuitOpenException si le circuit est ouvert
+     * @throws ExecutionException échec non transitoire, ou tentatives épuisées
+     */
+    public <T> T call(String operation, Call<T> call) throws ExecutionException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            acquire();
+            Firestore firestore = firebaseConfig.getFirestore();
+            Throwable failure;
+            try {
+                ApiFuture<T> future = call.call(firestore);
+                try {
+                    T result = future.get(deadlineMs, TimeUnit.MILLISECONDS);
+                    recordSuccess();
+                    return result;
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    throw e;
+                }
+            } catch (TimeoutException e) {
+                failure = new TimeoutException(operation + ": pas de réponse après " + deadlineMs + " ms");
+            } catch (ExecutionException e) {
+                failure = e.getCause() != null ? e.getCause() : e;
+            } catch (RuntimeException e) {
+                if (!isClientClosed(e)) {
+                    release();
+                    throw e;
+                }
+                failure = e;
+            } catch (InterruptedException e) {
+                release();
+                throw e;
+            }
+
+            if (isClientClosed(failure)) {
+                // Client fermé : pas une panne du service, on en crée un autre
+                release();
+                firebaseConfig.replaceFirestore(firestore);
+            } else if (isRetryable(failure)) {
+                recordFailure(failure);
+            } else {
+                release();
+                throw failure instanceof ExecutionException
+                        ? (ExecutionException) failure : new ExecutionException(failure);
+            }
+            if (attempt >= maxAttempts) {
+                throw new ExecutionException(operation + ": échec après " + attempt + " tentative(s)", failure);
+            }
+            retries.incrementAndGet();
+            metrics.recordRetry();
+            Thread.sleep(backoffMs(attempt));
+        }
+    }
+
+    /**
+     * Pour les opérations non rejouables ici (écritures groupées, écoute) :
+     * échoue immédiatement si le circuit est ouvert.
+     */
+    public synchronized void checkAvailable() {
+        long now = System.currentTimeMillis();
+        if (CIRCUIT_OPEN.equals(circuit) && now < openUntil) throw rejected(openUntil - now);
+    }
+
+    /**
+     * Issue d'une opération non passée par {@link #call} (écriture, écoute) :
+     * seuls les échecs transitoires comptent pour le coupe-circuit.
+     */
+    public void record(Throwable failure) {
+        if (failure == null) {
+            recordSuccess();
+        } else if (isClientClosed(failure)) {
+            firebaseConfig.reinitialize();
+        } else if (isRetryable(failure)) {
+            recordFailure(failure);
+        }
+    }
+
+    /**
+     * Autorise une tentative ; en demi-ouverture, une seule à la fois.
+     */
+    private synchronized void acquire() {
+        long now = System.currentTimeMillis();
+        if (CIRCUIT_OPEN.equals(circuit)) {
+            if (now < openUntil) throw rejected(openUntil - now);
+            circuit = CIRCUIT_HALF_OPEN;
+        }
+        if (CIRCUIT_HALF_OPEN.equals(circuit)) {
+            if (probing) throw rejected(0);
+            probing = true;
+        }
+    }
+
+    private CircuitOpenException rejected(long retryInMs) {
+        metrics.recordCircuitRejection(retryInMs);
+        return new CircuitOpenException(retryInMs);
+    }
+
+    /** Rend la sonde sans conclure (appel sans verdict sur la santé du service). */
+    private synchronized void release() {
+        probing = false;
+    }
+
+    private synchronized void recordSuccess() {
+        probing = false;
+        consecutiveFailures = 0;
+        if (!CIRCUIT_CLOSED.equals(circuit)) {
+            closedOpenMs += System.currentTimeMillis() - openedAt;
+            circuit = CIRCUIT_CLOSED;
+            System.out.println("✅ Firestore de nouveau joignable, circuit refermé");
+        }
+    }
+
+    private synchronized void recordFailure(Throwable failure) {
+        probing = false;
+        consecutiveFailures++;
+        lastError = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+        lastFailureAt = LocalDateTime.now();
+        long now = System.currentTimeMillis();
+        if (CIRCUIT_HALF_OPEN.equals(circuit)) {
+            // Sonde en échec : on rouvre sans remettre le compteur de temps à zéro
+            circuit = CIRCUIT_OPEN;
+            openUntil = now + openMs;
+        } else if (CIRCUIT_CLOSED.equals(circuit) && consecutiveFailures >= failureThreshold) {
+            circuit = CIRCUIT_OPEN;
+            openedAt = now;
+            openUntil = now + openMs;
+            opened.incrementAndGet();
+            System.out.println("🔌 Circuit Firestore ouvert après " + consecutiveFailures + " échecs: " + lastError);
+        }
+    }
+
+    /**
+     * Délai exponentiel plafonné, à gigue complète.
+     */
+    private long backoffMs(int attempt) {
+        long capped = Math.min(retryMaxMs, retryBaseMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(capped + 1);
+    }
+
+    static boolean isClientClosed(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof IllegalStateException && t.getMessage() != null
+                    && t.getMessage().contains("closed")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isRetryable(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException) return true;
+            if (t instanceof ApiException) {
+                return RETRYABLE_CODES.contains(((ApiException) t).getStatusCode().getCode().name());
+            }
+            if (t instanceof FirestoreException && ((FirestoreException) t).getStatus() != null) {
+                return RETRYABLE_CODES.contains(((FirestoreException) t).getStatus().getCode().name());
+            }
+            if (t instanceof StatusRuntimeException) {
+                return RETRYABLE_CODES.contains(((StatusRuntimeException) t).getStatus().getCode().name());
+            }
+        }
+        return false;
+    }
+
+    /** Réessais effectués depuis le démarrage. */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /** Temps cumulé passé circuit ouvert (ou demi-ouvert) depuis le démarrage. */
+    public synchronized long getCircuitOpenMs() {
+        return closedOpenMs + (CIRCUIT_CLOSED.equals(circuit) ? 0 : System.currentTimeMillis() - openedAt);
+    }
+
+    public synchronized String getCircuit() {
+        return circuit;
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("circuit", circuit);
+        status.put("consecutiveFailures", consecutiveFailures);
+        status.put("retries", retries.get());
+        status.put("opened", opened.get());
+        status.put("openMs", getCircuitOpenMs());
+        status.put("lastError", lastError);
+        status.put("lastFailureAt", lastFailureAt);
+        return status;
+    }
+}
@@ -2,6 +2,8 @@ package com.itu.cloud.service;
 
 import com.itu.cloud.entity.HistoReport;
 import com.itu.cloud.repository.HistoReportRepository;
+import com.itu.cloud.repository.ProcessingStats;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.stereotype.Service;
@@ -12,9 +14,12 @@ import org.springframework.transaction.annotation.Transactional;
 public class HistoReportService {
 
     private final HistoReportRepository histoReportRepository;
+    private final ProcessingStatsService processingStatsService;
 
-    public HistoReportService(HistoReportRepository histoReportRepository) {
+    public HistoReportService(HistoReportRepository histoReportRepository,
+                              ProcessingStatsService processingStatsService) {
         this.histoReportRepository = histoReportRepository;
+        this.processingStatsService = processingStatsService;
     }
 
     @Transactional(readOnly = true)
@@ -37,8 +42,24 @@ public class HistoReportService {
         return histoReportRepository.findByStatus(status);
     }
 
+    /**
+     * Délai de traitement moyen, voir {@link HistoReportRepository#computeProcessingStats}.
+     */
+    @Transactional(readOnly = true)
+    public ProcessingStats computeProcessingStats(LocalDateTime from, LocalDateTime to, Long entrepriseId, Integer niveau) {
+        return histoReportRepository.computeProcessingStats(from, to, entrepriseId, niveau);
+    }
+
+    /**
+     * Enregistre une transition ; les statistiques de traitement la prennent en
+     * compte à la validation.
+     */
     public HistoReport save(HistoReport histoReport) {
-        return histoReportRepository.save(histoReport);
+        HistoReport saved = histoReportRepository.save(histoReport);
+        if (saved.getReport() != null) {
+            processingStatsService.recordTransition(saved.getReport().getId(), saved.getStatus(), saved.getDateChangement());
+        }
+        return saved;
     }
 
     public void deleteById(Long id) {
@@ -0,0 +1,471 @@
+package com.itu.cloud.service;
+
+import com.google.cloud.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link DocumentStore} en mémoire, activé par sync.target=memory.
+ *
+ * Simule le comportement utile à la synchro : tri par id ou par (updatedAt, id),
+ * horodatage serveur, écritures groupées et listeners. Chaque requête et chaque
+ * lot de {@value #WRITE_BATCH_SIZE} écritures coûte {@code latencyMs} ; chaque
+ * écriture échoue avec la probabilité {@code failureRate}.
+ */
+@Service
+@ConditionalOnProperty(name = "sync.target", havingValue = "memory")
+public class InMemoryDocumentStore implements DocumentStore {
+
+    /** Écritures envoyées par aller-retour simulé (comme un lot du BulkWriter). */
+    private static final int WRITE_BATCH_SIZE = 20;
+
+    private final Map<String, ConcurrentSkipListMap<String, Map<String, Object>>> collections = new ConcurrentHashMap<>();
+    private final Map<String, List<Subscription>> listeners = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong injectedFailures = new AtomicLong();
+
+    private volatile long latencyMs;
+    private volatile double failureRate;
+    private final Random random;
+    private final SyncMetrics metrics;
+
+    public InMemoryDocumentStore(@Value("${sync.target.memory.latency-ms:0}") long latencyMs,
+                                 @Value("${sync.target.memory.failure-rate:0}") double failureRate,
+                                 @Value("${sync.target.memory.seed:42}") long seed,
+                                 SyncMetrics metrics) {
+        this.metrics = metrics;
+        this.latencyMs = latencyMs;
+        this.failureRate = failureRate;
+        this.random = new Random(seed);
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /** Allers-retours simulés depuis le dernier {@link #clear()}. */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    public long getInjectedFailures() {
+        return injectedFailures.get();
+    }
+
+    /**
+     * Insère un document tel quel (jeu de données de test) ; updatedAt est
+     * horodaté s'il est absent.
+     */
+    public void put(String collection, String id, Map<String, Object> data) {
+        Map<String, Object> fields = new HashMap<>(data);
+        fields.putIfAbsent("updatedAt", nextTimestamp());
+        collection(collection).put(id, fields);
+    }
+
+    public Optional<Map<String, Object>> get(String collection, String id) {
+        return Optional.ofNullable(collection(collection).get(id)).map(HashMap::new);
+    }
+
+    public void clear() {
+        collections.clear();
+        requests.set(0);
+        writes.set(0);
+        injectedFailures.set(0);
+    }
+
+    @Override
+    public List<SyncDocument> list(String collection, IdRange range, String afterId, int limit)
+            throws InterruptedException {
+        roundTrip();
+        NavigableMap<String, Map<String, Object>> view = collection(collection);
+        if (afterId != null) view = view.tailMap(afterId, false);
+        else if (range.getStartAt() != null) view = view.tailMap(range.getStartAt(), true);
+        if (range.getEndBefore() != null) view = view.headMap(range.getEndBefore(), false);
+        // size() d'une vue de ConcurrentSkipListMap parcourt toute la vue
+        List<SyncDocument> result = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> e : view.entrySet()) {
+            if (result.size() >= limit) break;
+            result.add(new SyncDocument(e.getKey(), new HashMap<>(e.getValue())));
+        }
+        metrics.recordReads(collection, result.size());
+        return result;
+    }
+
+    /**
+     * Coupures aux quantiles des ids, comme les partition queries Firestore.
+     */
+    @Override
+    public List<IdRange> partition(String collection, int partitions) throws InterruptedException {
+        roundTrip();
+        List<String> ids = new ArrayList<>(collection(collection).keySet());
+        List<String> boundaries = new ArrayList<>();
+        for (int i = 1; i < partitions && i * (long) ids.size() / partitions < ids.size(); i++) {
+            int index = (int) (i * (long) ids.size() / partitions);
+            if (index > 0) boundaries.add(ids.get(index));
+        }
+        metrics.recordReads(collection, boundaries.size());
+        return IdRange.between(boundaries);
+    }
+
+    @Override
+    public List<SyncDocument> listChangedSince(String collection, Instant updatedAt, String afterId, int limit)
+            throws InterruptedException {
+        roundTrip();
+        List<SyncDocument> changed = changedSince(collection, updatedAt, afterId);
+        List<SyncDocument> page = changed.size() > limit ? new ArrayList<>(changed.subList(0, limit)) : changed;
+        metrics.recordReads(collection, page.size());
+        return page;
+    }
+
+    @Override
+    public List<SyncDocument> listUnstampedSince(String collection, String updatedAt, String afterId, int limit)
+            throws InterruptedException {
+        roundTrip();
+        List<SyncDocument> result = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> e : collection(collection).entrySet()) {
+            Object value = e.getValue().get("updatedAt");
+            if (!(value instanceof String)) continue;
+            if (updatedAt != null) {
+                int cmp = ((String) value).compareTo(updatedAt);
+                if (cmp < 0 || (cmp == 0 && (afterId == null || e.getKey().compareTo(afterId) <= 0))) continue;
+            }
+            result.add(new SyncDocument(e.getKey(), new HashMap<>(e.getValue())));
+        }
+        result.sort(Comparator.<SyncDocument, String>comparing(d -> (String) d.get("updatedAt"))
+                .thenComparing(SyncDocument::getId));
+        List<SyncDocument> page = result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+        metrics.recordReads(collection, page.size());
+        return page;
+    }
+
+    @Override
+    public long count(String collection) throws InterruptedException {
+        roundTrip();
+        long count = collection(collection).size();
+        metrics.recordReads(collection, (count + 999) / 1000);
+        return count;
+    }
+
+    private List<SyncDocument> changedSince(String collection, Instant updatedAt, String afterId) {
+        Timestamp from = updatedAt != null
+                ? Timestamp.ofTimeSecondsAndNanos(updatedAt.getEpochSecond(), updatedAt.getNano())
+                : null;
+        List<SyncDocument> result = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> e : collection(collection).entrySet()) {
+            Object value = e.getValue().get("updatedAt");
+            if (!(value instanceof Timestamp)) continue;
+            if (from != null) {
+                int cmp = ((Timestamp) value).compareTo(from);
+                if (cmp < 0 || (cmp == 0 && (afterId == null || e.getKey().compareTo(afterId) <= 0))) continue;
+            }
+            result.add(new SyncDocument(e.getKey(), new HashMap<>(e.getValue())));
+        }
+        result.sort(Comparator.<SyncDocument, Timestamp>comparing(d -> (Timestamp) d.get("updatedAt"))
+                .thenComparing(SyncDocument::getId));
+        return result;
+    }
+
+    @Override
+    public Map<String, String> findIdsByField(String collection, String field, Collection<String> values)
+            throws InterruptedException {
+        roundTrip();
+        Set<String> wanted = new HashSet<>(values);
+        Map<String, String> result = new HashMap<>();
+        for (Map.Entry<String, Map<String, Object>> e : collection(collection).entrySet()) {
+            Object value = e.getValue().get(field);
+            if (value instanceof String && wanted.contains(value)) result.putIfAbsent((String) value, e.getKey());
+        }
+        metrics.recordReads(collection, result.size());
+        return result;
+    }
+
+    @Override
+    public Optional<String> findFirstId(String collection, Map<String, Object> equalities) throws InterruptedException {
+        roundTrip();
+        for (Map.Entry<String, Map<String, Object>> e : collection(collection).entrySet()) {
+            boolean match = true;
+            for (Map.Entry<String, Object> eq : equalities.entrySet()) {
+                if (!Objects.equals(e.getValue().get(eq.getKey()), eq.getValue())) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                metrics.recordReads(collection, 1);
+                return Optional.of(e.getKey());
+            }
+        }
+        metrics.recordReads(collection, 0);
+        return Optional.empty();
+    }
+
+    @Override
+    public Map<String, SyncDocument> getAll(String collection, Collection<String> ids) throws InterruptedException {
+        roundTrip();
+        Map<String, SyncDocument> found = new HashMap<>();
+        for (String id : ids) {
+            Map<String, Object> data = collection(collection).get(id);
+            if (data != null) found.put(id, new SyncDocument(id, new HashMap<>(data)));
+        }
+        // Comme Firestore, un document absent est facturé
+        metrics.recordReads(collection, ids.size());
+        return found;
+    }
+
+    @Override
+    public List<String> listDeletedBefore(String collection, Instant before, int limit) throws InterruptedException {
+        roundTrip();
+        Timestamp cutoff = Timestamp.ofTimeSecondsAndNanos(before.getEpochSecond(), before.getNano());
+        List<Map.Entry<String, Map<String, Object>>> deleted = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> e : collection(collection).entrySet()) {
+            Object value = e.getValue().get("deletedAt");
+            if (value instanceof Timestamp && ((Timestamp) value).compareTo(cutoff) < 0) deleted.add(e);
+        }
+        deleted.sort(Comparator.comparing(e -> (Timestamp) e.getValue().get("deletedAt")));
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < deleted.size() && i < limit; i++) ids.add(deleted.get(i).getKey());
+        metrics.recordReads(collection, ids.size());
+        return ids;
+    }
+
+    @Override
+    public String newDocumentId(String collection) {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+    }
+
+    @Override
+    public Writer openWriter() {
+        return new Writer() {
+            private final List<PendingWrite> pending = new ArrayList<>();
+
+            @Override
+            public synchronized CompletableFuture<Void> upsert(String collection, String documentId,
+                                                               Map<String, Object> data, boolean created) {
+                PendingWrite write = new PendingWrite(collection, documentId, new HashMap<>(data), created);
+                pending.add(write);
+                metrics.recordWrite(collection, write.operation());
+                return write.future;
+            }
+
+            @Override
+            public synchronized CompletableFuture<Void> addToArray(String collection, String documentId,
+                                                                   String field, List<?> values) {
+                PendingWrite write = new PendingWrite(collection, documentId, new HashMap<>(), false);
+                write.arrayField = field;
+                write.arrayValues = values;
+                pending.add(write);
+                metrics.recordWrite(collection, write.operation());
+                return write.future;
+            }
+
+            @Override
+            public synchronized CompletableFuture<Void> removeFromArray(String collection, String documentId,
+                                                                        String field, List<?> values) {
+                PendingWrite write = new PendingWrite(collection, documentId, new HashMap<>(), false);
+                write.arrayField = field;
+                write.arrayValues = values;
+                write.arrayRemove = true;
+                pending.add(write);
+                metrics.recordWrite(collection, write.operation());
+                return write.future;
+            }
+
+            @Override
+            public synchronized CompletableFuture<Void> markDeleted(String collection, String documentId) {
+                Map<String, Object> fields = new HashMap<>();
+                fields.put("deleted", true);
+                PendingWrite write = new PendingWrite(collection, documentId, fields, false);
+                write.markDeleted = true;
+                pending.add(write);
+                metrics.recordWrite(collection, write.operation());
+                return write.future;
+            }
+
+            @Override
+            public synchronized CompletableFuture<Void> delete(String collection, String documentId) {
+                PendingWrite write = new PendingWrite(collection, documentId, new HashMap<>(), false);
+                write.delete = true;
+                pending.add(write);
+                metrics.recordWrite(collection, write.operation());
+                return write.future;
+            }
+
+            @Override
+            public synchronized void flush() throws InterruptedException {
+                for (int i = 0; i < pending.size(); i++) {
+                    if (i % WRITE_BATCH_SIZE == 0) roundTrip();
+                    apply(pending.get(i));
+                }
+                pending.clear();
+            }
+
+            @Override
+            public void close() {
+                try {
+                    flush();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private void apply(PendingWrite write) {
+        if (failureRate > 0 && nextDouble() < failureRate) {
+            injectedFailures.incrementAndGet();
+            write.future.completeExceptionally(new IllegalStateException(
+                    "Échec injecté pour " + write.collection + "/" + write.documentId));
+            return;
+        }
+        if (write.delete) {
+            Map<String, Object> removed = collection(write.collection).remove(write.documentId);
+            writes.incrementAndGet();
+            write.future.complete(null);
+            if (removed != null) notifyListeners(write.collection, ChangeType.REMOVED, write.documentId, removed);
+            return;
+        }
+        Timestamp now = nextTimestamp();
+        Map<String, Object> fields = write.data;
+        fields.put("updatedAt", now);
+        if (write.created) fields.put("createdAt", now);
+        if (write.markDeleted) fields.put("deletedAt", now);
+        boolean[] added = {false};
+        collection(write.collection).compute(write.documentId, (id, existing) -> {
+            Map<String, Object> merged = existing != null ? new HashMap<>(existing) : new HashMap<>();
+            added[0] = existing == null;
+            merged.putAll(fields);
+            if (write.arrayField != null) {
+                Object current = merged.get(write.arrayField);
+                List<Object> array = current instanceof List ? new ArrayList<>((List<?>) current) : new ArrayList<>();
+                if (write.arrayRemove) {
+                    array.removeAll(write.arrayValues);
+                } else {
+                    for (Object value : write.arrayValues) {
+                        if (!array.contains(value)) array.add(value);
+                    }
+                }
+                merged.put(write.arrayField, array);
+            }
+            return merged;
+        });
+        writes.incrementAndGet();
+        write.future.complete(null);
+        notifyListeners(write.collection, added[0] ? ChangeType.ADDED : ChangeType.MODIFIED, write.documentId,
+                collection(write.collection).get(write.documentId));
+    }
+
+    @Override
+    public Registration listen(String collection, Instant updatedAt, String afterId, ChangeListener listener) {
+        Subscription subscription = new Subscription(listener);
+        listeners.computeIfAbsent(collection, c -> new CopyOnWriteArrayList<>()).add(subscription);
+        List<Change> initial = new ArrayList<>();
+        for (SyncDocument doc : changedSince(collection, updatedAt, afterId)) {
+            initial.add(new Change(ChangeType.ADDED, doc));
+        }
+        if (!initial.isEmpty()) listener.onChanges(initial);
+        return () -> listeners.getOrDefault(collection, List.of()).remove(subscription);
+    }
+
+    private void notifyListeners(String collection, ChangeType type, String documentId, Map<String, Object> data) {
+        List<Subscription> subscriptions = listeners.get(collection);
+        if (subscriptions == null || subscriptions.isEmpty()) return;
+        Change change = new Change(type, new SyncDocument(documentId, new HashMap<>(data)));
+        for (Subscription subscription : subscriptions) {
+            metrics.recordReads(collection, 1);
+            subscription.listener.onChanges(List.of(change));
+        }
+    }
+
+    @Override
+    public void reconnect() {
+        // Rien à recréer
+    }
+
+    private ConcurrentSkipListMap<String, Map<String, Object>> collection(String name) {
+        return collections.computeIfAbsent(name, c -> new ConcurrentSkipListMap<>());
+    }
+
+    /** Horodatage serveur strictement croissant (à la microseconde). */
+    private Timestamp nextTimestamp() {
+        long nowMicros = System.currentTimeMillis() * 1000;
+        long micros = clock.updateAndGet(last -> Math.max(last + 1, nowMicros));
+        return Timestamp.ofTimeMicroseconds(micros);
+    }
+
+    private synchronized double nextDouble() {
+        return random.nextDouble();
+    }
+
+    private void roundTrip() throws InterruptedException {
+        requests.incrementAndGet();
+        if (latencyMs > 0) Thread.sleep(latencyMs);
+    }
+
+    private static class PendingWrite {
+        final String collection;
+        final String documentId;
+        final Map<String, Object> data;
+        final boolean created;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        /** Ajout à un tableau (arrayUnion), ou retrait (arrayRemove), au lieu d'un merge simple. */
+        String arrayField;
+        List<?> arrayValues;
+        boolean arrayRemove;
+        /** Marqueur de suppression : deletedAt reçoit l'horodatage serveur. */
+        boolean markDeleted;
+        /** Suppression définitive du document. */
+        boolean delete;
+
+        PendingWrite(String collection, String documentId, Map<String, Object> data, boolean created) {
+            this.collection = collection;
+            this.documentId = documentId;
+            this.data = data;
+            this.created = created;
+        }
+
+        String operation() {
+            if (delete) return "delete";
+            if (markDeleted) return "markDeleted";
+            if (arrayField != null) return arrayRemove ? "removeFromArray" : "addToArray";
+            return "upsert";
+        }
+    }
+
+    private static class Subscription {
+        final ChangeListener listener;
+
+        Subscription(ChangeListener listener) {
+            this.listener = listener;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.itu.cloud.service;
+
+import com.itu.cloud.entity.ChangeLogEntry;
+import com.itu.cloud.entity.OutboxEvent;
+import com.itu.cloud.repository.OutboxEventRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Relais PostgreSQL -> Firestore : consomme le journal des modifications
+ * (reports et photos, y compris les écritures SQL directes) et pousse l'état
+ * courant des agrégats concernés. Ce qui n'a pas pu être poussé passe dans
+ * l'outbox (sync_outbox), réessayée avec un délai exponentiel.
+ *
+ * Un seul nœud du backend relaie à la fois (bail "outbox-relay").
+ *
+ * Le push complet ({@link FirebaseSyncService#pushReportsToFirebase()}) ne
+ * sert plus que de rattrapage.
+ */
+@Service
+public class OutboxRelayService {
+
+    /** Position du relais dans le journal des modifications. */
+    static final String CONSUMER = "firestore-relay";
+
+    private static final String LEASE = "outbox-relay";
+
+    private static final List<String> ENTITIES = List.of(ChangeLogEntry.REPORT, ChangeLogEntry.PHOTO);
+
+    @Value("${sync.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sync.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${sync.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${sync.outbox.retry-base-ms:1000}")
+    private long retryBaseMs;
+
+    @Value("${sync.outbox.retry-max-ms:300000}")
+    private long retryMaxMs;
+
+    /** Délai pendant lequel un lot réclamé n'est pas repris par un autre passage. */
+    @Value("${sync.outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ChangeLogService changeLogService;
+    private final FirebaseSyncService firebaseSyncService;
+    private final SyncLeaseService syncLeaseService;
+    private final TransactionTemplate transactionTemplate;
+
+    public OutboxRelayService(OutboxEventRepository outboxEventRepository,
+                              ChangeLogService changeLogService,
+                              FirebaseSyncService firebaseSyncService,
+                              SyncLeaseService syncLeaseService,
+                              PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.changeLogService = changeLogService;
+        this.firebaseSyncService = firebaseSyncService;
+        this.syncLeaseService = syncLeaseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${sync.outbox.poll-interval-ms:2000}",
+            initialDelayString = "${sync.outbox.poll-interval-ms:2000}")
+    public void poll() {
+        if (!enabled) return;
+        try {
+            // Bail tenu par un autre nœud : c'est lui qui relaie
+            if (syncLeaseService.tryAcquire(LEASE, List.of(LEASE), null, null).isPresent()) return;
+            // Lot plein : du retard, on enchaîne sans attendre
+            while (relayChanges() >= batchSize) {
+                if (Thread.currentThread().isInterrupted()) return;
+            }
+            while (retryBatch() >= batchSize) {
+                if (Thread.currentThread().isInterrupted()) return;
+            }
+        } catch (Exception e) {
+            System.out.println("⚠️ Relais outbox: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Pousse un lot de changements du journal puis avance la position du relais,
+     * dans la transaction qui met les échecs en outbox. Si le push échoue en
+     * bloc, la position ne bouge pas et le lot est relu au prochain passage.
+     *
+     * @return nombre de changements lus
+     */
+    public int relayChanges() throws Exception {
+        List<ChangeLogEntry> changes = changeLogService.poll(CONSUMER, ENTITIES, batchSize);
+        if (changes.isEmpty()) return 0;
+
+        // Plusieurs changements d'un même agrégat ne donnent qu'une écriture ; une
+        // suppression (tombstone) pose le marqueur "deleted" sur le document
+        Set<Long> reportIds = new LinkedHashSet<>();
+        Set<Long> photoIds = new LinkedHashSet<>();
+        for (ChangeLogEntry change : changes) {
+            (ChangeLogEntry.PHOTO.equals(change.getEntity()) ? photoIds : reportIds).add(change.getEntityId());
+        }
+
+        SyncStats stats = new SyncStats();
+        // Les reports d'abord : une photo a besoin du firebaseId de son report
+        Set<Long> failedReports = firebaseSyncService.pushReportsById(reportIds, stats);
+        Set<Long> failedPhotos = firebaseSyncService.pushPhotosById(photoIds, stats);
+        // Sans échec d'écriture, un report rendu a été différé (auteur sans firebaseUid)
+        String error = stats.getFailed() > 0 ? stats.describeFailures()
+                : failedReports.isEmpty() ? null : FirebaseSyncService.DEFERRED_REASON;
+
+        long lastSeq = changes.get(changes.size() - 1).getSeq();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<OutboxEvent> retries = new ArrayList<>();
+            LocalDateTime retryAt = LocalDateTime.now().plusNanos(backoffMs(1) * 1_000_000);
+            for (Long id : failedReports) retries.add(OutboxEvent.failed(OutboxEvent.REPORT, id, error, retryAt));
+            for (Long id : failedPhotos) retries.add(OutboxEvent.failed(OutboxEvent.PHOTO, id, error, retryAt));
+            outboxEventRepository.saveAll(retries);
+            changeLogService.ack(CONSUMER, lastSeq);
+        });
+
+        if (!failedReports.isEmpty() || !failedPhotos.isEmpty()) {
+            System.out.println("🔁 Relais: " + (failedReports.size() + failedPhotos.size()) + " propagation(s) mise(s) en outbox");
+        }
+        return changes.size();
+    }
+
+    /**
+     * Réessaie un lot d'événements dus de l'outbox.
+     *
+     * @return nombre d'événements réclamés
+     */
+    public int retryBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> {
+            List<OutboxEvent> due = outboxEventRepository.lockDue(now, batchSize);
+            for (OutboxEvent event : due) {
+                event.setAttempts(event.getAttempts() + 1);
+                event.setNextAttemptAt(now.plusNanos(leaseMs * 1_000_000));
+            }
+            return due;
+        });
+        if (claimed == null || claimed.isEmpty()) return 0;
+
+        Set<Long> reportIds = new LinkedHashSet<>();
+        Set<Long> photoIds = new LinkedHashSet<>();
+        for (OutboxEvent event : claimed) {
+            (OutboxEvent.PHOTO.equals(event.getAggregateType()) ? photoIds : reportIds).add(event.getAggregateId());
+        }
+
+        SyncStats stats = new SyncStats();
+        Set<Long> failedReports;
+        Set<Long> failedPhotos;
+        String error = null;
+        try {
+            failedReports = firebaseSyncService.pushReportsById(reportIds, stats);
+            failedPhotos = firebaseSyncService.pushPhotosById(photoIds, stats);
+            if (stats.getFailed() > 0) error = stats.describeFailures();
+            else if (!failedReports.isEmpty()) error = FirebaseSyncService.DEFERRED_REASON;
+        } catch (Exception e) {
+            // Tout le lot est réessayé
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            failedReports = reportIds;
+            failedPhotos = photoIds;
+        }
+
+        List<Long> done = new ArrayList<>();
+        List<OutboxEvent> retried = new ArrayList<>();
+        for (OutboxEvent event : claimed) {
+            Set<Long> failed = OutboxEvent.PHOTO.equals(event.getAggregateType()) ? failedPhotos : failedReports;
+            if (failed.contains(event.getAggregateId())) retried.add(event);
+            else done.add(event.getId());
+        }
+        String lastError = error;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!done.isEmpty()) outboxEventRepository.deleteAllByIdInBatch(done);
+            for (OutboxEvent event : retried) {
+                event.setLastError(lastError);
+                if (event.getAttempts() >= maxAttempts) {
+                    event.setStatus(OutboxEvent.STATUS_DEAD);
+                } else {
+                    event.setNextAttemptAt(LocalDateTime.now().plusNanos(backoffMs(event.getAttempts()) * 1_000_000));
+                }
+            }
+            outboxEventRepository.saveAll(retried);
+        });
+
+        if (!retried.isEmpty()) {
+            System.out.println("🔁 Outbox: " + done.size() + " événement(s) propagé(s), " + retried.size() + " à réessayer");
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Délai exponentiel plafonné, avec gigue pour étaler les reprises.
+     */
+    private long backoffMs(int attempts) {
+        long capped = Math.min(retryMaxMs, retryBaseMs << Math.min(attempts - 1, 20));
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("position", changeLogService.position(CONSUMER));
+        status.put("pending", outboxEventRepository.countByStatus(OutboxEvent.STATUS_PENDING));
+        status.put("dead", outboxEventRepository.countByStatus(OutboxEvent.STATUS_DEAD));
+        return status;
+    }
+}
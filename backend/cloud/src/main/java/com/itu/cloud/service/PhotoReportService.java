@@ -13,9 +13,11 @@ import org.springframework.transaction.annotation.Transactional;
 public class PhotoReportService {
 
     private final PhotoReportRepository photoReportRepository;
+    private final TombstoneService tombstoneService;
 
-    public PhotoReportService(PhotoReportRepository photoReportRepository) {
+    public PhotoReportService(PhotoReportRepository photoReportRepository, TombstoneService tombstoneService) {
         this.photoReportRepository = photoReportRepository;
+        this.tombstoneService = tombstoneService;
     }
 
     @Transactional(readOnly = true)
@@ -43,6 +45,6 @@ public class PhotoReportService {
     }
 
     public void deleteById(Long id) {
-        photoReportRepository.deleteById(id);
+        tombstoneService.deletePhotos(List.of(id));
     }
 }
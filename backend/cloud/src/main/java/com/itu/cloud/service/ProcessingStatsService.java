@@ -0,0 +1,394 @@
+package com.itu.cloud.service;
+
+import com.itu.cloud.entity.ProcessingStatsSnapshot;
+import com.itu.cloud.repository.HistoReportRepository;
+import com.itu.cloud.repository.ProcessingStatsSnapshotRepository;
+import com.itu.cloud.repository.ProcessingTimes;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Statistiques de délai de traitement (premier "en_cours" → dernier "termine")
+ * tenues à jour à chaque transition enregistrée, pour que /api/reports/stats
+ * réponde sans relire histo_reports.
+ *
+ * Par report, seules les deux dates extrêmes sont gardées : appliquer deux
+ * fois une transition ne change rien. Le total, la somme et un histogramme
+ * HdrHistogram des délais (en secondes) donnent moyenne et quantiles.
+ *
+ * Au démarrage, le dernier état enregistré (processing_stats_snapshot) sert
+ * de réponse le temps de tout reconstruire depuis l'historique ; les
+ * transitions arrivées entre-temps sont rejouées sur l'état reconstruit. La
+ * reconstruction est refaite toutes les reports.stats.rebuild-interval-ms pour
+ * intégrer les transitions écrites par les autres nœuds.
+ *
+ * Chaque nœud ne voit en direct que ses propres transitions : avec plusieurs
+ * instances, celles des autres nœuds n'apparaissent qu'à la reconstruction
+ * suivante, soit jusqu'à reports.stats.rebuild-interval-ms de retard. Le
+ * snapshot enregistré ne sert pas à rattraper ce retard, chaque nœud y écrivant
+ * sa propre vue.
+ */
+@Service
+public class ProcessingStatsService {
+
+    private static final String SNAPSHOT = "processing-time";
+
+    /** Chiffres significatifs de l'histogramme (erreur relative de 0,1 %). */
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final HistoReportRepository histoReportRepository;
+    private final ProcessingStatsSnapshotRepository snapshotRepository;
+
+    /** Null tant que la première reconstruction n'a pas abouti. */
+    private State state;
+    /** Transitions à rejouer sur l'état en cours de reconstruction (null hors reconstruction). */
+    private List<Event> pending = new ArrayList<>();
+    /** Dernier état enregistré, servi tant que {@link #state} est null. */
+    private Stats loaded;
+    private Stats view;
+    private boolean dirty;
+
+    public ProcessingStatsService(HistoReportRepository histoReportRepository,
+                                  ProcessingStatsSnapshotRepository snapshotRepository) {
+        this.histoReportRepository = histoReportRepository;
+        this.snapshotRepository = snapshotRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            snapshotRepository.findById(SNAPSHOT).ifPresent(snapshot -> {
+                Histogram histogram = decode(snapshot.getHistogram());
+                synchronized (this) {
+                    if (state == null) {
+                        loaded = new Stats(snapshot.getProcessedCount(), snapshot.getSumSeconds(), histogram,
+                                snapshot.getUpdatedAt(), "snapshot");
+                    }
+                }
+            });
+        } catch (Exception e) {
+            System.out.println("⚠️ Statistiques de traitement: snapshot illisible (" + e.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Relit l'historique et remplace l'état courant, au démarrage puis périodiquement.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${reports.stats.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        synchronized (this) {
+            if (pending == null) pending = new ArrayList<>();
+        }
+        try {
+            long startedAt = System.nanoTime();
+            State rebuilt = new State();
+            for (ProcessingTimes times : histoReportRepository.findProcessingTimes()) {
+                rebuilt.load(times.getReportId(), times.getEnCoursAt(), times.getTermineAt());
+            }
+            synchronized (this) {
+                for (Event event : pending) event.applyTo(rebuilt);
+                state = rebuilt;
+                pending = null;
+                loaded = null;
+                view = null;
+                dirty = true;
+            }
+            System.out.println("📊 Statistiques de traitement reconstruites: " + rebuilt.count + " report(s) en "
+                    + (System.nanoTime() - startedAt) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            // Les transitions restent en attente jusqu'à la prochaine reconstruction
+            System.out.println("⚠️ Reconstruction des statistiques de traitement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Enregistre l'état courant s'il a changé depuis le dernier enregistrement.
+     */
+    @Scheduled(fixedDelayString = "${reports.stats.snapshot-interval-ms:60000}",
+            initialDelayString = "${reports.stats.snapshot-interval-ms:60000}")
+    public void saveSnapshot() {
+        Stats stats;
+        synchronized (this) {
+            if (state == null || !dirty) return;
+            stats = currentView();
+            dirty = false;
+        }
+        try {
+            ProcessingStatsSnapshot snapshot = new ProcessingStatsSnapshot(SNAPSHOT);
+            snapshot.setProcessedCount(stats.count);
+            snapshot.setSumSeconds(stats.sumSeconds);
+            snapshot.setHistogram(encode(stats.histogram));
+            snapshot.setUpdatedAt(stats.updatedAt);
+            snapshotRepository.save(snapshot);
+        } catch (Exception e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            System.out.println("⚠️ Enregistrement des statistiques de traitement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Transition d'un report, prise en compte à la validation de la transaction courante.
+     */
+    public void recordTransition(Long reportId, String status, LocalDateTime at) {
+        if (reportId == null || at == null) return;
+        if (!"en_cours".equals(status) && !"termine".equals(status)) return;
+        afterCommit(new Transition(reportId, status, at));
+    }
+
+    /**
+     * Reports supprimés : leurs délais sortent des statistiques.
+     */
+    public void forgetReports(Collection<Long> reportIds) {
+        if (reportIds.isEmpty()) return;
+        afterCommit(new Removal(new ArrayList<>(reportIds)));
+    }
+
+    private void afterCommit(Event event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(event);
+                }
+            });
+        } else {
+            apply(event);
+        }
+    }
+
+    private synchronized void apply(Event event) {
+        if (state != null) {
+            event.applyTo(state);
+            view = null;
+            dirty = true;
+        }
+        if (pending != null) pending.add(event);
+    }
+
+    /**
+     * Statistiques courantes, sans accès à la base ; null avant la première
+     * reconstruction s'il n'y a pas d'état enregistré.
+     */
+    public synchronized Map<String, Object> getStats() {
+        Stats stats = state != null ? currentView() : loaded;
+        return stats != null ? stats.toMap() : null;
+    }
+
+    /** Vue figée de l'état, recalculée après chaque changement seulement. */
+    private Stats currentView() {
+        if (view == null) {
+            view = new Stats(state.count, state.sumSeconds, state.net(), LocalDateTime.now(), "incremental");
+        }
+        return view;
+    }
+
+    private static byte[] encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        byte[] bytes = new byte[length];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Histogram decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) return new Histogram(SIGNIFICANT_DIGITS);
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("histogramme corrompu", e);
+        }
+    }
+
+    /**
+     * Délais par report et agrégats correspondants.
+     */
+    private static final class State {
+        final Map<Long, Times> reports = new HashMap<>();
+        final Histogram histogram = new Histogram(SIGNIFICANT_DIGITS);
+        /** Délais sortis de l'histogramme, déduits au prochain calcul de la vue. */
+        final Histogram removed = new Histogram(SIGNIFICANT_DIGITS);
+        long count;
+        double sumSeconds;
+
+        void load(Long reportId, LocalDateTime enCoursAt, LocalDateTime termineAt) {
+            Times times = new Times(enCoursAt, termineAt);
+            reports.put(reportId, times);
+            add(times);
+        }
+
+        void transition(Long reportId, String status, LocalDateTime at) {
+            Times times = reports.computeIfAbsent(reportId, id -> new Times(null, null));
+            Double before = times.seconds();
+            if ("en_cours".equals(status)) {
+                if (times.enCoursAt != null && !at.isBefore(times.enCoursAt)) return;
+                times.enCoursAt = at;
+            } else {
+                if (times.termineAt != null && !at.isAfter(times.termineAt)) return;
+                times.termineAt = at;
+            }
+            replace(before, times.seconds());
+        }
+
+        void remove(Collection<Long> reportIds) {
+            for (Long reportId : reportIds) {
+                Times times = reports.remove(reportId);
+                if (times != null && times.seconds() != null) {
+                    count--;
+                    sumSeconds -= times.seconds();
+                    removed.recordValue(bucket(times.seconds()));
+                }
+            }
+        }
+
+        private void add(Times times) {
+            Double seconds = times.seconds();
+            if (seconds == null) return;
+            count++;
+            sumSeconds += seconds;
+            histogram.recordValue(bucket(seconds));
+        }
+
+        /**
+         * Un délai déjà compté qui change (report repris ou re-terminé) passe dans
+         * {@link #removed}, l'histogramme ne sachant pas retirer une valeur.
+         */
+        private void replace(Double before, Double after) {
+            if (before == null) {
+                if (after == null) return;
+                count++;
+                sumSeconds += after;
+                histogram.recordValue(bucket(after));
+                return;
+            }
+            count--;
+            sumSeconds -= before;
+            removed.recordValue(bucket(before));
+            if (after != null) {
+                count++;
+                sumSeconds += after;
+                histogram.recordValue(bucket(after));
+            }
+        }
+
+        /**
+         * Histogramme net des délais retirés. Chaque délai retiré y a été compté
+         * dans le même intervalle, la soustraction ne rend donc aucun compte négatif.
+         * Coût proportionnel au nombre d'intervalles, pas au nombre de reports.
+         */
+        Histogram net() {
+            if (removed.getTotalCount() > 0) {
+                histogram.subtract(removed);
+                removed.reset();
+            }
+            return histogram.copy();
+        }
+
+        private static long bucket(double seconds) {
+            return Math.max(1, Math.round(seconds));
+        }
+    }
+
+    private static final class Times {
+        LocalDateTime enCoursAt;
+        LocalDateTime termineAt;
+
+        Times(LocalDateTime enCoursAt, LocalDateTime termineAt) {
+            this.enCoursAt = enCoursAt;
+            this.termineAt = termineAt;
+        }
+
+        /** Délai en secondes, null si le report n'est pas terminé après sa prise en charge. */
+        Double seconds() {
+            if (enCoursAt == null || termineAt == null || !termineAt.isAfter(enCoursAt)) return null;
+            Duration d = Duration.between(enCoursAt, termineAt);
+            return d.getSeconds() + d.getNano() / 1_000_000_000.0;
+        }
+    }
+
+    private interface Event {
+        void applyTo(State state);
+    }
+
+    private static final class Transition implements Event {
+        final Long reportId;
+        final String status;
+        final LocalDateTime at;
+
+        Transition(Long reportId, String status, LocalDateTime at) {
+            this.reportId = reportId;
+            this.status = status;
+            this.at = at;
+        }
+
+        @Override
+        public void applyTo(State state) {
+            state.transition(reportId, status, at);
+        }
+    }
+
+    private static final class Removal implements Event {
+        final List<Long> reportIds;
+
+        Removal(List<Long> reportIds) {
+            this.reportIds = reportIds;
+        }
+
+        @Override
+        public void applyTo(State state) {
+            state.remove(reportIds);
+        }
+    }
+
+    /**
+     * Réponse figée : moyenne exacte, quantiles à 0,1 % près.
+     */
+    private static final class Stats {
+        final long count;
+        final double sumSeconds;
+        final Histogram histogram;
+        final LocalDateTime updatedAt;
+        final String source;
+
+        Stats(Long count, Double sumSeconds, Histogram histogram, LocalDateTime updatedAt, String source) {
+            this.count = count != null ? count : 0;
+            this.sumSeconds = sumSeconds != null ? sumSeconds : 0.0;
+            this.histogram = histogram;
+            this.updatedAt = updatedAt;
+            this.source = source;
+        }
+
+        Map<String, Object> toMap() {
+            boolean any = count > 0 && histogram.getTotalCount() > 0;
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("average_processing_seconds", count > 0 ? sumSeconds / count : 0.0);
+            map.put("p50_processing_seconds", any ? histogram.getValueAtPercentile(50) : null);
+            map.put("p90_processing_seconds", any ? histogram.getValueAtPercentile(90) : null);
+            map.put("p99_processing_seconds", any ? histogram.getValueAtPercentile(99) : null);
+            map.put("min_processing_seconds", any ? histogram.getMinValue() : null);
+            map.put("max_processing_seconds", any ? histogram.getMaxValue() : null);
+            map.put("count_processed", count);
+            map.put("source", source);
+            map.put("updated_at", updatedAt);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.itu.cloud.service;
+
+import com.itu.cloud.entity.Report;
+import java.util.List;
+
+/**
+ * Page de la liste des reports ; nextCursor est null sur la dernière page.
+ */
+public class ReportPage {
+    private final List<Report> items;
+    private final String nextCursor;
+    private final int limit;
+
+    public ReportPage(List<Report> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    public List<Report> getItems() { return items; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    public int getLimit() { return limit; }
+}
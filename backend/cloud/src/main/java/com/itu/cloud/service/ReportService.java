@@ -1,9 +1,22 @@
 package com.itu.cloud.service;
 
 import com.itu.cloud.entity.Report;
+import com.itu.cloud.repository.ReportFilter;
 import com.itu.cloud.repository.ReportRepository;
+import com.itu.cloud.repository.ReportSpecifications;
+import com.itu.cloud.repository.ReportStatusCount;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -11,10 +24,23 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class ReportService {
 
+    private static final Sort PAGE_ORDER = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    @Value("${reports.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${reports.page.max-size:200}")
+    private int maxPageSize;
+
     private final ReportRepository reportRepository;
+    private final TombstoneService tombstoneService;
+    private final ReportSpatialIndex reportSpatialIndex;
 
-    public ReportService(ReportRepository reportRepository) {
+    public ReportService(ReportRepository reportRepository, TombstoneService tombstoneService,
+                         ReportSpatialIndex reportSpatialIndex) {
         this.reportRepository = reportRepository;
+        this.tombstoneService = tombstoneService;
+        this.reportSpatialIndex = reportSpatialIndex;
     }
 
     @Transactional(readOnly = true)
@@ -22,6 +48,64 @@ public class ReportService {
         return reportRepository.findAll();
     }
 
+    /**
+     * Page de reports, du plus récent au plus ancien (created_at puis id),
+     * par pagination par clé : la page suivante reprend après le dernier
+     * report rendu, sans OFFSET ni COUNT, et chaque requête reste bornée.
+     *
+     * @param cursor curseur opaque rendu par la page précédente (null pour la première)
+     * @param limit  taille demandée, ramenée à reports.page.max-size
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    @Transactional(readOnly = true)
+    public ReportPage findPage(ReportFilter filter, String cursor, Integer limit) {
+        int size = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        Specification<Report> spec = ReportSpecifications.matching(filter)
+                .and(ReportSpecifications.fetchEntreprise());
+        if (cursor != null && !cursor.isBlank()) {
+            spec = spec.and(afterCursor(cursor));
+        }
+        // Un report de plus que demandé indique s'il reste une page
+        List<Report> reports = reportRepository.findBy(spec, q -> q.sortBy(PAGE_ORDER).limit(size + 1).all());
+        if (reports.size() <= size) return new ReportPage(reports, null, size);
+        List<Report> items = new ArrayList<>(reports.subList(0, size));
+        Report last = items.get(size - 1);
+        return new ReportPage(items, encodeCursor(last.getCreatedAt(), last.getId()), size);
+    }
+
+    private static String encodeCursor(LocalDateTime createdAt, Long id) {
+        String key = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reports qui suivent celui désigné par le curseur.
+     */
+    private static Specification<Report> afterCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int sep = key.indexOf('|');
+            if (sep < 0) throw new IllegalArgumentException("Curseur invalide: " + cursor);
+            return ReportSpecifications.before(LocalDateTime.parse(key.substring(0, sep)),
+                    Long.parseLong(key.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Curseur invalide: " + cursor);
+        }
+    }
+
+    /**
+     * Nombre de reports par statut, calculé en base (GROUP BY) ; tous les
+     * auteurs si {@code userId} est null.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> countByStatus(Long userId) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (ReportStatusCount row : reportRepository.countByStatus(userId)) {
+            counts.put(row.getStatus(), row.getCount());
+        }
+        return counts;
+    }
+
     @Transactional(readOnly = true)
     public Optional<Report> findById(Long id) {
         return reportRepository.findById(id);
@@ -43,10 +127,15 @@ public class ReportService {
     }
 
     public Report save(Report report) {
-        return reportRepository.save(report);
+        Report saved = reportRepository.save(report);
+        reportSpatialIndex.indexReport(saved);
+        return saved;
     }
 
+    /**
+     * Supprime logiquement le report et ses photos.
+     */
     public void deleteById(Long id) {
-        reportRepository.deleteById(id);
+        tombstoneService.deleteReports(List.of(id), null);
     }
 }
@@ -0,0 +1,607 @@
+package com.itu.cloud.service;
+
+import com.itu.cloud.entity.Report;
+import com.itu.cloud.repository.ReportCellAggregate;
+import com.itu.cloud.repository.ReportLocation;
+import com.itu.cloud.repository.ReportRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Index spatial en mémoire des reports pour la carte (/api/reports/bbox) :
+ * une grille régulière de reports.spatial.cell-degrees de côté, dont seules
+ * les cellules qui recouvrent la zone demandée sont parcourues.
+ *
+ * Les reports enregistrés ou supprimés sont répercutés à la validation de la
+ * transaction. La grille est reconstruite au démarrage, puis toutes les
+ * reports.spatial.rebuild-interval-ms pour intégrer les écritures des autres
+ * nœuds ; avant la première reconstruction, la zone est lue en SQL.
+ *
+ * Pour le regroupement des marqueurs (/api/reports/clusters), la grille tient
+ * aussi, pour chaque zoom jusqu'à reports.clusters.max-zoom, des agrégats par
+ * cellule : une tuile de 256 pixels y compte 256 / reports.clusters.cell-pixels
+ * cellules de côté, et chaque cellule se divise en quatre au zoom suivant.
+ * Chaque report ajouté, déplacé ou retiré met à jour une cellule par zoom.
+ */
+@Service
+public class ReportSpatialIndex {
+
+    /** Zoom le plus proche accepté (au-delà du dernier niveau d'agrégats, reports un à un). */
+    public static final int MAX_ZOOM = 22;
+
+    @Value("${reports.spatial.cell-degrees:0.005}")
+    private double cellDegrees;
+
+    @Value("${reports.bbox.max-results:2000}")
+    private int maxResults;
+
+    /** Au-delà, les reports sont rendus un à un. */
+    @Value("${reports.clusters.max-zoom:18}")
+    private int maxClusterZoom;
+
+    @Value("${reports.clusters.cell-pixels:64}")
+    private int clusterCellPixels;
+
+    /** Cellules qu'une zone peut recouvrir au zoom demandé (un écran en compte quelques centaines). */
+    @Value("${reports.clusters.max-cells:10000}")
+    private long maxClusterCells;
+
+    private final ReportRepository reportRepository;
+
+    /** Lectures concurrentes de la carte, écritures exclusives. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /** Null tant que la première reconstruction n'a pas abouti. */
+    private Grid grid;
+    /** Changements à rejouer sur la grille en cours de reconstruction (null hors reconstruction). */
+    private List<Event> pending = new ArrayList<>();
+
+    public ReportSpatialIndex(ReportRepository reportRepository) {
+        this.reportRepository = reportRepository;
+    }
+
+    /**
+     * Report affiché sur la carte.
+     */
+    public static final class Point {
+        private final long id;
+        private final double latitude;
+        private final double longitude;
+        private final String status;
+        private final BigDecimal budget;
+
+        Point(long id, double latitude, double longitude, String status, BigDecimal budget) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.status = status;
+            this.budget = budget;
+        }
+
+        static Point of(ReportLocation location) {
+            return new Point(location.getId(), location.getLatitude().doubleValue(),
+                    location.getLongitude().doubleValue(), location.getStatus(), location.getBudget());
+        }
+
+        public long getId() { return id; }
+
+        public double getLatitude() { return latitude; }
+
+        public double getLongitude() { return longitude; }
+
+        public String getStatus() { return status; }
+
+        public BigDecimal getBudget() { return budget; }
+    }
+
+    /**
+     * Reports d'une zone ; truncated si la zone en contient plus que
+     * reports.bbox.max-results.
+     */
+    public static final class Box {
+        private final List<Point> points;
+        private final boolean truncated;
+        private final String source;
+
+        Box(List<Point> points, boolean truncated, String source) {
+            this.points = points;
+            this.truncated = truncated;
+            this.source = source;
+        }
+
+        public List<Point> getPoints() { return points; }
+
+        public boolean isTruncated() { return truncated; }
+
+        public String getSource() { return source; }
+    }
+
+    /**
+     * Reports d'une cellule : nombre, barycentre, répartition par statut et
+     * budget cumulé ; reportId n'est renseigné que pour un report seul.
+     */
+    public static final class Cluster {
+        private final double latitude;
+        private final double longitude;
+        private final int count;
+        private final Map<String, Integer> statuses;
+        private final BigDecimal budget;
+        private final Long reportId;
+
+        Cluster(double latitude, double longitude, int count, Map<String, Integer> statuses, BigDecimal budget,
+                Long reportId) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.count = count;
+            this.statuses = statuses;
+            this.budget = budget;
+            this.reportId = reportId;
+        }
+
+        static Cluster of(Point point) {
+            Map<String, Integer> statuses = new LinkedHashMap<>();
+            statuses.put(statusKey(point.status), 1);
+            return new Cluster(point.latitude, point.longitude, 1, statuses,
+                    point.budget != null ? point.budget : BigDecimal.ZERO, point.id);
+        }
+
+        public double getLatitude() { return latitude; }
+
+        public double getLongitude() { return longitude; }
+
+        public int getCount() { return count; }
+
+        public Map<String, Integer> getStatuses() { return statuses; }
+
+        public BigDecimal getBudget() { return budget; }
+
+        public Long getReportId() { return reportId; }
+    }
+
+    /**
+     * Cellules d'une zone à un zoom ; truncated si elles dépassent
+     * reports.bbox.max-results.
+     */
+    public static final class Clusters {
+        private final List<Cluster> clusters;
+        private final boolean truncated;
+        private final String source;
+
+        Clusters(List<Cluster> clusters, boolean truncated, String source) {
+            this.clusters = clusters;
+            this.truncated = truncated;
+            this.source = source;
+        }
+
+        public List<Cluster> getClusters() { return clusters; }
+
+        public boolean isTruncated() { return truncated; }
+
+        public String getSource() { return source; }
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${reports.spatial.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pending == null) pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            long startedAt = System.nanoTime();
+            Grid rebuilt = new Grid(cellDegrees, clusterDegrees());
+            for (ReportLocation location : reportRepository.findAllLocations()) {
+                if (location.getLatitude() != null && location.getLongitude() != null) {
+                    rebuilt.put(Point.of(location));
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                for (Event event : pending) event.applyTo(rebuilt);
+                grid = rebuilt;
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.out.println("🗺️ Index spatial des reports reconstruit: " + rebuilt.byId.size() + " report(s) en "
+                    + (System.nanoTime() - startedAt) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            System.out.println("⚠️ Reconstruction de l'index spatial: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Report créé, déplacé ou modifié, indexé à la validation de la transaction courante.
+     * Sans coordonnées, il quitte la carte.
+     */
+    public void indexReport(Report report) {
+        if (report == null || report.getId() == null) return;
+        if (report.getLatitude() == null || report.getLongitude() == null) {
+            afterCommit(new Removal(List.of(report.getId())));
+            return;
+        }
+        afterCommit(new Upsert(new Point(report.getId(), report.getLatitude().doubleValue(),
+                report.getLongitude().doubleValue(), report.getStatus(), report.getBudget())));
+    }
+
+    public void indexReports(Collection<Report> reports) {
+        for (Report report : reports) indexReport(report);
+    }
+
+    /**
+     * Reports supprimés : ils quittent la carte.
+     */
+    public void removeReports(Collection<Long> reportIds) {
+        if (reportIds.isEmpty()) return;
+        afterCommit(new Removal(new ArrayList<>(reportIds)));
+    }
+
+    private void afterCommit(Event event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(event);
+                }
+            });
+        } else {
+            apply(event);
+        }
+    }
+
+    private void apply(Event event) {
+        lock.writeLock().lock();
+        try {
+            if (grid != null) event.applyTo(grid);
+            if (pending != null) pending.add(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vérifie qu'une zone est exprimée en degrés valides et bien orientée.
+     *
+     * @throws IllegalArgumentException sinon
+     */
+    public static void checkBox(double minLat, double minLng, double maxLat, double maxLng) {
+        if (!(minLat >= -90 && maxLat <= 90 && minLng >= -180 && maxLng <= 180)) {
+            throw new IllegalArgumentException("Zone invalide: latitudes dans [-90, 90] et longitudes dans [-180, 180] attendues");
+        }
+        if (minLat > maxLat || minLng > maxLng) {
+            throw new IllegalArgumentException("Zone invalide: minLat <= maxLat et minLng <= maxLng attendus");
+        }
+    }
+
+    /**
+     * Reports dont la position est dans la zone (bornes incluses).
+     *
+     * @throws IllegalArgumentException si la zone est invalide ({@link #checkBox})
+     */
+    public Box findInBox(double minLat, double minLng, double maxLat, double maxLng) {
+        checkBox(minLat, minLng, maxLat, maxLng);
+        lock.readLock().lock();
+        try {
+            if (grid != null) {
+                List<Point> points = new ArrayList<>();
+                boolean complete = grid.collect(minLat, minLng, maxLat, maxLng, points, maxResults);
+                return new Box(points, !complete, "index");
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<ReportLocation> locations = reportRepository.findLocationsInBox(BigDecimal.valueOf(minLat),
+                BigDecimal.valueOf(minLng), BigDecimal.valueOf(maxLat), BigDecimal.valueOf(maxLng),
+                PageRequest.ofSize(maxResults + 1));
+        List<Point> points = new ArrayList<>(Math.min(locations.size(), maxResults));
+        for (ReportLocation location : locations) {
+            if (points.size() == maxResults) break;
+            points.add(Point.of(location));
+        }
+        return new Box(points, locations.size() > maxResults, "sql");
+    }
+
+    /**
+     * Reports de la zone regroupés par cellule au zoom demandé ; au-delà de
+     * reports.clusters.max-zoom, chaque report forme sa propre cellule. Le
+     * nombre de cellules dépend de la taille de la zone à l'écran, pas du
+     * nombre de reports.
+     *
+     * @throws IllegalArgumentException si la zone est invalide, si le zoom
+     *         sort de [0, {@link #MAX_ZOOM}] ou si la zone recouvre plus de
+     *         reports.clusters.max-cells cellules à ce zoom
+     */
+    public Clusters findClusters(double minLat, double minLng, double maxLat, double maxLng, int zoom) {
+        checkBox(minLat, minLng, maxLat, maxLng);
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("Zoom invalide: entre 0 et " + MAX_ZOOM + " attendu");
+        }
+        if (zoom > maxClusterZoom) {
+            Box box = findInBox(minLat, minLng, maxLat, maxLng);
+            List<Cluster> clusters = new ArrayList<>(box.points.size());
+            for (Point point : box.points) clusters.add(Cluster.of(point));
+            return new Clusters(clusters, box.truncated, box.source);
+        }
+        int level = zoom;
+        double cell = clusterDegrees()[level];
+        long covered = (long) (Math.floor(maxLat / cell) - Math.floor(minLat / cell) + 1)
+                * (long) (Math.floor(maxLng / cell) - Math.floor(minLng / cell) + 1);
+        if (covered > maxClusterCells) {
+            throw new IllegalArgumentException("Zone trop vaste pour le zoom " + zoom + ": " + covered
+                    + " cellules (au plus " + maxClusterCells + ")");
+        }
+        lock.readLock().lock();
+        try {
+            if (grid != null) {
+                List<Cluster> clusters = new ArrayList<>();
+                boolean complete = grid.collectClusters(level, minLat, minLng, maxLat, maxLng, clusters, maxResults);
+                return new Clusters(clusters, !complete, "index");
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return aggregateInSql(level, minLat, minLng, maxLat, maxLng);
+    }
+
+    /**
+     * Repli avant la première reconstruction : mêmes cellules, agrégées par
+     * PostgreSQL sur la zone étendue aux limites des cellules.
+     */
+    private Clusters aggregateInSql(int level, double minLat, double minLng, double maxLat, double maxLng) {
+        double cell = clusterDegrees()[level];
+        List<ReportCellAggregate> rows = reportRepository.aggregateCellsInBox(cell,
+                BigDecimal.valueOf(Math.floor(minLat / cell) * cell), BigDecimal.valueOf(Math.floor(minLng / cell) * cell),
+                BigDecimal.valueOf((Math.floor(maxLat / cell) + 1) * cell), BigDecimal.valueOf((Math.floor(maxLng / cell) + 1) * cell));
+        Map<Long, Aggregate> cells = new LinkedHashMap<>();
+        for (ReportCellAggregate row : rows) {
+            long key = key(row.getCellRow().intValue(), row.getCellCol().intValue());
+            cells.computeIfAbsent(key, k -> new Aggregate()).merge(row);
+        }
+        List<Cluster> clusters = new ArrayList<>(Math.min(cells.size(), maxResults));
+        for (Aggregate aggregate : cells.values()) {
+            if (clusters.size() == maxResults) break;
+            clusters.add(aggregate.toCluster(null));
+        }
+        return new Clusters(clusters, cells.size() > maxResults, "sql");
+    }
+
+    /** Côté des cellules de regroupement, en degrés, pour chaque zoom. */
+    private double[] clusterDegrees() {
+        double perTile = 256.0 / Math.max(1, clusterCellPixels);
+        double[] degrees = new double[Math.max(0, maxClusterZoom) + 1];
+        for (int zoom = 0; zoom < degrees.length; zoom++) {
+            degrees[zoom] = 360.0 / (perTile * (1L << zoom));
+        }
+        return degrees;
+    }
+
+    private static String statusKey(String status) {
+        return status != null ? status : "inconnu";
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    /**
+     * Reports rangés par cellule, et agrégats par cellule pour chaque zoom ;
+     * une cellule est repérée par ses indices de ligne et de colonne réunis
+     * dans un long.
+     */
+    private static final class Grid {
+        final double cellDegrees;
+        final Map<Long, Point> byId = new HashMap<>();
+        final Map<Long, List<Point>> cells = new HashMap<>();
+        /** Côté des cellules et agrégats non vides, indexés par zoom. */
+        final double[] levelDegrees;
+        final List<Map<Long, Aggregate>> levels;
+
+        Grid(double cellDegrees, double[] levelDegrees) {
+            this.cellDegrees = cellDegrees;
+            this.levelDegrees = levelDegrees;
+            this.levels = new ArrayList<>(levelDegrees.length);
+            for (int zoom = 0; zoom < levelDegrees.length; zoom++) levels.add(new HashMap<>());
+        }
+
+        void put(Point point) {
+            remove(point.id);
+            byId.put(point.id, point);
+            cells.computeIfAbsent(cellOf(point.latitude, point.longitude), k -> new ArrayList<>()).add(point);
+            for (int zoom = 0; zoom < levelDegrees.length; zoom++) {
+                levels.get(zoom).computeIfAbsent(levelKey(zoom, point), k -> new Aggregate()).add(point);
+            }
+        }
+
+        void remove(long id) {
+            Point previous = byId.remove(id);
+            if (previous == null) return;
+            long key = cellOf(previous.latitude, previous.longitude);
+            List<Point> cell = cells.get(key);
+            cell.removeIf(p -> p.id == id);
+            if (cell.isEmpty()) cells.remove(key);
+            for (int zoom = 0; zoom < levelDegrees.length; zoom++) {
+                long levelKey = levelKey(zoom, previous);
+                Aggregate aggregate = levels.get(zoom).get(levelKey);
+                aggregate.remove(previous);
+                if (aggregate.count == 0) levels.get(zoom).remove(levelKey);
+            }
+        }
+
+        /**
+         * Ajoute à {@code out} au plus {@code limit} agrégats des cellules du
+         * zoom qui recouvrent la zone ; false s'il en restait d'autres.
+         */
+        boolean collectClusters(int zoom, double minLat, double minLng, double maxLat, double maxLng,
+                                List<Cluster> out, int limit) {
+            double degrees = levelDegrees[zoom];
+            Map<Long, Aggregate> level = levels.get(zoom);
+            int row0 = (int) Math.floor(minLat / degrees), row1 = (int) Math.floor(maxLat / degrees);
+            int col0 = (int) Math.floor(minLng / degrees), col1 = (int) Math.floor(maxLng / degrees);
+            long covered = ((long) row1 - row0 + 1) * ((long) col1 - col0 + 1);
+            if (covered > level.size()) {
+                for (Map.Entry<Long, Aggregate> entry : level.entrySet()) {
+                    int row = (int) (entry.getKey() >> 32), col = (int) (long) entry.getKey();
+                    if (row < row0 || row > row1 || col < col0 || col > col1) continue;
+                    if (out.size() == limit) return false;
+                    out.add(entry.getValue().toCluster(byId));
+                }
+                return true;
+            }
+            for (int row = row0; row <= row1; row++) {
+                for (int col = col0; col <= col1; col++) {
+                    Aggregate aggregate = level.get(key(row, col));
+                    if (aggregate == null) continue;
+                    if (out.size() == limit) return false;
+                    out.add(aggregate.toCluster(byId));
+                }
+            }
+            return true;
+        }
+
+        private long levelKey(int zoom, Point point) {
+            double degrees = levelDegrees[zoom];
+            return key((int) Math.floor(point.latitude / degrees), (int) Math.floor(point.longitude / degrees));
+        }
+
+        /**
+         * Ajoute à {@code out} au plus {@code limit} points de la zone ; false
+         * s'il en restait d'autres.
+         */
+        boolean collect(double minLat, double minLng, double maxLat, double maxLng, List<Point> out, int limit) {
+            int row0 = index(minLat), row1 = index(maxLat);
+            int col0 = index(minLng), col1 = index(maxLng);
+            long covered = ((long) row1 - row0 + 1) * ((long) col1 - col0 + 1);
+            // Zone plus vaste que la grille occupée : parcourir les cellules non vides ;
+            // sinon la boucle ci-dessous visite au plus cells.size() cellules
+            if (covered > cells.size()) {
+                for (List<Point> cell : cells.values()) {
+                    if (!collectCell(cell, minLat, minLng, maxLat, maxLng, out, limit)) return false;
+                }
+                return true;
+            }
+            for (int row = row0; row <= row1; row++) {
+                for (int col = col0; col <= col1; col++) {
+                    List<Point> cell = cells.get(key(row, col));
+                    if (cell != null && !collectCell(cell, minLat, minLng, maxLat, maxLng, out, limit)) return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean collectCell(List<Point> cell, double minLat, double minLng, double maxLat, double maxLng,
+                                           List<Point> out, int limit) {
+            for (Point p : cell) {
+                if (p.latitude < minLat || p.latitude > maxLat || p.longitude < minLng || p.longitude > maxLng) continue;
+                if (out.size() == limit) return false;
+                out.add(p);
+            }
+            return true;
+        }
+
+        private long cellOf(double latitude, double longitude) {
+            return key(index(latitude), index(longitude));
+        }
+
+        private int index(double degrees) {
+            return (int) Math.floor(degrees / cellDegrees);
+        }
+    }
+
+    /**
+     * Agrégat d'une cellule. Le cumul des ids désigne le report quand il est
+     * seul, sans garder la liste des membres.
+     */
+    private static final class Aggregate {
+        int count;
+        double sumLatitude;
+        double sumLongitude;
+        long sumIds;
+        BigDecimal budget = BigDecimal.ZERO;
+        final Map<String, Integer> statuses = new HashMap<>();
+
+        void add(Point point) {
+            count++;
+            sumLatitude += point.latitude;
+            sumLongitude += point.longitude;
+            sumIds += point.id;
+            if (point.budget != null) budget = budget.add(point.budget);
+            statuses.merge(statusKey(point.status), 1, Integer::sum);
+        }
+
+        void remove(Point point) {
+            count--;
+            sumLatitude -= point.latitude;
+            sumLongitude -= point.longitude;
+            sumIds -= point.id;
+            if (point.budget != null) budget = budget.subtract(point.budget);
+            statuses.computeIfPresent(statusKey(point.status), (status, n) -> n > 1 ? n - 1 : null);
+        }
+
+        void merge(ReportCellAggregate row) {
+            int n = row.getCount().intValue();
+            count += n;
+            sumLatitude += row.getSumLatitude();
+            sumLongitude += row.getSumLongitude();
+            sumIds += row.getMinId();
+            if (row.getBudget() != null) budget = budget.add(row.getBudget());
+            statuses.merge(statusKey(row.getStatus()), n, Integer::sum);
+        }
+
+        /**
+         * Vue figée ; un report seul reprend sa position exacte quand il est
+         * connu de {@code byId} (les sommes de coordonnées dérivent au fil des retraits).
+         */
+        Cluster toCluster(Map<Long, Point> byId) {
+            if (count == 1) {
+                Point point = byId != null ? byId.get(sumIds) : null;
+                if (point != null) return Cluster.of(point);
+                return new Cluster(sumLatitude, sumLongitude, 1, new LinkedHashMap<>(statuses), budget, sumIds);
+            }
+            return new Cluster(sumLatitude / count, sumLongitude / count, count, new LinkedHashMap<>(statuses),
+                    budget, null);
+        }
+    }
+
+    private interface Event {
+        void applyTo(Grid grid);
+    }
+
+    private static final class Upsert implements Event {
+        final Point point;
+
+        Upsert(Point point) {
+            this.point = point;
+        }
+
+        @Override
+        public void applyTo(Grid grid) {
+            grid.put(point);
+        }
+    }
+
+    private static final class Removal implements Event {
+        final List<Long> reportIds;
+
+        Removal(List<Long> reportIds) {
+            this.reportIds = reportIds;
+        }
+
+        @Override
+        public void applyTo(Grid grid) {
+            for (Long id : reportIds) grid.remove(id);
+        }
+    }
+}
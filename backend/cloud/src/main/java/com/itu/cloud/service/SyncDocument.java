@@ -0,0 +1,56 @@
+package com.itu.cloud.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Document lu dans un {@link DocumentStore} : un id et ses champs.
+ */
+public class SyncDocument {
+
+    private final String id;
+    private final Map<String, Object> data;
+
+    public SyncDocument(String id, Map<String, Object> data) {
+        this.id = id;
+        this.data = data != null ? Collections.unmodifiableMap(data) : Collections.emptyMap();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    public Object get(String field) {
+        return data.get(field);
+    }
+
+    public boolean contains(String field) {
+        return data.containsKey(field);
+    }
+
+    /**
+     * Document portant le marqueur de suppression.
+     */
+    public boolean isDeleted() {
+        return Boolean.TRUE.equals(data.get("deleted"));
+    }
+
+    /**
+     * Copie portant le marqueur de suppression (document retiré du magasin).
+     */
+    public SyncDocument markedDeleted() {
+        Map<String, Object> marked = new HashMap<>(data);
+        marked.put("deleted", true);
+        return new SyncDocument(id, marked);
+    }
+
+    public String getString(String field) {
+        Object value = data.get(field);
+        return value instanceof String ? (String) value : null;
+    }
+}
@@ -0,0 +1,47 @@
+package com.itu.cloud.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Empreinte SHA-256 des champs synchronisés entre PostgreSQL et Firestore.
+ * Les valeurs sont mises sous forme canonique (décimaux sans zéros de fin,
+ * null distinct de la chaîne vide) pour qu'une même donnée donne la même
+ * empreinte des deux côtés, quel que soit son type de stockage.
+ */
+final class SyncHash {
+
+    private SyncHash() {
+    }
+
+    static String user(String email, String firstName, String lastName, String role) {
+        return hash(email, firstName, lastName, role);
+    }
+
+    static String report(String description, String status, BigDecimal latitude, BigDecimal longitude,
+                         BigDecimal surface, BigDecimal budget) {
+        return hash(description, status, decimal(latitude), decimal(longitude), decimal(surface), decimal(budget));
+    }
+
+    private static String decimal(BigDecimal value) {
+        return value != null ? value.stripTrailingZeros().toPlainString() : null;
+    }
+
+    private static String hash(String... values) {
+        StringBuilder canonical = new StringBuilder();
+        for (String value : values) {
+            // Préfixe de longueur : aucune ambiguïté entre champs, null ≠ ""
+            if (value == null) canonical.append("-1:");
+            else canonical.append(value.length()).append(':').append(value);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
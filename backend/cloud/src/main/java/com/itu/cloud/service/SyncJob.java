@@ -0,0 +1,186 @@
+package com.itu.cloud.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Job de synchronisation exécuté en arrière-plan par {@link SyncJobService}.
+ * L'état est conservé en mémoire ; le résultat final est aussi enregistré
+ * dans sync_log.
+ */
+public class SyncJob {
+
+    public static final String STATE_QUEUED = "queued";
+    public static final String STATE_RUNNING = "running";
+    public static final String STATE_FINISHED = "finished";
+
+    private final String id;
+    private final String syncType;
+    private final String mode;
+    private final Long requestedBy;
+    private final SyncStats stats = new SyncStats();
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile String state = STATE_QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String status;
+    private volatile String errorMessage;
+    private volatile Long syncLogId;
+    private final CompletableFuture<SyncJob> completion = new CompletableFuture<>();
+    /** Exécution planifiée sur le pool des jobs. */
+    private volatile Future<?> execution;
+
+    public SyncJob(String id, String syncType, String mode, Long requestedBy) {
+        this.id = id;
+        this.syncType = syncType;
+        this.mode = mode;
+        this.requestedBy = requestedBy;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSyncType() {
+        return syncType;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public Long getRequestedBy() {
+        return requestedBy;
+    }
+
+    public SyncStats getStats() {
+        return stats;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return STATE_FINISHED.equals(state);
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public Long getSyncLogId() {
+        return syncLogId;
+    }
+
+    /**
+     * @return false si le job a été arrêté avant de démarrer
+     */
+    synchronized boolean markRunning() {
+        if (!STATE_QUEUED.equals(state)) return false;
+        startedAt = LocalDateTime.now();
+        state = STATE_RUNNING;
+        return true;
+    }
+
+    void markFinished(String status, String errorMessage, Long syncLogId) {
+        this.status = status;
+        this.errorMessage = errorMessage;
+        this.syncLogId = syncLogId;
+        this.finishedAt = LocalDateTime.now();
+        this.state = STATE_FINISHED;
+        completion.complete(this);
+    }
+
+    void setExecution(Future<?> execution) {
+        this.execution = execution;
+    }
+
+    /**
+     * Arrête le job : encore en file, il est annulé sans avoir démarré ; en
+     * cours, la synchro s'arrête après son lot en cours (voir {@link SyncStats#abort}).
+     */
+    synchronized void abort(String reason) {
+        stats.abort(reason);
+        if (!STATE_QUEUED.equals(state)) return;
+        Future<?> planned = execution;
+        if (planned != null) planned.cancel(false);
+        markFinished("failed", reason, null);
+    }
+
+    /**
+     * Complétée (avec le job) quand le job se termine, en succès ou non.
+     */
+    public CompletableFuture<SyncJob> whenFinished() {
+        return completion;
+    }
+
+    /**
+     * Vue JSON du job et de sa progression.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("jobId", id);
+        map.put("syncType", syncType);
+        map.put("mode", mode);
+        map.put("state", state);
+        map.put("status", status);
+        map.put("phase", stats.getPhase());
+        map.put("phaseProcessed", stats.getPhaseProcessed());
+        map.put("phaseTotal", stats.getPhaseTotal() >= 0 ? stats.getPhaseTotal() : null);
+        map.put("documentsProcessed", stats.getProcessed());
+        map.put("throughputPerSecond", Math.round(stats.getThroughput() * 10) / 10.0);
+        map.put("etaSeconds", isFinished() ? Long.valueOf(0) : stats.getPhaseEtaSeconds());
+        map.put("recordsPulled", stats.getPulled());
+        map.put("recordsPushed", stats.getPushed());
+        map.put("recordsFailed", stats.getFailed());
+        map.put("recordsSkipped", stats.getSkipped());
+        map.put("recordsDeleted", stats.getDeleted());
+        map.put("photosInserted", stats.getPhotosInserted());
+        map.put("firestoreRetries", stats.getFirestoreRetries());
+        map.put("circuitOpenMs", stats.getCircuitOpenMs());
+        List<Map<String, Object>> phases = new ArrayList<>();
+        for (SyncStats.PhaseTiming timing : stats.getPhaseTimings()) {
+            Map<String, Object> phase = new LinkedHashMap<>();
+            phase.put("phase", timing.getPhase());
+            phase.put("durationMs", timing.getDurationMs());
+            phase.put("documents", timing.getDocuments());
+            phase.put("documentsPerSecond", Math.round(timing.getDocumentsPerSecond() * 10) / 10.0);
+            phase.put("firestoreReads", timing.getCounters().getFirestoreReads());
+            phase.put("firestoreWrites", timing.getCounters().getFirestoreWrites());
+            phase.put("sqlStatements", timing.getCounters().getSqlStatements());
+            phases.add(phase);
+        }
+        map.put("phasesCompleted", phases);
+        map.put("createdAt", createdAt);
+        map.put("startedAt", startedAt);
+        map.put("finishedAt", finishedAt);
+        map.put("syncLogId", syncLogId);
+        if (errorMessage != null) {
+            map.put("error", errorMessage);
+        }
+        return map;
+    }
+}
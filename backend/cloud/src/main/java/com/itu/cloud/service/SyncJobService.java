@@ -0,0 +1,213 @@
+package com.itu.cloud.service;
+
+import com.itu.cloud.entity.SyncLog;
+import com.itu.cloud.entity.User;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Exécute les synchronisations en arrière-plan, hors du thread HTTP.
+ *
+ * Les jobs tournent sur un pool dédié et borné : au-delà de la file d'attente,
+ * la demande est refusée. Une synchro "full" entre en conflit avec toute autre
+ * synchro active, "pull" et "push" uniquement avec une synchro du même type.
+ *
+ * Les conflits sont aussi vérifiés entre les nœuds du backend : chaque job
+ * détient le bail de son type ("sync-full", ...) via {@link SyncLeaseService}, de sa
+ * planification à sa fin. Un job qui perd son bail est arrêté (entre deux lots
+ * s'il tourne déjà) : un autre nœud peut alors lancer la même synchro.
+ */
+@Service
+public class SyncJobService {
+
+    /** Nombre de jobs terminés conservés pour consultation. */
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private final FirebaseSyncService firebaseSyncService;
+    private final SyncLeaseService syncLeaseService;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, SyncJob> jobs = new LinkedHashMap<>();
+
+    public SyncJobService(FirebaseSyncService firebaseSyncService,
+                          SyncLeaseService syncLeaseService,
+                          @Value("${sync.jobs.pool-size:2}") int poolSize,
+                          @Value("${sync.jobs.queue-capacity:4}") int queueCapacity) {
+        this.firebaseSyncService = firebaseSyncService;
+        this.syncLeaseService = syncLeaseService;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "sync-job-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Planifie une synchronisation et retourne immédiatement le job créé.
+     *
+     * @throws SyncJobConflictException si une synchro incompatible est déjà en cours,
+     *         sur ce nœud ou sur un autre
+     * @throws RejectedExecutionException si la file des jobs est pleine
+     */
+    public SyncJob submit(String syncType, String mode, User syncedBy) {
+        String normalizedMode = FirebaseSyncService.normalizeMode(mode);
+        SyncJob job;
+        synchronized (jobs) {
+            for (SyncJob active : jobs.values()) {
+                if (!active.isFinished() && conflicts(active.getSyncType(), syncType)) {
+                    throw new SyncJobConflictException(active);
+                }
+            }
+            job = new SyncJob(UUID.randomUUID().toString(), syncType, normalizedMode,
+                    syncedBy != null ? syncedBy.getId() : null);
+            String lease = leaseName(syncType);
+            syncLeaseService.tryAcquire(lease, conflictingLeases(syncType), job.getId(), () -> onLeaseLost(job, lease))
+                    .ifPresent(leader -> {
+                        throw new SyncJobConflictException(leader.getJobId(), syncType, leader.getHolder());
+                    });
+            try {
+                job.setExecution(executor.submit(() -> run(job, syncedBy)));
+            } catch (RejectedExecutionException e) {
+                syncLeaseService.release(lease);
+                throw e;
+            }
+            jobs.put(job.getId(), job);
+            evictFinished();
+        }
+        System.out.println("🕒 Job de synchronisation " + syncType + " (" + normalizedMode + ") planifié: " + job.getId());
+        return job;
+    }
+
+    public Optional<SyncJob> findById(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    /**
+     * Jobs connus, du plus récent au plus ancien.
+     */
+    public List<SyncJob> findAll() {
+        List<SyncJob> list;
+        synchronized (jobs) {
+            list = new ArrayList<>(jobs.values());
+        }
+        list.sort(Comparator.comparing(SyncJob::getCreatedAt).reversed());
+        return list;
+    }
+
+    private void run(SyncJob job, User syncedBy) {
+        // Arrêté en file : son bail, perdu, a pu être repris par un nouveau job
+        if (!job.markRunning()) return;
+        try {
+            SyncLog log = firebaseSyncService.sync(job.getSyncType(), job.getMode(), syncedBy, job.getStats());
+            job.markFinished(log.getStatus(), log.getErrorMessage(), log.getId());
+            System.out.println("✅ Job de synchronisation " + job.getId() + " terminé: " + log.getStatus());
+        } catch (Exception e) {
+            job.markFinished("failed", e.getMessage(), null);
+            System.err.println("❌ Job de synchronisation " + job.getId() + " en échec: " + e.getMessage());
+        } finally {
+            syncLeaseService.release(leaseName(job.getSyncType()));
+        }
+    }
+
+    /**
+     * Bail non prolongé à temps : un autre nœud peut déjà exécuter la même
+     * synchro, ce job s'arrête donc au plus tôt.
+     */
+    private void onLeaseLost(SyncJob job, String lease) {
+        System.err.println("⚠️ Bail " + lease + " perdu : arrêt du job " + job.getId());
+        job.abort("Bail " + lease + " perdu : synchro arrêtée pour ne pas doubler celle d'un autre nœud");
+    }
+
+    private static String leaseName(String syncType) {
+        return "sync-" + syncType;
+    }
+
+    /** Baux incompatibles avec une synchro du type donné (mêmes règles que {@link #conflicts}). */
+    private static List<String> conflictingLeases(String syncType) {
+        if (FirebaseSyncService.TYPE_FULL.equals(syncType)) {
+            return List.of(leaseName(FirebaseSyncService.TYPE_FULL), leaseName(FirebaseSyncService.TYPE_PULL),
+                    leaseName(FirebaseSyncService.TYPE_PUSH));
+        }
+        return List.of(leaseName(FirebaseSyncService.TYPE_FULL), leaseName(syncType));
+    }
+
+    private static boolean conflicts(String activeType, String requestedType) {
+        return FirebaseSyncService.TYPE_FULL.equals(activeType)
+                || FirebaseSyncService.TYPE_FULL.equals(requestedType)
+                || activeType.equals(requestedType);
+    }
+
+    private void evictFinished() {
+        long finished = jobs.values().stream().filter(SyncJob::isFinished).count();
+        var it = jobs.values().iterator();
+        while (finished > MAX_FINISHED_JOBS && it.hasNext()) {
+            if (it.next().isFinished()) {
+                it.remove();
+                finished--;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Levée quand une synchronisation incompatible est déjà planifiée ou en cours.
+     * Si elle tourne sur un autre nœud, seuls l'id du job et le nœud sont connus.
+     */
+    public static class SyncJobConflictException extends RuntimeException {
+        private final SyncJob activeJob;
+        private final String activeJobId;
+        private final String leader;
+
+        public SyncJobConflictException(SyncJob activeJob) {
+            super("Une synchronisation " + activeJob.getSyncType() + " est déjà en cours (job " + activeJob.getId() + ")");
+            this.activeJob = activeJob;
+            this.activeJobId = activeJob.getId();
+            this.leader = null;
+        }
+
+        public SyncJobConflictException(String activeJobId, String requestedType, String leader) {
+            super("Une synchronisation incompatible avec " + requestedType + " est en cours sur le nœud " + leader
+                    + " (job " + activeJobId + ")");
+            this.activeJob = null;
+            this.activeJobId = activeJobId;
+            this.leader = leader;
+        }
+
+        /** Job local en conflit, null s'il tourne sur un autre nœud. */
+        public SyncJob getActiveJob() {
+            return activeJob;
+        }
+
+        public String getActiveJobId() {
+            return activeJobId;
+        }
+
+        /** Nœud titulaire du bail, null si le conflit est local. */
+        public String getLeader() {
+            return leader;
+        }
+    }
+}
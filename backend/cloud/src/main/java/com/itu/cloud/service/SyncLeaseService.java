@@ -0,0 +1,147 @@
+package com.itu.cloud.service;
+
+import com.itu.cloud.entity.SyncLease;
+import com.itu.cloud.repository.SyncLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Coordination entre les nœuds du backend par baux PostgreSQL (table sync_lease).
+ *
+ * Un bail est pris dans une transaction sérialisée par un verrou consultatif,
+ * après vérification qu'aucun bail incompatible n'est actif chez un autre nœud.
+ * Le titulaire le prolonge par heartbeat ; s'il meurt, le bail expire au bout de
+ * sync.lease.ttl-ms et un autre nœud peut le reprendre. Un bail qui n'a pas pu
+ * être prolongé à temps est considéré comme perdu : son callback est appelé.
+ */
+@Service
+public class SyncLeaseService {
+
+    @Value("${sync.lease.ttl-ms:30000}")
+    private long ttlMs;
+
+    private final SyncLeaseRepository syncLeaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+
+    /** Baux détenus par ce nœud, avec l'action à mener s'ils sont perdus. */
+    private final Map<String, Runnable> held = new ConcurrentHashMap<>();
+    private volatile long lastRenewedAt = System.currentTimeMillis();
+
+    public SyncLeaseService(SyncLeaseRepository syncLeaseRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${sync.node-id:}") String nodeId) {
+        this.syncLeaseRepository = syncLeaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = nodeId != null && !nodeId.isBlank() ? nodeId : defaultNodeId();
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        // Suffixe par processus : un nœud redémarré ne reprend pas les baux de l'instance morte
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Prend (ou prolonge) le bail {@code name} si aucun des baux {@code conflicting}
+     * n'est actif chez un autre nœud.
+     *
+     * @param onLost appelé si le bail est perdu (heartbeat impossible), peut être null
+     * @return le bail bloquant, vide si le bail a été acquis
+     */
+    public Optional<SyncLease> tryAcquire(String name, Collection<String> conflicting, String jobId, Runnable onLost) {
+        Set<String> names = new HashSet<>(conflicting);
+        names.add(name);
+        Optional<SyncLease> blocking = transactionTemplate.execute(status -> {
+            syncLeaseRepository.lockLeases();
+            List<SyncLease> active = syncLeaseRepository.findActiveHeldByOthers(names, nodeId);
+            if (!active.isEmpty()) return Optional.of(active.get(0));
+            syncLeaseRepository.upsert(name, nodeId, jobId, ttlMs);
+            return Optional.<SyncLease>empty();
+        });
+        if (blocking.isEmpty()) {
+            held.put(name, onLost != null ? onLost : () -> { });
+        }
+        return blocking;
+    }
+
+    public boolean isHeld(String name) {
+        return held.containsKey(name);
+    }
+
+    public void release(String name) {
+        if (held.remove(name) == null) return;
+        try {
+            transactionTemplate.executeWithoutResult(status -> syncLeaseRepository.release(name, nodeId));
+        } catch (Exception e) {
+            // Le bail expirera de lui-même
+            System.out.println("⚠️ Libération du bail " + name + " impossible: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Baux actifs de tous les nœuds.
+     */
+    public List<SyncLease> findActive() {
+        return syncLeaseRepository.findActive();
+    }
+
+    @Scheduled(fixedDelayString = "${sync.lease.heartbeat-ms:10000}")
+    public void heartbeat() {
+        if (held.isEmpty()) {
+            lastRenewedAt = System.currentTimeMillis();
+            return;
+        }
+        Set<String> renewed;
+        try {
+            renewed = transactionTemplate.execute(status -> {
+                syncLeaseRepository.renewAll(nodeId, ttlMs);
+                return new HashSet<>(syncLeaseRepository.findNamesHeldBy(nodeId));
+            });
+            lastRenewedAt = System.currentTimeMillis();
+        } catch (Exception e) {
+            System.out.println("⚠️ Heartbeat des baux impossible: " + e.getMessage());
+            // Sans prolongation depuis un TTL, un autre nœud a pu reprendre nos baux
+            if (System.currentTimeMillis() - lastRenewedAt < ttlMs) return;
+            renewed = Set.of();
+        }
+        for (String name : held.keySet()) {
+            if (renewed.contains(name)) continue;
+            Runnable onLost = held.remove(name);
+            if (onLost == null) continue;
+            System.out.println("⚠️ Bail " + name + " perdu par " + nodeId);
+            try {
+                onLost.run();
+            } catch (Exception e) {
+                System.out.println("⚠️ Perte du bail " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (String name : held.keySet()) release(name);
+    }
+}
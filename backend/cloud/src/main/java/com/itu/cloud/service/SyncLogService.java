@@ -27,6 +27,14 @@ public class SyncLogService {
         return syncLogRepository.findById(id);
     }
 
+    /**
+     * Synchronisation la plus récente.
+     */
+    @Transactional(readOnly = true)
+    public Optional<SyncLog> findLatest() {
+        return syncLogRepository.findFirstByOrderBySyncedAtDesc();
+    }
+
     @Transactional(readOnly = true)
     public List<SyncLog> findByStatus(String status) {
         return syncLogRepository.findByStatus(status);
@@ -0,0 +1,228 @@
+package com.itu.cloud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import org.springframework.stereotype.Service;
+
+/**
+ * Métriques Micrometer de la synchronisation, exposées par Actuator
+ * (/actuator/prometheus) : durée et débit par phase, lectures et écritures
+ * Firestore par collection, requêtes SQL, réessais et échecs.
+ *
+ * Les compteurs d'une exécution sont aussi imputés à la phase en cours
+ * ({@link SyncStats.PhaseCounters}), puis enregistrés dans le SyncLog. La
+ * phase est portée par le thread : chaque tâche lancée pour une phase sur un
+ * autre pool l'y rattache avec {@link #wrap(Runnable)}.
+ */
+@Service
+public class SyncMetrics {
+
+    /** Tag des opérations faites hors synchronisation (relais, listeners, API). */
+    static final String NO_PHASE = "none";
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+
+    public SyncMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Phase d'une exécution à laquelle le thread courant travaille.
+     */
+    public static final class Scope {
+        private final String phase;
+        private final SyncStats.PhaseCounters counters;
+
+        private Scope(String phase, SyncStats.PhaseCounters counters) {
+            this.phase = phase;
+            this.counters = counters;
+        }
+    }
+
+    public Scope scope(SyncStats stats, String phase) {
+        return new Scope(phase, stats.counters(phase));
+    }
+
+    /**
+     * Rattache le thread courant à {@code scope} jusqu'à la fermeture du
+     * résultat, qui restaure le rattachement précédent. Sans effet si
+     * {@code scope} est null.
+     */
+    public Binding bind(Scope scope) {
+        Scope previous = CURRENT.get();
+        if (scope != null) CURRENT.set(scope);
+        return () -> {
+            if (previous != null) CURRENT.set(previous);
+            else CURRENT.remove();
+        };
+    }
+
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * {@code task} rattachée à la phase du thread appelant, pour un autre pool.
+     */
+    public <T> Supplier<T> wrap(Supplier<T> task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) return task;
+        return () -> {
+            try (Binding ignored = bind(scope)) {
+                return task.get();
+            }
+        };
+    }
+
+    public Runnable wrap(Runnable task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) return task;
+        return () -> {
+            try (Binding ignored = bind(scope)) {
+                task.run();
+            }
+        };
+    }
+
+    private String phaseTag() {
+        Scope scope = CURRENT.get();
+        return scope != null ? scope.phase : NO_PHASE;
+    }
+
+    /**
+     * Documents lus (facturés comme lectures), y compris par une requête sans résultat.
+     */
+    public void recordReads(String collection, long documents) {
+        long reads = Math.max(1, documents);
+        Counter.builder("sync.firestore.reads")
+                .description("Documents Firestore lus")
+                .tag("collection", collection)
+                .tag("phase", phaseTag())
+                .register(registry)
+                .increment(reads);
+        Scope scope = CURRENT.get();
+        if (scope != null) scope.counters.firestoreReads.addAndGet(reads);
+    }
+
+    public void recordWrite(String collection, String operation) {
+        Counter.builder("sync.firestore.writes")
+                .description("Écritures Firestore envoyées")
+                .tag("collection", collection)
+                .tag("operation", operation)
+                .tag("phase", phaseTag())
+                .register(registry)
+                .increment();
+        Scope scope = CURRENT.get();
+        if (scope != null) scope.counters.firestoreWrites.incrementAndGet();
+    }
+
+    /**
+     * Requête SQL préparée par Hibernate (un lot JDBC compte pour une).
+     */
+    public void recordStatement() {
+        Counter.builder("sync.sql.statements")
+                .description("Requêtes SQL préparées par Hibernate")
+                .tag("phase", phaseTag())
+                .register(registry)
+                .increment();
+        Scope scope = CURRENT.get();
+        if (scope != null) scope.counters.sqlStatements.incrementAndGet();
+    }
+
+    public void recordRetry() {
+        Counter.builder("sync.firestore.retries")
+                .description("Appels Firestore rejoués")
+                .tag("phase", phaseTag())
+                .register(registry)
+                .increment();
+        Scope scope = CURRENT.get();
+        if (scope != null) scope.counters.retries.incrementAndGet();
+    }
+
+    /**
+     * Appel Firestore refusé par le circuit ouvert, qui le reste encore
+     * {@code retryInMs} millisecondes.
+     */
+    public void recordCircuitRejection(long retryInMs) {
+        Counter.builder("sync.firestore.circuit.rejections")
+                .description("Appels Firestore refusés circuit ouvert")
+                .tag("phase", phaseTag())
+                .register(registry)
+                .increment();
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            long now = System.currentTimeMillis();
+            scope.counters.shutOut(now, now + Math.max(0, retryInMs));
+        }
+    }
+
+    /**
+     * Document qui n'a pas pu être écrit.
+     */
+    public void recordError(String collection) {
+        Counter.builder("sync.errors")
+                .description("Documents en échec")
+                .tag("collection", collection)
+                .tag("phase", phaseTag())
+                .register(registry)
+                .increment();
+        Scope scope = CURRENT.get();
+        if (scope != null) scope.counters.errors.incrementAndGet();
+    }
+
+    /**
+     * Phase terminée : durée et débit, par type de synchro.
+     */
+    public void recordPhase(String syncType, SyncStats.PhaseTiming timing) {
+        String type = syncType != null ? syncType : NO_PHASE;
+        Timer.builder("sync.phase.duration")
+                .description("Durée des phases de synchronisation")
+                .tag("type", type)
+                .tag("phase", timing.getPhase())
+                .register(registry)
+                .record(timing.getDurationMs(), TimeUnit.MILLISECONDS);
+        Counter.builder("sync.phase.documents")
+                .description("Documents traités par phase")
+                .tag("type", type)
+                .tag("phase", timing.getPhase())
+                .register(registry)
+                .increment(timing.getDocuments());
+        DistributionSummary.builder("sync.phase.throughput")
+                .description("Documents par seconde, par phase")
+                .baseUnit("documents/s")
+                .tag("type", type)
+                .tag("phase", timing.getPhase())
+                .register(registry)
+                .record(timing.getDocumentsPerSecond());
+    }
+
+    /**
+     * Synchronisation terminée, par type, mode et statut final.
+     */
+    public void recordRun(String syncType, String mode, String status, long durationMs) {
+        Timer.builder("sync.run.duration")
+                .description("Durée des synchronisations")
+                .tag("type", syncType)
+                .tag("mode", mode)
+                .tag("status", status != null ? status : "unknown")
+                .register(registry)
+                .record(durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Jauge lue à chaque collecte ; {@code owner} est référencé faiblement.
+     */
+    public <T> void gauge(String name, String description, T owner, ToDoubleFunction<T> value) {
+        Gauge.builder(name, owner, value).description(description).register(registry);
+    }
+}
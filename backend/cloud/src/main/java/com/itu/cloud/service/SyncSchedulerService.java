@@ -0,0 +1,199 @@
+package com.itu.cloud.service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Synchronisation incrémentale automatique, à intervalle adaptatif.
+ *
+ * Après chaque exécution, l'intervalle est divisé par deux si beaucoup de
+ * changements ont été vus (au moins sync.scheduler.busy-threshold), doublé si
+ * aucun, inchangé sinon ; il reste dans [min, max] et reçoit une gigue. Après
+ * sync.scheduler.pause-after-errors exécutions consécutives en erreur (échec ou
+ * écritures Firestore refusées), l'ordonnanceur se met en pause.
+ *
+ * Les jobs passent par {@link SyncJobService} : si une synchro est déjà en
+ * cours (ici ou sur un autre nœud), l'exécution est simplement reportée.
+ */
+@Service
+public class SyncSchedulerService {
+
+    public static final String STATE_DISABLED = "disabled";
+    public static final String STATE_WAITING = "waiting";
+    public static final String STATE_RUNNING = "running";
+    public static final String STATE_PAUSED = "paused";
+
+    @Value("${sync.scheduler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sync.scheduler.min-interval-ms:30000}")
+    private long minIntervalMs;
+
+    @Value("${sync.scheduler.max-interval-ms:1800000}")
+    private long maxIntervalMs;
+
+    /** Changements (tirés + poussés) à partir desquels l'intervalle raccourcit. */
+    @Value("${sync.scheduler.busy-threshold:100}")
+    private int busyThreshold;
+
+    /** Part de l'intervalle tirée au hasard autour de sa valeur (0.2 : ±20 %). */
+    @Value("${sync.scheduler.jitter:0.2}")
+    private double jitter;
+
+    @Value("${sync.scheduler.pause-after-errors:3}")
+    private int pauseAfterErrors;
+
+    @Value("${sync.scheduler.pause-ms:600000}")
+    private long pauseMs;
+
+    private final SyncJobService syncJobService;
+    private final ScheduledExecutorService timer;
+
+    private volatile String state = STATE_DISABLED;
+    private volatile long intervalMs;
+    private volatile LocalDateTime nextRunAt;
+    private volatile LocalDateTime lastRunAt;
+    private volatile String lastJobId;
+    private volatile String lastStatus;
+    private volatile int lastChanges;
+    private volatile int consecutiveErrors;
+    private volatile LocalDateTime pausedUntil;
+    private ScheduledFuture<?> next;
+
+    public SyncSchedulerService(SyncJobService syncJobService) {
+        this.syncJobService = syncJobService;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sync-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) resume();
+    }
+
+    /**
+     * (Re)démarre l'ordonnanceur au plus petit intervalle, en levant une pause éventuelle.
+     */
+    public synchronized void resume() {
+        intervalMs = minIntervalMs;
+        consecutiveErrors = 0;
+        pausedUntil = null;
+        state = STATE_WAITING;
+        scheduleIn(withJitter(intervalMs));
+    }
+
+    public synchronized void disable() {
+        if (next != null) next.cancel(false);
+        next = null;
+        nextRunAt = null;
+        state = STATE_DISABLED;
+    }
+
+    private synchronized void scheduleIn(long delayMs) {
+        if (STATE_DISABLED.equals(state)) return;
+        if (next != null) next.cancel(false);
+        nextRunAt = LocalDateTime.now().plusNanos(delayMs * 1_000_000);
+        next = timer.schedule(this::runOnce, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runOnce() {
+        synchronized (this) {
+            if (STATE_DISABLED.equals(state)) return;
+            state = STATE_RUNNING;
+        }
+        SyncJob job;
+        try {
+            job = syncJobService.submit(FirebaseSyncService.TYPE_FULL, FirebaseSyncService.MODE_INCREMENTAL, null);
+        } catch (SyncJobService.SyncJobConflictException | RejectedExecutionException e) {
+            // Synchro déjà en cours (manuelle ou autre nœud) : elle fait le travail, on repasse plus tard
+            synchronized (this) {
+                if (STATE_RUNNING.equals(state)) state = STATE_WAITING;
+            }
+            scheduleIn(withJitter(intervalMs));
+            return;
+        } catch (RuntimeException e) {
+            lastStatus = "failed";
+            onFinished(0, true);
+            return;
+        }
+        lastJobId = job.getId();
+        job.whenFinished().thenAccept(finished -> {
+            SyncStats stats = finished.getStats();
+            boolean failed = "failed".equals(finished.getStatus()) || stats.getFailed() > 0;
+            lastStatus = finished.getStatus();
+            onFinished(stats.getPulled() + stats.getPushed(), failed);
+        });
+    }
+
+    private synchronized void onFinished(int changes, boolean failed) {
+        lastRunAt = LocalDateTime.now();
+        lastChanges = changes;
+        if (STATE_DISABLED.equals(state)) return;
+
+        if (failed) {
+            consecutiveErrors++;
+            if (consecutiveErrors >= pauseAfterErrors) {
+                // Firestore en difficulté : inutile d'insister
+                state = STATE_PAUSED;
+                pausedUntil = LocalDateTime.now().plusNanos(pauseMs * 1_000_000);
+                intervalMs = maxIntervalMs;
+                System.out.println("⏸️ Synchro automatique en pause après " + consecutiveErrors + " exécutions en erreur");
+                scheduleIn(pauseMs);
+                return;
+            }
+        } else {
+            consecutiveErrors = 0;
+        }
+
+        if (changes >= busyThreshold) {
+            intervalMs = Math.max(minIntervalMs, intervalMs / 2);
+        } else if (changes == 0) {
+            intervalMs = Math.min(maxIntervalMs, intervalMs * 2);
+        }
+        state = STATE_WAITING;
+        pausedUntil = null;
+        scheduleIn(withJitter(intervalMs));
+    }
+
+    private long withJitter(long delayMs) {
+        double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(1000, Math.round(delayMs * factor));
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("state", state);
+        status.put("intervalMs", intervalMs);
+        status.put("minIntervalMs", minIntervalMs);
+        status.put("maxIntervalMs", maxIntervalMs);
+        status.put("nextRunAt", nextRunAt);
+        status.put("lastRunAt", lastRunAt);
+        status.put("lastJobId", lastJobId);
+        status.put("lastStatus", lastStatus);
+        status.put("lastChanges", lastChanges);
+        status.put("consecutiveErrors", consecutiveErrors);
+        status.put("pausedUntil", pausedUntil);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
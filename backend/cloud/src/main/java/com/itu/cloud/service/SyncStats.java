@@ -0,0 +1,444 @@
+package com.itu.cloud.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compteurs et progression d'une exécution de synchronisation.
+ * Les échecs par document sont collectés ici au lieu d'interrompre la synchro,
+ * puis recopiés dans le SyncLog. L'objet est lu par d'autres threads pendant
+ * l'exécution (suivi des jobs), d'où les champs atomiques/volatils.
+ */
+public class SyncStats {
+
+    /** Nombre maximal de messages d'erreur conservés (le compteur reste exact). */
+    private static final int MAX_FAILURE_MESSAGES = 50;
+
+    private final AtomicInteger pulled = new AtomicInteger();
+    private final AtomicInteger pushed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    /** Suppressions appliquées (pull) ou propagées (push). */
+    private final AtomicInteger deleted = new AtomicInteger();
+    private final AtomicInteger chunksCommitted = new AtomicInteger();
+    private final AtomicInteger photosInserted = new AtomicInteger();
+    private final AtomicInteger photosDuplicate = new AtomicInteger();
+    private final AtomicInteger photosIgnored = new AtomicInteger();
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+    private final long startedAtNanos = System.nanoTime();
+    private final AtomicLong processed = new AtomicLong();
+    /** Phases dans l'ordre de démarrage ; plusieurs peuvent être actives en même temps. */
+    private final Map<String, PhaseProgress> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile boolean finished;
+    /** Motif de l'arrêt demandé de l'extérieur (bail perdu), null sinon. */
+    private volatile String abortReason;
+
+    public void recordFailure(String collection, String documentId, Throwable error) {
+        failed.incrementAndGet();
+        if (failures.size() < MAX_FAILURE_MESSAGES) {
+            String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+            failures.add(collection + "/" + documentId + ": " + message);
+        }
+    }
+
+    /**
+     * Démarre une phase (ou fixe son volume si elle est déjà démarrée) ;
+     * {@code total} vaut -1 si le volume est inconnu.
+     */
+    public void beginPhase(String phase, long total) {
+        // Une phase rejouée (reprise après reconnexion) repart d'une mesure neuve
+        phases.compute(phase, (name, p) -> p == null || p.finishedAt != null ? new PhaseProgress(name) : p).total = total;
+    }
+
+    /**
+     * Compteurs (lectures, écritures, requêtes SQL...) de la phase, démarrée si besoin.
+     */
+    public PhaseCounters counters(String phase) {
+        return phases.computeIfAbsent(phase, PhaseProgress::new).counters;
+    }
+
+    public void advance(String phase, int documents) {
+        processed.addAndGet(documents);
+        phases.computeIfAbsent(phase, PhaseProgress::new).processed.addAndGet(documents);
+    }
+
+    /**
+     * Fin d'une phase : sa durée est figée pour le SyncLog.
+     */
+    public void endPhase(String phase) {
+        PhaseProgress progress = phases.get(phase);
+        if (progress != null && progress.finishedAt == null) {
+            progress.durationNanos = System.nanoTime() - progress.startedAtNanos;
+            progress.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * Fin de l'exécution : plus aucune phase n'est rapportée comme active.
+     */
+    public void finish() {
+        finished = true;
+    }
+
+    /**
+     * Un lot a été validé en base (et son checkpoint enregistré). C'est aussi le
+     * point d'arrêt de la synchro si son arrêt a été demandé entre-temps.
+     *
+     * @throws SyncAbortedException si {@link #abort} a été appelé
+     */
+    public void chunkCommitted() {
+        chunksCommitted.incrementAndGet();
+        checkAborted();
+    }
+
+    /**
+     * Demande l'arrêt de la synchro : chaque phase s'arrête après son lot en
+     * cours, qui reste validé avec son checkpoint.
+     */
+    public void abort(String reason) {
+        abortReason = reason;
+    }
+
+    public String getAbortReason() {
+        return abortReason;
+    }
+
+    /**
+     * @throws SyncAbortedException si l'arrêt de la synchro a été demandé
+     */
+    public void checkAborted() {
+        String reason = abortReason;
+        if (reason != null) throw new SyncAbortedException(reason);
+    }
+
+    /**
+     * Écritures évitées car le contenu n'a pas changé depuis la dernière synchro.
+     */
+    public void addSkipped(int n) {
+        skipped.addAndGet(n);
+    }
+
+    public void addPulled(int n) {
+        pulled.addAndGet(n);
+    }
+
+    public void addPushed(int n) {
+        pushed.addAndGet(n);
+    }
+
+    public void addDeleted(int n) {
+        deleted.addAndGet(n);
+    }
+
+    public int getDeleted() {
+        return deleted.get();
+    }
+
+    public int getPulled() {
+        return pulled.get();
+    }
+
+    public int getPushed() {
+        return pushed.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public void addPhotosInserted(int n) {
+        photosInserted.addAndGet(n);
+    }
+
+    public void addPhotosDuplicate(int n) {
+        photosDuplicate.addAndGet(n);
+    }
+
+    public void addPhotosIgnored(int n) {
+        photosIgnored.addAndGet(n);
+    }
+
+    public int getPhotosInserted() {
+        return photosInserted.get();
+    }
+
+    public int getPhotosDuplicate() {
+        return photosDuplicate.get();
+    }
+
+    public int getPhotosIgnored() {
+        return photosIgnored.get();
+    }
+
+    /**
+     * Appels Firestore rejoués pour cette synchro : somme des compteurs de ses
+     * phases, les autres appelants (relais, listener) n'y figurent pas.
+     */
+    public long getFirestoreRetries() {
+        return sumCounters(PhaseCounters::getRetries);
+    }
+
+    /**
+     * Temps pendant lequel le circuit ouvert a tenu les appels de cette synchro
+     * à l'écart de Firestore, par phase puis additionné.
+     */
+    public long getCircuitOpenMs() {
+        return sumCounters(PhaseCounters::getCircuitOpenMs);
+    }
+
+    private long sumCounters(ToLongFunction<PhaseCounters> counter) {
+        synchronized (phases) {
+            long total = 0;
+            for (PhaseProgress p : phases.values()) total += counter.applyAsLong(p.counters);
+            return total;
+        }
+    }
+
+    public int getChunksCommitted() {
+        return chunksCommitted.get();
+    }
+
+    /**
+     * Phases en cours, jointes par "+" lorsqu'elles se recouvrent.
+     */
+    public String getPhase() {
+        if (finished) return "done";
+        StringBuilder sb = new StringBuilder();
+        for (PhaseProgress p : activePhases()) {
+            if (sb.length() > 0) sb.append('+');
+            sb.append(p.name);
+        }
+        return sb.length() > 0 ? sb.toString() : "pending";
+    }
+
+    /** Volume cumulé des phases en cours, -1 si l'un d'eux est inconnu. */
+    public long getPhaseTotal() {
+        long total = 0;
+        for (PhaseProgress p : activePhases()) {
+            if (p.total < 0) return -1;
+            total += p.total;
+        }
+        return total;
+    }
+
+    public long getPhaseProcessed() {
+        long done = 0;
+        for (PhaseProgress p : activePhases()) done += p.processed.get();
+        return done;
+    }
+
+    /**
+     * Durées des phases terminées, dans l'ordre de démarrage.
+     */
+    public List<PhaseTiming> getPhaseTimings() {
+        List<PhaseTiming> timings = new ArrayList<>();
+        synchronized (phases) {
+            for (PhaseProgress p : phases.values()) {
+                if (p.finishedAt == null) continue;
+                timings.add(new PhaseTiming(p.name, p.startedAt, p.finishedAt,
+                        p.durationNanos / 1_000_000, p.processed.get(), p.counters));
+            }
+        }
+        return timings;
+    }
+
+    private List<PhaseProgress> activePhases() {
+        List<PhaseProgress> active = new ArrayList<>();
+        if (finished) return active;
+        synchronized (phases) {
+            for (PhaseProgress p : phases.values()) {
+                if (p.finishedAt == null) active.add(p);
+            }
+        }
+        return active;
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /**
+     * Documents traités par seconde depuis le début de l'exécution.
+     */
+    public double getThroughput() {
+        double seconds = (System.nanoTime() - startedAtNanos) / 1_000_000_000.0;
+        return seconds > 0 ? processed.get() / seconds : 0.0;
+    }
+
+    /**
+     * Temps restant estimé pour les phases en cours : la plus lente, chacune
+     * à son débit observé. Null si un volume ou un débit n'est pas encore connu.
+     */
+    public Long getPhaseEtaSeconds() {
+        List<PhaseProgress> active = activePhases();
+        if (active.isEmpty()) return null;
+        long eta = 0;
+        for (PhaseProgress p : active) {
+            long done = p.processed.get();
+            if (p.total < 0 || done == 0) return null;
+            double seconds = (System.nanoTime() - p.startedAtNanos) / 1_000_000_000.0;
+            double rate = done / seconds;
+            if (rate <= 0) return null;
+            eta = Math.max(eta, (long) Math.ceil(Math.max(0, p.total - done) / rate));
+        }
+        return eta;
+    }
+
+    public List<String> getFailures() {
+        synchronized (failures) {
+            return new ArrayList<>(failures);
+        }
+    }
+
+    /**
+     * Résumé lisible des échecs, pour SyncLog.errorMessage.
+     */
+    public String describeFailures() {
+        if (failed.get() == 0) return null;
+        StringBuilder sb = new StringBuilder();
+        sb.append(failed.get()).append(" document(s) en échec");
+        for (String f : getFailures()) {
+            sb.append("\n- ").append(f);
+        }
+        if (failed.get() > MAX_FAILURE_MESSAGES) {
+            sb.append("\n- ...");
+        }
+        return sb.toString();
+    }
+
+    private static class PhaseProgress {
+        final String name;
+        final long startedAtNanos = System.nanoTime();
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicLong processed = new AtomicLong();
+        final PhaseCounters counters = new PhaseCounters();
+        volatile long total = -1;
+        volatile long durationNanos;
+        volatile LocalDateTime finishedAt;
+
+        PhaseProgress(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Coût d'une phase, alimenté par {@link SyncMetrics} depuis les threads
+     * qui travaillent pour elle.
+     */
+    public static class PhaseCounters {
+        final AtomicLong firestoreReads = new AtomicLong();
+        final AtomicLong firestoreWrites = new AtomicLong();
+        final AtomicLong sqlStatements = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong circuitOpenMs = new AtomicLong();
+        /** Fin de la dernière fenêtre circuit ouvert comptée, pour ne pas compter deux fois un chevauchement. */
+        private long circuitOpenUntil;
+
+        public long getFirestoreReads() {
+            return firestoreReads.get();
+        }
+
+        public long getFirestoreWrites() {
+            return firestoreWrites.get();
+        }
+
+        public long getSqlStatements() {
+            return sqlStatements.get();
+        }
+
+        public long getRetries() {
+            return retries.get();
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public long getCircuitOpenMs() {
+            return circuitOpenMs.get();
+        }
+
+        /**
+         * Appel refusé à {@code now} par le circuit ouvert jusqu'à {@code until}.
+         */
+        synchronized void shutOut(long now, long until) {
+            long from = Math.max(now, circuitOpenUntil);
+            if (until > from) {
+                circuitOpenMs.addAndGet(until - from);
+                circuitOpenUntil = until;
+            }
+        }
+    }
+
+    /**
+     * Durée et coût d'une phase terminée.
+     */
+    public static class PhaseTiming {
+        private final String phase;
+        private final LocalDateTime startedAt;
+        private final LocalDateTime finishedAt;
+        private final long durationMs;
+        private final long documents;
+        private final PhaseCounters counters;
+
+        public PhaseTiming(String phase, LocalDateTime startedAt, LocalDateTime finishedAt, long durationMs,
+                           long documents, PhaseCounters counters) {
+            this.phase = phase;
+            this.startedAt = startedAt;
+            this.finishedAt = finishedAt;
+            this.durationMs = durationMs;
+            this.documents = documents;
+            this.counters = counters;
+        }
+
+        public PhaseCounters getCounters() {
+            return counters;
+        }
+
+        public String getPhase() {
+            return phase;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public long getDocuments() {
+            return documents;
+        }
+
+        public double getDocumentsPerSecond() {
+            return durationMs > 0 ? documents * 1000.0 / durationMs : 0.0;
+        }
+    }
+
+    /**
+     * Levée entre deux lots quand l'arrêt de la synchro a été demandé.
+     */
+    public static class SyncAbortedException extends IllegalStateException {
+        public SyncAbortedException(String reason) {
+            super(reason);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.itu.cloud.service;
+
+import com.itu.cloud.repository.PhotoReportRepository;
+import com.itu.cloud.repository.ReportRepository;
+import com.itu.cloud.repository.SessionRepository;
+import com.itu.cloud.repository.UserRepository;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Suppressions logiques (colonne deleted_at) et compactage des tombstones.
+ *
+ * Une suppression garde la ligne, masquée des requêtes JPA par
+ * {@code @SQLRestriction} : le trigger du journal la note comme "delete", le
+ * relais et le push incrémental posent alors le marqueur "deleted" sur le
+ * document Firestore. Dans l'autre sens, un document marqué (ou retiré, vu par
+ * le listener) supprime la ligne correspondante.
+ *
+ * Passé sync.tombstones.retention-days, les tombstones déjà propagés sont
+ * purgés des deux côtés.
+ */
+@Service
+@Transactional
+public class TombstoneService {
+
+    private static final String LEASE = "tombstone-compaction";
+
+    private static final int COMPACTION_PAGE = 500;
+
+    @Value("${sync.tombstones.compaction.enabled:true}")
+    private boolean compactionEnabled;
+
+    @Value("${sync.tombstones.retention-days:30}")
+    private long retentionDays;
+
+    private final UserRepository userRepository;
+    private final ReportRepository reportRepository;
+    private final PhotoReportRepository photoReportRepository;
+    private final SessionRepository sessionRepository;
+    private final DocumentStore documentStore;
+    private final SyncLeaseService syncLeaseService;
+    private final ProcessingStatsService processingStatsService;
+    private final ReportSpatialIndex reportSpatialIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    public TombstoneService(UserRepository userRepository,
+                            ReportRepository reportRepository,
+                            PhotoReportRepository photoReportRepository,
+                            SessionRepository sessionRepository,
+                            DocumentStore documentStore,
+                            SyncLeaseService syncLeaseService,
+                            ProcessingStatsService processingStatsService,
+                            ReportSpatialIndex reportSpatialIndex,
+                            PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.reportRepository = reportRepository;
+        this.photoReportRepository = photoReportRepository;
+        this.sessionRepository = sessionRepository;
+        this.documentStore = documentStore;
+        this.syncLeaseService = syncLeaseService;
+        this.processingStatsService = processingStatsService;
+        this.reportSpatialIndex = reportSpatialIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Supprime des utilisateurs avec leurs reports et photos ; leurs sessions
+     * sont fermées.
+     *
+     * @param syncedAt renseigné quand la suppression vient de Firestore : elle
+     *                 n'a pas à y repartir (leurs reports, eux, reçoivent le marqueur)
+     */
+    public int deleteUsers(Collection<Long> ids, LocalDateTime syncedAt) {
+        if (ids.isEmpty()) return 0;
+        LocalDateTime now = LocalDateTime.now();
+        photoReportRepository.softDeleteByUserIds(ids, now);
+        List<Long> reportIds = reportRepository.findIdsByUserIdIn(ids);
+        processingStatsService.forgetReports(reportIds);
+        reportSpatialIndex.removeReports(reportIds);
+        reportRepository.softDeleteByUserIds(ids, now);
+        sessionRepository.deleteByUserIdIn(ids);
+        // Une appartenance restante bloquerait la purge (clé étrangère vers users)
+        userRepository.deleteMemberships(ids);
+        int deleted = userRepository.softDelete(ids, now);
+        if (syncedAt != null) userRepository.markTombstonesSynced(ids, syncedAt);
+        return deleted;
+    }
+
+    /**
+     * Supprime des reports avec leurs photos.
+     *
+     * @param syncedAt voir {@link #deleteUsers}
+     */
+    public int deleteReports(Collection<Long> ids, LocalDateTime syncedAt) {
+        if (ids.isEmpty()) return 0;
+        LocalDateTime now = LocalDateTime.now();
+        photoReportRepository.softDeleteByReportIds(ids, now);
+        processingStatsService.forgetReports(ids);
+        reportSpatialIndex.removeReports(ids);
+        int deleted = reportRepository.softDelete(ids, now);
+        if (syncedAt != null) reportRepository.markTombstonesSynced(ids, syncedAt);
+        return deleted;
+    }
+
+    public int deletePhotos(Collection<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        return photoReportRepository.softDelete(ids, LocalDateTime.now());
+    }
+
+    /**
+     * Purge les tombstones plus anciens que la rétention : lignes PostgreSQL
+     * déjà propagées, puis documents Firestore marqués. Un seul nœud compacte ;
+     * chaque étape est indépendante, l'échec de l'une n'empêche pas les autres.
+     */
+    @Scheduled(fixedDelayString = "${sync.tombstones.compaction-interval-ms:86400000}",
+            initialDelayString = "${sync.tombstones.compaction-interval-ms:86400000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void compact() {
+        if (!compactionEnabled) return;
+        if (syncLeaseService.tryAcquire(LEASE, List.of(LEASE), null, null).isPresent()) return;
+        try {
+            LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+            int[] purged = {0, 0};
+            int users = 0;
+            long documents = 0;
+            try {
+                purged = transactionTemplate.execute(status -> {
+                    int photos = photoReportRepository.purgeDeletedBefore(before, OutboxRelayService.CONSUMER);
+                    reportRepository.purgeHistoryOfDeletedBefore(before);
+                    return new int[] {photos, reportRepository.purgeDeletedBefore(before)};
+                });
+            } catch (Exception e) {
+                System.out.println("⚠️ Compactage des reports supprimés: " + e.getMessage());
+            }
+            // Après les reports : un utilisateur n'est purgé qu'une fois tous ses reports partis.
+            // Ses appartenances sont retirées d'abord (tombstones antérieurs à leur nettoyage)
+            try {
+                users = transactionTemplate.execute(status -> {
+                    userRepository.deleteMembershipsOfDeletedBefore(before);
+                    return userRepository.purgeDeletedBefore(before);
+                });
+            } catch (Exception e) {
+                System.out.println("⚠️ Compactage des utilisateurs supprimés: " + e.getMessage());
+            }
+            for (String collection : List.of("reports", "users")) {
+                try {
+                    documents += compactDocuments(collection);
+                } catch (Exception e) {
+                    System.out.println("⚠️ Compactage des documents Firestore (" + collection + "): " + e.getMessage());
+                }
+            }
+            if (purged[0] + purged[1] + users + documents > 0) {
+                System.out.println("🧹 Tombstones purgés: " + users + " utilisateur(s), " + purged[1] + " report(s), "
+                        + purged[0] + " photo(s), " + documents + " document(s) Firestore");
+            }
+        } finally {
+            syncLeaseService.release(LEASE);
+        }
+    }
+
+    /**
+     * Supprime les documents marqués "deleted" depuis plus longtemps que la rétention.
+     */
+    private long compactDocuments(String collection) throws Exception {
+        Instant before = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+        long deleted = 0;
+        try (DocumentStore.Writer writer = documentStore.openWriter()) {
+            List<String> ids;
+            while (!(ids = documentStore.listDeletedBefore(collection, before, COMPACTION_PAGE)).isEmpty()) {
+                List<CompletableFuture<Void>> pending = new ArrayList<>(ids.size());
+                for (String id : ids) pending.add(writer.delete(collection, id));
+                writer.flush();
+                for (CompletableFuture<Void> future : pending) {
+                    if (!future.isCompletedExceptionally()) deleted++;
+                }
+                // Page entièrement en échec : on s'arrête, le prochain passage reprendra
+                if (pending.stream().allMatch(CompletableFuture::isCompletedExceptionally)) break;
+            }
+        }
+        return deleted;
+    }
+}
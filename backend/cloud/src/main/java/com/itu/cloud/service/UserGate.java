@@ -0,0 +1,97 @@
+package com.itu.cloud.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Auteurs (firebaseUid, email) validés en base par la phase pull-users en
+ * cours. La phase pull-reports s'en sert pour appliquer un lot dès que les
+ * auteurs qu'il référence sont résolus, sans attendre la fin des users.
+ */
+final class UserGate {
+
+    private final Set<String> uids = ConcurrentHashMap.newKeySet();
+    private final Set<String> emails = ConcurrentHashMap.newKeySet();
+    private final CompletableFuture<Void> closed = new CompletableFuture<>();
+    /** Complétée, puis remplacée, à chaque lot de users validé. */
+    private CompletableFuture<Void> nextCommit = new CompletableFuture<>();
+
+    /** Porte déjà fermée : tous les auteurs disponibles sont en base. */
+    static UserGate closedGate() {
+        UserGate gate = new UserGate();
+        gate.close(null);
+        return gate;
+    }
+
+    /**
+     * Un lot de documents "users" vient d'être validé en base.
+     */
+    void published(List<SyncDocument> users) {
+        for (SyncDocument user : users) {
+            uids.add(user.getId());
+            String email = user.getString("email");
+            if (email != null) emails.add(email);
+        }
+        CompletableFuture<Void> signal;
+        synchronized (this) {
+            signal = nextCommit;
+            nextCommit = new CompletableFuture<>();
+        }
+        signal.complete(null);
+    }
+
+    /**
+     * Fin de la phase users ; en échec, les lots de reports en attente échouent aussi.
+     */
+    void close(Throwable error) {
+        if (error == null) closed.complete(null);
+        else closed.completeExceptionally(error);
+    }
+
+    boolean isClosed() {
+        return closed.isDone();
+    }
+
+    /** Propage l'échec éventuel de la phase users. */
+    CompletableFuture<Void> closedFuture() {
+        return closed;
+    }
+
+    boolean resolved(Author author) {
+        return (author.uid != null && uids.contains(author.uid))
+                || (author.email != null && emails.contains(author.email));
+    }
+
+    /**
+     * Complétée quand chaque auteur est résolu ou quand la phase users se termine.
+     */
+    CompletableFuture<Void> whenResolved(Collection<Author> authors) {
+        if (closed.isDone()) return closed;
+        List<Author> missing = authors.stream().filter(a -> !resolved(a)).toList();
+        if (missing.isEmpty()) return CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> signal;
+        synchronized (this) {
+            signal = nextCommit;
+        }
+        // Lot publié entre le filtrage et la prise du signal
+        if (missing.stream().allMatch(this::resolved)) return CompletableFuture.completedFuture(null);
+        return CompletableFuture.anyOf(closed, signal.thenCompose(v -> whenResolved(missing)))
+                .thenApply(v -> null);
+    }
+
+    /**
+     * Auteur référencé par un report : userId (firebaseUid) et/ou userEmail.
+     */
+    static final class Author {
+        final String uid;
+        final String email;
+
+        Author(String uid, String email) {
+            this.uid = uid;
+            this.email = email;
+        }
+    }
+}
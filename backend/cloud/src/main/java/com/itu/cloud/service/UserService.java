@@ -16,10 +16,13 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final EntrepriseRepository entrepriseRepository;
+    private final TombstoneService tombstoneService;
 
-    public UserService(UserRepository userRepository, EntrepriseRepository entrepriseRepository) {
+    public UserService(UserRepository userRepository, EntrepriseRepository entrepriseRepository,
+                       TombstoneService tombstoneService) {
         this.userRepository = userRepository;
         this.entrepriseRepository = entrepriseRepository;
+        this.tombstoneService = tombstoneService;
     }
 
     @Value("${app.maxFailedLogins:3}")
@@ -97,8 +100,12 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    /**
+     * Suppression logique de l'utilisateur, de ses reports et de leurs photos ;
+     * propagée à Firestore par {@link TombstoneService}.
+     */
     public void deleteById(Long id) {
-        userRepository.deleteById(id);
+        tombstoneService.deleteUsers(List.of(id), null);
     }
 
     @Transactional(readOnly = true)
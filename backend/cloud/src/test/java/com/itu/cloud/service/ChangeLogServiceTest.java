@@ -0,0 +1,189 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.itu.cloud.entity.ChangeLogConsumer;
+import com.itu.cloud.entity.ChangeLogEntry;
+import com.itu.cloud.repository.ChangeLogConsumerRepository;
+import com.itu.cloud.repository.ChangeLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Journal des modifications : numérotation bloquée par une transaction encore
+ * ouverte, lecture après la position d'un consommateur, acquittements, lignes
+ * en attente de seq exposées dans le statut et en métriques.
+ *
+ * Le journal est simulé en mémoire : assignSequence numérote, dans l'ordre
+ * d'insertion, les lignes qui précèdent la première transaction non validée,
+ * comme la requête SQL avec pg_snapshot_xmin.
+ */
+class ChangeLogServiceTest {
+
+    private ChangeLogRepository changeLogRepository;
+    private ChangeLogConsumerRepository consumerRepository;
+    private SimpleMeterRegistry registry;
+    private ChangeLogService changes;
+
+    private final List<ChangeLogEntry> log = new ArrayList<>();
+    /** Lignes écrites par une transaction encore ouverte. */
+    private final Set<Long> uncommitted = new HashSet<>();
+    private final Map<String, Long> positions = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        changeLogRepository = mock(ChangeLogRepository.class);
+        consumerRepository = mock(ChangeLogConsumerRepository.class);
+        registry = new SimpleMeterRegistry();
+        changes = new ChangeLogService(changeLogRepository, consumerRepository, new SyncMetrics(registry));
+        ReflectionTestUtils.setField(changes, "sequenceBatch", 100);
+
+        when(changeLogRepository.assignSequence(anyInt())).thenAnswer(inv -> {
+            long next = log.stream().filter(e -> e.getSeq() != null).mapToLong(ChangeLogEntry::getSeq).max().orElse(0);
+            int assigned = 0;
+            for (ChangeLogEntry entry : log) {
+                if (uncommitted.contains(entry.getId())) break;
+                if (entry.getSeq() == null && assigned < inv.<Integer>getArgument(0)) {
+                    ReflectionTestUtils.setField(entry, "seq", ++next);
+                    assigned++;
+                }
+            }
+            return assigned;
+        });
+        when(changeLogRepository.findAfter(anyLong(), anyCollection(), any(Pageable.class))).thenAnswer(inv -> {
+            long after = inv.getArgument(0);
+            Collection<String> entities = inv.getArgument(1);
+            return log.stream()
+                    .filter(e -> e.getSeq() != null && e.getSeq() > after && entities.contains(e.getEntity()))
+                    .sorted((a, b) -> Long.compare(a.getSeq(), b.getSeq()))
+                    .limit(inv.<Pageable>getArgument(2).getPageSize())
+                    .toList();
+        });
+        when(consumerRepository.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(positions.get(inv.getArgument(0)))
+                .map(seq -> {
+                    ChangeLogConsumer consumer = new ChangeLogConsumer();
+                    ReflectionTestUtils.setField(consumer, "lastSeq", seq);
+                    return consumer;
+                }));
+        when(consumerRepository.advance(anyString(), anyLong())).thenAnswer(inv -> {
+            positions.merge(inv.getArgument(0), inv.getArgument(1), Math::max);
+            return 1;
+        });
+    }
+
+    @Test
+    void openTransactionHoldsBackTheRowsWrittenAfterIt() {
+        write(1, ChangeLogEntry.REPORT, 10L);
+        write(2, ChangeLogEntry.REPORT, 11L);
+        uncommitted.add(2L);
+        write(3, ChangeLogEntry.PHOTO, 20L);
+
+        // La ligne 3 est validée, mais numérotée seulement après la 2
+        assertEquals(List.of(10L), entityIds(changes.poll("relay", List.of("report", "photo"), 10)));
+        uncommitted.clear();
+        List<ChangeLogEntry> read = changes.poll("relay", List.of("report", "photo"), 10);
+        assertEquals(List.of(10L, 11L, 20L), entityIds(read));
+        assertEquals(List.of(1L, 2L, 3L), read.stream().map(ChangeLogEntry::getSeq).toList());
+
+        // Le seq est posé avant chaque lecture, sous le verrou du séquenceur
+        InOrder order = inOrder(changeLogRepository);
+        order.verify(changeLogRepository).lockSequencer();
+        order.verify(changeLogRepository).assignSequence(100);
+        order.verify(changeLogRepository).findAfter(anyLong(), anyCollection(), any(Pageable.class));
+    }
+
+    @Test
+    void pollResumesAfterTheAcknowledgedPositionWhichNeverMovesBack() {
+        write(1, ChangeLogEntry.REPORT, 10L);
+        write(2, ChangeLogEntry.USER, 30L);
+        write(3, ChangeLogEntry.PHOTO, 20L);
+
+        List<ChangeLogEntry> first = changes.poll("relay", List.of("report", "photo"), 1);
+        assertEquals(List.of(10L), entityIds(first));
+        changes.ack("relay", first.get(0).getSeq());
+        assertEquals(List.of(20L), entityIds(changes.poll("relay", List.of("report", "photo"), 10)));
+
+        changes.ack("relay", 3);
+        // Acquittement rejoué en retard : la position reste à 3
+        changes.ack("relay", 1);
+        assertEquals(3L, changes.position("relay"));
+        assertTrue(changes.poll("relay", List.of("report", "photo"), 10).isEmpty());
+        // Chaque consommateur a sa propre position
+        assertEquals(0L, changes.position("push"));
+        assertEquals(List.of(30L), entityIds(changes.poll("push", List.of("user"), 10)));
+    }
+
+    @Test
+    void unsequencedRowsHeldByALongTransactionAreReported() {
+        when(changeLogRepository.findUnsequencedBacklog()).thenReturn(backlog(42, LocalDateTime.now().minusMinutes(5)));
+
+        Map<String, Object> status = changes.getStatus();
+        assertEquals(42L, status.get("unsequenced"));
+        long ageMs = (Long) status.get("oldestUnsequencedAgeMs");
+        assertTrue(ageMs >= 300_000 && ageMs < 310_000, String.valueOf(ageMs));
+
+        assertEquals(42.0, registry.get("sync.changes.unsequenced").gauge().value());
+        assertTrue(registry.get("sync.changes.unsequenced.age").gauge().value() >= 300);
+    }
+
+    @Test
+    void emptyBacklogHasNoAge() {
+        when(changeLogRepository.findUnsequencedBacklog()).thenReturn(backlog(0, null));
+
+        Map<String, Object> status = changes.getStatus();
+        assertEquals(0L, status.get("unsequenced"));
+        assertNull(status.get("oldestUnsequencedAt"));
+        assertEquals(0L, status.get("oldestUnsequencedAgeMs"));
+        assertEquals(0.0, registry.get("sync.changes.unsequenced.age").gauge().value());
+    }
+
+    private void write(long id, String entity, Long entityId) {
+        ChangeLogEntry entry = new ChangeLogEntry();
+        ReflectionTestUtils.setField(entry, "id", id);
+        ReflectionTestUtils.setField(entry, "entity", entity);
+        ReflectionTestUtils.setField(entry, "entityId", entityId);
+        ReflectionTestUtils.setField(entry, "op", ChangeLogEntry.OP_UPDATE);
+        log.add(entry);
+    }
+
+    private static List<Long> entityIds(List<ChangeLogEntry> entries) {
+        return entries.stream().map(ChangeLogEntry::getEntityId).toList();
+    }
+
+    private static ChangeLogRepository.UnsequencedBacklog backlog(long count, LocalDateTime oldest) {
+        return new ChangeLogRepository.UnsequencedBacklog() {
+            @Override
+            public long getCount() {
+                return count;
+            }
+
+            @Override
+            public LocalDateTime getOldestChangedAt() {
+                return oldest;
+            }
+        };
+    }
+}
@@ -0,0 +1,401 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.Timestamp;
+import com.itu.cloud.entity.Report;
+import com.itu.cloud.entity.SyncCheckpoint;
+import com.itu.cloud.entity.SyncLog;
+import com.itu.cloud.entity.SyncWatermark;
+import com.itu.cloud.entity.User;
+import com.itu.cloud.repository.DeferredReportRepository;
+import com.itu.cloud.repository.OutboxEventRepository;
+import com.itu.cloud.repository.PhotoReportRepository;
+import com.itu.cloud.repository.ReportRepository;
+import com.itu.cloud.repository.SyncCheckpointRepository;
+import com.itu.cloud.repository.SyncLogRepository;
+import com.itu.cloud.repository.SyncWatermarkRepository;
+import com.itu.cloud.repository.Tombstone;
+import com.itu.cloud.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+/**
+ * Pull et push de {@link FirebaseSyncService} contre {@link InMemoryDocumentStore},
+ * les dépôts JPA étant simulés (watermarks et checkpoints gardés en mémoire).
+ * Pages de deux documents pour exercer les curseurs.
+ */
+class FirebaseSyncServiceTest {
+
+    private InMemoryDocumentStore store;
+    private UserRepository userRepository;
+    private ReportRepository reportRepository;
+    private TombstoneService tombstoneService;
+    private final Map<String, SyncWatermark> watermarks = new HashMap<>();
+    private final Map<SyncCheckpoint.Key, SyncCheckpoint> checkpoints = new HashMap<>();
+    private final List<User> savedUsers = new ArrayList<>();
+    /** Ids des reports en attente de leur auteur (sync_deferred_report). */
+    private final TreeSet<String> deferred = new TreeSet<>();
+    private FirebaseSyncService service;
+
+    @BeforeEach
+    void setUp() {
+        SyncMetrics metrics = new SyncMetrics(new SimpleMeterRegistry());
+        store = new InMemoryDocumentStore(0, 0, 42, metrics);
+        userRepository = mock(UserRepository.class);
+        reportRepository = mock(ReportRepository.class);
+        tombstoneService = mock(TombstoneService.class);
+
+        when(userRepository.saveAll(any())).thenAnswer(inv -> {
+            List<User> saved = new ArrayList<>();
+            for (User user : inv.<Iterable<User>>getArgument(0)) saved.add(user);
+            savedUsers.addAll(saved);
+            return saved;
+        });
+
+        SyncWatermarkRepository watermarkRepository = mock(SyncWatermarkRepository.class);
+        when(watermarkRepository.findById(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(watermarks.get(inv.<String>getArgument(0))));
+        when(watermarkRepository.save(any())).thenAnswer(inv -> {
+            SyncWatermark watermark = inv.getArgument(0);
+            watermarks.put(watermark.getCollectionName(), watermark);
+            return watermark;
+        });
+
+        SyncCheckpointRepository checkpointRepository = mock(SyncCheckpointRepository.class);
+        when(checkpointRepository.findById(any()))
+                .thenAnswer(inv -> Optional.ofNullable(checkpoints.get(inv.<SyncCheckpoint.Key>getArgument(0))));
+        when(checkpointRepository.save(any())).thenAnswer(inv -> {
+            SyncCheckpoint checkpoint = inv.getArgument(0);
+            checkpoints.put(new SyncCheckpoint.Key(checkpoint.getSyncType(), checkpoint.getPhase()), checkpoint);
+            return checkpoint;
+        });
+        when(checkpointRepository.findBySyncType(anyString())).thenAnswer(inv -> checkpoints.values().stream()
+                .filter(c -> c.getSyncType().equals(inv.getArgument(0))).toList());
+        when(checkpointRepository.deleteBySyncType(anyString())).thenAnswer(inv -> {
+            int before = checkpoints.size();
+            checkpoints.values().removeIf(c -> c.getSyncType().equals(inv.getArgument(0)));
+            return before - checkpoints.size();
+        });
+
+        DeferredReportRepository deferredReportRepository = mock(DeferredReportRepository.class);
+        when(deferredReportRepository.defer(anyString(), anyString()))
+                .thenAnswer(inv -> {
+                    deferred.add(inv.getArgument(0));
+                    return 1;
+                });
+        when(deferredReportRepository.findIdsAfter(anyString(), anyInt())).thenAnswer(inv -> deferred
+                .tailSet(inv.getArgument(0), false).stream().limit(inv.<Integer>getArgument(1)).toList());
+        when(deferredReportRepository.deleteByDocumentIdIn(anyCollection())).thenAnswer(inv -> {
+            int before = deferred.size();
+            deferred.removeAll(inv.<Collection<String>>getArgument(0));
+            return before - deferred.size();
+        });
+
+        SyncLogRepository syncLogRepository = mock(SyncLogRepository.class);
+        when(syncLogRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        service = new FirebaseSyncService(store, userRepository, reportRepository, syncLogRepository,
+                mock(PhotoReportRepository.class), watermarkRepository, checkpointRepository,
+                mock(ChangeLogService.class), mock(OutboxEventRepository.class), deferredReportRepository,
+                tombstoneService, metrics,
+                mock(ReportSpatialIndex.class), transactionManager, 1, 2);
+        ReflectionTestUtils.setField(service, "pullPageSize", 2);
+        ReflectionTestUtils.setField(service, "pageSize", 2);
+        ReflectionTestUtils.setField(service, "maxInFlight", 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    // ---- Pull ----
+
+    @Test
+    void pullSkipsDocumentsWhoseHashIsUnchanged() throws Exception {
+        for (int i = 0; i < 3; i++) putUser("uid-" + i, "Rakoto" + i);
+
+        assertEquals(3, service.pullUsersFromFirebase(FirebaseSyncService.MODE_FULL));
+        assertEquals(3, savedUsers.size());
+
+        // Les lignes créées portent l'empreinte du document : le pull suivant n'écrit rien
+        List<User> existing = new ArrayList<>(savedUsers);
+        when(userRepository.findByFirebaseUidIn(anyCollection())).thenReturn(existing);
+        SyncStats stats = new SyncStats();
+        assertEquals(0, service.pullUsersFromFirebase(FirebaseSyncService.MODE_FULL, stats));
+        assertEquals(3, stats.getSkipped());
+        verify(userRepository, times(2)).saveAll(any());
+    }
+
+    @Test
+    void incrementalPullAdvancesTheWatermarkAndRestampsStringDatedDocuments() throws Exception {
+        for (int i = 0; i < 3; i++) putUser("uid-" + i, "Rakoto" + i);
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> doc = userDoc("Mobile" + i);
+            doc.put("updatedAt", "2026-01-0" + (i + 1) + "T08:00:00.000Z");
+            store.put("users", "mobile-" + i, doc);
+        }
+        Timestamp lastStamped = (Timestamp) store.get("users", "uid-2").orElseThrow().get("updatedAt");
+
+        // Les six sont lus, y compris les chaînes au-delà de la première page
+        assertEquals(6, service.pullUsersFromFirebase(FirebaseSyncService.MODE_INCREMENTAL));
+        SyncWatermark watermark = watermarks.get("users");
+        assertEquals(Instant.ofEpochSecond(lastStamped.getSeconds(), lastStamped.getNanos()), watermark.getLastUpdatedAt());
+        assertEquals("uid-2", watermark.getLastDocumentId());
+        for (int i = 0; i < 3; i++) {
+            assertInstanceOf(Timestamp.class, store.get("users", "mobile-" + i).orElseThrow().get("updatedAt"));
+        }
+
+        // Réhorodatés après le watermark, ils sont relus une fois (l'empreinte évite alors
+        // l'écriture en base), puis plus rien n'est à lire
+        assertEquals(3, service.pullUsersFromFirebase(FirebaseSyncService.MODE_INCREMENTAL));
+        assertEquals(0, service.pullUsersFromFirebase(FirebaseSyncService.MODE_INCREMENTAL));
+    }
+
+    @Test
+    void pulledDeletionMarkerDeletesTheLinkedUser() throws Exception {
+        Map<String, Object> doc = userDoc("Rabe");
+        doc.put("deleted", true);
+        store.put("users", "uid-rabe", doc);
+        User linked = user(9L, "uid-rabe", "Rabe");
+        when(userRepository.findByFirebaseUidIn(anyCollection())).thenReturn(List.of(linked));
+        when(tombstoneService.deleteUsers(anyCollection(), any())).thenReturn(1);
+
+        SyncStats stats = new SyncStats();
+        service.pullUsersFromFirebase(FirebaseSyncService.MODE_FULL, stats);
+
+        verify(tombstoneService).deleteUsers(eq(List.of(9L)), any());
+        assertEquals(1, stats.getDeleted());
+        verify(userRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void reportPulledBeforeItsAuthorIsRetriedById() throws Exception {
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("userId", "uid-tard");
+        doc.put("description", "nid de poule");
+        doc.put("latitude", -18.91);
+        doc.put("longitude", 47.52);
+        store.put("reports", "rep-1", doc);
+
+        SyncStats stats = new SyncStats();
+        assertEquals(0, service.pullReportsFromFirebase(FirebaseSyncService.MODE_INCREMENTAL, stats));
+        // Compté, mis en attente, et dépassé par le watermark
+        assertEquals(1, stats.getFailed());
+        assertEquals(Set.of("rep-1"), deferred);
+        assertEquals("rep-1", watermarks.get("reports").getLastDocumentId());
+
+        // L'auteur arrive : le report, inchangé dans Firestore, est relu par id
+        when(userRepository.findByFirebaseUidIn(anyCollection())).thenReturn(List.of(user(3L, "uid-tard", "Tard")));
+        assertEquals(1, service.pullReportsFromFirebase(FirebaseSyncService.MODE_INCREMENTAL));
+        assertTrue(deferred.isEmpty());
+        verify(reportRepository).saveAll(any());
+    }
+
+    // ---- Push ----
+
+    @Test
+    void pushSkipsRowsWhoseHashIsUnchanged() throws Exception {
+        User alice = user(1L, "uid-alice", "Alice");
+        dirtyUsers(List.of(alice));
+
+        assertEquals(1, service.pushUsersToFirebase());
+        assertNotNull(alice.getSyncHash());
+        assertEquals(alice.getSyncHash(), store.get("users", "uid-alice").orElseThrow().get("syncHash"));
+        long writes = store.getWrites();
+
+        SyncStats stats = new SyncStats();
+        assertEquals(0, service.pushUsersToFirebase(stats));
+        assertEquals(1, stats.getSkipped());
+        assertEquals(writes, store.getWrites());
+    }
+
+    @Test
+    void pushedTombstonesMarkTheDocumentDeleted() throws Exception {
+        store.put("users", "uid-alice", userDoc("Alice"));
+        when(userRepository.findUnsyncedTombstonesAfter(eq(0L), anyInt()))
+                .thenReturn(List.of(tombstone(7L, "uid-alice"), tombstone(8L, null)));
+
+        SyncStats stats = new SyncStats();
+        service.pushUsersToFirebase(stats);
+
+        Map<String, Object> doc = store.get("users", "uid-alice").orElseThrow();
+        assertEquals(true, doc.get("deleted"));
+        assertInstanceOf(Timestamp.class, doc.get("deletedAt"));
+        assertEquals(1, stats.getDeleted());
+        // Une ligne jamais poussée n'a pas de document : elle est seulement marquée
+        verify(userRepository).markTombstonesSynced(eq(List.of(8L, 7L)), any());
+    }
+
+    @Test
+    void interruptedPushResumesFromItsCheckpoint() {
+        List<User> users = List.of(user(1L, "uid-1", "A"), user(2L, "uid-2", "B"),
+                user(3L, "uid-3", "C"), user(4L, "uid-4", "D"));
+        AtomicBoolean failNextPage = new AtomicBoolean(true);
+        when(userRepository.findDirtyAfter(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            long afterId = inv.getArgument(0);
+            if (afterId == 2 && failNextPage.getAndSet(false)) throw new IllegalStateException("Panne injectée");
+            return users.stream().filter(u -> u.getId() > afterId).limit(2).toList();
+        });
+        when(userRepository.findAllById(any())).thenAnswer(inv -> users.stream()
+                .filter(u -> inv.<Collection<Long>>getArgument(0).contains(u.getId())).toList());
+
+        SyncLog failed = service.sync(FirebaseSyncService.TYPE_PUSH, FirebaseSyncService.MODE_FULL, null, new SyncStats());
+        assertEquals("partial", failed.getStatus());
+        SyncCheckpoint checkpoint = checkpoints.get(
+                new SyncCheckpoint.Key(FirebaseSyncService.TYPE_PUSH, FirebaseSyncService.PHASE_PUSH_USERS));
+        assertEquals("2", checkpoint.getCursor());
+        assertTrue(store.get("users", "uid-3").isEmpty());
+
+        SyncStats stats = new SyncStats();
+        SyncLog resumed = service.sync(FirebaseSyncService.TYPE_PUSH, FirebaseSyncService.MODE_FULL, null, stats);
+        assertEquals("success", resumed.getStatus());
+        // La première page n'est pas relue : la reprise part du checkpoint
+        verify(userRepository, times(1)).findDirtyAfter(eq(0L), any(Pageable.class));
+        assertEquals(2, stats.getPushed());
+        assertTrue(store.get("users", "uid-4").isPresent());
+        assertTrue(checkpoints.isEmpty());
+    }
+
+    @Test
+    void abortedSyncStopsAfterTheChunkInProgress() {
+        for (int i = 0; i < 5; i++) putUser("uid-" + i, "Rakoto" + i);
+        // Bail perdu pendant le premier lot
+        SyncStats stats = new SyncStats() {
+            @Override
+            public void chunkCommitted() {
+                abort("Bail sync-pull perdu");
+                super.chunkCommitted();
+            }
+        };
+
+        SyncLog log = service.sync(FirebaseSyncService.TYPE_PULL, FirebaseSyncService.MODE_FULL, null, stats);
+        assertEquals("partial", log.getStatus());
+        assertEquals("Bail sync-pull perdu", log.getErrorMessage());
+        // Le lot validé reste en base avec son checkpoint, les suivants ne sont pas lus
+        assertEquals(2, savedUsers.size());
+        assertEquals("uid-1", checkpoints.get(
+                new SyncCheckpoint.Key(FirebaseSyncService.TYPE_PULL, FirebaseSyncService.PHASE_PULL_USERS)).getCursor());
+    }
+
+    @Test
+    void reportOfAnUnlinkedAuthorIsReturnedForRetry() throws Exception {
+        Report report = new Report();
+        report.setId(5L);
+        report.setUser(user(1L, "fb_uid_provisoire", "Alice"));
+        report.setLatitude(new BigDecimal("-18.9100"));
+        report.setLongitude(new BigDecimal("47.5200"));
+        report.setStatus("nouveau");
+        when(reportRepository.findWithUserByIdIn(anyCollection())).thenReturn(List.of(report));
+
+        // Ni écrit ni perdu : rendu comme à réessayer (outbox), sans synced_at
+        assertEquals(Set.of(5L), service.pushReportsById(List.of(5L), new SyncStats()));
+        assertEquals(0, store.getWrites());
+        verify(reportRepository, never()).markSynced(anyCollection(), any());
+    }
+
+    // ---- Pull parallèle ----
+
+    @Test
+    void partitionCursorStopsAtTheFirstUnfinishedRange() {
+        FirebaseSyncService.PartitionProgress progress = new FirebaseSyncService.PartitionProgress(3, null);
+        // Rien de validé dans la première plage : pas de curseur, quoi qu'aient fait les autres
+        assertNull(progress.cursorWith(1, "m5", true));
+
+        progress.record(0, "c9", false);
+        assertEquals("d1", progress.cursorWith(0, "d1", false));
+        progress.record(0, "d1", true);
+        progress.record(1, "m5", false);
+        // Plage 1 en cours : la plage 2, même terminée, n'avance pas le curseur
+        assertEquals("m5", progress.cursorWith(2, "x1", true));
+        progress.record(1, "m9", true);
+        assertEquals("x1", progress.cursorWith(2, "x1", true));
+
+        FirebaseSyncService.PartitionProgress resumed = new FirebaseSyncService.PartitionProgress(2, "b0");
+        assertEquals("b0", resumed.cursorWith(1, "z0", false));
+    }
+
+    // ---- Outils ----
+
+    private void putUser(String uid, String lastName) {
+        store.put("users", uid, userDoc(lastName));
+    }
+
+    private static Map<String, Object> userDoc(String lastName) {
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("email", lastName.toLowerCase() + "@test.mg");
+        doc.put("firstName", "Test");
+        doc.put("lastName", lastName);
+        doc.put("role", "utilisateur");
+        return doc;
+    }
+
+    private static User user(Long id, String uid, String lastName) {
+        User user = new User();
+        user.setId(id);
+        user.setFirebaseUid(uid);
+        user.setEmail(lastName.toLowerCase() + "@test.mg");
+        user.setFirstName("Test");
+        user.setLastName(lastName);
+        user.setRole("utilisateur");
+        return user;
+    }
+
+    private void dirtyUsers(List<User> users) {
+        when(userRepository.findDirtyAfter(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            long afterId = inv.getArgument(0);
+            return users.stream().filter(u -> u.getId() > afterId).toList();
+        });
+        when(userRepository.findAllById(any())).thenReturn(users);
+    }
+
+    private static Tombstone tombstone(Long id, String documentId) {
+        return new Tombstone() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getDocumentId() {
+                return documentId;
+            }
+        };
+    }
+}
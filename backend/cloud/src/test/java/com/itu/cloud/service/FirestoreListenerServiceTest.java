@@ -0,0 +1,172 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.Timestamp;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Worker du listener temps réel : lots appliqués, lot abandonné puis relivré
+ * depuis le watermark, REMOVED vérifiés dans le store avant suppression. L'application des documents est simulée, le watermark
+ * avançant comme dans {@link FirebaseSyncService}.
+ */
+class FirestoreListenerServiceTest {
+
+    private InMemoryDocumentStore store;
+    private FirebaseSyncService firebaseSyncService;
+    private FirestoreListenerService listener;
+    /** Dernier (updatedAt, id) appliqué sur "reports". */
+    private final AtomicReference<SyncDocument> watermark = new AtomicReference<>();
+    private final List<String> applied = new CopyOnWriteArrayList<>();
+    private final Map<String, SyncDocument> appliedDocuments = new ConcurrentHashMap<>();
+    /** Listener posé sur "reports", pour y injecter des changements. */
+    private final AtomicReference<DocumentStore.ChangeListener> reportsListener = new AtomicReference<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    /** Écrit pendant l'échec d'un lot, pour qu'un lot valide le suive dans la file. */
+    private final AtomicReference<String> writeDuringFailure = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new InMemoryDocumentStore(0, 0, 42, new SyncMetrics(new SimpleMeterRegistry()));
+        firebaseSyncService = mock(FirebaseSyncService.class);
+        when(firebaseSyncService.listenChangesSinceWatermark(anyString(), any())).thenAnswer(inv -> {
+            if ("reports".equals(inv.getArgument(0))) reportsListener.set(inv.getArgument(1));
+            SyncDocument last = "reports".equals(inv.getArgument(0)) ? watermark.get() : null;
+            Timestamp at = last != null ? (Timestamp) last.get("updatedAt") : null;
+            return store.listen(inv.getArgument(0),
+                    at != null ? Instant.ofEpochSecond(at.getSeconds(), at.getNanos()) : null,
+                    last != null ? last.getId() : null,
+                    inv.getArgument(1));
+        });
+        when(firebaseSyncService.applyReportDocuments(anyList())).thenAnswer(inv -> {
+            List<SyncDocument> documents = inv.getArgument(0);
+            if (failuresLeft.getAndDecrement() > 0) {
+                String next = writeDuringFailure.getAndSet(null);
+                if (next != null) write(next);
+                throw new IllegalStateException("base indisponible");
+            }
+            for (SyncDocument doc : documents) {
+                applied.add(doc.getId());
+                appliedDocuments.put(doc.getId(), doc);
+                if (!(doc.get("updatedAt") instanceof Timestamp at)) continue;
+                SyncDocument last = watermark.get();
+                if (last == null || at.compareTo((Timestamp) last.get("updatedAt")) > 0) {
+                    watermark.set(doc);
+                }
+            }
+            return documents.size();
+        });
+        // Relecture par id des REMOVED : logique réelle, contre le store en mémoire
+        ReflectionTestUtils.setField(firebaseSyncService, "documentStore", store);
+        when(firebaseSyncService.resolveRemovals(anyString(), anyList())).thenCallRealMethod();
+
+        SyncLeaseService leases = mock(SyncLeaseService.class);
+        when(leases.tryAcquire(anyString(), any(), any(), any())).thenReturn(Optional.empty());
+        when(leases.getNodeId()).thenReturn("node-test");
+        listener = new FirestoreListenerService(firebaseSyncService, leases);
+        ReflectionTestUtils.setField(listener, "queueCapacity", 100);
+        ReflectionTestUtils.setField(listener, "batchSize", 10);
+        ReflectionTestUtils.setField(listener, "maxWaitMs", 20L);
+        ReflectionTestUtils.setField(listener, "maxAttempts", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+
+    @Test
+    void changesAreAppliedAsTheyArrive() throws Exception {
+        listener.start();
+        write("r1");
+        write("r2");
+        await(() -> applied.containsAll(List.of("r1", "r2")));
+        assertEquals("r2", watermark.get().getId());
+        assertEquals(0L, listener.getStatus().get("dropped"));
+    }
+
+    @Test
+    void failedBatchIsRetriedBeforeBeingDropped() throws Exception {
+        ReflectionTestUtils.setField(listener, "maxAttempts", 2);
+        listener.start();
+        failuresLeft.set(1);
+        write("r1");
+
+        await(() -> applied.contains("r1"));
+        Map<String, Object> status = listener.getStatus();
+        assertEquals(1L, status.get("applied"));
+        assertEquals(0L, status.get("dropped"));
+        assertEquals(0L, status.get("restarts"));
+        assertEquals("base indisponible", status.get("lastError"));
+    }
+
+    @Test
+    void droppedBatchIsRedeliveredEvenWhenALaterBatchMovesTheWatermark() throws Exception {
+        listener.start();
+        // Le lot de r1 échoue ; r2 arrive entre-temps et serait validé juste après
+        failuresLeft.set(1);
+        writeDuringFailure.set("r2");
+        write("r1");
+
+        await(() -> applied.containsAll(List.of("r1", "r2")));
+        assertEquals("r2", watermark.get().getId());
+        Map<String, Object> status = listener.getStatus();
+        assertEquals(1L, status.get("dropped"));
+        assertEquals(1L, status.get("restarts"));
+        assertTrue(listener.isRunning());
+    }
+
+    @Test
+    void removedChangeTombstonesOnlyDocumentsGoneFromFirestore() throws Exception {
+        listener.start();
+        write("r1");
+        await(() -> applied.contains("r1"));
+
+        // r1 quitte la requête (updatedAt réécrit en chaîne ISO) ; r2 est supprimé
+        SyncDocument before = appliedDocuments.get("r1");
+        store.put("reports", "r1", Map.of("description", "nid de poule r1", "updatedAt", "2024-05-01T08:00:00Z"));
+        SyncDocument gone = new SyncDocument("r2", Map.of("description", "nid de poule r2", "updatedAt", Timestamp.now()));
+        reportsListener.get().onChanges(List.of(
+                new DocumentStore.Change(DocumentStore.ChangeType.REMOVED, before),
+                new DocumentStore.Change(DocumentStore.ChangeType.REMOVED, gone)));
+
+        await(() -> appliedDocuments.containsKey("r2"));
+        assertFalse(appliedDocuments.get("r1").isDeleted());
+        assertEquals("2024-05-01T08:00:00Z", appliedDocuments.get("r1").get("updatedAt"));
+        assertTrue(appliedDocuments.get("r2").isDeleted());
+    }
+
+    private void write(String id) {
+        try (DocumentStore.Writer writer = store.openWriter()) {
+            writer.upsert("reports", id, Map.of("description", "nid de poule " + id), true);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("délai dépassé");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.Firestore;
+import com.itu.cloud.config.FirebaseConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Réessais et coupe-circuit de {@link FirestoreResilience}, avec un client
+ * Firestore simulé et des appels qui échouent sur commande (délai dépassé,
+ * transitoire).
+ */
+class FirestoreResilienceTest {
+
+    private static final long OPEN_MS = 100;
+
+    private SyncMetrics metrics;
+    private FirestoreResilience resilience;
+
+    @BeforeEach
+    void setUp() {
+        FirebaseConfig firebaseConfig = mock(FirebaseConfig.class);
+        when(firebaseConfig.getFirestore()).thenReturn(mock(Firestore.class));
+        metrics = new SyncMetrics(new SimpleMeterRegistry());
+        resilience = new FirestoreResilience(firebaseConfig, metrics);
+        ReflectionTestUtils.setField(resilience, "deadlineMs", 1000L);
+        ReflectionTestUtils.setField(resilience, "maxAttempts", 3);
+        ReflectionTestUtils.setField(resilience, "retryBaseMs", 1L);
+        ReflectionTestUtils.setField(resilience, "retryMaxMs", 1L);
+        ReflectionTestUtils.setField(resilience, "failureThreshold", 2);
+        ReflectionTestUtils.setField(resilience, "openMs", 1000L);
+    }
+
+    @Test
+    void retriesAndCircuitTimeCountOnlyForTheSyncThatMadeThem() throws Exception {
+        SyncStats stats = new SyncStats();
+        try (SyncMetrics.Binding ignored = metrics.bind(metrics.scope(stats, "pull-users"))) {
+            assertEquals("ok", resilience.call("get", failing(1)));
+        }
+        // Relais ou listener en parallèle : hors de la synchro
+        assertEquals("ok", resilience.call("get", failing(1)));
+        assertEquals(2, resilience.getRetries());
+        assertEquals(1, stats.getFirestoreRetries());
+
+        // Deux échecs consécutifs (tentatives épuisées) ouvrent le circuit
+        ReflectionTestUtils.setField(resilience, "maxAttempts", 1);
+        assertThrows(ExecutionException.class, () -> resilience.call("get", failing(1)));
+        assertThrows(ExecutionException.class, () -> resilience.call("get", failing(1)));
+        assertEquals(0, stats.getCircuitOpenMs());
+
+        try (SyncMetrics.Binding ignored = metrics.bind(metrics.scope(stats, "pull-reports"))) {
+            assertThrows(FirestoreResilience.CircuitOpenException.class, () -> resilience.call("get", failing(0)));
+            // Même fenêtre : le temps n'est pas compté deux fois
+            assertThrows(FirestoreResilience.CircuitOpenException.class, () -> resilience.call("get", failing(0)));
+        }
+        long openMs = stats.getCircuitOpenMs();
+        assertTrue(openMs > 900 && openMs <= 1000, String.valueOf(openMs));
+    }
+
+    @Test
+    void transientFailuresAreRetriedUpToMaxAttempts() throws Exception {
+        ReflectionTestUtils.setField(resilience, "failureThreshold", 10);
+        assertEquals("ok", resilience.call("get", failing(2)));
+        assertEquals(2, resilience.getRetries());
+        assertEquals(FirestoreResilience.CIRCUIT_CLOSED, resilience.getCircuit());
+
+        ExecutionException exhausted = assertThrows(ExecutionException.class, () -> resilience.call("get", failing(5)));
+        assertInstanceOf(TimeoutException.class, exhausted.getCause());
+        assertEquals(4, resilience.getRetries());
+    }
+
+    @Test
+    void nonTransientFailureIsNeitherRetriedNorCountedByTheBreaker() {
+        FirestoreResilience.Call<String> denied =
+                firestore -> ApiFutures.immediateFailedFuture(new IllegalArgumentException("document invalide"));
+        for (int i = 0; i < 3; i++) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> resilience.call("set", denied));
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        }
+        assertEquals(0, resilience.getRetries());
+        assertEquals(FirestoreResilience.CIRCUIT_CLOSED, resilience.getCircuit());
+        assertEquals(0, resilience.getStatus().get("consecutiveFailures"));
+    }
+
+    @Test
+    void breakerOpensThenASuccessfulProbeClosesIt() throws Exception {
+        openCircuit();
+        assertEquals(FirestoreResilience.CIRCUIT_OPEN, resilience.getCircuit());
+        assertEquals(1L, resilience.getStatus().get("opened"));
+        // Circuit ouvert : refusé sans appel au client
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(FirestoreResilience.CircuitOpenException.class, () -> resilience.call("get", firestore -> {
+            calls.incrementAndGet();
+            return ApiFutures.immediateFuture("ok");
+        }));
+        assertEquals(0, calls.get());
+        assertThrows(FirestoreResilience.CircuitOpenException.class, resilience::checkAvailable);
+
+        Thread.sleep(OPEN_MS + 20);
+        assertEquals("ok", resilience.call("get", failing(0)));
+        assertEquals(FirestoreResilience.CIRCUIT_CLOSED, resilience.getCircuit());
+        assertEquals(0, resilience.getStatus().get("consecutiveFailures"));
+        resilience.checkAvailable();
+    }
+
+    @Test
+    void failedProbeReopensTheCircuit() throws Exception {
+        openCircuit();
+        Thread.sleep(OPEN_MS + 20);
+
+        assertThrows(ExecutionException.class, () -> resilience.call("get", failing(1)));
+        assertEquals(FirestoreResilience.CIRCUIT_OPEN, resilience.getCircuit());
+        assertThrows(FirestoreResilience.CircuitOpenException.class, () -> resilience.call("get", failing(0)));
+        // Même épisode de panne : le circuit n'est compté ouvert qu'une fois
+        assertEquals(1L, resilience.getStatus().get("opened"));
+    }
+
+    /** Deux échecs transitoires consécutifs, sans réessai. */
+    private void openCircuit() {
+        ReflectionTestUtils.setField(resilience, "maxAttempts", 1);
+        ReflectionTestUtils.setField(resilience, "openMs", OPEN_MS);
+        assertThrows(ExecutionException.class, () -> resilience.call("get", failing(1)));
+        assertEquals(FirestoreResilience.CIRCUIT_CLOSED, resilience.getCircuit());
+        assertThrows(ExecutionException.class, () -> resilience.call("get", failing(1)));
+    }
+
+    /** Appel qui dépasse son délai {@code failures} fois avant de réussir. */
+    private static FirestoreResilience.Call<String> failing(int failures) {
+        AtomicInteger left = new AtomicInteger(failures);
+        return firestore -> left.getAndDecrement() > 0
+                ? ApiFutures.immediateFailedFuture(new TimeoutException("délai dépassé"))
+                : ApiFutures.immediateFuture("ok");
+    }
+}
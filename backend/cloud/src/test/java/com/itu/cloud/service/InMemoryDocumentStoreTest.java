@@ -0,0 +1,125 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.cloud.Timestamp;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Lectures de {@link InMemoryDocumentStore} sur lesquelles s'appuie le pull.
+ */
+class InMemoryDocumentStoreTest {
+
+    private InMemoryDocumentStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryDocumentStore(0, 0, 42, new SyncMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void stringDatedDocumentsArePagedApartThenRejoinTheIncrementalOrder() throws Exception {
+        store.put("users", "a", Map.of("email", "a@test.mg"));
+        store.put("users", "b", Map.of("email", "b@test.mg"));
+        // Inscriptions de l'ancienne app mobile : updatedAt en chaîne ISO
+        for (int i = 0; i < 5; i++) {
+            store.put("users", "m" + i, Map.of("email", "m" + i + "@test.mg",
+                    "updatedAt", "2026-01-0" + (5 - i) + "T10:00:00.000Z"));
+        }
+
+        // Le passage horodaté ne rend que des Timestamp, sans s'arrêter sur les chaînes
+        List<SyncDocument> stamped = store.listChangedSince("users", null, null, 10);
+        assertEquals(List.of("a", "b"), ids(stamped));
+        Timestamp last = (Timestamp) stamped.get(1).get("updatedAt");
+
+        // Le second passage pagine les chaînes au-delà de la première page
+        List<String> seen = new ArrayList<>();
+        String afterUpdatedAt = null;
+        String afterId = null;
+        List<SyncDocument> page;
+        try (DocumentStore.Writer writer = store.openWriter()) {
+            do {
+                page = store.listUnstampedSince("users", afterUpdatedAt, afterId, 2);
+                for (SyncDocument doc : page) {
+                    seen.add(doc.getId());
+                    writer.upsert("users", doc.getId(), new HashMap<>(), false);
+                }
+                if (page.isEmpty()) break;
+                afterUpdatedAt = (String) page.get(page.size() - 1).get("updatedAt");
+                afterId = page.get(page.size() - 1).getId();
+            } while (page.size() == 2);
+        }
+        assertEquals(List.of("m4", "m3", "m2", "m1", "m0"), seen);
+
+        // Réhorodatés, ils suivent le watermark et ne repassent plus par le second passage
+        assertTrue(store.listUnstampedSince("users", null, null, 10).isEmpty());
+        List<SyncDocument> after = store.listChangedSince("users",
+                Instant.ofEpochSecond(last.getSeconds(), last.getNanos()), "b", 10);
+        assertEquals(5, after.size());
+        after.forEach(doc -> assertInstanceOf(Timestamp.class, doc.get("updatedAt")));
+        assertEquals("m0@test.mg", store.get("users", "m0").orElseThrow().get("email"));
+    }
+
+    @Test
+    void partitionsCoverEveryDocumentExactlyOnce() throws Exception {
+        for (int i = 0; i < 10; i++) store.put("reports", "r" + i, Map.of("description", "nid de poule " + i));
+
+        List<DocumentStore.IdRange> ranges = store.partition("reports", 3);
+        assertEquals(3, ranges.size());
+        List<String> seen = new ArrayList<>();
+        for (DocumentStore.IdRange range : ranges) {
+            // Lecture par pages de 2 à l'intérieur de la plage, reprise après le dernier id
+            String afterId = null;
+            List<SyncDocument> page;
+            while (!(page = store.list("reports", range, afterId, 2)).isEmpty()) {
+                seen.addAll(ids(page));
+                afterId = page.get(page.size() - 1).getId();
+            }
+        }
+        assertEquals(ids(store.list("reports", null, 100)), seen);
+    }
+
+    @Test
+    void injectedFailureLeavesTheDocumentUntouched() throws Exception {
+        store.put("users", "u1", Map.of("lastName", "Rakoto"));
+        store.setFailureRate(1);
+        CompletableFuture<Void> write;
+        try (DocumentStore.Writer writer = store.openWriter()) {
+            write = writer.upsert("users", "u1", Map.of("lastName", "Rabe"), false);
+        }
+        assertTrue(write.isCompletedExceptionally());
+        assertEquals(1, store.getInjectedFailures());
+        assertEquals("Rakoto", store.get("users", "u1").orElseThrow().get("lastName"));
+    }
+
+    @Test
+    void markedDocumentsAreListedForCompactionOnceOlderThanTheCutoff() throws Exception {
+        store.put("reports", "r1", Map.of("description", "trou"));
+        store.put("reports", "r2", Map.of("description", "fissure"));
+        try (DocumentStore.Writer writer = store.openWriter()) {
+            writer.markDeleted("reports", "r1");
+        }
+        Map<String, Object> marked = store.get("reports", "r1").orElseThrow();
+        assertEquals(true, marked.get("deleted"));
+        assertInstanceOf(Timestamp.class, marked.get("deletedAt"));
+
+        Timestamp deletedAt = (Timestamp) marked.get("deletedAt");
+        Instant at = Instant.ofEpochSecond(deletedAt.getSeconds(), deletedAt.getNanos());
+        assertTrue(store.listDeletedBefore("reports", at, 10).isEmpty());
+        assertEquals(List.of("r1"), store.listDeletedBefore("reports", at.plusSeconds(1), 10));
+    }
+
+    private static List<String> ids(List<SyncDocument> documents) {
+        return documents.stream().map(SyncDocument::getId).toList();
+    }
+}
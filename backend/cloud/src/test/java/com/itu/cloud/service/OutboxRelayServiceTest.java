@@ -0,0 +1,163 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.itu.cloud.entity.ChangeLogEntry;
+import com.itu.cloud.entity.OutboxEvent;
+import com.itu.cloud.repository.OutboxEventRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+/**
+ * Relais vers Firestore : échecs mis en outbox avec délai exponentiel,
+ * position du journal non acquittée si le push échoue en bloc, événements
+ * abandonnés après sync.outbox.max-attempts tentatives.
+ */
+class OutboxRelayServiceTest {
+
+    private static final long RETRY_BASE_MS = 1000;
+    private static final long RETRY_MAX_MS = 8000;
+
+    private OutboxEventRepository outboxEventRepository;
+    private ChangeLogService changeLogService;
+    private FirebaseSyncService firebaseSyncService;
+    private OutboxRelayService relay;
+    private final List<OutboxEvent> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        when(outboxEventRepository.saveAll(any())).thenAnswer(inv -> {
+            for (OutboxEvent event : inv.<Iterable<OutboxEvent>>getArgument(0)) saved.add(event);
+            return inv.getArgument(0);
+        });
+        changeLogService = mock(ChangeLogService.class);
+        firebaseSyncService = mock(FirebaseSyncService.class);
+        when(firebaseSyncService.pushReportsById(anyCollection(), any())).thenReturn(Set.of());
+        when(firebaseSyncService.pushPhotosById(anyCollection(), any())).thenReturn(Set.of());
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        relay = new OutboxRelayService(outboxEventRepository, changeLogService, firebaseSyncService,
+                mock(SyncLeaseService.class), transactionManager);
+        ReflectionTestUtils.setField(relay, "batchSize", 100);
+        ReflectionTestUtils.setField(relay, "maxAttempts", 3);
+        ReflectionTestUtils.setField(relay, "retryBaseMs", RETRY_BASE_MS);
+        ReflectionTestUtils.setField(relay, "retryMaxMs", RETRY_MAX_MS);
+        ReflectionTestUtils.setField(relay, "leaseMs", 60_000L);
+    }
+
+    @Test
+    void failedPropagationsGoToTheOutboxAndThePositionAdvances() throws Exception {
+        when(changeLogService.poll(eq(OutboxRelayService.CONSUMER), anyCollection(), anyInt())).thenReturn(List.of(
+                change(5, ChangeLogEntry.REPORT, 1L), change(6, ChangeLogEntry.PHOTO, 7L), change(7, ChangeLogEntry.REPORT, 1L)));
+        when(firebaseSyncService.pushPhotosById(anyCollection(), any())).thenReturn(Set.of(7L));
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(3, relay.relayChanges());
+
+        // Deux changements du même report : une seule écriture
+        verify(firebaseSyncService).pushReportsById(eq(Set.of(1L)), any());
+        verify(changeLogService).ack(OutboxRelayService.CONSUMER, 7L);
+        assertEquals(1, saved.size());
+        OutboxEvent event = saved.get(0);
+        assertEquals(OutboxEvent.PHOTO, event.getAggregateType());
+        assertEquals(7L, event.getAggregateId());
+        assertEquals(1, event.getAttempts());
+        assertEquals(OutboxEvent.STATUS_PENDING, event.getStatus());
+        assertDueWithin(event, before, RETRY_BASE_MS / 2, RETRY_BASE_MS);
+    }
+
+    @Test
+    void pushFailingAsAWholeLeavesThePositionForTheNextPass() throws Exception {
+        when(changeLogService.poll(eq(OutboxRelayService.CONSUMER), anyCollection(), anyInt()))
+                .thenReturn(List.of(change(5, ChangeLogEntry.REPORT, 1L)));
+        when(firebaseSyncService.pushReportsById(anyCollection(), any()))
+                .thenThrow(new FirestoreResilience.CircuitOpenException(30_000));
+
+        assertThrows(FirestoreResilience.CircuitOpenException.class, relay::relayChanges);
+        verify(changeLogService, never()).ack(anyString(), anyLong());
+        assertTrue(saved.isEmpty());
+    }
+
+    @Test
+    void retriesBackOffExponentiallyThenGiveUp() throws Exception {
+        OutboxEvent retried = event(1L, OutboxEvent.REPORT, 10L, 1);
+        OutboxEvent delivered = event(2L, OutboxEvent.PHOTO, 20L, 1);
+        OutboxEvent lastChance = event(3L, OutboxEvent.REPORT, 30L, 2);
+        when(outboxEventRepository.lockDue(any(), anyInt())).thenReturn(List.of(retried, delivered, lastChance));
+        when(firebaseSyncService.pushReportsById(anyCollection(), any())).thenReturn(Set.of(10L, 30L));
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(3, relay.retryBatch());
+
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(2L));
+        // Deuxième tentative en échec : délai de 2 x base (gigue sur la moitié haute)
+        assertEquals(2, retried.getAttempts());
+        assertEquals(OutboxEvent.STATUS_PENDING, retried.getStatus());
+        assertEquals(FirebaseSyncService.DEFERRED_REASON, retried.getLastError());
+        assertDueWithin(retried, before, RETRY_BASE_MS, 2 * RETRY_BASE_MS);
+        // Troisième tentative sur trois : abandonné, gardé pour diagnostic
+        assertEquals(3, lastChance.getAttempts());
+        assertEquals(OutboxEvent.STATUS_DEAD, lastChance.getStatus());
+        assertEquals(List.of(retried, lastChance), saved);
+    }
+
+    @Test
+    void backoffIsCappedAtRetryMax() throws Exception {
+        ReflectionTestUtils.setField(relay, "maxAttempts", 50);
+        OutboxEvent event = event(1L, OutboxEvent.PHOTO, 10L, 20);
+        when(outboxEventRepository.lockDue(any(), anyInt())).thenReturn(List.of(event));
+        when(firebaseSyncService.pushPhotosById(anyCollection(), any()))
+                .thenThrow(new IllegalStateException("Firestore indisponible"));
+
+        LocalDateTime before = LocalDateTime.now();
+        relay.retryBatch();
+
+        assertEquals("Firestore indisponible", event.getLastError());
+        assertEquals(OutboxEvent.STATUS_PENDING, event.getStatus());
+        assertDueWithin(event, before, RETRY_MAX_MS / 2, RETRY_MAX_MS);
+    }
+
+    private static void assertDueWithin(OutboxEvent event, LocalDateTime from, long minMs, long maxMs) {
+        LocalDateTime due = event.getNextAttemptAt();
+        assertTrue(!due.isBefore(from.plusNanos(minMs * 1_000_000))
+                && !due.isAfter(LocalDateTime.now().plusNanos(maxMs * 1_000_000)), due + " depuis " + from);
+    }
+
+    private static ChangeLogEntry change(long seq, String entity, Long entityId) {
+        ChangeLogEntry entry = new ChangeLogEntry();
+        ReflectionTestUtils.setField(entry, "id", seq);
+        ReflectionTestUtils.setField(entry, "seq", seq);
+        ReflectionTestUtils.setField(entry, "entity", entity);
+        ReflectionTestUtils.setField(entry, "entityId", entityId);
+        ReflectionTestUtils.setField(entry, "op", ChangeLogEntry.OP_UPDATE);
+        return entry;
+    }
+
+    private static OutboxEvent event(Long id, String type, Long aggregateId, int attempts) {
+        OutboxEvent event = new OutboxEvent(type, aggregateId);
+        event.setId(id);
+        event.setAttempts(attempts);
+        return event;
+    }
+}
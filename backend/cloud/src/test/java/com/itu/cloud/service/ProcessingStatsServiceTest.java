@@ -0,0 +1,84 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.itu.cloud.repository.HistoReportRepository;
+import com.itu.cloud.repository.ProcessingStatsSnapshotRepository;
+import com.itu.cloud.repository.ProcessingTimes;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Mise à jour incrémentale de {@link ProcessingStatsService} : délais remplacés
+ * ou retirés sans relire l'historique.
+ */
+class ProcessingStatsServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 3, 14, 9, 0);
+
+    private ProcessingStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        HistoReportRepository histoReportRepository = mock(HistoReportRepository.class);
+        // Délais de 100, 200 et 300 secondes
+        when(histoReportRepository.findProcessingTimes()).thenReturn(List.of(
+                times(1L, 100), times(2L, 200), times(3L, 300)));
+        service = new ProcessingStatsService(histoReportRepository, mock(ProcessingStatsSnapshotRepository.class));
+        service.rebuild();
+    }
+
+    @Test
+    void retakenReportReplacesItsFormerDelay() {
+        assertEquals(300L, service.getStats().get("max_processing_seconds"));
+        // Le report 3 est re-terminé plus tard : 300 s deviennent 1000 s
+        service.recordTransition(3L, "termine", T0.plusSeconds(1000));
+        Map<String, Object> stats = service.getStats();
+        assertEquals(3L, stats.get("count_processed"));
+        assertEquals(100L, stats.get("min_processing_seconds"));
+        assertEquals(1000L, stats.get("max_processing_seconds"));
+        assertEquals(200L, stats.get("p50_processing_seconds"));
+        assertEquals((100 + 200 + 1000) / 3.0, (Double) stats.get("average_processing_seconds"), 1e-9);
+    }
+
+    @Test
+    void forgottenReportsLeaveTheQuantiles() {
+        service.forgetReports(List.of(1L, 3L));
+        Map<String, Object> stats = service.getStats();
+        assertEquals(1L, stats.get("count_processed"));
+        assertEquals(200L, stats.get("min_processing_seconds"));
+        assertEquals(200L, stats.get("max_processing_seconds"));
+        assertEquals(200.0, (Double) stats.get("average_processing_seconds"), 1e-9);
+
+        // Un report retiré puis revenu est compté une seule fois
+        service.recordTransition(1L, "en_cours", T0);
+        service.recordTransition(1L, "termine", T0.plusSeconds(50));
+        stats = service.getStats();
+        assertEquals(2L, stats.get("count_processed"));
+        assertEquals(50L, stats.get("min_processing_seconds"));
+    }
+
+    private static ProcessingTimes times(Long reportId, long seconds) {
+        return new ProcessingTimes() {
+            @Override
+            public Long getReportId() {
+                return reportId;
+            }
+
+            @Override
+            public LocalDateTime getEnCoursAt() {
+                return T0;
+            }
+
+            @Override
+            public LocalDateTime getTermineAt() {
+                return T0.plusSeconds(seconds);
+            }
+        };
+    }
+}
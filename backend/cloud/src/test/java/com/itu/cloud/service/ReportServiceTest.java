@@ -0,0 +1,111 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.itu.cloud.entity.Report;
+import com.itu.cloud.repository.ReportFilter;
+import com.itu.cloud.repository.ReportRepository;
+import com.itu.cloud.repository.ReportSpecifications;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor.SpecificationFluentQuery;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Pagination par clé de {@link ReportService#findPage} : curseur rendu,
+ * décodé à la page suivante, et bornes de la taille de page.
+ */
+class ReportServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 3, 14, 9, 30, 15);
+
+    private ReportRepository reportRepository;
+    private SpecificationFluentQuery<Report> query;
+    private ReportService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        reportRepository = mock(ReportRepository.class);
+        query = mock(SpecificationFluentQuery.class, RETURNS_SELF);
+        when(reportRepository.findBy(any(Specification.class), any())).thenAnswer(
+                inv -> inv.<Function<SpecificationFluentQuery<Report>, Object>>getArgument(1).apply(query));
+        service = new ReportService(reportRepository, mock(TombstoneService.class), mock(ReportSpatialIndex.class));
+        ReflectionTestUtils.setField(service, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(service, "maxPageSize", 5);
+    }
+
+    @Test
+    void fullPageReturnsACursorOnItsLastItemThatTheNextPageDecodes() {
+        // Un report de plus que la page : il en reste d'autres
+        when(query.all()).thenReturn(reports(3));
+        ReportPage page = service.findPage(new ReportFilter(), null, null);
+        assertEquals(List.of(10L, 9L), page.getItems().stream().map(Report::getId).toList());
+        assertNotNull(page.getNextCursor());
+        verify(query).limit(3);
+
+        try (MockedStatic<ReportSpecifications> specs = mockStatic(ReportSpecifications.class, CALLS_REAL_METHODS)) {
+            when(query.all()).thenReturn(reports(1));
+            service.findPage(new ReportFilter(), page.getNextCursor(), null);
+            specs.verify(() -> ReportSpecifications.before(T0.minusMinutes(1), 9L));
+        }
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        when(query.all()).thenReturn(reports(2));
+        ReportPage page = service.findPage(new ReportFilter(), null, 2);
+        assertEquals(2, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void pageSizeIsClampedToTheConfiguredMaximum() {
+        when(query.all()).thenReturn(List.of());
+        assertEquals(5, service.findPage(new ReportFilter(), null, 1000).getLimit());
+        assertEquals(1, service.findPage(new ReportFilter(), null, 0).getLimit());
+        verify(query).limit(6);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        for (String cursor : List.of("%%%", encode("sans-separateur"), encode("pas-une-date|3"), encode(T0 + "|x"))) {
+            assertThrows(IllegalArgumentException.class, () -> service.findPage(new ReportFilter(), cursor, null),
+                    cursor);
+        }
+    }
+
+    /** Reports 10, 9, ... créés à une minute d'intervalle, du plus récent au plus ancien. */
+    private static List<Report> reports(int count) {
+        List<Report> reports = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Report report = new Report();
+            report.setId(10L - i);
+            report.setCreatedAt(T0.minusMinutes(i));
+            reports.add(report);
+        }
+        return reports;
+    }
+
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
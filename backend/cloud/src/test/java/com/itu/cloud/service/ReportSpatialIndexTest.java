@@ -0,0 +1,164 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.itu.cloud.entity.Report;
+import com.itu.cloud.repository.ReportLocation;
+import com.itu.cloud.repository.ReportRepository;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Requêtes de la carte sur {@link ReportSpatialIndex} : zone (bbox) et
+ * regroupement par zoom, validation des paramètres.
+ */
+class ReportSpatialIndexTest {
+
+    private ReportRepository reportRepository;
+    private ReportSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        reportRepository = mock(ReportRepository.class);
+        when(reportRepository.findAllLocations()).thenReturn(List.of(
+                location(1L, "-18.9100", "47.5200", "nouveau", "1000"),
+                location(2L, "-18.9000", "47.5300", "nouveau", "2500"),
+                location(3L, "-18.8000", "47.6000", "termine", null)));
+        index = new ReportSpatialIndex(reportRepository);
+        ReflectionTestUtils.setField(index, "cellDegrees", 0.005);
+        ReflectionTestUtils.setField(index, "maxResults", 100);
+        ReflectionTestUtils.setField(index, "maxClusterZoom", 18);
+        ReflectionTestUtils.setField(index, "clusterCellPixels", 64);
+        ReflectionTestUtils.setField(index, "maxClusterCells", 10_000L);
+        index.rebuild();
+    }
+
+    @Test
+    void boxIncludesItsBorders() {
+        ReportSpatialIndex.Box box = index.findInBox(-18.91, 47.52, -18.90, 47.53);
+        assertEquals(Set.of(1L, 2L), ids(box));
+        assertFalse(box.isTruncated());
+        assertEquals("index", box.getSource());
+    }
+
+    @Test
+    void boxIsTruncatedAtMaxResults() {
+        ReflectionTestUtils.setField(index, "maxResults", 1);
+        ReportSpatialIndex.Box box = index.findInBox(-19, 47, -18, 48);
+        assertEquals(1, box.getPoints().size());
+        assertTrue(box.isTruncated());
+    }
+
+    @Test
+    void boxFallsBackToSqlBeforeTheFirstRebuild() {
+        ReportSpatialIndex cold = new ReportSpatialIndex(reportRepository);
+        ReflectionTestUtils.setField(cold, "maxResults", 100);
+        assertEquals("sql", cold.findInBox(-19, 47, -18, 48).getSource());
+        verify(reportRepository).findLocationsInBox(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void invalidBoxesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> index.findInBox(-91, 47, -18, 48));
+        assertThrows(IllegalArgumentException.class, () -> index.findInBox(-19, -181, -18, 48));
+        assertThrows(IllegalArgumentException.class, () -> index.findInBox(Double.NaN, 47, -18, 48));
+        assertThrows(IllegalArgumentException.class, () -> index.findInBox(-18, 47, -19, 48));
+        assertThrows(IllegalArgumentException.class, () -> index.findClusters(-19, 47, -18, 181, 5));
+    }
+
+    @Test
+    void reportWhoseCoordinatesAreClearedLeavesTheMap() {
+        Report report = new Report();
+        report.setId(1L);
+        index.indexReport(report);
+        assertEquals(Set.of(2L), ids(index.findInBox(-18.91, 47.52, -18.90, 47.53)));
+    }
+
+    @Test
+    void clustersAggregateCountBudgetAndStatuses() {
+        // Zoom 5 : cellules de 2,8125°, les trois reports tombent dans la même
+        List<ReportSpatialIndex.Cluster> clusters = index.findClusters(-19, 47, -18, 48, 5).getClusters();
+        assertEquals(1, clusters.size());
+        ReportSpatialIndex.Cluster cluster = clusters.get(0);
+        assertEquals(3, cluster.getCount());
+        assertEquals(0, new BigDecimal("3500").compareTo(cluster.getBudget()));
+        assertEquals(Map.of("nouveau", 2, "termine", 1), cluster.getStatuses());
+        assertEquals((-18.91 - 18.90 - 18.80) / 3, cluster.getLatitude(), 1e-9);
+        assertNull(cluster.getReportId());
+    }
+
+    @Test
+    void singletonClusterCarriesItsReport() {
+        List<ReportSpatialIndex.Cluster> clusters = index.findClusters(-18.81, 47.59, -18.79, 47.61, 15).getClusters();
+        assertEquals(1, clusters.size());
+        assertEquals(1, clusters.get(0).getCount());
+        assertEquals(3L, clusters.get(0).getReportId());
+    }
+
+    @Test
+    void beyondTheLastClusterZoomEachReportStandsAlone() {
+        assertEquals(3, index.findClusters(-19, 47, -18, 48, 19).getClusters().size());
+    }
+
+    @Test
+    void clusterRequestsOutOfBoundsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> index.findClusters(-19, 47, -18, 48, -1));
+        assertThrows(IllegalArgumentException.class, () -> index.findClusters(-19, 47, -18, 48, ReportSpatialIndex.MAX_ZOOM + 1));
+        // Le monde entier au zoom 18 recouvre bien plus que reports.clusters.max-cells cellules
+        assertThrows(IllegalArgumentException.class, () -> index.findClusters(-90, -180, 90, 180, 18));
+    }
+
+    @Test
+    void removedReportsLeaveBoxesAndClusters() {
+        index.removeReports(List.of(1L));
+        assertEquals(Set.of(2L, 3L), ids(index.findInBox(-19, 47, -18, 48)));
+        assertEquals(2, index.findClusters(-19, 47, -18, 48, 5).getClusters().get(0).getCount());
+    }
+
+    private static Set<Long> ids(ReportSpatialIndex.Box box) {
+        return box.getPoints().stream().map(ReportSpatialIndex.Point::getId).collect(Collectors.toSet());
+    }
+
+    private static ReportLocation location(Long id, String latitude, String longitude, String status, String budget) {
+        return new ReportLocation() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public BigDecimal getLatitude() {
+                return new BigDecimal(latitude);
+            }
+
+            @Override
+            public BigDecimal getLongitude() {
+                return new BigDecimal(longitude);
+            }
+
+            @Override
+            public String getStatus() {
+                return status;
+            }
+
+            @Override
+            public BigDecimal getBudget() {
+                return budget != null ? new BigDecimal(budget) : null;
+            }
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.cloud.Timestamp;
+import com.itu.cloud.entity.SyncLog;
+import jakarta.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Débit de la synchronisation contre {@link InMemoryDocumentStore}.
+ *
+ * Lancé uniquement par {@code mvn -Pbenchmark test}, sur une base PostgreSQL
+ * dédiée (voir application-benchmark.properties) : les tables y sont vidées.
+ * Pour chaque volume de benchmark.sizes, N utilisateurs et N reports (une photo
+ * chacun) sont générés, puis on mesure par mode : documents/s, requêtes SQL
+ * préparées et pic de heap.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class SyncBenchmarkTest {
+
+    @Autowired
+    private FirebaseSyncService firebaseSyncService;
+
+    @Autowired
+    private InMemoryDocumentStore store;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    static Stream<Integer> sizes() {
+        return Arrays.stream(System.getProperty("benchmark.sizes", "10000").split(","))
+                .map(String::trim)
+                .map(Integer::valueOf);
+    }
+
+    @ParameterizedTest(name = "{0} documents")
+    @MethodSource("sizes")
+    void syncThroughput(int size) {
+        reset();
+        seed(size);
+
+        // 1. Pull complet vers une base vide
+        measure(size, "pull full", FirebaseSyncService.TYPE_PULL, FirebaseSyncService.MODE_FULL);
+
+        // 2. Pull incrémental après modification de 1 % des documents
+        int changed = Math.max(1, size / 100);
+        for (int i = 0; i < changed; i++) {
+            String id = userId(i * 100 % size);
+            Map<String, Object> doc = store.get("users", id).orElseThrow();
+            doc.put("lastName", "Modifié " + i);
+            doc.remove("updatedAt");
+            store.put("users", id, doc);
+        }
+        measure(size, "pull incremental", FirebaseSyncService.TYPE_PULL, FirebaseSyncService.MODE_INCREMENTAL);
+
+        // 3. Push de toutes les lignes, contenu réellement modifié
+        jdbcTemplate.update("update users set synced_at = null, sync_hash = null");
+        jdbcTemplate.update("update reports set synced_at = null, sync_hash = null");
+        measure(size, "push", FirebaseSyncService.TYPE_PUSH, FirebaseSyncService.MODE_FULL);
+
+        // 4. Push de lignes marquées modifiées mais identiques (écritures évitées)
+        jdbcTemplate.update("update users set synced_at = null");
+        jdbcTemplate.update("update reports set synced_at = null");
+        measure(size, "push no-op", FirebaseSyncService.TYPE_PUSH, FirebaseSyncService.MODE_FULL);
+    }
+
+    private void measure(int size, String label, String syncType, String mode) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        statistics.clear();
+        long requestsBefore = store.getRequests();
+
+        SyncStats stats = new SyncStats();
+        long start = System.nanoTime();
+        SyncLog log = firebaseSyncService.sync(syncType, mode, null, stats);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("[Benchmark] %,9d | %-16s | %,10d docs | %8.2f s | %,10.0f docs/s | %,9d SQL | %,8d RPC | %,6d Mo heap | %d ignorés%n",
+                size, label, stats.getProcessed(), seconds, stats.getProcessed() / seconds,
+                statistics.getPrepareStatementCount(), store.getRequests() - requestsBefore,
+                peakHeap / (1024 * 1024), stats.getSkipped());
+        assertEquals("success", log.getStatus(), log.getErrorMessage());
+    }
+
+    private void reset() {
+        jdbcTemplate.execute("truncate table photo_reports, reports, users, sync_watermark, sync_checkpoint, sync_log, "
+                + "sync_outbox, change_log, change_log_consumer restart identity cascade");
+        store.clear();
+    }
+
+    private void seed(int size) {
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> user = new HashMap<>();
+            user.put("email", "user" + i + "@bench.local");
+            user.put("firstName", "Prénom " + i);
+            user.put("lastName", "Nom " + i);
+            user.put("role", "utilisateur");
+            store.put("users", userId(i), user);
+        }
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> report = new HashMap<>();
+            report.put("userId", userId(i));
+            report.put("userEmail", "user" + i + "@bench.local");
+            report.put("latitude", -18.9 + (i % 1000) / 10_000.0);
+            report.put("longitude", 47.5 + (i / 1000 % 1000) / 10_000.0);
+            report.put("description", "Signalement " + i);
+            report.put("status", "nouveau");
+            report.put("surface", (double) (i % 500));
+            report.put("budget", (double) (i % 10_000) * 1000);
+            report.put("photos", List.of("https://bench.local/photos/" + i + ".jpg"));
+            report.put("updatedAt", Timestamp.now());
+            store.put("reports", String.format("r%08d", i), report);
+        }
+    }
+
+    private static String userId(int i) {
+        return String.format("u%08d", i);
+    }
+}
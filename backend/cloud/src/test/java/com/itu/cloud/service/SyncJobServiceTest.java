@@ -0,0 +1,145 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.itu.cloud.entity.SyncLease;
+import com.itu.cloud.entity.SyncLog;
+import com.itu.cloud.repository.SyncLeaseRepository;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+/**
+ * Baux des jobs de synchro : prise, conflit avec un autre nœud, heartbeat (y
+ * compris base injoignable), et arrêt du job quand le bail est perdu. La synchro simulée valide des lots
+ * jusqu'à ce qu'on l'arrête.
+ */
+class SyncJobServiceTest {
+
+    private SyncLeaseRepository leaseRepository;
+    private SyncLeaseService leases;
+    private FirebaseSyncService firebaseSyncService;
+    private SyncJobService jobs;
+
+    @BeforeEach
+    void setUp() {
+        leaseRepository = mock(SyncLeaseRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        leases = new SyncLeaseService(leaseRepository, transactionManager, "node-a");
+        ReflectionTestUtils.setField(leases, "ttlMs", 30_000L);
+
+        firebaseSyncService = mock(FirebaseSyncService.class);
+        when(firebaseSyncService.sync(anyString(), anyString(), any(), any())).thenAnswer(inv -> {
+            SyncStats stats = inv.getArgument(3);
+            SyncLog log = new SyncLog();
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    stats.chunkCommitted();
+                    Thread.sleep(5);
+                }
+                log.setStatus("success");
+            } catch (SyncStats.SyncAbortedException e) {
+                log.setStatus("partial");
+                log.setErrorMessage(e.getMessage());
+            }
+            return log;
+        });
+        jobs = new SyncJobService(firebaseSyncService, leases, 1, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+    }
+
+    @Test
+    void jobTakesTheLeaseOfItsTypeAndHeartbeatKeepsIt() {
+        SyncJob job = jobs.submit(FirebaseSyncService.TYPE_PULL, null, null);
+        verify(leaseRepository).upsert(eq("sync-pull"), eq("node-a"), eq(job.getId()), anyLong());
+        assertTrue(leases.isHeld("sync-pull"));
+
+        when(leaseRepository.findNamesHeldBy("node-a")).thenReturn(List.of("sync-pull"));
+        leases.heartbeat();
+        verify(leaseRepository).renewAll(eq("node-a"), anyLong());
+        assertTrue(leases.isHeld("sync-pull"));
+        assertNull(job.getStats().getAbortReason());
+    }
+
+    @Test
+    void conflictingLeaseOnAnotherNodeRejectsTheJob() {
+        SyncLease held = mock(SyncLease.class);
+        when(held.getHolder()).thenReturn("node-b");
+        when(held.getJobId()).thenReturn("job-b");
+        when(leaseRepository.findActiveHeldByOthers(anyCollection(), eq("node-a"))).thenReturn(List.of(held));
+
+        SyncJobService.SyncJobConflictException conflict = assertThrows(SyncJobService.SyncJobConflictException.class,
+                () -> jobs.submit(FirebaseSyncService.TYPE_FULL, null, null));
+        assertEquals("node-b", conflict.getLeader());
+        assertEquals("job-b", conflict.getActiveJobId());
+        verify(leaseRepository, never()).upsert(anyString(), anyString(), anyString(), anyLong());
+        verify(firebaseSyncService, never()).sync(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void unreachableDatabaseKeepsTheLeaseUntilItsTtlRunsOut() throws Exception {
+        SyncJob job = jobs.submit(FirebaseSyncService.TYPE_PULL, null, null);
+        when(leaseRepository.renewAll(anyString(), anyLong())).thenThrow(new IllegalStateException("base injoignable"));
+
+        // Dans le TTL : rien ne prouve qu'un autre nœud a repris le bail
+        leases.heartbeat();
+        assertTrue(leases.isHeld("sync-pull"));
+        assertNull(job.getStats().getAbortReason());
+
+        ReflectionTestUtils.setField(leases, "ttlMs", 1L);
+        Thread.sleep(5);
+        leases.heartbeat();
+        assertFalse(leases.isHeld("sync-pull"));
+        job.whenFinished().get(5, TimeUnit.SECONDS);
+        assertTrue(job.getErrorMessage().startsWith("Bail sync-pull perdu"), job.getErrorMessage());
+    }
+
+    @Test
+    void lostLeaseStopsTheRunningJobAndCancelsTheQueuedOne() throws Exception {
+        // Un seul worker : le push attend en file derrière le pull
+        SyncJob running = jobs.submit(FirebaseSyncService.TYPE_PULL, null, null);
+        SyncJob queued = jobs.submit(FirebaseSyncService.TYPE_PUSH, null, null);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!SyncJob.STATE_RUNNING.equals(running.getState()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // Heartbeat : nos baux ont été repris entre-temps
+        when(leaseRepository.findNamesHeldBy("node-a")).thenReturn(List.of());
+        leases.heartbeat();
+
+        running.whenFinished().get(5, TimeUnit.SECONDS);
+        assertEquals("partial", running.getStatus(), running.getErrorMessage());
+        assertTrue(running.getErrorMessage().startsWith("Bail sync-pull perdu"), running.getErrorMessage());
+
+        assertTrue(queued.isFinished());
+        assertEquals("failed", queued.getStatus());
+        assertTrue(queued.getErrorMessage().startsWith("Bail sync-push perdu"), queued.getErrorMessage());
+        assertNull(queued.getStartedAt());
+        verify(firebaseSyncService, never()).sync(eq(FirebaseSyncService.TYPE_PUSH), anyString(), any(), any());
+        assertFalse(leases.isHeld("sync-pull"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.itu.cloud.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Intervalle adaptatif de {@link SyncSchedulerService} : raccourci quand il y a
+ * du travail, allongé sinon, pause après des erreurs répétées. Les exécutions
+ * sont déclenchées à la main ; l'intervalle minimal est assez long pour que le
+ * minuteur ne se déclenche pas pendant le test.
+ */
+class SyncSchedulerServiceTest {
+
+    private static final long MIN = 60_000;
+    private static final long MAX = 480_000;
+
+    private SyncJobService syncJobService;
+    private SyncSchedulerService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        syncJobService = mock(SyncJobService.class);
+        scheduler = new SyncSchedulerService(syncJobService);
+        ReflectionTestUtils.setField(scheduler, "minIntervalMs", MIN);
+        ReflectionTestUtils.setField(scheduler, "maxIntervalMs", MAX);
+        ReflectionTestUtils.setField(scheduler, "busyThreshold", 100);
+        ReflectionTestUtils.setField(scheduler, "jitter", 0.2);
+        ReflectionTestUtils.setField(scheduler, "pauseAfterErrors", 3);
+        ReflectionTestUtils.setField(scheduler, "pauseMs", 600_000L);
+        scheduler.resume();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void intervalDoublesWhenIdleAndHalvesWhenBusyWithinBounds() {
+        finish(0, false);
+        assertEquals(2 * MIN, intervalMs());
+        finish(0, false);
+        finish(0, false);
+        finish(0, false);
+        assertEquals(MAX, intervalMs());
+
+        // Quelques changements : l'intervalle ne bouge pas
+        finish(10, false);
+        assertEquals(MAX, intervalMs());
+
+        finish(150, false);
+        assertEquals(MAX / 2, intervalMs());
+        for (int i = 0; i < 5; i++) finish(150, false);
+        assertEquals(MIN, intervalMs());
+        assertEquals(SyncSchedulerService.STATE_WAITING, scheduler.getStatus().get("state"));
+    }
+
+    @Test
+    void repeatedErrorsPauseTheSchedulerUntilResumed() {
+        finish(0, true);
+        finish(0, true);
+        assertEquals(SyncSchedulerService.STATE_WAITING, scheduler.getStatus().get("state"));
+        finish(0, true);
+
+        assertEquals(SyncSchedulerService.STATE_PAUSED, scheduler.getStatus().get("state"));
+        assertNotNull(scheduler.getStatus().get("pausedUntil"));
+        assertEquals(MAX, intervalMs());
+
+        scheduler.resume();
+        assertEquals(SyncSchedulerService.STATE_WAITING, scheduler.getStatus().get("state"));
+        assertEquals(0, scheduler.getStatus().get("consecutiveErrors"));
+        assertEquals(MIN, intervalMs());
+    }
+
+    @Test
+    void aSuccessResetsTheErrorCount() {
+        finish(0, true);
+        finish(0, true);
+        finish(0, false);
+        finish(0, true);
+        assertEquals(1, scheduler.getStatus().get("consecutiveErrors"));
+        assertNull(scheduler.getStatus().get("pausedUntil"));
+    }
+
+    @Test
+    void runFeedsTheJobResultIntoTheInterval() {
+        SyncStats stats = new SyncStats();
+        stats.addPulled(120);
+        stats.addPushed(30);
+        SyncJob job = mock(SyncJob.class);
+        when(job.getId()).thenReturn("job-1");
+        when(job.getStats()).thenReturn(stats);
+        when(job.getStatus()).thenReturn("success");
+        when(job.whenFinished()).thenReturn(CompletableFuture.completedFuture(job));
+        when(syncJobService.submit(anyString(), anyString(), any())).thenReturn(job);
+
+        ReflectionTestUtils.invokeMethod(scheduler, "runOnce");
+
+        assertEquals("job-1", scheduler.getStatus().get("lastJobId"));
+        assertEquals(150, scheduler.getStatus().get("lastChanges"));
+        assertEquals(MIN, intervalMs());
+    }
+
+    @Test
+    void syncAlreadyRunningElsewhereIsNotCountedAsAnError() {
+        SyncJob active = mock(SyncJob.class);
+        when(active.getId()).thenReturn("job-b");
+        when(active.getSyncType()).thenReturn(FirebaseSyncService.TYPE_FULL);
+        SyncJobService.SyncJobConflictException conflict = new SyncJobService.SyncJobConflictException(active);
+        when(syncJobService.submit(anyString(), anyString(), any())).thenThrow(conflict);
+
+        ReflectionTestUtils.invokeMethod(scheduler, "runOnce");
+
+        assertEquals(SyncSchedulerService.STATE_WAITING, scheduler.getStatus().get("state"));
+        assertEquals(0, scheduler.getStatus().get("consecutiveErrors"));
+        assertEquals(MIN, intervalMs());
+    }
+
+    private void finish(int changes, boolean failed) {
+        ReflectionTestUtils.invokeMethod(scheduler, "onFinished", changes, failed);
+    }
+
+    private long intervalMs() {
+        return (Long) scheduler.getStatus().get("intervalMs");
+    }
+}
@@ -0,0 +1,21 @@
+// src/api/reports.js
+
+export const REPORTS_PAGE_SIZE = 50;
+
+// Une page de GET /api/reports (filtres dans params) ; cursor = nextCursor de la page précédente.
+export async function fetchReportsPage(apiBase, params = {}, cursor = null) {
+  const query = new URLSearchParams({ ...params, limit: String(REPORTS_PAGE_SIZE) });
+  if (cursor) query.set('cursor', cursor);
+  const res = await fetch(`${apiBase}/api/reports?${query}`);
+  if (!res.ok) throw new Error(`Erreur HTTP: ${res.status}`);
+  const page = await res.json();
+  return { items: page.items || [], nextCursor: page.nextCursor || null };
+}
+
+// Nombre de reports par statut, agrégé côté serveur (params : userId facultatif).
+export async function fetchStatusCounts(apiBase, params = {}) {
+  const query = new URLSearchParams(params);
+  const res = await fetch(`${apiBase}/api/reports/status-counts?${query}`);
+  if (!res.ok) throw new Error(`Erreur HTTP: ${res.status}`);
+  return res.json();
+}
@@ -57,8 +57,36 @@ function MapClickHandler({ onMapClick, authUser }) {
   return null;
 }
 
+// Signale la zone visible au chargement puis après chaque déplacement ou zoom
+function MapViewportHandler({ onViewportChange }) {
+  const map = useMapEvents({
+    moveend() {
+      onViewportChange(map.getBounds(), map.getZoom());
+    },
+  });
+  useEffect(() => {
+    onViewportChange(map.getBounds(), map.getZoom());
+  }, []);
+  return null;
+}
+
+// Groupe de reports : pastille proportionnelle au nombre, un clic zoome dessus
+const clusterIcon = (count) => {
+  const size = Math.round(30 + Math.min(30, 6 * Math.log10(count) * 2));
+  return L.divIcon({
+    html: `<div><span>${count}</span></div>`,
+    className: 'report-cluster',
+    iconSize: [size, size],
+  });
+};
+
 export default function MapPage({ authUser, mapOptions = {} }) {
+  // Reports seuls (marqueurs) et groupes de reports de la zone visible
   const [reports, setReports] = useState([]);
+  const [clusters, setClusters] = useState([]);
+  // Détail des reports (la carte ne reçoit que position et statut), chargé à l'ouverture de la bulle
+  const [reportDetails, setReportDetails] = useState({});
+  const viewportRequest = useRef(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [isModalOpen, setIsModalOpen] = useState(false);
@@ -81,10 +109,6 @@ export default function MapPage({ authUser, mapOptions = {} }) {
     ? [mapOptions.centerLat, mapOptions.centerLng] 
     : ANTANANARIVO_CENTER;
 
-  useEffect(() => {
-    fetchReports();
-  }, []);
-
   // Si des options de carte sont passées, centrer la carte
   useEffect(() => {
     if (mapRef.current && mapOptions.centerLat && mapOptions.centerLng) {
@@ -92,21 +116,41 @@ export default function MapPage({ authUser, mapOptions = {} }) {
     }
   }, [mapOptions]);
 
-  const fetchReports = async () => {
+  const fetchReports = async (bounds, zoom) => {
+    // Seule la dernière zone demandée compte
+    if (viewportRequest.current) viewportRequest.current.abort();
+    const controller = new AbortController();
+    viewportRequest.current = controller;
     setLoading(true);
     setError(null);
     try {
-      const response = await fetch(`${apiBase()}/api/reports`);
+      const query = new URLSearchParams({
+        // La carte peut déborder du monde (zoom arrière, défilement horizontal) : l'API attend des degrés valides
+        minLat: Math.max(-90, bounds.getSouth()),
+        minLng: Math.max(-180, bounds.getWest()),
+        maxLat: Math.min(90, bounds.getNorth()),
+        maxLng: Math.min(180, bounds.getEast()),
+        zoom,
+      });
+      const response = await fetch(`${apiBase()}/api/reports/clusters?${query}`, { signal: controller.signal });
       if (!response.ok) {
         throw new Error(`Erreur HTTP: ${response.status}`);
       }
       const data = await response.json();
-      setReports(data);
+      const cells = data.clusters || [];
+      setClusters(cells.filter(c => c.count > 1));
+      setReports(cells.filter(c => c.count === 1).map(c => ({
+        id: c.id,
+        latitude: c.latitude,
+        longitude: c.longitude,
+        status: Object.keys(c.statuses || {})[0],
+      })));
     } catch (err) {
+      if (err.name === 'AbortError') return;
       console.error('Erreur lors du chargement des rapports:', err);
       setError('Impossible de charger les rapports');
     } finally {
-      setLoading(false);
+      if (viewportRequest.current === controller) setLoading(false);
     }
   };
 
@@ -170,6 +214,11 @@ export default function MapPage({ authUser, mapOptions = {} }) {
     }
   };
 
+  // Compteurs de la zone visible : reports seuls et contenu des groupes
+  const countVisible = (status) =>
+    reports.filter(r => !status || r.status === status).length
+    + clusters.reduce((sum, c) => sum + (status ? (c.statuses?.[status] || 0) : c.count), 0);
+
   const getStatusColor = (status) => {
     switch (status?.toLowerCase()) {
       case 'nouveau':
@@ -196,6 +245,18 @@ export default function MapPage({ authUser, mapOptions = {} }) {
     return `${apiBase()}${photoUrl}`;
   };
 
+  const fetchReportDetails = async (reportId) => {
+    if (!reportId || reportDetails[reportId]) return;
+    try {
+      const resp = await fetch(`${apiBase()}/api/reports/${reportId}`);
+      if (!resp.ok) return;
+      const data = await resp.json();
+      setReportDetails(prev => ({ ...prev, [reportId]: data }));
+    } catch (err) {
+      console.error('Erreur lors du chargement du rapport', err);
+    }
+  };
+
   const fetchPhotosForReport = async (reportId) => {
     if (!reportId) return;
     // use cache
@@ -234,27 +295,27 @@ export default function MapPage({ authUser, mapOptions = {} }) {
         <div className="stats-grid">
           <div className="stat-card">
             <div className="stat-top">Total</div>
-            <div className="stat-number">{reports.length}</div>
-            <div className="stat-label">Total rapports</div>
+            <div className="stat-number">{countVisible()}</div>
+            <div className="stat-label">Rapports visibles</div>
           </div>
           <div className="stat-card">
             <div className="stat-top">Nouveaux</div>
             <div className="stat-number">
-              {reports.filter(r => r.status === 'nouveau').length}
+              {countVisible('nouveau')}
             </div>
             <div className="stat-label">Nouveaux</div>
           </div>
           <div className="stat-card">
             <div className="stat-top">En cours</div>
             <div className="stat-number">
-              {reports.filter(r => r.status === 'en_cours').length}
+              {countVisible('en_cours')}
             </div>
             <div className="stat-label">En cours</div>
           </div>
           <div className="stat-card">
             <div className="stat-top">Résolus</div>
             <div className="stat-number">
-              {reports.filter(r => r.status === 'termine').length}
+              {countVisible('termine')}
             </div>
             <div className="stat-label">Résolus</div>
           </div>
@@ -282,6 +343,23 @@ export default function MapPage({ authUser, mapOptions = {} }) {
             
             {/* Gestionnaire de clics sur la carte */}
             <MapClickHandler onMapClick={handleMapClick} authUser={authUser} />
+            <MapViewportHandler onViewportChange={(bounds, zoom) => fetchReports(bounds, zoom)} />
+
+            {/* Groupes de reports */}
+            {clusters.map((cluster) => (
+              <Marker
+                key={`cluster-${cluster.latitude}-${cluster.longitude}`}
+                position={[cluster.latitude, cluster.longitude]}
+                icon={clusterIcon(cluster.count)}
+                title={`${cluster.count} rapports : ${cluster.statuses?.nouveau || 0} nouveaux, ${cluster.statuses?.en_cours || 0} en cours, ${cluster.statuses?.termine || 0} résolus — budget ${cluster.budget ?? 0} €`}
+                eventHandlers={{
+                  click: () => {
+                    const map = mapRef.current;
+                    if (map) map.setView([cluster.latitude, cluster.longitude], Math.min(map.getZoom() + 2, map.getMaxZoom()));
+                  }
+                }}
+              />
+            ))}
             
             {/* Marqueur central d'Antananarivo */}
             <Marker position={ANTANANARIVO_CENTER}>
@@ -295,13 +373,15 @@ export default function MapPage({ authUser, mapOptions = {} }) {
             </Marker>
 
             {/* Marqueurs des rapports */}
-            {reports.map((report) => (
+            {reports.map((point) => {
+              const report = { ...point, ...(reportDetails[point.id] || {}) };
+              return (
               <Marker
                 key={report.id}
                 position={[report.latitude, report.longitude]}
                 icon={report.status === 'nouveau' ? newReportIcon : (report.status === 'en_cours' || report.status === 'en-cours' ? enCoursIcon : reportIcon)}
                 eventHandlers={{
-                  popupopen: () => fetchPhotosForReport(report.id)
+                  popupopen: () => { fetchReportDetails(report.id); fetchPhotosForReport(report.id); }
                 }}
               >
                 <Popup maxWidth={400}>
@@ -378,7 +458,8 @@ export default function MapPage({ authUser, mapOptions = {} }) {
                   </div>
                 </Popup>
               </Marker>
-            ))}
+              );
+            })}
           </MapContainer>
         </div>
       </div>
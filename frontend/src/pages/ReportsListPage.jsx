@@ -1,11 +1,22 @@
 // src/pages/ReportsListPage.jsx
 import React, { useState, useEffect } from 'react';
+import { fetchReportsPage, fetchStatusCounts } from '../api/reports';
+
+// Onglet -> statut stocké en base
+const TAB_STATUS = { nouveau: 'nouveau', encours: 'en_cours', termine: 'termine' };
+const emptyPages = () => ({
+  nouveau: { items: [], nextCursor: null },
+  encours: { items: [], nextCursor: null },
+  termine: { items: [], nextCursor: null },
+});
 
 export default function ReportsListPage({ authUser, onPageChange, mapOptions = {} }) {
   const isManager = !!(authUser && ((authUser.role && String(authUser.role).toLowerCase().includes('manager')) || authUser.is_manager));
-  const [userReports, setUserReports] = useState([]);
-  const [adminReportsByStatus, setAdminReportsByStatus] = useState({ nouveau: [], encours: [], termine: [] });
+  // Une page chargée par onglet, complétée par "Charger plus" (curseur nextCursor)
+  const [reportsByStatus, setReportsByStatus] = useState(emptyPages);
+  const [statusCounts, setStatusCounts] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState(null);
   const [activeTab, setActiveTab] = useState(String(mapOptions.initialTab || 'nouveau').toLowerCase());
   const [statusMapping, setStatusMapping] = useState({});
@@ -14,12 +25,7 @@ export default function ReportsListPage({ authUser, onPageChange, mapOptions = {
   const apiBase = () => import.meta.env.VITE_API_BASE || 'http://localhost:8080';
 
   useEffect(() => {
-    // if adminView is requested via navigation, use admin fetch; otherwise fetch user reports
-    if (mapOptions?.adminView) {
-      fetchAdminReportsByStatus();
-    } else {
-      fetchUserReports();
-    }
+    fetchReports();
     // also fetch config mapping and stats (visible to all users)
     fetchStatusMapping();
     fetchStats();
@@ -32,9 +38,14 @@ export default function ReportsListPage({ authUser, onPageChange, mapOptions = {
     }
   }, [mapOptions]);
 
-  const fetchUserReports = async () => {
-    if (!authUser || authUser.guest) {
-      setUserReports([]);
+  // Filtres communs : tous les reports en vue admin, sinon ceux de l'utilisateur
+  const baseParams = () => (mapOptions?.adminView ? {} : { userId: authUser.id });
+
+  // Première page de chaque onglet et compteurs par statut (agrégés côté serveur)
+  const fetchReports = async () => {
+    if (!mapOptions?.adminView && (!authUser || authUser.guest)) {
+      setReportsByStatus(emptyPages());
+      setStatusCounts(null);
       setLoading(false);
       return;
     }
@@ -42,59 +53,50 @@ export default function ReportsListPage({ authUser, onPageChange, mapOptions = {
     setLoading(true);
     setError(null);
     try {
-      const response = await fetch(`${apiBase()}/api/reports?userId=${authUser.id}`);
-      if (!response.ok) throw new Error(`Erreur HTTP: ${response.status}`);
-      const data = await response.json();
-      setUserReports(data);
+      const params = baseParams();
+      const tabs = Object.keys(TAB_STATUS);
+      const [pages, counts] = await Promise.all([
+        Promise.all(tabs.map(tab => fetchReportsPage(apiBase(), { ...params, status: TAB_STATUS[tab] }))),
+        fetchStatusCounts(apiBase(), params).catch(() => null),
+      ]);
+      const grouped = emptyPages();
+      tabs.forEach((tab, i) => { grouped[tab] = pages[i]; });
+      setReportsByStatus(grouped);
+      setStatusCounts(counts);
     } catch (err) {
-      console.error('Erreur lors du chargement des rapports utilisateur:', err);
+      console.error('Erreur lors du chargement des rapports:', err);
       setError('Impossible de charger les rapports');
     } finally {
       setLoading(false);
     }
   };
 
-  const fetchAdminReportsByStatus = async () => {
-    setLoading(true);
-    setError(null);
+  // Page suivante de l'onglet actif
+  const loadMore = async () => {
+    const current = reportsByStatus[activeTab];
+    if (!current?.nextCursor || loadingMore) return;
+    setLoadingMore(true);
     try {
-      const endpoints = [
-        { key: 'nouveau', path: '/api/reports/nouveau' },
-        { key: 'encours', path: '/api/reports/en-cours' },
-        { key: 'termine', path: '/api/reports/termine' },
-      ];
-
-      const calls = endpoints.map(async (e) => {
-        // prefer dedicated endpoint (e.path), but fallback to query parameter with canonical status token
-        try {
-          const res = await fetch(`${apiBase()}${e.path}`);
-          if (res.ok) {
-            const data = await res.json();
-            if (Array.isArray(data) && data.length > 0) return { key: e.key, data };
-          }
-        } catch (err) {
-          // ignore and fallback
-        }
-        // fallback mapping
-        const fallbackStatus = e.key === 'encours' ? 'en_cours' : e.key;
-        const res2 = await fetch(`${apiBase()}/api/reports?status=${encodeURIComponent(fallbackStatus)}`);
-        if (!res2.ok) throw new Error(`HTTP ${res2.status}`);
-        const data2 = await res2.json();
-        return { key: e.key, data: data2 };
-      });
-
-      const results = await Promise.all(calls);
-      const grouped = { nouveau: [], encours: [], termine: [] };
-      results.forEach(r => { grouped[r.key] = r.data || []; });
-      setAdminReportsByStatus(grouped);
+      const page = await fetchReportsPage(apiBase(), { ...baseParams(), status: TAB_STATUS[activeTab] }, current.nextCursor);
+      setReportsByStatus(prev => ({
+        ...prev,
+        [activeTab]: { items: [...prev[activeTab].items, ...page.items], nextCursor: page.nextCursor },
+      }));
     } catch (err) {
-      console.error('Erreur lors du chargement des rapports par statut (admin):', err);
+      console.error('Erreur lors du chargement de la page suivante:', err);
       setError('Impossible de charger les rapports');
     } finally {
-      setLoading(false);
+      setLoadingMore(false);
     }
   };
 
+  // Compteur d'un onglet : agrégat serveur, à défaut les reports déjà chargés
+  const tabCount = (tab) => {
+    const byStatus = statusCounts?.by_status;
+    if (byStatus) return byStatus[TAB_STATUS[tab]] || 0;
+    return reportsByStatus[tab]?.items.length || 0;
+  };
+
   const getStatusBadgeClass = (status) => {
     switch (status?.toLowerCase()) {
       case 'nouveau':
@@ -283,7 +285,7 @@ export default function ReportsListPage({ authUser, onPageChange, mapOptions = {
       const res = await fetch(url, { method: 'POST' });
       if (!res.ok) throw new Error(`Erreur HTTP: ${res.status}`);
       // refresh
-      if (mapOptions?.adminView) await fetchAdminReportsByStatus(); else await fetchUserReports();
+      await fetchReports();
       setShowAssignModal(false);
       setSelectedReport(null);
     } catch (err) {
@@ -305,7 +307,7 @@ export default function ReportsListPage({ authUser, onPageChange, mapOptions = {
       }
       const res = await fetch(url, { method: 'POST' });
       if (!res.ok) throw new Error(`Erreur HTTP: ${res.status}`);
-      if (mapOptions?.adminView) await fetchAdminReportsByStatus(); else await fetchUserReports();
+      await fetchReports();
     } catch (err) {
       console.error("Erreur lors de la terminaison du rapport:", err);
       setError("Impossible de terminer le rapport");
@@ -351,10 +353,7 @@ export default function ReportsListPage({ authUser, onPageChange, mapOptions = {
           <div>
             <h2>📋 {mapOptions?.adminView ? 'Gestion des Rapports' : 'Mes Rapports'}</h2>
             <p className="page-subtitle">
-              {mapOptions?.adminView
-                ? `${(adminReportsByStatus.nouveau.length || 0) + (adminReportsByStatus.encours.length || 0) + (adminReportsByStatus.termine.length || 0)} rapport(s) trouvés`
-                : `${userReports.length} rapport(s) trouvés`
-              }
+              {`${statusCounts ? statusCounts.total : Object.keys(TAB_STATUS).reduce((n, tab) => n + tabCount(tab), 0)} rapport(s) trouvés`}
             </p>
           </div>
           {/* Stats card visible to all users */}
@@ -398,7 +397,7 @@ export default function ReportsListPage({ authUser, onPageChange, mapOptions = {
             <div className="alert alert-danger">
               <strong>Erreur :</strong> {error}
             </div>
-            <button className="btn btn-outline" onClick={() => mapOptions?.adminView ? fetchAdminReportsByStatus() : fetchUserReports()}>
+            <button className="btn btn-outline" onClick={fetchReports}>
               🔄 Réessayer
             </button>
           </div>
@@ -408,12 +407,12 @@ export default function ReportsListPage({ authUser, onPageChange, mapOptions = {
           {/* Afficher seulement la section active */}
           {mapOptions?.adminView ? (
             <section className="reports-section">
-              <h3>{activeTab === 'nouveau' ? '🆕 Nouveau' : activeTab === 'encours' ? '🔄 En cours' : '✅ Terminé'} ({adminReportsByStatus[activeTab]?.length || 0})</h3>
-              { (adminReportsByStatus[activeTab] || []).length === 0 ? (
+              <h3>{activeTab === 'nouveau' ? '🆕 Nouveau' : activeTab === 'encours' ? '🔄 En cours' : '✅ Terminé'} ({tabCount(activeTab)})</h3>
+              { (reportsByStatus[activeTab]?.items || []).length === 0 ? (
                 <p className="text-muted">Aucun rapport.</p>
               ) : (
                 <ul className="reports-list">
-                  {(adminReportsByStatus[activeTab] || []).map((report) => (
+                  {(reportsByStatus[activeTab]?.items || []).map((report) => (
                     <li key={report.id} className="report-list-item card"
                         onMouseEnter={() => { setHoveredReportId(report.id); fetchPhotosForReport(report.id); }}
                         onMouseLeave={() => setHoveredReportId(null)}>
@@ -478,12 +477,12 @@ export default function ReportsListPage({ authUser, onPageChange, mapOptions = {
             </section>
           ) : (
             <section className="reports-section">
-              <h3>{activeTab === 'nouveau' ? '🆕 Nouveau' : activeTab === 'encours' ? '🔄 En cours' : '✅ Terminé'} ({userReports.filter(r => r.status === (activeTab === 'encours' ? 'en_cours' : activeTab)).length})</h3>
-              {userReports.filter(r => r.status === (activeTab === 'encours' ? 'en_cours' : activeTab)).length === 0 ? (
+              <h3>{activeTab === 'nouveau' ? '🆕 Nouveau' : activeTab === 'encours' ? '🔄 En cours' : '✅ Terminé'} ({tabCount(activeTab)})</h3>
+              {(reportsByStatus[activeTab]?.items || []).length === 0 ? (
                 <p className="text-muted">Aucun rapport.</p>
               ) : (
                 <ul className="reports-list">
-                  {userReports.filter(r => r.status === (activeTab === 'encours' ? 'en_cours' : activeTab)).map((report) => (
+                  {(reportsByStatus[activeTab]?.items || []).map((report) => (
                     <li key={report.id} className="report-list-item card"
                         onMouseEnter={() => { setHoveredReportId(report.id); fetchPhotosForReport(report.id); }}
                         onMouseLeave={() => setHoveredReportId(null)}>
@@ -527,6 +526,13 @@ export default function ReportsListPage({ authUser, onPageChange, mapOptions = {
               )}
             </section>
           )}
+          {reportsByStatus[activeTab]?.nextCursor && (
+            <div style={{display:'flex',justifyContent:'center',marginTop:12}}>
+              <button className="btn btn-outline" onClick={loadMore} disabled={loadingMore}>
+                {loadingMore ? 'Chargement...' : 'Charger plus'}
+              </button>
+            </div>
+          )}
         </div>
       )}
       {showAssignModal && (
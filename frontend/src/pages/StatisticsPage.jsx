@@ -1,13 +1,19 @@
 import React, { useEffect, useState } from 'react';
+import { fetchReportsPage, fetchStatusCounts } from '../api/reports';
 
 export default function StatisticsPage({ authUser, onBack }) {
   const apiBase = () => import.meta.env.VITE_API_BASE || 'http://localhost:8080';
   const [stats, setStats] = useState(null);
+  // Tableau chargé page par page ; les totaux viennent des agrégats serveur
   const [reports, setReports] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [counts, setCounts] = useState(null);
   const [mapping, setMapping] = useState({});
 
   useEffect(() => {
     fetchStats();
+    fetchCounts();
     fetchReports();
     fetchMapping();
   }, []);
@@ -20,14 +26,24 @@ export default function StatisticsPage({ authUser, onBack }) {
     } catch (e) {}
   };
 
-  const fetchReports = async () => {
+  const fetchCounts = async () => {
     try {
-      const res = await fetch(`${apiBase()}/api/reports`);
-      if (!res.ok) return;
-      setReports(await res.json());
+      setCounts(await fetchStatusCounts(apiBase()));
     } catch (e) {}
   };
 
+  const fetchReports = async (cursor = null) => {
+    setLoadingMore(true);
+    try {
+      const page = await fetchReportsPage(apiBase(), {}, cursor);
+      setReports(prev => (cursor ? [...prev, ...page.items] : page.items));
+      setNextCursor(page.nextCursor);
+    } catch (e) {
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const fetchMapping = async () => {
     try {
       const res = await fetch(`${apiBase()}/api/config/status-mapping`);
@@ -53,10 +69,10 @@ export default function StatisticsPage({ authUser, onBack }) {
     return typeof v === 'number' && !Number.isNaN(v) ? Math.min(Math.max(v,0),100) : 0;
   };
 
-  const totalReports = reports.length;
-  const countsByStatus = reports.reduce((acc, r) => {
-    const k = normalizeStatus(r.status);
-    acc[k] = (acc[k] || 0) + 1;
+  const totalReports = counts ? counts.total : 0;
+  const countsByStatus = Object.entries(counts?.by_status || {}).reduce((acc, [status, n]) => {
+    const k = normalizeStatus(status);
+    acc[k] = (acc[k] || 0) + n;
     return acc;
   }, {});
   const processedCount = countsByStatus['termine'] || 0;
@@ -84,6 +100,11 @@ export default function StatisticsPage({ authUser, onBack }) {
           <div style={{fontSize:12,color:'var(--text-secondary)'}}>Délai moyen de traitement</div>
           <div style={{fontWeight:700,marginTop:6}}>{stats ? formatDurationDaysHours(stats.average_processing_seconds) : '—'}</div>
           <div style={{fontSize:12,color:'var(--text-secondary)',marginTop:4}}>Rapports traités: {stats ? stats.count_processed : '—'}</div>
+          {stats && stats.p50_processing_seconds != null && (
+            <div style={{fontSize:12,color:'var(--text-secondary)',marginTop:4}}>
+              Médiane: {formatDurationDaysHours(stats.p50_processing_seconds)} • p90: {formatDurationDaysHours(stats.p90_processing_seconds)} • p99: {formatDurationDaysHours(stats.p99_processing_seconds)}
+            </div>
+          )}
         </div>
 
         <div className="card" style={{padding:12,flex:1,background:'var(--success-light)'}}>
@@ -122,6 +143,13 @@ export default function StatisticsPage({ authUser, onBack }) {
               ))}
             </tbody>
           </table>
+          {nextCursor && (
+            <div style={{display:'flex',justifyContent:'center',marginTop:12}}>
+              <button className="btn btn-outline" onClick={() => fetchReports(nextCursor)} disabled={loadingMore}>
+                {loadingMore ? 'Chargement...' : 'Charger plus'}
+              </button>
+            </div>
+          )}
         </div>
       </div>
     </div>
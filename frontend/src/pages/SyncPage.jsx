@@ -4,6 +4,7 @@ import React, { useState, useEffect } from 'react';
 export default function SyncPage({ authUser }) {
   const [syncing, setSyncing] = useState(false);
   const [syncResult, setSyncResult] = useState(null);
+  const [jobProgress, setJobProgress] = useState(null);
   const [syncLogs, setSyncLogs] = useState([]);
   const [loadingLogs, setLoadingLogs] = useState(false);
 
@@ -29,57 +30,49 @@ export default function SyncPage({ authUser }) {
     fetchSyncLogs();
   }, []);
 
-  // Synchronisation complète
-  const handleFullSync = async () => {
+  // Lance un job de synchronisation puis suit sa progression jusqu'à la fin
+  const runSyncJob = async (url) => {
     setSyncing(true);
     setSyncResult(null);
+    setJobProgress(null);
     try {
-      const url = authUser?.id 
-        ? `${apiBase()}/api/sync/full?userId=${authUser.id}`
-        : `${apiBase()}/api/sync/full`;
-      
       const res = await fetch(url, { method: 'POST' });
-      const data = await res.json();
-      setSyncResult(data);
+      let job = await res.json();
+      if (!res.ok && res.status !== 409) {
+        setSyncResult(job);
+        return;
+      }
+      // 409 : une synchro est déjà en cours, on suit celle-ci
+      while (job.state !== 'finished') {
+        setJobProgress(job);
+        await new Promise((resolve) => setTimeout(resolve, 1000));
+        const poll = await fetch(`${apiBase()}/api/sync/jobs/${job.jobId}`);
+        if (!poll.ok) throw new Error(`Job ${job.jobId} introuvable`);
+        job = await poll.json();
+      }
+      setSyncResult(job);
       fetchSyncLogs(); // Rafraîchir les logs
     } catch (err) {
       setSyncResult({ status: 'ERROR', error: err.message });
     } finally {
+      setJobProgress(null);
       setSyncing(false);
     }
   };
 
-  // Pull depuis Firebase
-  const handlePull = async () => {
-    setSyncing(true);
-    setSyncResult(null);
-    try {
-      const res = await fetch(`${apiBase()}/api/sync/pull`, { method: 'POST' });
-      const data = await res.json();
-      setSyncResult(data);
-      fetchSyncLogs();
-    } catch (err) {
-      setSyncResult({ status: 'ERROR', error: err.message });
-    } finally {
-      setSyncing(false);
-    }
+  // Synchronisation complète
+  const handleFullSync = () => {
+    const url = authUser?.id 
+      ? `${apiBase()}/api/sync/full?userId=${authUser.id}`
+      : `${apiBase()}/api/sync/full`;
+    return runSyncJob(url);
   };
 
+  // Pull depuis Firebase
+  const handlePull = () => runSyncJob(`${apiBase()}/api/sync/pull`);
+
   // Push vers Firebase
-  const handlePush = async () => {
-    setSyncing(true);
-    setSyncResult(null);
-    try {
-      const res = await fetch(`${apiBase()}/api/sync/push`, { method: 'POST' });
-      const data = await res.json();
-      setSyncResult(data);
-      fetchSyncLogs();
-    } catch (err) {
-      setSyncResult({ status: 'ERROR', error: err.message });
-    } finally {
-      setSyncing(false);
-    }
-  };
+  const handlePush = () => runSyncJob(`${apiBase()}/api/sync/push`);
 
   return (
     <div className="sync-page">
@@ -147,13 +140,42 @@ export default function SyncPage({ authUser }) {
         </div>
       </div>
 
+      {/* Progression du job en cours */}
+      {jobProgress && (
+        <div className="sync-result">
+          <h3>⏳ Synchronisation en cours ({jobProgress.phase})</h3>
+          <div className="sync-stats">
+            <div className="stat">
+              <span className="stat-value">
+                {jobProgress.phaseProcessed}{jobProgress.phaseTotal != null ? ` / ${jobProgress.phaseTotal}` : ''}
+              </span>
+              <span className="stat-label">Documents (phase)</span>
+            </div>
+            <div className="stat">
+              <span className="stat-value">{jobProgress.throughputPerSecond}</span>
+              <span className="stat-label">Documents / s</span>
+            </div>
+            {jobProgress.etaSeconds != null && (
+              <div className="stat">
+                <span className="stat-value">{jobProgress.etaSeconds}s</span>
+                <span className="stat-label">Temps restant estimé</span>
+              </div>
+            )}
+          </div>
+        </div>
+      )}
+
       {/* Résultat de la synchronisation */}
       {syncResult && (
         <div className={`sync-result ${syncResult.status === 'success' ? 'success' : 'error'}`}>
           <h3>
-            {syncResult.status === 'success' ? '✅ Synchronisation réussie' : '❌ Erreur de synchronisation'}
+            {syncResult.status === 'success'
+              ? '✅ Synchronisation réussie'
+              : syncResult.status === 'partial'
+                ? '⚠️ Synchronisation partielle'
+                : '❌ Erreur de synchronisation'}
           </h3>
-          {syncResult.status === 'success' ? (
+          {syncResult.status === 'success' || syncResult.status === 'partial' ? (
             <div className="sync-stats">
               {syncResult.recordsPulled !== undefined && (
                 <div className="stat">
@@ -191,6 +213,18 @@ export default function SyncPage({ authUser }) {
                   <span className="stat-label">Rapports exportés</span>
                 </div>
               )}
+              {syncResult.recordsFailed !== undefined && syncResult.recordsFailed > 0 && (
+                <div className="stat stat-warning">
+                  <span className="stat-value">{syncResult.recordsFailed}</span>
+                  <span className="stat-label">Documents en échec</span>
+                </div>
+              )}
+              {syncResult.recordsSkipped !== undefined && syncResult.recordsSkipped > 0 && (
+                <div className="stat">
+                  <span className="stat-value">{syncResult.recordsSkipped}</span>
+                  <span className="stat-label">Inchangés (ignorés)</span>
+                </div>
+              )}
               {syncResult.conflicts !== undefined && syncResult.conflicts > 0 && (
                 <div className="stat stat-warning">
                   <span className="stat-value">{syncResult.conflicts}</span>
@@ -219,7 +253,9 @@ export default function SyncPage({ authUser }) {
                 <th>Type</th>
                 <th>Importés</th>
                 <th>Exportés</th>
+                <th>Inchangés</th>
                 <th>Conflits</th>
+                <th>Durée</th>
                 <th>Statut</th>
               </tr>
             </thead>
@@ -230,7 +266,11 @@ export default function SyncPage({ authUser }) {
                   <td>{log.syncType || '-'}</td>
                   <td>{log.recordsPulled ?? 0}</td>
                   <td>{log.recordsPushed ?? 0}</td>
+                  <td>{log.recordsSkipped ?? 0}</td>
                   <td>{log.conflicts ?? 0}</td>
+                  <td title={(log.phases || []).map((p) => `${p.phase} : ${(p.durationMs / 1000).toFixed(1)} s`).join('\n')}>
+                    {log.durationMs != null ? `${(log.durationMs / 1000).toFixed(1)} s` : '-'}
+                  </td>
                   <td>
                     <span className={`status-badge ${log.status?.toLowerCase()}`}>
                       {log.status === 'success' ? '✅' : '❌'} {log.status}
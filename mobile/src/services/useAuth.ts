@@ -6,7 +6,7 @@ import {
   onAuthStateChanged,
   User as FirebaseUser
 } from 'firebase/auth';
-import { doc, setDoc, getDoc } from 'firebase/firestore';
+import { doc, setDoc, getDoc, serverTimestamp } from 'firebase/firestore';
 import { auth, db } from '@/config/firebase';
 import { User } from '@/types';
 import { usePushNotifications } from '@/services/usePushNotifications';
@@ -39,8 +39,9 @@ export function useAuth() {
 
       await setDoc(doc(db, 'users', firebaseUser.uid), {
         ...userData,
-        createdAt: new Date().toISOString(),
-        updatedAt: new Date().toISOString(),
+        // Horodatages serveur : le pull incrémental du backend trie et reprend sur updatedAt
+        createdAt: serverTimestamp(),
+        updatedAt: serverTimestamp(),
       });
 
       currentUser.value = userData;
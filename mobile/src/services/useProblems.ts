@@ -86,9 +86,10 @@ export function useProblems() {
       const q = query(collection(db, 'reports'), orderBy('createdAt', 'desc'));
       const querySnapshot = await getDocs(q);
       
-      problems.value = querySnapshot.docs.map(doc => 
-        convertFirestoreData(doc.id, doc.data())
-      );
+      // Les signalements supprimés restent en base, marqués "deleted"
+      problems.value = querySnapshot.docs
+        .filter(doc => doc.data().deleted !== true)
+        .map(doc => convertFirestoreData(doc.id, doc.data()));
     } catch (error) {
       console.error('Erreur lors du chargement des signalements:', error);
       throw error;
@@ -140,9 +141,9 @@ export function useProblems() {
       );
       const querySnapshot = await getDocs(q);
       
-      return querySnapshot.docs.map(doc => 
-        convertFirestoreData(doc.id, doc.data())
-      );
+      return querySnapshot.docs
+        .filter(doc => doc.data().deleted !== true)
+        .map(doc => convertFirestoreData(doc.id, doc.data()));
     } catch (error) {
       console.error('Erreur lors de la récupération des signalements:', error);
       throw error;
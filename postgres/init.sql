@@ -10,7 +10,10 @@ CREATE TABLE users (
     login_attempts INTEGER DEFAULT 0,
     is_blocked BOOLEAN DEFAULT false,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    synced_at TIMESTAMP,
+    sync_hash VARCHAR(64),
+    deleted_at TIMESTAMP
 );
 
 -- 2. TABLE SESSIONS
@@ -31,6 +34,13 @@ CREATE TABLE entreprises (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Appartenance des utilisateurs aux entreprises (User.entreprises)
+CREATE TABLE user_entreprise (
+    user_id INTEGER NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    entreprise_id INTEGER NOT NULL REFERENCES entreprises(id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, entreprise_id)
+);
+
 -- 4. TABLE REPORTS
 CREATE TABLE reports (
     id SERIAL PRIMARY KEY,
@@ -46,35 +56,192 @@ CREATE TABLE reports (
     entreprise_id INTEGER REFERENCES entreprises(id),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    synced_at TIMESTAMP
+    synced_at TIMESTAMP,
+    sync_hash VARCHAR(64),
+    deleted_at TIMESTAMP
 );
 
+-- Lignes à pousser vers Firebase (index partiels utilisés par le push incrémental)
+CREATE INDEX idx_users_dirty ON users (id) WHERE synced_at IS NULL OR updated_at > synced_at;
+CREATE INDEX idx_reports_dirty ON reports (id) WHERE synced_at IS NULL OR updated_at > synced_at;
+-- Suppressions logiques (tombstones) : propagation vers Firebase et compactage
+CREATE INDEX idx_users_deleted ON users (deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX idx_reports_deleted ON reports (deleted_at) WHERE deleted_at IS NOT NULL;
+-- Liste paginée (/api/reports) : ordre (created_at, id) décroissant, seul ou après un filtre d'égalité
+CREATE INDEX idx_reports_page ON reports (created_at DESC, id DESC) WHERE deleted_at IS NULL;
+CREATE INDEX idx_reports_page_status ON reports (status, created_at DESC, id DESC) WHERE deleted_at IS NULL;
+CREATE INDEX idx_reports_page_user ON reports (user_id, created_at DESC, id DESC) WHERE deleted_at IS NULL;
+CREATE INDEX idx_reports_page_entreprise ON reports (entreprise_id, created_at DESC, id DESC) WHERE deleted_at IS NULL;
+CREATE INDEX idx_reports_page_niveau ON reports (niveau, created_at DESC, id DESC) WHERE deleted_at IS NULL;
+-- Zone de la carte (/api/reports/bbox) lue en SQL tant que l'index spatial en mémoire n'est pas prêt
+CREATE INDEX idx_reports_position ON reports (latitude, longitude) WHERE deleted_at IS NULL;
+
 CREATE TABLE histo_reports (
     id_histo_reports SERIAL PRIMARY KEY,
     report_id INTEGER NOT NULL REFERENCES reports(id),
     status VARCHAR(20) CHECK (status IN ('nouveau', 'en_cours', 'termine')),
     date_changement TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
+-- Statistiques de traitement (/api/reports/stats) : lecture de l'historique par l'index seul
+CREATE INDEX idx_histo_reports_status ON histo_reports (status, report_id, date_changement);
+
+-- Dernier état des statistiques de délai de traitement, maintenues en mémoire au fil des transitions
+CREATE TABLE processing_stats_snapshot (
+    name VARCHAR(50) PRIMARY KEY,
+    processed_count BIGINT,
+    sum_seconds DOUBLE PRECISION,
+    histogram BYTEA,
+    updated_at TIMESTAMP
+);
 
 CREATE TABLE photo_reports (
     id SERIAL PRIMARY KEY,
     report_id INTEGER NOT NULL REFERENCES reports(id) ON DELETE CASCADE,
     photo_url VARCHAR(500) NOT NULL,
     description TEXT,
-    uploaded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    uploaded_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    deleted_at TIMESTAMP,
+    CONSTRAINT uk_photo_reports_url UNIQUE (photo_url)
 );
+CREATE INDEX idx_photo_reports_deleted ON photo_reports (deleted_at) WHERE deleted_at IS NOT NULL;
+-- Les ids sont réservés par blocs de 50 par Hibernate (insertions groupées)
+ALTER SEQUENCE photo_reports_id_seq INCREMENT BY 50;
 
 -- 5. TABLE SYNC_LOG
 CREATE TABLE sync_log (
     id SERIAL PRIMARY KEY,
     sync_type VARCHAR(20) CHECK (sync_type IN ('pull', 'push', 'full')),
+    sync_mode VARCHAR(20) DEFAULT 'full' CHECK (sync_mode IN ('full', 'incremental', 'parallel')),
     records_pulled INTEGER DEFAULT 0,
     records_pushed INTEGER DEFAULT 0,
     conflicts INTEGER DEFAULT 0,
+    records_failed INTEGER DEFAULT 0,
+    records_skipped INTEGER DEFAULT 0,
     status VARCHAR(20) CHECK (status IN ('success', 'partial', 'failed')),
     error_message TEXT,
     synced_by INTEGER REFERENCES users(id),
-    synced_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    synced_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    duration_ms BIGINT
+);
+
+-- 5a. TABLE SYNC_PHASE_LOG (durée de chaque phase d'une synchro ; les phases peuvent se recouvrir)
+CREATE TABLE sync_phase_log (
+    id SERIAL PRIMARY KEY,
+    sync_log_id INTEGER NOT NULL REFERENCES sync_log(id) ON DELETE CASCADE,
+    phase VARCHAR(30) NOT NULL,
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP,
+    duration_ms BIGINT,
+    documents BIGINT,
+    firestore_reads BIGINT,
+    firestore_writes BIGINT,
+    sql_statements BIGINT,
+    firestore_retries BIGINT,
+    errors BIGINT
+);
+CREATE INDEX idx_sync_phase_log_sync_log ON sync_phase_log(sync_log_id);
+CREATE INDEX idx_sync_log_synced_at ON sync_log (synced_at DESC);
+
+-- 5b. TABLE SYNC_WATERMARK (dernier (updatedAt, id) Firestore tiré par collection)
+CREATE TABLE sync_watermark (
+    collection_name VARCHAR(50) PRIMARY KEY,
+    last_updated_at TIMESTAMPTZ,
+    last_document_id VARCHAR(255),
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 5c. TABLE SYNC_CHECKPOINT (dernier lot validé d'une synchro non terminée, par type et par phase)
+CREATE TABLE sync_checkpoint (
+    sync_type VARCHAR(20) NOT NULL CHECK (sync_type IN ('pull', 'push', 'full')),
+    phase VARCHAR(30) NOT NULL,
+    sync_mode VARCHAR(20) NOT NULL CHECK (sync_mode IN ('full', 'incremental', 'parallel')),
+    last_cursor VARCHAR(255),
+    phase_completed BOOLEAN DEFAULT FALSE,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (sync_type, phase)
+);
+
+-- 5d. TABLE SYNC_OUTBOX (propagations vers Firestore en échec, réessayées avec délai exponentiel)
+CREATE TABLE sync_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_type VARCHAR(20) NOT NULL CHECK (aggregate_type IN ('report', 'photo')),
+    aggregate_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending' CHECK (status IN ('pending', 'dead')),
+    attempts INTEGER DEFAULT 0,
+    next_attempt_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_sync_outbox_due ON sync_outbox (next_attempt_at, id) WHERE status = 'pending';
+
+-- 5e. TABLE CHANGE_LOG (journal des modifications de users, reports et photo_reports, alimenté par triggers :
+-- les écritures SQL directes y figurent aussi). Le numéro de séquence n'est attribué qu'une fois toutes
+-- les transactions plus anciennes terminées (voir ChangeLogService), il croît donc dans l'ordre de lecture.
+CREATE TABLE change_log (
+    id BIGSERIAL PRIMARY KEY,
+    seq BIGINT UNIQUE,
+    entity VARCHAR(20) NOT NULL CHECK (entity IN ('user', 'report', 'photo')),
+    entity_id BIGINT NOT NULL,
+    op VARCHAR(10) NOT NULL CHECK (op IN ('insert', 'update', 'delete')),
+    txid XID8 NOT NULL DEFAULT pg_current_xact_id(),
+    changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_change_log_unsequenced ON change_log (txid, id) WHERE seq IS NULL;
+CREATE INDEX idx_change_log_entity ON change_log (entity, seq);
+
+-- Position (dernier seq traité) de chaque consommateur du journal
+CREATE TABLE change_log_consumer (
+    consumer VARCHAR(50) PRIMARY KEY,
+    last_seq BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE FUNCTION log_change() RETURNS trigger AS $$
+DECLARE
+    -- Colonnes de suivi de synchro : les modifier seules n'est pas un changement
+    bookkeeping TEXT[] := ARRAY['updated_at', 'synced_at', 'sync_hash', 'firebase_id', 'firebase_uid'];
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        -- La purge d'un tombstone (compactage) a déjà été journalisée à la suppression logique
+        IF OLD.deleted_at IS NULL THEN
+            INSERT INTO change_log (entity, entity_id, op) VALUES (TG_ARGV[0], OLD.id, 'delete');
+        END IF;
+    ELSIF TG_OP = 'UPDATE' AND NEW.deleted_at IS NOT NULL THEN
+        -- Suppression logique : un seul "delete", rien pour les mises à jour d'un tombstone
+        IF OLD.deleted_at IS NULL THEN
+            INSERT INTO change_log (entity, entity_id, op) VALUES (TG_ARGV[0], NEW.id, 'delete');
+        END IF;
+    ELSIF TG_OP = 'INSERT' OR (to_jsonb(NEW) - bookkeeping) IS DISTINCT FROM (to_jsonb(OLD) - bookkeeping) THEN
+        INSERT INTO change_log (entity, entity_id, op) VALUES (TG_ARGV[0], NEW.id, lower(TG_OP));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_users_change_log AFTER INSERT OR UPDATE OR DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION log_change('user');
+CREATE TRIGGER trg_reports_change_log AFTER INSERT OR UPDATE OR DELETE ON reports
+    FOR EACH ROW EXECUTE FUNCTION log_change('report');
+CREATE TRIGGER trg_photo_reports_change_log AFTER INSERT OR UPDATE OR DELETE ON photo_reports
+    FOR EACH ROW EXECUTE FUNCTION log_change('photo');
+
+-- 5f. TABLE SYNC_LEASE (bail exclusif d'une tâche de synchro entre les nœuds du backend, prolongé par heartbeat)
+CREATE TABLE sync_lease (
+    name VARCHAR(50) PRIMARY KEY,
+    holder VARCHAR(100) NOT NULL,
+    job_id VARCHAR(36),
+    acquired_at TIMESTAMP,
+    heartbeat_at TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+-- 5g. TABLE SYNC_DEFERRED_REPORT (documents "reports" tirés avant leur auteur, relus par id au pull suivant)
+CREATE TABLE sync_deferred_report (
+    document_id VARCHAR(255) PRIMARY KEY,
+    reason TEXT,
+    attempts INTEGER DEFAULT 1,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
 -- 6. TABLE CONFIG